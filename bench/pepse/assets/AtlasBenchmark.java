@@ -0,0 +1,113 @@
+package pepse.assets;
+
+import danogl.gui.ImageReader;
+import danogl.gui.Sound;
+import danogl.gui.SoundReader;
+import danogl.gui.rendering.ImageRenderable;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+import pepse.hud.HPBar;
+import pepse.world.Avatar;
+import pepse.world.NPC.Skeleton;
+import pepse.world.daynight.Moon;
+import pepse.world.phenomenon.Explosion;
+import pepse.world.phenomenon.Rain;
+import pepse.world.weapons.Fireball;
+
+import javax.sound.sampled.Clip;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Random;
+
+/**
+ * Compares the sprites of the game as separate full size images and packed into the SpriteAtlas: bytes held by
+ * the images, and time to render a busy scene (a fight with many skeletons, hearts and explosions) into an
+ * off-screen image. Runs headless, sounds are not loaded.
+ */
+public class AtlasBenchmark {
+    private static final int WINDOW_WIDTH = 1280;
+    private static final int WINDOW_HEIGHT = 720;
+    private static final int WARMUP_FRAMES = 50;
+    private static final int FRAMES = 300;
+    private static final long SEED = 1234;
+    // the scene: {path, count, width, height}
+    private static final Object[][] SCENE = {
+            {"src/assets/heart.png", 600, 10, 10},
+            {"src/assets/skeletonWalk1.png", 40, 80, 80},
+            {"src/assets/skeletonWalk2.png", 40, 80, 80},
+            {"src/assets/explosion3.png", 10, 150, 150},
+            {"src/assets/explosion6.png", 10, 150, 150},
+            {"src/assets/fireball1.png", 10, 70, 30},
+            {"src/assets/grave.png", 5, 130, 120},
+            {"src/assets/walk1.png", 1, 80, 80},
+            {"src/assets/moon.png", 1, 250, 250},
+    };
+    private static final String RESULT_MSG = "%-12s images=%6d KB  render=%.2f ms/frame%n";
+
+    /**
+     * runs the benchmark
+     * @param args unused
+     */
+    public static void main(String[] args) {
+        measure("full images", load(false));
+        measure("atlas", load(true));
+    }
+
+    // loads the sprites the game declares, packed or not
+    private static AssetCache load(boolean packSprites) {
+        // the benchmark only renders, so sounds are not opened
+        SoundReader noSounds = new SoundReader(null) {
+            @Override
+            public Sound readSound(String path) { return new Sound(new Clip[0]); }
+        };
+        // without a window a missing file can't be reported, so it becomes an empty placeholder
+        ImageReader images = new ImageReader(null) {
+            @Override
+            public ImageRenderable readImage(String path, boolean isTransparent) {
+                if (!new File(path).isFile())
+                    return new ImageRenderable(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB));
+                return super.readImage(path, isTransparent);
+            }
+        };
+        AssetCache assets = new AssetCache(images, noSounds);
+        assets.setPackSprites(packSprites);
+        AssetManifest manifest = new AssetManifest();
+        Avatar.declareAssets(manifest);
+        Fireball.declareAssets(manifest);
+        Explosion.declareAssets(manifest);
+        Skeleton.declareAssets(manifest);
+        HPBar.declareAssets(manifest);
+        Moon.declareAssets(manifest);
+        Rain.declareAssets(manifest);
+        assets.preload(manifest);
+        return assets;
+    }
+
+    // renders the scene many times and prints the average time of a frame
+    private static void measure(String mode, AssetCache assets) {
+        BufferedImage screen = new BufferedImage(WINDOW_WIDTH, WINDOW_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = screen.createGraphics();
+        for (int i = 0; i < WARMUP_FRAMES; i++)
+            renderScene(g, assets);
+        long start = System.nanoTime();
+        for (int i = 0; i < FRAMES; i++)
+            renderScene(g, assets);
+        double msPerFrame = (System.nanoTime() - start) / 1e6 / FRAMES;
+        g.dispose();
+        System.out.printf(RESULT_MSG, mode, assets.imageBytes() / 1024, msPerFrame);
+    }
+
+    private static void renderScene(Graphics2D g, AssetCache assets) {
+        // same positions every frame, so both modes draw the exact same scene
+        Random random = new Random(SEED);
+        for (Object[] sprite : SCENE) {
+            Renderable renderable = assets.readImage((String) sprite[0]);
+            Vector2 dimensions = new Vector2((int) sprite[2], (int) sprite[3]);
+            for (int i = 0; i < (int) sprite[1]; i++) {
+                Vector2 topLeft = new Vector2(random.nextInt(WINDOW_WIDTH), random.nextInt(WINDOW_HEIGHT));
+                renderable.render(g, topLeft, dimensions, 0, random.nextBoolean(), false, 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package pepse.assets;
+
+import pepse.PepseGameManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures time-to-first-frame of the game, reading the loose asset files and reading the asset bundle.
+ * Every run is a fresh JVM that starts the game and is ended once it reports its first frame, so the file system
+ * and JIT state of one run don't leak into the next. Builds the bundle first if it's missing.
+ */
+public class StartupBenchmark {
+    private static final int DEFAULT_RUNS = 5;
+    private static final Pattern FIRST_FRAME = Pattern.compile("time to first frame: ([0-9.]+) ms");
+    private static final String RESULT_MSG = "%-12s runs=%d min=%.1f ms avg=%.1f ms max=%.1f ms%n";
+
+    /**
+     * runs the benchmark
+     * @param args optional: number of runs per mode.
+     * @throws IOException if a run can't be started
+     * @throws InterruptedException if interrupted while waiting for a run
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_RUNS;
+        if (AssetBundle.open(AssetBundle.DEFAULT_BUNDLE_PATH) == null)
+            AssetBundle.main(new String[0]);
+        report("loose files", measure(false, runs));
+        report("bundle", measure(true, runs));
+    }
+
+    // starts the game `runs` times and collects the time to first frame of each run
+    private static List<Double> measure(boolean useBundle, int runs) throws IOException, InterruptedException {
+        List<Double> times = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            Process process = new ProcessBuilder(
+                    System.getProperty("java.home") + "/bin/java",
+                    "-cp", System.getProperty("java.class.path"),
+                    "-D" + PepseGameManager.USE_BUNDLE_PROPERTY + "=" + useBundle,
+                    "-D" + PepseGameManager.STATS_PROPERTY + "=true",
+                    PepseGameManager.class.getName())
+                    .redirectErrorStream(true)
+                    .start();
+            try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = out.readLine()) != null) {
+                    Matcher matcher = FIRST_FRAME.matcher(line);
+                    if (matcher.find()) {
+                        times.add(Double.parseDouble(matcher.group(1)));
+                        break;
+                    }
+                }
+            }
+            // the game runs until its window is closed, so the run ends here
+            process.destroy();
+            process.waitFor();
+        }
+        return times;
+    }
+
+    private static void report(String mode, List<Double> times) {
+        if (times.isEmpty()) {
+            System.out.println(mode + ": no run reached the first frame");
+            return;
+        }
+        double sum = 0, min = Double.MAX_VALUE, max = 0;
+        for (double time : times) {
+            sum += time;
+            min = Math.min(min, time);
+            max = Math.max(max, time);
+        }
+        System.out.printf(RESULT_MSG, mode, times.size(), min, sum / times.size(), max);
+    }
+}
@@ -0,0 +1,133 @@
+package pepse.hud;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import danogl.util.Vector2;
+import pepse.world.Block;
+import pepse.world.HeightPyramid;
+import pepse.world.Terrain;
+import pepse.world.generation.GenerationPipeline;
+import pepse.world.trees.Tree;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Measures the minimap against sampling the ground for it. A player runs right through a world built ahead of it a
+ * chunk at a time, with the heights of the columns built kept in height pyramids, as the game does. Every frame,
+ * the highest ground under every pixel of the map is found by sampling the ground of every column under it, by
+ * sampling a column a pixel, and from the pyramid, and the map is drawn from its image, drawn again only when it
+ * moved by a pixel. Reports the time of each a frame, how often the image was drawn again, the time to set a
+ * column in a pyramid, and that the pyramid gives the highest of the columns under every entry.
+ */
+public class MinimapBenchmark {
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1280, 720);
+    private static final Vector2 MAP_DIMENSIONS = new Vector2(256, 64);
+    private static final int SEED = 123456;
+    private static final int LEVELS = 8;
+    private static final int CHUNK_WIDTH = 10 * Block.SIZE;
+    private static final int AHEAD = 2 * (int) WINDOW_DIMENSIONS.x(); // built ahead of the player, in pixels
+    private static final float SPEED = 400; // in pixels per second
+    private static final int FRAMES = 1200;
+    private static final float DELTA_TIME = 1 / 60f;
+    private static final int SETS = 1 << 20;
+    private static final int GROUND_LAYER = Layer.STATIC_OBJECTS;
+    private static final int TRUNK_LAYER = Layer.DEFAULT - 9;
+    private static final int LEAVES_LAYER = Layer.DEFAULT - 7;
+    private static final String FRAME_MSG = "%-28s %.4f ms a frame%n";
+    private static final String REDRAW_MSG = "map image drawn again %d times in %d frames%n";
+    private static final String SET_MSG = "set %d columns in a pyramid of %d levels: %.1f ns each%n";
+    private static final String SAME_MSG = "every entry of every level the highest of the columns under it: %b%n";
+
+    private static long sink = 0; // keeps the samples from being optimized away
+
+    /**
+     * runs the benchmark
+     * @param args unused
+     */
+    public static void main(String[] args) {
+        // the first run warms up the code, and isn't reported
+        measure(false);
+        measure(true);
+        sets();
+    }
+
+    private static void measure(boolean report) {
+        GameObjectCollection gameObjects = new GameObjectCollection();
+        Terrain terrain = new Terrain(gameObjects, GROUND_LAYER, WINDOW_DIMENSIONS, SEED);
+        Tree tree = new Tree(gameObjects, terrain, SEED, TRUNK_LAYER, LEAVES_LAYER, "trunk", "leaf", "ground");
+        HeightPyramid ground = new HeightPyramid(LEVELS), trees = new HeightPyramid(LEVELS);
+        terrain.setHeightPyramid(ground);
+        tree.setHeightPyramid(trees);
+        GenerationPipeline generation = new GenerationPipeline(SEED).add("terrain", terrain).add("trees", tree);
+        GameObject player = new GameObject(Vector2.ZERO, Vector2.ONES, null);
+        Minimap minimap = new Minimap(Vector2.ZERO, MAP_DIMENSIONS, player, ground, trees, Minimap.LEVEL);
+        Graphics2D g = new BufferedImage((int) WINDOW_DIMENSIONS.x(), (int) WINDOW_DIMENSIONS.y(),
+                BufferedImage.TYPE_INT_RGB).createGraphics();
+        int width = (int) MAP_DIMENSIONS.x(), span = 1 << Minimap.LEVEL;
+        int rightPointer = 0;
+        long everyColumn = 0, columnAPixel = 0, pyramid = 0, map = 0;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            float x = frame * SPEED * DELTA_TIME;
+            player.setCenter(new Vector2(x, terrain.groundHeightAt(x)));
+            for (; rightPointer < x + AHEAD; rightPointer += CHUNK_WIDTH)
+                generation.buildNow(rightPointer, rightPointer + CHUNK_WIDTH);
+            long index = Math.floorDiv((long) x, Block.SIZE) / span - width / 2;
+            long start = System.nanoTime();
+            for (int i = 0; i < width; i++) {
+                float highest = Float.MAX_VALUE;
+                for (int column = 0; column < span; column++)
+                    highest = Math.min(highest, terrain.groundHeightAt(((index + i) * span + column) * Block.SIZE));
+                sink += (long) highest;
+            }
+            everyColumn += System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < width; i++)
+                sink += (long) terrain.groundHeightAt((index + i) * span * Block.SIZE);
+            columnAPixel += System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < width; i++)
+                sink += ground.top(Minimap.LEVEL, index + i);
+            pyramid += System.nanoTime() - start;
+            start = System.nanoTime();
+            minimap.render(g);
+            map += System.nanoTime() - start;
+        }
+        if (!report)
+            return;
+        System.out.printf(FRAME_MSG, "sampling every column", everyColumn / 1e6 / FRAMES);
+        System.out.printf(FRAME_MSG, "sampling a column a pixel", columnAPixel / 1e6 / FRAMES);
+        System.out.printf(FRAME_MSG, "pyramid lookups", pyramid / 1e6 / FRAMES);
+        System.out.printf(FRAME_MSG, "map drawn from its image", map / 1e6 / FRAMES);
+        System.out.printf(REDRAW_MSG, minimap.redraws(), minimap.frames());
+        System.out.printf(SAME_MSG, same(terrain, ground, rightPointer / Block.SIZE));
+    }
+
+    // compares every entry of the pyramid over the columns built in front of the player to the columns under it
+    private static boolean same(Terrain terrain, HeightPyramid ground, long columns) {
+        long first = (long) (FRAMES * SPEED * DELTA_TIME) / Block.SIZE;
+        for (int level = 0; level < LEVELS; level++) {
+            for (long index = -Math.floorDiv(-first, 1L << level); (index + 1) << level <= columns; index++) {
+                int highest = Integer.MAX_VALUE;
+                for (long column = index << level; column < (index + 1) << level; column++)
+                    highest = Math.min(highest, (int) terrain.groundHeightAt(column * Block.SIZE));
+                if (ground.top(level, index) != highest)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    // the time to set columns, going right
+    private static void sets() {
+        HeightPyramid pyramid = new HeightPyramid(LEVELS);
+        long start = System.nanoTime();
+        for (int column = 0; column < SETS; column++)
+            pyramid.set(column, column * 31 % 1000);
+        long time = System.nanoTime() - start;
+        System.out.printf(SET_MSG, SETS, LEVELS, (double) time / SETS);
+        if (sink == 42)
+            System.out.println(pyramid);
+    }
+}
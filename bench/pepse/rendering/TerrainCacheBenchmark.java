@@ -0,0 +1,74 @@
+package pepse.rendering;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+import pepse.world.Block;
+import pepse.world.Terrain;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Measures the time to update and render the ground in a frame, block by block and from the render cache, at
+ * several window sizes. The terrain covers the screen and the 10 blocks the game keeps on each side of it, and
+ * every game object is updated and rendered, as the game manager does. Draws into an off-screen image, so it runs
+ * headless.
+ */
+public class TerrainCacheBenchmark {
+    private static final Vector2[] WINDOW_SIZES = {new Vector2(800, 600), new Vector2(1280, 720),
+            new Vector2(1920, 1080)};
+    private static final int SEED = 123456;
+    private static final int EXTEND_WORLD_BY = 10 * Block.SIZE;
+    private static final int WARMUP_FRAMES = 100;
+    private static final int FRAMES = 500;
+    private static final float DELTA_TIME = 1 / 60f;
+    private static final String RESULT_MSG = "%4dx%-4d %-14s %5d objects  update=%.3f ms  render=%.3f ms/frame%n";
+
+    /**
+     * runs the benchmark
+     * @param args unused
+     */
+    public static void main(String[] args) {
+        for (Vector2 windowDimensions : WINDOW_SIZES) {
+            measure(windowDimensions, false);
+            measure(windowDimensions, true);
+        }
+    }
+
+    private static void measure(Vector2 windowDimensions, boolean cached) {
+        BufferedImage screen = new BufferedImage((int) windowDimensions.x(), (int) windowDimensions.y(),
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = screen.createGraphics();
+        GameObjectCollection gameObjects = new GameObjectCollection();
+        GameObject center = new GameObject(windowDimensions.mult(0.5f), Vector2.ONES, null);
+        Camera camera = new Camera(center, Vector2.ZERO, windowDimensions, windowDimensions);
+        Terrain terrain = new Terrain(gameObjects, 0, windowDimensions, SEED);
+        if (cached)
+            TerrainRenderCache.create(gameObjects, -1, windowDimensions, camera, terrain);
+        terrain.createInRange(-EXTEND_WORLD_BY, (int) windowDimensions.x() + EXTEND_WORLD_BY);
+        // objects added to the collection are only in it after its next update.
+        gameObjects.update(0);
+        int objects = 0;
+        for (GameObject ignored : gameObjects)
+            objects++;
+        long updateTime = 0, renderTime = 0;
+        for (int frame = 0; frame < WARMUP_FRAMES + FRAMES; frame++) {
+            long start = System.nanoTime();
+            gameObjects.update(DELTA_TIME);
+            long updated = System.nanoTime();
+            for (GameObject gameObject : gameObjects)
+                gameObject.render(g, camera);
+            long rendered = System.nanoTime();
+            if (frame >= WARMUP_FRAMES) {
+                updateTime += updated - start;
+                renderTime += rendered - updated;
+            }
+        }
+        g.dispose();
+        System.out.printf(RESULT_MSG, (int) windowDimensions.x(), (int) windowDimensions.y(),
+                cached ? "render cache" : "block by block", objects, updateTime / 1e6 / FRAMES,
+                renderTime / 1e6 / FRAMES);
+    }
+}
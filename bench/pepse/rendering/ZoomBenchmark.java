@@ -0,0 +1,122 @@
+package pepse.rendering;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+import pepse.world.Block;
+import pepse.world.Terrain;
+import pepse.world.generation.GenerationPipeline;
+import pepse.world.trees.Tree;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Measures the time to update and render a frame of the ground and trees, with the camera showing the screen, and
+ * zoomed out to show ZOOM times as wide and high. Zoomed out, the world of objects is built either only around the
+ * camera, as the game does, with the rest of the view drawn from impostors, or over the whole view. The ground is
+ * drawn through the render cache, and the objects through the frustum culler, as the game does. Draws into an
+ * off-screen image, so it runs headless. The frames are measured in ROUNDS, and the fastest round is reported, so a
+ * pause of the machine in one doesn't move the ratios.
+ */
+public class ZoomBenchmark {
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1280, 720);
+    private static final float ZOOM = 4;
+    private static final int SEED = 123456;
+    private static final int CHUNK_WIDTH = ImpostorCache.CHUNK_WIDTH;
+    private static final int TILE_HEIGHT = ImpostorCache.TILE_HEIGHT;
+    private static final int EXTEND_WORLD_BY = 10 * Block.SIZE;
+    private static final float CULLING_MARGIN = 2 * Block.SIZE;
+    private static final int WARMUP_FRAMES = 300;
+    private static final int FRAMES = 500;
+    private static final int ROUNDS = 5;
+    private static final float DELTA_TIME = 1 / 60f;
+    private static final int GROUND_LAYER = Layer.STATIC_OBJECTS;
+    private static final int LOWER_GROUND_LAYER = Layer.STATIC_OBJECTS - 10;
+    private static final int TRUNK_LAYER = Layer.DEFAULT - 9;
+    private static final int LEAVES_LAYER = Layer.DEFAULT - 7;
+    private static final String RESULT_MSG =
+            "%-30s %6d objects %4d impostors  update=%.3f ms  render=%.3f ms  frame=%.3f ms (%.2fx)%n";
+
+    private static double normalFrame = 0;
+
+    /**
+     * runs the benchmark
+     * @param args unused
+     */
+    public static void main(String[] args) {
+        // the first run warms up the code, and isn't reported
+        measure("warm up", 1, false, false);
+        measure("screen", 1, false, true);
+        measure("zoomed out, impostors", ZOOM, true, true);
+        measure("zoomed out, objects everywhere", ZOOM, false, true);
+    }
+
+    private static void measure(String name, float zoom, boolean impostors, boolean report) {
+        Graphics2D g = new BufferedImage((int) WINDOW_DIMENSIONS.x(), (int) WINDOW_DIMENSIONS.y(),
+                BufferedImage.TYPE_INT_RGB).createGraphics();
+        GameObjectCollection gameObjects = new GameObjectCollection();
+        GameObject center = new GameObject(WINDOW_DIMENSIONS.mult(0.5f), Vector2.ONES, null);
+        Camera camera = new Camera(center, Vector2.ZERO, WINDOW_DIMENSIONS, WINDOW_DIMENSIONS);
+        camera.setDimensions(WINDOW_DIMENSIONS.mult(zoom));
+        camera.update(0);
+        FrustumCuller culler = new FrustumCuller(camera, CULLING_MARGIN);
+        Terrain terrain = new Terrain(gameObjects, GROUND_LAYER, WINDOW_DIMENSIONS, SEED);
+        Tree tree = new Tree(gameObjects, terrain, SEED, TRUNK_LAYER, LEAVES_LAYER, "trunk", "leaf", "ground");
+        TerrainRenderCache.create(gameObjects, LOWER_GROUND_LAYER, WINDOW_DIMENSIONS, camera, terrain);
+        ImpostorCache cache = null;
+        if (impostors)
+            cache = ImpostorCache.create(gameObjects, LOWER_GROUND_LAYER, WINDOW_DIMENSIONS, camera, terrain,
+                    tree);
+        // the world of objects covers the screen around the camera, or the whole view, in chunks and rows of tiles
+        Vector2 view = impostors ? WINDOW_DIMENSIONS : camera.getDimensions();
+        Vector2 topLeft = center.getCenter().subtract(view.mult(0.5f));
+        int left = Math.floorDiv((int) topLeft.x() - EXTEND_WORLD_BY, CHUNK_WIDTH) * CHUNK_WIDTH;
+        int right = -Math.floorDiv(-((int) (topLeft.x() + view.x()) + EXTEND_WORLD_BY), CHUNK_WIDTH) * CHUNK_WIDTH;
+        int top = Math.floorDiv((int) topLeft.y() - TILE_HEIGHT, TILE_HEIGHT) * TILE_HEIGHT;
+        int bottom = -Math.floorDiv(-((int) (topLeft.y() + view.y()) + TILE_HEIGHT), TILE_HEIGHT) * TILE_HEIGHT;
+        GenerationPipeline generation = new GenerationPipeline(SEED).add("terrain", terrain).add("trees", tree);
+        generation.setRows(top, bottom);
+        for (int x = left; x < right; x += CHUNK_WIDTH)
+            generation.buildNow(x, x + CHUNK_WIDTH);
+        if (cache != null)
+            cache.setDetail(left, right, top, bottom);
+        // objects added to the collection are only in it after its next update.
+        gameObjects.update(0);
+        int objects = 0;
+        for (GameObject ignored : gameObjects)
+            objects++;
+        long updateTime = 0, renderTime = 0;
+        for (int round = -1; round < ROUNDS; round++) {
+            // the first round warms up the code
+            int frames = round < 0 ? WARMUP_FRAMES : FRAMES;
+            long roundUpdate = 0, roundRender = 0;
+            for (int frame = 0; frame < frames; frame++) {
+                // every object is updated, as the game manager does
+                long start = System.nanoTime();
+                for (GameObject gameObject : gameObjects)
+                    gameObject.update(DELTA_TIME);
+                gameObjects.update(DELTA_TIME);
+                long updated = System.nanoTime();
+                culler.render(g, gameObjects);
+                long rendered = System.nanoTime();
+                roundUpdate += updated - start;
+                roundRender += rendered - updated;
+            }
+            if (round == 0 || round > 0 && roundUpdate + roundRender < updateTime + renderTime) {
+                updateTime = roundUpdate;
+                renderTime = roundRender;
+            }
+        }
+        g.dispose();
+        if (!report)
+            return;
+        double frameTime = (updateTime + renderTime) / 1e6 / FRAMES;
+        if (zoom == 1)
+            normalFrame = frameTime;
+        System.out.printf(RESULT_MSG, name, objects, cache == null ? 0 : cache.drawnLastFrame(),
+                updateTime / 1e6 / FRAMES, renderTime / 1e6 / FRAMES, frameTime, frameTime / normalFrame);
+    }
+}
@@ -0,0 +1,128 @@
+package pepse.util;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import danogl.util.Vector2;
+import pepse.rendering.MotionInterpolator;
+import pepse.world.Block;
+
+import java.util.Random;
+
+/**
+ * Measures the simulation of the world in steps of a fixed time against steps of the time of the frame. A simulated
+ * clock runs a machine too slow for the steps, with and without a cap on the steps of a frame, a machine that
+ * hitches once, and a machine refreshing at 144 Hz, where the world is updated as many times a second as the
+ * frames, or as the steps. The time of an update of a world of blocks, with every object moving or a few, as in
+ * the game, and of drawing the moving ones between steps, is measured for real, and gives the time a second the
+ * steps take at 144 Hz.
+ */
+public class FixedTimestepBenchmark {
+    private static final float STEP = 1 / 60f;
+    private static final int MAX_STEPS = 5;
+    private static final float SIMULATED_TIME = 10; // in seconds
+    private static final float SLOW_STEP_COST = 0.020f; // in seconds, more than a step
+    private static final float SLOW_RENDER_COST = 0.005f;
+    private static final float HITCH = 0.5f;
+    private static final float FAST_RATE = 144;
+    private static final int OBJECTS = 4000;
+    private static final int FEW_MOVING = 100;
+    private static final int STILL_LAYER = Layer.STATIC_OBJECTS;
+    private static final int MOVING_LAYER = Layer.DEFAULT;
+    private static final int WARMUP_FRAMES = 300;
+    private static final int FRAMES = 2000;
+    private static final String SLOW_MSG = "%-20s game time %.1f s in %.1f s  slowest frame=%.0f ms  %d steps%n";
+    private static final String HITCH_MSG = "%-20s next frame takes %d steps, %.2f s dropped%n";
+    private static final String FAST_MSG = "%-20s %.0f updates a second, %d frames in %d without a step%n";
+    private static final String COST_MSG = "%d objects, %4d moving: update=%.3f ms  capture+moved=%.3f ms  " +
+            "apply+restore=%.3f ms%n";
+    private static final String SAVED_MSG = "at %.0f Hz, variable steps take %.1f ms a second, fixed steps %.1f ms " +
+            "(%.2fx)%n";
+
+    /**
+     * runs the benchmark
+     * @param args unused
+     */
+    public static void main(String[] args) {
+        slowMachine("slow, no cap", Integer.MAX_VALUE);
+        slowMachine("slow, cap of " + MAX_STEPS, MAX_STEPS);
+        hitch("hitch, no cap", Integer.MAX_VALUE);
+        hitch("hitch, cap of " + MAX_STEPS, MAX_STEPS);
+        FixedTimestep fast = new FixedTimestep(STEP, MAX_STEPS);
+        int frames = (int) (SIMULATED_TIME * FAST_RATE);
+        for (int frame = 0; frame < frames; frame++)
+            fast.advance(1 / FAST_RATE);
+        System.out.printf(FAST_MSG, "144 Hz, variable", FAST_RATE, 0, frames);
+        System.out.printf(FAST_MSG, "144 Hz, fixed", fast.steps() / SIMULATED_TIME, fast.framesWithoutStep(),
+                fast.frames());
+        // the first run warms up the code, and isn't reported
+        measureCost(fast.steps() / SIMULATED_TIME, OBJECTS, false);
+        measureCost(fast.steps() / SIMULATED_TIME, OBJECTS, true);
+        measureCost(fast.steps() / SIMULATED_TIME, FEW_MOVING, true);
+    }
+
+    // a step costs more than the time it simulates, so every frame owes more steps than the one before
+    private static void slowMachine(String name, int maxSteps) {
+        FixedTimestep timestep = new FixedTimestep(STEP, maxSteps);
+        float frameTime = STEP, realTime = 0, slowest = 0;
+        while (realTime < SIMULATED_TIME) {
+            int steps = timestep.advance(frameTime);
+            frameTime = SLOW_RENDER_COST + steps * SLOW_STEP_COST;
+            realTime += frameTime;
+            slowest = Math.max(slowest, frameTime);
+        }
+        System.out.printf(SLOW_MSG, name, timestep.steps() * STEP, realTime, slowest * 1000, timestep.steps());
+    }
+
+    // a machine keeping up at 60 Hz stops for a moment
+    private static void hitch(String name, int maxSteps) {
+        FixedTimestep timestep = new FixedTimestep(STEP, maxSteps);
+        for (int frame = 0; frame < 60; frame++)
+            timestep.advance(STEP);
+        int steps = timestep.advance(HITCH);
+        System.out.printf(HITCH_MSG, name, steps, timestep.dropped());
+    }
+
+    // the real time of an update of a world of blocks, some of them moving, and of drawing those between steps
+    private static void measureCost(float stepsPerSecond, int movingObjects, boolean report) {
+        GameObjectCollection gameObjects = new GameObjectCollection();
+        Random random = new Random(0);
+        for (int i = 0; i < OBJECTS; i++) {
+            GameObject object = new GameObject(new Vector2(random.nextInt(10000), random.nextInt(1000)),
+                    Vector2.ONES.mult(Block.SIZE), null);
+            if (i < movingObjects)
+                object.setVelocity(new Vector2(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f).mult(200));
+            gameObjects.addGameObject(object, i < movingObjects ? MOVING_LAYER : STILL_LAYER);
+        }
+        GameObject camera = new GameObject(Vector2.ZERO, Vector2.ONES, null);
+        gameObjects.update(0);
+        MotionInterpolator interpolator = new MotionInterpolator(5 * Block.SIZE, MOVING_LAYER);
+        long updateTime = 0, trackTime = 0, drawTime = 0;
+        for (int frame = 0; frame < WARMUP_FRAMES + FRAMES; frame++) {
+            long start = System.nanoTime();
+            interpolator.capture(gameObjects, camera);
+            long captured = System.nanoTime();
+            for (GameObject gameObject : gameObjects)
+                gameObject.update(STEP);
+            gameObjects.update(STEP);
+            long updated = System.nanoTime();
+            interpolator.moved();
+            long moved = System.nanoTime();
+            interpolator.apply(0.5f);
+            interpolator.restore();
+            long drawn = System.nanoTime();
+            if (frame >= WARMUP_FRAMES) {
+                trackTime += captured - start + moved - updated;
+                updateTime += updated - captured;
+                drawTime += drawn - moved;
+            }
+        }
+        if (!report)
+            return;
+        double update = updateTime / 1e6 / FRAMES, track = trackTime / 1e6 / FRAMES, draw = drawTime / 1e6 / FRAMES;
+        System.out.printf(COST_MSG, OBJECTS, movingObjects, update, track, draw);
+        double variable = FAST_RATE * update;
+        double fixed = stepsPerSecond * (update + track) + FAST_RATE * draw;
+        System.out.printf(SAVED_MSG, FAST_RATE, variable, fixed, variable / fixed);
+    }
+}
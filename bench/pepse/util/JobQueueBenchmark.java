@@ -0,0 +1,156 @@
+package pepse.util;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+import pepse.rendering.TerrainRenderCache;
+import pepse.world.Block;
+import pepse.world.Terrain;
+import pepse.world.trees.Tree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the changes to the world in the frames of a camera moving right through it, as the game manager extends
+ * it: when the view reaches the end of the world, the ground and trees of the next part are created, and the
+ * objects far behind are removed. The camera moves at a steady speed, and every few seconds jumps a screen ahead,
+ * so a whole screen of the world is asked for at once. The ground is drawn from the render cache, as in the game.
+ * Once the changes are made in the frame they're asked for, and once through the job queue with a budget of 1 ms.
+ * Every object is updated, and the timers advanced, every frame, but only the time of the changes, and of the jobs,
+ * is measured. Reports the average frame, the number of frames over the budget, and the slowest frame.
+ */
+public class JobQueueBenchmark {
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1280, 720);
+    private static final int SEED = 123456;
+    private static final int EXTEND_WORLD_BY = 10 * Block.SIZE;
+    private static final float CAMERA_SPEED = 300; // in pixels per second
+    private static final int JUMP_EVERY = 300; // in frames
+    private static final long BUDGET_NANOS = 1_000_000;
+    private static final int WARMUP_FRAMES = 600;
+    private static final int FRAMES = 3000;
+    private static final float DELTA_TIME = 1 / 60f;
+    private static final int CACHE_LAYER = Layer.STATIC_OBJECTS - 10;
+    private static final int GROUND_LAYER = Layer.STATIC_OBJECTS;
+    private static final int TRUNK_LAYER = Layer.DEFAULT - 9;
+    private static final int LEAVES_LAYER = Layer.DEFAULT - 7;
+    private static final String GROUND_TAG = "ground";
+    private static final String TRUNK_TAG = "trunk";
+    private static final String LEAF_TAG = "leaf";
+    private static final String RESULT_MSG = "%-12s frame=%.3f ms  %d frames over %.0f ms  slowest=%.3f ms%n";
+
+    private static GameObjectCollection gameObjects;
+    private static Terrain terrain;
+    private static Tree tree;
+    private static JobQueue jobs;
+    private static int leftPointer;
+    private static int rightPointer;
+
+    /**
+     * runs the benchmark
+     * @param args unused
+     */
+    public static void main(String[] args) {
+        // the first runs warm up the code, and aren't reported
+        for (int run = 0; run < 2; run++) {
+            measure(false, run == 1);
+            measure(true, run == 1);
+        }
+    }
+
+    private static void measure(boolean queued, boolean report) {
+        gameObjects = new GameObjectCollection();
+        terrain = new Terrain(gameObjects, GROUND_LAYER, WINDOW_DIMENSIONS, SEED);
+        GameObject center = new GameObject(WINDOW_DIMENSIONS.mult(0.5f), Vector2.ONES, null);
+        Camera camera = new Camera(center, Vector2.ZERO, WINDOW_DIMENSIONS, WINDOW_DIMENSIONS);
+        TerrainRenderCache.create(gameObjects, CACHE_LAYER, WINDOW_DIMENSIONS, camera, terrain);
+        tree = new Tree(gameObjects, terrain, SEED, TRUNK_LAYER, LEAVES_LAYER, TRUNK_TAG, LEAF_TAG, GROUND_TAG);
+        TimerWheel timers = new TimerWheel(DELTA_TIME);
+        tree.setTimers(timers);
+        jobs = queued ? new JobQueue(BUDGET_NANOS) : null;
+        tree.setJobs(jobs);
+        leftPointer = -EXTEND_WORLD_BY;
+        rightPointer = (int) WINDOW_DIMENSIONS.x() + EXTEND_WORLD_BY;
+        terrain.createInRange(leftPointer, rightPointer);
+        tree.createInRange(leftPointer, rightPointer);
+        float cameraLeft = 0;
+        long[] frames = new long[FRAMES];
+        for (int frame = 0; frame < WARMUP_FRAMES + FRAMES; frame++) {
+            timers.advance(DELTA_TIME);
+            gameObjects.update(DELTA_TIME);
+            long start = System.nanoTime();
+            cameraLeft += CAMERA_SPEED * DELTA_TIME;
+            if (frame % JUMP_EVERY == 0)
+                cameraLeft += WINDOW_DIMENSIONS.x();
+            float cameraRight = cameraLeft + WINDOW_DIMENSIONS.x();
+            if (cameraRight >= rightPointer)
+                extendRight(rightPointer, cameraRight + EXTEND_WORLD_BY);
+            if (jobs != null)
+                jobs.run();
+            if (frame >= WARMUP_FRAMES)
+                frames[frame - WARMUP_FRAMES] = System.nanoTime() - start;
+        }
+        if (!report)
+            return;
+        long total = 0, slowest = 0;
+        int overBudget = 0;
+        for (long time : frames) {
+            total += time;
+            slowest = Math.max(slowest, time);
+            if (time > BUDGET_NANOS)
+                overBudget++;
+        }
+        System.out.printf(RESULT_MSG, queued ? "job queue" : "same frame", total / 1e6 / FRAMES, overBudget,
+                BUDGET_NANOS / 1e6, slowest / 1e6);
+        if (jobs != null)
+            System.out.println(jobs);
+    }
+
+    // what the game manager does when the view reaches the right end of the world
+    private static void extendRight(float start, float end) {
+        int normalizeStart = (int) (Math.floor(start / Block.SIZE) * Block.SIZE);
+        int normalizeEnd = (int) (Math.floor(end / Block.SIZE) * Block.SIZE);
+        if (jobs != null) {
+            for (int x = normalizeStart; x < normalizeEnd; x += Block.SIZE) {
+                int column = x;
+                jobs.submit(JobPriority.GROUND, null, () -> terrain.createInRange(column, column + Block.SIZE));
+            }
+        }
+        else
+            terrain.createInRange(normalizeStart, normalizeEnd);
+        tree.createInRange(normalizeStart, normalizeEnd);
+        List<GameObject> far = new ArrayList<>();
+        for (GameObject obj : gameObjects) {
+            if (obj.getCenter().x() < leftPointer)
+                far.add(obj);
+        }
+        if (jobs != null && !far.isEmpty()) {
+            int[] next = {0};
+            jobs.submitSteps(JobPriority.CLEANUP, null, () -> {
+                remove(far.get(next[0]++));
+                return next[0] == far.size();
+            });
+        }
+        else
+            far.forEach(JobQueueBenchmark::remove);
+        rightPointer = normalizeEnd;
+        leftPointer += normalizeEnd - normalizeStart;
+    }
+
+    private static void remove(GameObject obj) {
+        if (jobs != null)
+            jobs.cancelAll(obj);
+        if (obj.getTag().equals(GROUND_TAG))
+            gameObjects.removeGameObject(obj, GROUND_LAYER);
+        else if (obj.getTag().equals(TRUNK_TAG)) {
+            // the top of a trunk is in the layer above, as well
+            gameObjects.removeGameObject(obj, TRUNK_LAYER);
+            gameObjects.removeGameObject(obj, TRUNK_LAYER + 1);
+        }
+        else if (obj.getTag().equals(LEAF_TAG))
+            gameObjects.removeGameObject(obj, LEAVES_LAYER);
+        // the render cache stays
+    }
+}
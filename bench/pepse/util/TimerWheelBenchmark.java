@@ -0,0 +1,129 @@
+package pepse.util;
+
+import danogl.GameObject;
+import danogl.components.ScheduledTask;
+import danogl.util.Vector2;
+
+import java.util.Random;
+
+/**
+ * Measures the cost of a frame with 100k pending timers: as a ScheduledTask on their hosts, ticked with every
+ * update of the host, and in the timer wheel, advanced once a frame. The timers are spread over hosts as the
+ * leaves of the trees are, and wait between 1 second and 10 minutes, so a few of them fire every frame. The hosts
+ * are also measured without timers, for the cost of updating them alone. Also measures scheduling and cancelling
+ * a timer in the wheel.
+ */
+public class TimerWheelBenchmark {
+    private static final int TIMERS = 100_000;
+    private static final int TIMERS_PER_HOST = 4;
+    private static final float MIN_WAIT = 1;
+    private static final float MAX_WAIT = 600;
+    private static final int WARMUP_FRAMES = 200;
+    private static final int FRAMES = 1000;
+    private static final float DELTA_TIME = 1 / 60f;
+    private static final int SEED = 123456;
+    private static final String FRAME_MSG = "%-16s %6d timers  frame=%.3f ms  (%d fired)%n";
+    private static final String OPERATION_MSG = "timer wheel: schedule=%.0f ns  cancel=%.0f ns%n";
+
+    private static int fired = 0;
+
+    /**
+     * runs the benchmark
+     * @param args unused
+     */
+    public static void main(String[] args) {
+        // the first runs warm up the code, and aren't reported
+        for (int run = 0; run < 2; run++) {
+            measureHosts(run == 1);
+            measureTasks(run == 1);
+            measureWheel(run == 1);
+        }
+        measureOperations();
+    }
+
+    // the hosts alone
+    private static void measureHosts(boolean report) {
+        GameObject[] hosts = createHosts();
+        long time = 0;
+        for (int frame = 0; frame < WARMUP_FRAMES + FRAMES; frame++) {
+            long start = System.nanoTime();
+            for (GameObject host : hosts)
+                host.update(DELTA_TIME);
+            if (frame >= WARMUP_FRAMES)
+                time += System.nanoTime() - start;
+        }
+        if (report)
+            System.out.printf(FRAME_MSG, "hosts only", 0, time / 1e6 / FRAMES, 0);
+    }
+
+    // hosts with the timers as their components, every host updated every frame
+    private static void measureTasks(boolean report) {
+        Random random = new Random(SEED);
+        GameObject[] hosts = createHosts();
+        for (int i = 0; i < TIMERS; i++)
+            new ScheduledTask(hosts[i / TIMERS_PER_HOST], wait(random), false, () -> fired++);
+        fired = 0;
+        long time = 0;
+        for (int frame = 0; frame < WARMUP_FRAMES + FRAMES; frame++) {
+            long start = System.nanoTime();
+            for (GameObject host : hosts)
+                host.update(DELTA_TIME);
+            if (frame >= WARMUP_FRAMES)
+                time += System.nanoTime() - start;
+        }
+        if (report)
+            System.out.printf(FRAME_MSG, "scheduled tasks", TIMERS, time / 1e6 / FRAMES, fired);
+    }
+
+    // the same hosts, without components, and the timers in the wheel
+    private static void measureWheel(boolean report) {
+        Random random = new Random(SEED);
+        GameObject[] hosts = createHosts();
+        TimerWheel timers = new TimerWheel(DELTA_TIME);
+        for (int i = 0; i < TIMERS; i++)
+            timers.schedule(hosts[i / TIMERS_PER_HOST], wait(random), false, () -> fired++);
+        fired = 0;
+        long time = 0;
+        for (int frame = 0; frame < WARMUP_FRAMES + FRAMES; frame++) {
+            long start = System.nanoTime();
+            timers.advance(DELTA_TIME);
+            for (GameObject host : hosts)
+                host.update(DELTA_TIME);
+            if (frame >= WARMUP_FRAMES)
+                time += System.nanoTime() - start;
+        }
+        if (report)
+            System.out.printf(FRAME_MSG, "timer wheel", timers.pending() + fired, time / 1e6 / FRAMES, fired);
+    }
+
+    private static void measureOperations() {
+        Random random = new Random(SEED);
+        TimerWheel timers = new TimerWheel(DELTA_TIME);
+        TimerWheel.Timer[] scheduled = new TimerWheel.Timer[TIMERS];
+        Object[] owners = new Object[TIMERS / TIMERS_PER_HOST];
+        for (int i = 0; i < owners.length; i++)
+            owners[i] = new Object();
+        long scheduleTime = 0, cancelTime = 0;
+        for (int run = 0; run < 10; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < TIMERS; i++)
+                scheduled[i] = timers.schedule(owners[i / TIMERS_PER_HOST], wait(random), false, () -> fired++);
+            long scheduledAll = System.nanoTime();
+            for (int i = 0; i < TIMERS; i++)
+                scheduled[i].cancel();
+            long cancelledAll = System.nanoTime();
+            scheduleTime += scheduledAll - start;
+            cancelTime += cancelledAll - scheduledAll;
+        }
+        System.out.printf(OPERATION_MSG, (double) scheduleTime / TIMERS / 10, (double) cancelTime / TIMERS / 10);
+    }
+
+    private static GameObject[] createHosts() {
+        GameObject[] hosts = new GameObject[TIMERS / TIMERS_PER_HOST];
+        for (int i = 0; i < hosts.length; i++)
+            hosts[i] = new GameObject(Vector2.ZERO, Vector2.ONES, null);
+        return hosts;
+    }
+
+    private static float wait(Random random) { return MIN_WAIT + random.nextFloat() * (MAX_WAIT - MIN_WAIT); }
+}
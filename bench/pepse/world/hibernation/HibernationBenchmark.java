@@ -0,0 +1,75 @@
+package pepse.world.hibernation;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+import pepse.rendering.TerrainRenderCache;
+import pepse.world.Block;
+import pepse.world.Terrain;
+import pepse.world.trees.Tree;
+
+/**
+ * Measures the time to update the world in a frame, every object and only the objects in the activity regions,
+ * for worlds of several widths around the camera. The world is the ground, drawn from the render cache, and the
+ * trees, whose leaves sway, fall and grow back. Runs headless.
+ */
+public class HibernationBenchmark {
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1280, 720);
+    private static final int[] WORLD_WIDTHS = {2000, 8000, 32000};
+    private static final int SEED = 123456;
+    private static final float WAKE_MARGIN = 2 * Block.SIZE;
+    private static final float SLEEP_MARGIN = 5 * Block.SIZE;
+    private static final int WARMUP_FRAMES = 200;
+    private static final int FRAMES = 1000;
+    private static final float DELTA_TIME = 1 / 60f;
+    private static final String RESULT_MSG = "world %5d px  %-13s %6d objects  %6d updated  update=%.3f ms/frame%n";
+
+    /**
+     * runs the benchmark
+     * @param args unused
+     */
+    public static void main(String[] args) {
+        // the first world warms up the code, and isn't reported
+        measure(WORLD_WIDTHS[WORLD_WIDTHS.length - 1], false, false);
+        measure(WORLD_WIDTHS[WORLD_WIDTHS.length - 1], true, false);
+        for (int worldWidth : WORLD_WIDTHS) {
+            measure(worldWidth, false, true);
+            measure(worldWidth, true, true);
+        }
+    }
+
+    private static void measure(int worldWidth, boolean hibernation, boolean report) {
+        GameObjectCollection gameObjects = new GameObjectCollection();
+        GameObject center = new GameObject(WINDOW_DIMENSIONS.mult(0.5f), Vector2.ONES, null);
+        Camera camera = new Camera(center, Vector2.ZERO, WINDOW_DIMENSIONS, WINDOW_DIMENSIONS);
+        Terrain terrain = new Terrain(gameObjects, 0, WINDOW_DIMENSIONS, SEED);
+        TerrainRenderCache.create(gameObjects, -1, WINDOW_DIMENSIONS, camera, terrain);
+        Tree tree = new Tree(gameObjects, terrain, SEED, 1, 2, "trunk", "leaf", "ground");
+        int minX = (int) (WINDOW_DIMENSIONS.x() - worldWidth) / 2 / Block.SIZE * Block.SIZE;
+        terrain.createInRange(minX, minX + worldWidth);
+        tree.createInRange(minX, minX + worldWidth);
+        // objects added to the collection are only in it after its next update.
+        gameObjects.update(0);
+        ActivityRegions regions = new ActivityRegions(camera, WAKE_MARGIN, SLEEP_MARGIN);
+        int objects = 0;
+        for (GameObject ignored : gameObjects)
+            objects++;
+        long updateTime = 0;
+        for (int frame = 0; frame < WARMUP_FRAMES + FRAMES; frame++) {
+            long start = System.nanoTime();
+            if (hibernation)
+                regions.update(gameObjects, DELTA_TIME);
+            else {
+                for (GameObject gameObject : gameObjects)
+                    gameObject.update(DELTA_TIME);
+            }
+            if (frame >= WARMUP_FRAMES)
+                updateTime += System.nanoTime() - start;
+            gameObjects.update(DELTA_TIME);
+        }
+        if (report)
+            System.out.printf(RESULT_MSG, worldWidth, hibernation ? "hibernation" : "every object", objects,
+                    hibernation ? regions.awakeLastFrame() : objects, updateTime / 1e6 / FRAMES);
+    }
+}
@@ -0,0 +1,88 @@
+package pepse.world.phenomenon;
+
+import danogl.GameObject;
+import danogl.gui.rendering.Camera;
+import danogl.gui.rendering.ImageRenderable;
+import danogl.util.Vector2;
+import pepse.world.Terrain;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Measures the cost of a frame of rain (moving every drop, then drawing it) at 1k, 2k, 4k (the most the game
+ * drops), 10k and 50k drops, while the camera walks over the terrain. For comparison, also measures the old rain:
+ * a window sized image drawn at 0.2 opacity every frame. Draws into an off-screen image, so it runs headless.
+ */
+public class RainBenchmark {
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1280, 720);
+    private static final int[] DROP_COUNTS = {1000, 2000, 4000, 10000, 50000};
+    private static final int SEED = 123456;
+    private static final float DELTA_TIME = 1 / 60f;
+    private static final float WALK_SPEED = 400;
+    private static final int WARMUP_FRAMES = 100;
+    private static final int FRAMES = 500;
+    private static final String OLD_RAIN_PATH = "src/assets/rain1.png";
+    private static final float OLD_RAIN_OPAQ = 0.2f;
+    private static final String RESULT_MSG = "%-18s update=%.3f ms  render=%.3f ms  total=%.3f ms/frame%n";
+
+    /**
+     * runs the benchmark
+     * @param args unused
+     * @throws IOException if the old rain image can't be read
+     */
+    public static void main(String[] args) throws IOException {
+        BufferedImage screen = new BufferedImage((int) WINDOW_DIMENSIONS.x(), (int) WINDOW_DIMENSIONS.y(),
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = screen.createGraphics();
+        measureOldRain(g);
+        for (int drops : DROP_COUNTS)
+            measure(g, drops);
+        g.dispose();
+    }
+
+    private static void measure(Graphics2D g, int drops) {
+        Terrain terrain = new Terrain(null, 0, WINDOW_DIMENSIONS, SEED);
+        GameObject walker = new GameObject(WINDOW_DIMENSIONS.mult(0.5f), Vector2.ONES, null);
+        walker.setVelocity(Vector2.RIGHT.mult(WALK_SPEED));
+        Camera camera = new Camera(walker, Vector2.ZERO, WINDOW_DIMENSIONS, WINDOW_DIMENSIONS);
+        Rain rain = new Rain(WINDOW_DIMENSIONS, null, 0, camera, terrain, null, drops, SEED);
+        rain.setIntensity(1);
+        long updateTime = 0, renderTime = 0;
+        for (int frame = 0; frame < WARMUP_FRAMES + FRAMES; frame++) {
+            walker.update(DELTA_TIME);
+            camera.update(DELTA_TIME);
+            long start = System.nanoTime();
+            rain.update(DELTA_TIME);
+            long updated = System.nanoTime();
+            rain.render(g);
+            long rendered = System.nanoTime();
+            if (frame >= WARMUP_FRAMES) {
+                updateTime += updated - start;
+                renderTime += rendered - updated;
+            }
+        }
+        report(rain.activeDrops() + " drops", updateTime, renderTime);
+    }
+
+    private static void measureOldRain(Graphics2D g) throws IOException {
+        ImageRenderable image = new ImageRenderable(ImageIO.read(new File(OLD_RAIN_PATH)));
+        long renderTime = 0;
+        for (int frame = 0; frame < WARMUP_FRAMES + FRAMES; frame++) {
+            long start = System.nanoTime();
+            image.render(g, Vector2.ZERO, WINDOW_DIMENSIONS, 0, false, false, OLD_RAIN_OPAQ);
+            if (frame >= WARMUP_FRAMES)
+                renderTime += System.nanoTime() - start;
+        }
+        report("window overlay", 0, renderTime);
+    }
+
+    private static void report(String name, long updateTime, long renderTime) {
+        double update = updateTime / 1e6 / FRAMES;
+        double render = renderTime / 1e6 / FRAMES;
+        System.out.printf(RESULT_MSG, name, update, render, update + render);
+    }
+}
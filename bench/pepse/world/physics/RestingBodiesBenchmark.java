@@ -0,0 +1,91 @@
+package pepse.world.physics;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+import pepse.rendering.TerrainRenderCache;
+import pepse.world.Block;
+import pepse.world.Terrain;
+import pepse.world.trees.Tree;
+
+/**
+ * Measures the time of a frame, updates and collisions, with the bodies that settled kept in the collisions with
+ * the ground and with them asleep. The world is the screen and the 10 blocks the game keeps on each side of it:
+ * the ground, the trees, and bones dropped along it, with the layers colliding as in the game. Runs headless.
+ */
+public class RestingBodiesBenchmark {
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1280, 720);
+    private static final int SEED = 123456;
+    private static final int EXTEND_WORLD_BY = 10 * Block.SIZE;
+    private static final int BONES = 40;
+    private static final Vector2 BONES_DIMENSIONS = new Vector2(40, 40);
+    private static final float GRAVITY = 600;
+    private static final int GROUND_LAYER = Layer.STATIC_OBJECTS;
+    private static final int RESTING_BODIES_LAYER = Layer.STATIC_OBJECTS + 1;
+    private static final int TRUNK_LAYER = Layer.DEFAULT - 9;
+    private static final int LEAVES_LAYER = Layer.DEFAULT - 7;
+    private static final int RESTING_LEAVES_LAYER = Layer.DEFAULT - 6;
+    private static final int SETTLE_FRAMES = 200;
+    private static final int FRAMES = 1000;
+    private static final float DELTA_TIME = 1 / 60f;
+    private static final String RESULT_MSG = "%-14s frame=%.3f ms  (%d active, %d sleeping)%n";
+
+    /**
+     * runs the benchmark
+     * @param args unused
+     */
+    public static void main(String[] args) {
+        // the first runs warm up the code, and aren't reported
+        measure(false, false);
+        measure(true, false);
+        measure(false, true);
+        measure(true, true);
+    }
+
+    private static void measure(boolean sleep, boolean report) {
+        GameObjectCollection gameObjects = new GameObjectCollection();
+        GameObject center = new GameObject(WINDOW_DIMENSIONS.mult(0.5f), Vector2.ONES, null);
+        Camera camera = new Camera(center, Vector2.ZERO, WINDOW_DIMENSIONS, WINDOW_DIMENSIONS);
+        Terrain terrain = new Terrain(gameObjects, GROUND_LAYER, WINDOW_DIMENSIONS, SEED);
+        TerrainRenderCache.create(gameObjects, GROUND_LAYER - 10, WINDOW_DIMENSIONS, camera, terrain);
+        Tree tree = new Tree(gameObjects, terrain, SEED, TRUNK_LAYER, LEAVES_LAYER, "trunk", "leaf", "ground");
+        RestingBodies restingBodies = new RestingBodies(gameObjects);
+        restingBodies.setRestingLayer(LEAVES_LAYER, RESTING_LEAVES_LAYER);
+        restingBodies.setRestingLayer(GROUND_LAYER, RESTING_BODIES_LAYER);
+        if (sleep)
+            tree.setRestingBodies(restingBodies);
+        int minX = -EXTEND_WORLD_BY, maxX = (int) WINDOW_DIMENSIONS.x() + EXTEND_WORLD_BY;
+        terrain.createInRange(minX, maxX);
+        tree.createInRange(minX, maxX);
+        for (int i = 0; i < BONES; i++) {
+            float x = minX + (maxX - minX) * (i + 0.5f) / BONES;
+            GameObject bones = new GameObject(new Vector2(x, terrain.groundHeightAt(x) - 100), BONES_DIMENSIONS,
+                    null);
+            gameObjects.addGameObject(bones, GROUND_LAYER);
+            bones.transform().setAccelerationY(GRAVITY);
+            bones.physics().preventIntersectionsFromDirection(Vector2.ZERO);
+            if (sleep)
+                restingBodies.add(bones, GROUND_LAYER);
+        }
+        gameObjects.layers().shouldLayersCollide(LEAVES_LAYER, GROUND_LAYER, true);
+        gameObjects.layers().shouldLayersCollide(GROUND_LAYER, GROUND_LAYER, true);
+        // objects added to the collection are only in it after its next update.
+        gameObjects.update(0);
+        long frameTime = 0;
+        for (int frame = 0; frame < SETTLE_FRAMES + FRAMES; frame++) {
+            long start = System.nanoTime();
+            restingBodies.update();
+            for (GameObject gameObject : gameObjects)
+                gameObject.update(DELTA_TIME);
+            gameObjects.update(DELTA_TIME);
+            gameObjects.handleCollisions();
+            if (frame >= SETTLE_FRAMES)
+                frameTime += System.nanoTime() - start;
+        }
+        if (report)
+            System.out.printf(RESULT_MSG, sleep ? "resting sleep" : "always active", frameTime / 1e6 / FRAMES,
+                    restingBodies.activeCount(), restingBodies.sleepingCount());
+    }
+}
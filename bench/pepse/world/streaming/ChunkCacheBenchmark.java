@@ -0,0 +1,136 @@
+package pepse.world.streaming;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+import pepse.rendering.TerrainRenderCache;
+import pepse.world.Block;
+import pepse.world.Terrain;
+import pepse.world.trees.Tree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures building the chunks of the world as a view walks back and forth over the same stretch of it, with the
+ * chunks the view leaves generated from scratch when it comes back, and rebuilt from the chunk cache. The world
+ * is the view and a margin on each side, built and removed a chunk at a time, at once, without the job queue.
+ * Also measures a cache too small for the stretch, to see its hit rate fall.
+ */
+public class ChunkCacheBenchmark {
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1280, 720);
+    private static final int SEED = 123456;
+    private static final int MARGIN = 10 * Block.SIZE;
+    private static final int CHUNK_WIDTH = 10 * Block.SIZE;
+    private static final float SPEED = 400; // in pixels per second
+    private static final float STRETCH = 12000; // in pixels
+    private static final long[] CACHE_SIZES = {0, 1024 * 1024, 4 * 1024};
+    private static final int FRAMES = 18000;
+    private static final float DELTA_TIME = 1 / 60f;
+    private static final int CACHE_LAYER = Layer.STATIC_OBJECTS - 10;
+    private static final int GROUND_LAYER = Layer.STATIC_OBJECTS;
+    private static final int TRUNK_LAYER = Layer.DEFAULT - 9;
+    private static final int LEAVES_LAYER = Layer.DEFAULT - 7;
+    private static final String GROUND_TAG = "ground";
+    private static final String TRUNK_TAG = "trunk";
+    private static final String LEAF_TAG = "leaf";
+    private static final String RESULT_MSG = "%-16s %4d chunks built in %.1f ms (%.1f us each)  %s%n";
+
+    private static GameObjectCollection gameObjects;
+    private static Terrain terrain;
+    private static Tree tree;
+    private static ChunkCache chunkCache;
+    private static int leftPointer;
+    private static int rightPointer;
+    private static long buildTime;
+    private static int chunksBuilt;
+
+    /**
+     * runs the benchmark
+     * @param args unused
+     */
+    public static void main(String[] args) {
+        // the first runs warm up the code, and aren't reported
+        for (int run = 0; run < 2; run++) {
+            for (long cacheSize : CACHE_SIZES)
+                measure(cacheSize, run == 1);
+        }
+    }
+
+    private static void measure(long cacheSize, boolean report) {
+        gameObjects = new GameObjectCollection();
+        terrain = new Terrain(gameObjects, GROUND_LAYER, WINDOW_DIMENSIONS, SEED);
+        GameObject followed = new GameObject(WINDOW_DIMENSIONS.mult(0.5f), Vector2.ONES, null);
+        Camera camera = new Camera(followed, Vector2.ZERO, WINDOW_DIMENSIONS, WINDOW_DIMENSIONS);
+        TerrainRenderCache.create(gameObjects, CACHE_LAYER, WINDOW_DIMENSIONS, camera, terrain);
+        tree = new Tree(gameObjects, terrain, SEED, TRUNK_LAYER, LEAVES_LAYER, TRUNK_TAG, LEAF_TAG, GROUND_TAG);
+        chunkCache = cacheSize > 0 ? new ChunkCache(CHUNK_WIDTH, cacheSize) : null;
+        terrain.setChunkCache(chunkCache);
+        tree.setChunkCache(chunkCache);
+        leftPointer = 0;
+        rightPointer = 0;
+        buildTime = 0;
+        chunksBuilt = 0;
+        float left = 0, direction = 1;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            left += direction * SPEED * DELTA_TIME;
+            if (left > STRETCH || left < 0)
+                direction = -direction;
+            int wantedLeft = Math.floorDiv((int) left - MARGIN, CHUNK_WIDTH) * CHUNK_WIDTH;
+            int wantedRight = -Math.floorDiv(-((int) (left + WINDOW_DIMENSIONS.x()) + MARGIN), CHUNK_WIDTH) *
+                    CHUNK_WIDTH;
+            if (leftPointer == rightPointer) {
+                leftPointer = wantedLeft;
+                rightPointer = wantedLeft;
+            }
+            for (; rightPointer < wantedRight; rightPointer += CHUNK_WIDTH)
+                build(rightPointer, rightPointer + CHUNK_WIDTH);
+            for (; leftPointer > wantedLeft; leftPointer -= CHUNK_WIDTH)
+                build(leftPointer - CHUNK_WIDTH, leftPointer);
+            if (wantedLeft - CHUNK_WIDTH > leftPointer || wantedRight + CHUNK_WIDTH < rightPointer)
+                retain(Math.max(leftPointer, wantedLeft - CHUNK_WIDTH), Math.min(rightPointer,
+                        wantedRight + CHUNK_WIDTH));
+            gameObjects.update(DELTA_TIME);
+        }
+        if (report)
+            System.out.printf(RESULT_MSG, cacheSize == 0 ? "no cache" : "cache " + cacheSize / 1024 + " KB",
+                    chunksBuilt, buildTime / 1e6, buildTime / 1e3 / chunksBuilt,
+                    chunkCache == null ? "" : chunkCache.toString());
+    }
+
+    private static void build(int start, int end) {
+        long time = System.nanoTime();
+        if (chunkCache != null)
+            chunkCache.load(start, end);
+        terrain.createInRange(start, end);
+        tree.createInRange(start, end - 1);
+        buildTime += System.nanoTime() - time;
+        chunksBuilt++;
+    }
+
+    private static void retain(int left, int right) {
+        List<GameObject> far = new ArrayList<>();
+        for (GameObject obj : gameObjects) {
+            if (obj.getCenter().x() < left || obj.getCenter().x() > right)
+                far.add(obj);
+        }
+        for (GameObject obj : far) {
+            if (obj.getTag().equals(GROUND_TAG))
+                gameObjects.removeGameObject(obj, GROUND_LAYER);
+            else if (obj.getTag().equals(TRUNK_TAG)) {
+                // the top of a trunk is in the layer above, as well
+                gameObjects.removeGameObject(obj, TRUNK_LAYER);
+                gameObjects.removeGameObject(obj, TRUNK_LAYER + 1);
+            }
+            else if (obj.getTag().equals(LEAF_TAG))
+                gameObjects.removeGameObject(obj, LEAVES_LAYER);
+        }
+        leftPointer = left;
+        rightPointer = right;
+        terrain.retainRange(left, right);
+        if (chunkCache != null)
+            chunkCache.unload(left, right);
+    }
+}
@@ -0,0 +1,160 @@
+package pepse.world.streaming;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+import pepse.rendering.TerrainRenderCache;
+import pepse.world.Block;
+import pepse.world.Terrain;
+import pepse.world.generation.GenerationPipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the world as a camera goes down deep into the ground, and then right along a row there, with the rows
+ * and chunks of the world extended and removed around the view, as the game manager does. Reports the objects and
+ * render cache tiles in the world, at most and at the end, and the time to extend the world by a row of tiles.
+ * The world is built at once, without the job queue.
+ */
+public class DepthBenchmark {
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1280, 720);
+    private static final int SEED = 123456;
+    private static final int MARGIN = 10 * Block.SIZE;
+    private static final int CHUNK_WIDTH = 10 * Block.SIZE;
+    private static final float SPEED = 600; // in pixels per second
+    private static final int DOWN_FRAMES = 3000;
+    private static final int FRAMES = 6000;
+    private static final float DELTA_TIME = 1 / 60f;
+    private static final int CACHE_LAYER = Layer.STATIC_OBJECTS - 10;
+    private static final int GROUND_LAYER = Layer.STATIC_OBJECTS;
+    private static final String GROUND_TAG = "ground";
+    private static final String LOWER_GROUND_TAG = "lower ground";
+    private static final String RESULT_MSG = "%-10s deepest %6.0f px  objects: %5d most, %5d now  tiles: %3d most, " +
+            "%3d now  %4d rows built in %.1f ms (%.2f ms each)%n";
+
+    private static GameObjectCollection gameObjects;
+    private static Terrain terrain;
+    private static TerrainRenderCache renderCache;
+    private static GenerationPipeline generation;
+    private static Prefetcher prefetcher;
+    private static int leftPointer;
+    private static int rightPointer;
+    private static int topPointer;
+    private static int bottomPointer;
+    private static long rowTime;
+    private static int rowsBuilt;
+
+    /**
+     * runs the benchmark
+     * @param args unused
+     */
+    public static void main(String[] args) {
+        // the first run warms up the code, and isn't reported
+        measure(false);
+        measure(true);
+    }
+
+    private static void measure(boolean report) {
+        gameObjects = new GameObjectCollection();
+        terrain = new Terrain(gameObjects, GROUND_LAYER, WINDOW_DIMENSIONS, SEED);
+        GameObject followed = new GameObject(WINDOW_DIMENSIONS.mult(0.5f), Vector2.ONES, null);
+        Camera camera = new Camera(followed, Vector2.ZERO, WINDOW_DIMENSIONS, WINDOW_DIMENSIONS);
+        renderCache = TerrainRenderCache.create(gameObjects, CACHE_LAYER, WINDOW_DIMENSIONS, camera, terrain);
+        generation = new GenerationPipeline(SEED).add("terrain", terrain);
+        prefetcher = new Prefetcher(camera, WINDOW_DIMENSIONS.x(), WINDOW_DIMENSIONS.y(), MARGIN, 0, CHUNK_WIDTH,
+                Terrain.TILE_HEIGHT);
+        leftPointer = prefetcher.wantedLeft();
+        rightPointer = prefetcher.wantedRight();
+        topPointer = prefetcher.wantedTop();
+        bottomPointer = prefetcher.wantedBottom();
+        generation.setRows(topPointer, bottomPointer);
+        for (int x = leftPointer; x < rightPointer; x += CHUNK_WIDTH)
+            generation.buildNow(x, x + CHUNK_WIDTH);
+        rowTime = 0;
+        rowsBuilt = 0;
+        int mostObjects = 0, mostTiles = 0, objects = 0;
+        float deepest = 0;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            followed.setCenter(followed.getCenter().add(velocity(frame).mult(DELTA_TIME)));
+            camera.update(DELTA_TIME);
+            gameObjects.update(DELTA_TIME);
+            extendRows(prefetcher.wantedTop(), prefetcher.wantedBottom());
+            if (prefetcher.keptTop() > topPointer || prefetcher.keptBottom() < bottomPointer)
+                retainRows(Math.max(topPointer, prefetcher.keptTop()), Math.min(bottomPointer,
+                        prefetcher.keptBottom()));
+            for (; rightPointer < prefetcher.wantedRight(); rightPointer += CHUNK_WIDTH)
+                generation.buildNow(rightPointer, rightPointer + CHUNK_WIDTH);
+            if (prefetcher.keptLeft() > leftPointer)
+                retain(prefetcher.keptLeft());
+            objects = 0;
+            for (GameObject ignored : gameObjects)
+                objects++;
+            mostObjects = Math.max(mostObjects, objects);
+            mostTiles = Math.max(mostTiles, renderCache.chunkCount());
+            deepest = Math.max(deepest, followed.getCenter().y());
+        }
+        if (report)
+            System.out.printf(RESULT_MSG, "depth", deepest, mostObjects, objects, mostTiles,
+                    renderCache.chunkCount(), rowsBuilt, rowTime / 1e6, rowTime / 1e6 / Math.max(1, rowsBuilt));
+    }
+
+    // goes down to the depth, then right
+    private static Vector2 velocity(int frame) {
+        if (frame < DOWN_FRAMES)
+            return Vector2.DOWN.mult(SPEED);
+        return Vector2.RIGHT.mult(SPEED);
+    }
+
+    // what the game manager does
+    private static void extendRows(int top, int bottom) {
+        if (top >= topPointer && bottom <= bottomPointer)
+            return;
+        long start = System.nanoTime();
+        for (int x = leftPointer; x < rightPointer; x += CHUNK_WIDTH) {
+            if (top < topPointer)
+                generation.buildRows(x, x + CHUNK_WIDTH, top, topPointer);
+            if (bottom > bottomPointer)
+                generation.buildRows(x, x + CHUNK_WIDTH, bottomPointer, bottom);
+        }
+        rowTime += System.nanoTime() - start;
+        rowsBuilt++;
+        topPointer = Math.min(top, topPointer);
+        bottomPointer = Math.max(bottom, bottomPointer);
+        generation.setRows(topPointer, bottomPointer);
+    }
+
+    private static void retainRows(int top, int bottom) {
+        List<GameObject> far = new ArrayList<>();
+        for (GameObject obj : gameObjects) {
+            if (obj.getCenter().y() < top || obj.getCenter().y() > bottom)
+                far.add(obj);
+        }
+        far.forEach(DepthBenchmark::remove);
+        topPointer = top;
+        bottomPointer = bottom;
+        terrain.retainRows(top, bottom);
+        generation.setRows(top, bottom);
+    }
+
+    private static void retain(int left) {
+        List<GameObject> far = new ArrayList<>();
+        for (GameObject obj : gameObjects) {
+            if (obj.getCenter().x() < left)
+                far.add(obj);
+        }
+        far.forEach(DepthBenchmark::remove);
+        leftPointer = left;
+        terrain.retainRange(leftPointer, rightPointer);
+    }
+
+    private static void remove(GameObject obj) {
+        if (obj.getTag().equals(GROUND_TAG))
+            gameObjects.removeGameObject(obj, GROUND_LAYER);
+        else if (obj.getTag().equals(LOWER_GROUND_TAG))
+            gameObjects.removeGameObject(obj, GROUND_LAYER - 10);
+        // the render cache stays
+    }
+}
@@ -0,0 +1,143 @@
+package pepse.world.streaming;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import danogl.components.CoordinateSpace;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+import pepse.rendering.TerrainRenderCache;
+import pepse.world.Block;
+import pepse.world.Terrain;
+import pepse.world.generation.GenerationPipeline;
+import pepse.world.trees.Tree;
+
+import java.util.Iterator;
+
+/**
+ * Measures what the floating origin buys and costs. First, the error of a position moved at the speed of the
+ * avatar every frame, as a float, from several distances from the origin, against the same in double. With the
+ * floating origin the position never gets further than the rebase distance. Then the time to move a world, built
+ * around a camera, back to the origin, and that the ground and trees built after it are the same as without it.
+ */
+public class FloatingOriginBenchmark {
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1280, 720);
+    private static final int SEED = 123456;
+    private static final int MARGIN = 10 * Block.SIZE;
+    private static final int CHUNK_WIDTH = 10 * Block.SIZE;
+    private static final float[] DISTANCES = {0, 1 << 14, 1 << 16, 1 << 20, 1 << 24}; // in pixels
+    private static final float SPEED = 400; // in pixels per second
+    private static final int FRAMES = 600;
+    private static final float DELTA_TIME = 1 / 60f;
+    private static final int FAR = 3_000_000; // x of the world built, in pixels
+    private static final int REBASES = 200;
+    private static final int CACHE_LAYER = Layer.STATIC_OBJECTS - 10;
+    private static final int GROUND_LAYER = Layer.STATIC_OBJECTS;
+    private static final int TRUNK_LAYER = Layer.DEFAULT - 9;
+    private static final int LEAVES_LAYER = Layer.DEFAULT - 7;
+    private static final String PRECISION_MSG = "%9.0f px from the origin: error after %d frames %.4f px, " +
+            "%.4f px a frame at most%n";
+    private static final String REBASE_MSG = "moved %d objects %d times: %.3f ms each, %.3f ms the slowest%n";
+    private static final String SAME_MSG = "ground heights and objects built at x=%d the same with the origin " +
+            "moved: %b%n";
+
+    /**
+     * runs the benchmark
+     * @param args unused
+     */
+    public static void main(String[] args) {
+        for (float distance : DISTANCES)
+            precision(distance);
+        rebase();
+        same();
+    }
+
+    // moves a float position as the game does, and a double one, and compares them
+    private static void precision(float distance) {
+        float position = distance;
+        double exact = distance;
+        double worstStep = 0;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            float before = position;
+            position += SPEED * DELTA_TIME;
+            exact += SPEED * DELTA_TIME;
+            worstStep = Math.max(worstStep, Math.abs((position - before) - (double) (SPEED * DELTA_TIME)));
+        }
+        System.out.printf(PRECISION_MSG, distance, FRAMES, Math.abs(position - exact), worstStep);
+    }
+
+    // the time to move a world back and forth
+    private static void rebase() {
+        GameObjectCollection gameObjects = new GameObjectCollection();
+        FloatingOrigin origin = new FloatingOrigin(0, CHUNK_WIDTH);
+        Terrain terrain = build(gameObjects, origin, 0);
+        int objects = 0;
+        for (GameObject ignored : gameObjects)
+            objects++;
+        long total = 0;
+        for (int i = 0; i < REBASES; i++) {
+            int shiftX = i % 2 == 0 ? CHUNK_WIDTH : -CHUNK_WIDTH;
+            long start = System.nanoTime();
+            Vector2 shift = new Vector2(-shiftX, 0);
+            // what the game manager does
+            for (GameObject obj : gameObjects) {
+                if (obj.getCoordinateSpace() != CoordinateSpace.CAMERA_COORDINATES)
+                    obj.setTopLeftCorner(obj.getTopLeftCorner().add(shift));
+                if (obj instanceof Rebasing)
+                    ((Rebasing) obj).rebase(shiftX);
+            }
+            terrain.rebase(shiftX);
+            long time = System.nanoTime() - start;
+            origin.rebased(shiftX, time);
+            total += time;
+        }
+        System.out.printf(REBASE_MSG, objects, REBASES, total / 1e6 / REBASES, origin.slowestNanos() / 1e6);
+    }
+
+    // builds the world far from the origin, once measured from 0, and once from an origin moved there
+    private static void same() {
+        GameObjectCollection far = new GameObjectCollection();
+        GameObjectCollection near = new GameObjectCollection();
+        Terrain farTerrain = build(far, null, FAR);
+        FloatingOrigin origin = new FloatingOrigin(0, CHUNK_WIDTH);
+        origin.rebased(FAR, 0);
+        Terrain nearTerrain = build(near, origin, 0);
+        boolean same = true;
+        for (int x = 0; x < WINDOW_DIMENSIONS.x(); x += Block.SIZE)
+            same &= farTerrain.groundHeightAt(FAR + x) == nearTerrain.groundHeightAt(x);
+        Iterator<GameObject> nearObjects = near.iterator();
+        for (GameObject obj : far) {
+            if (!nearObjects.hasNext()) {
+                same = false;
+                break;
+            }
+            GameObject other = nearObjects.next();
+            if (obj.getCoordinateSpace() == CoordinateSpace.CAMERA_COORDINATES)
+                continue;
+            same &= obj.getTopLeftCorner().x() - FAR == other.getTopLeftCorner().x() &&
+                    obj.getTopLeftCorner().y() == other.getTopLeftCorner().y();
+        }
+        System.out.printf(SAME_MSG, FAR, same && !nearObjects.hasNext());
+    }
+
+    // builds the world around a camera at x, measured from the origin, at once
+    private static Terrain build(GameObjectCollection gameObjects, FloatingOrigin origin, int x) {
+        Terrain terrain = new Terrain(gameObjects, GROUND_LAYER, WINDOW_DIMENSIONS, SEED);
+        terrain.setOrigin(origin);
+        GameObject followed = new GameObject(WINDOW_DIMENSIONS.mult(0.5f).add(new Vector2(x, 0)), Vector2.ONES,
+                null);
+        Camera camera = new Camera(followed, Vector2.ZERO, WINDOW_DIMENSIONS, WINDOW_DIMENSIONS);
+        camera.update(0);
+        TerrainRenderCache.create(gameObjects, CACHE_LAYER, WINDOW_DIMENSIONS, camera, terrain);
+        Tree tree = new Tree(gameObjects, terrain, SEED, TRUNK_LAYER, LEAVES_LAYER, "trunk", "leaf", "ground");
+        GenerationPipeline generation = new GenerationPipeline(SEED).add("terrain", terrain).add("trees", tree);
+        generation.setOrigin(origin);
+        Prefetcher prefetcher = new Prefetcher(camera, WINDOW_DIMENSIONS.x(), WINDOW_DIMENSIONS.y(), MARGIN, 0,
+                CHUNK_WIDTH, Terrain.TILE_HEIGHT);
+        generation.setRows(prefetcher.wantedTop(), prefetcher.wantedBottom());
+        for (int left = prefetcher.wantedLeft(); left < prefetcher.wantedRight(); left += CHUNK_WIDTH)
+            generation.buildNow(left, left + CHUNK_WIDTH);
+        gameObjects.update(0);
+        return terrain;
+    }
+}
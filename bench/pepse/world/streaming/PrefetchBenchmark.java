@@ -0,0 +1,193 @@
+package pepse.world.streaming;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+import pepse.rendering.TerrainRenderCache;
+import pepse.util.JobPriority;
+import pepse.util.JobQueue;
+import pepse.util.TimerWheel;
+import pepse.world.Block;
+import pepse.world.Terrain;
+import pepse.world.generation.GenerationPipeline;
+import pepse.world.trees.Tree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the frames in which the view went past the world generated, as a camera runs back and forth through
+ * it: a few seconds one way, a stop, and a few seconds back, at the speed of the avatar and at three times it.
+ * The world is built through the job queue with a budget of 1 ms, as in the game, and extended once when the view
+ * reaches its end, as the game did, and by the prefetcher, with several lookahead times. Also reports the chunks
+ * built, and the objects in the world on average.
+ */
+public class PrefetchBenchmark {
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1280, 720);
+    private static final int SEED = 123456;
+    private static final int EXTEND_WORLD_BY = 10 * Block.SIZE;
+    private static final int CHUNK_WIDTH = 10 * Block.SIZE;
+    private static final float[] SPEEDS = {400, 1200}; // in pixels per second
+    private static final float[] LOOKAHEADS = {0, 0.5f, 1}; // in seconds
+    private static final float RUN_TIME = 4; // in seconds
+    private static final float STOP_TIME = 1;
+    private static final long BUDGET_NANOS = 1_000_000;
+    private static final int FRAMES = 3600;
+    private static final float DELTA_TIME = 1 / 60f;
+    private static final int CACHE_LAYER = Layer.STATIC_OBJECTS - 10;
+    private static final int GROUND_LAYER = Layer.STATIC_OBJECTS;
+    private static final int TRUNK_LAYER = Layer.DEFAULT - 9;
+    private static final int LEAVES_LAYER = Layer.DEFAULT - 7;
+    private static final String GROUND_TAG = "ground";
+    private static final String TRUNK_TAG = "trunk";
+    private static final String LEAF_TAG = "leaf";
+    private static final String RESULT_MSG = "%5.0f px/s  %-16s past the world in %4d frames (%3d times)  %4d chunks " +
+            "built  %5d objects%n";
+
+    private static GameObjectCollection gameObjects;
+    private static Terrain terrain;
+    private static Tree tree;
+    private static GenerationPipeline generation;
+    private static JobQueue jobs;
+    private static Prefetcher prefetcher;
+    private static int leftPointer;
+    private static int rightPointer;
+
+    /**
+     * runs the benchmark
+     * @param args unused
+     */
+    public static void main(String[] args) {
+        // the first run warms up the code, and isn't reported
+        measure(SPEEDS[0], -1, false);
+        for (float speed : SPEEDS) {
+            measure(speed, -1, true);
+            for (float lookahead : LOOKAHEADS)
+                measure(speed, lookahead, true);
+        }
+    }
+
+    // a negative lookahead extends the world at its end, as the game did
+    private static void measure(float speed, float lookahead, boolean report) {
+        gameObjects = new GameObjectCollection();
+        terrain = new Terrain(gameObjects, GROUND_LAYER, WINDOW_DIMENSIONS, SEED);
+        GameObject followed = new GameObject(WINDOW_DIMENSIONS.mult(0.5f), Vector2.ONES, null);
+        Camera camera = new Camera(followed, Vector2.ZERO, WINDOW_DIMENSIONS, WINDOW_DIMENSIONS);
+        TerrainRenderCache.create(gameObjects, CACHE_LAYER, WINDOW_DIMENSIONS, camera, terrain);
+        tree = new Tree(gameObjects, terrain, SEED, TRUNK_LAYER, LEAVES_LAYER, TRUNK_TAG, LEAF_TAG, GROUND_TAG);
+        TimerWheel timers = new TimerWheel(DELTA_TIME);
+        tree.setTimers(timers);
+        jobs = new JobQueue(BUDGET_NANOS);
+        tree.setJobs(jobs);
+        generation = new GenerationPipeline(SEED).add("terrain", terrain).add("trees", tree);
+        generation.setJobs(jobs);
+        prefetcher = new Prefetcher(camera, WINDOW_DIMENSIONS.x(), WINDOW_DIMENSIONS.y(), EXTEND_WORLD_BY,
+                Math.max(0, lookahead), CHUNK_WIDTH, Terrain.TILE_HEIGHT);
+        leftPointer = prefetcher.wantedLeft();
+        rightPointer = prefetcher.wantedRight();
+        terrain.createInRange(leftPointer, rightPointer);
+        tree.createInRange(leftPointer, rightPointer);
+        prefetcher.generated(leftPointer, rightPointer);
+        long objects = 0;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            timers.advance(DELTA_TIME);
+            followed.setCenter(followed.getCenter().add(Vector2.RIGHT.mult(velocity(frame, speed) * DELTA_TIME)));
+            camera.update(DELTA_TIME);
+            gameObjects.update(DELTA_TIME);
+            prefetcher.update(DELTA_TIME);
+            if (lookahead < 0)
+                extendAtEnd(camera);
+            else
+                prefetch();
+            jobs.run();
+            prefetcher.checkView();
+            for (GameObject ignored : gameObjects)
+                objects++;
+        }
+        if (report)
+            System.out.printf(RESULT_MSG, speed, lookahead < 0 ? "at the end" : "lookahead " + lookahead + " s",
+                    prefetcher.missFrames(), prefetcher.misses(), prefetcher.chunksBuilt(), objects / FRAMES);
+    }
+
+    // runs one way, stops, runs back, and stops, over and over
+    private static float velocity(int frame, float speed) {
+        float cycle = 2 * (RUN_TIME + STOP_TIME);
+        float time = (frame * DELTA_TIME) % cycle;
+        if (time < RUN_TIME)
+            return speed;
+        if (time >= RUN_TIME + STOP_TIME && time < 2 * RUN_TIME + STOP_TIME)
+            return -speed;
+        return 0;
+    }
+
+    // what the game manager did: extends the world by the margin once the view reaches its end, and removes as
+    // much on the other side.
+    private static void extendAtEnd(Camera camera) {
+        float left = camera.getTopLeftCorner().x(), right = left + WINDOW_DIMENSIONS.x();
+        if (right >= rightPointer) {
+            int end = -Math.floorDiv(-(int) Math.ceil(right + EXTEND_WORLD_BY), CHUNK_WIDTH) * CHUNK_WIDTH;
+            int width = end - rightPointer;
+            for (; rightPointer < end; rightPointer += CHUNK_WIDTH)
+                build(rightPointer, rightPointer + CHUNK_WIDTH);
+            retain(leftPointer + width, rightPointer);
+        }
+        if (left <= leftPointer) {
+            int end = Math.floorDiv((int) Math.floor(left - EXTEND_WORLD_BY), CHUNK_WIDTH) * CHUNK_WIDTH;
+            int width = leftPointer - end;
+            for (; leftPointer > end; leftPointer -= CHUNK_WIDTH)
+                build(leftPointer - CHUNK_WIDTH, leftPointer);
+            retain(leftPointer, rightPointer - width);
+        }
+    }
+
+    // what the game manager does
+    private static void prefetch() {
+        for (; rightPointer < prefetcher.wantedRight(); rightPointer += CHUNK_WIDTH)
+            build(rightPointer, rightPointer + CHUNK_WIDTH);
+        for (; leftPointer > prefetcher.wantedLeft(); leftPointer -= CHUNK_WIDTH)
+            build(leftPointer - CHUNK_WIDTH, leftPointer);
+        if (prefetcher.keptLeft() > leftPointer || prefetcher.keptRight() < rightPointer)
+            retain(Math.max(leftPointer, prefetcher.keptLeft()), Math.min(rightPointer, prefetcher.keptRight()));
+    }
+
+    private static void build(int start, int end) {
+        prefetcher.chunkQueued();
+        generation.build(start, end);
+        jobs.submit(JobPriority.GROUND, null, () -> prefetcher.generated(start, end));
+    }
+
+    private static void retain(int left, int right) {
+        List<GameObject> far = new ArrayList<>();
+        for (GameObject obj : gameObjects) {
+            if (obj.getCenter().x() < left || obj.getCenter().x() > right)
+                far.add(obj);
+        }
+        if (!far.isEmpty()) {
+            int[] next = {0};
+            jobs.submitSteps(JobPriority.CLEANUP, null, () -> {
+                remove(far.get(next[0]++));
+                return next[0] == far.size();
+            });
+        }
+        leftPointer = left;
+        rightPointer = right;
+        terrain.retainRange(left, right);
+        prefetcher.retained(left, right);
+    }
+
+    private static void remove(GameObject obj) {
+        jobs.cancelAll(obj);
+        if (obj.getTag().equals(GROUND_TAG))
+            gameObjects.removeGameObject(obj, GROUND_LAYER);
+        else if (obj.getTag().equals(TRUNK_TAG)) {
+            // the top of a trunk is in the layer above, as well
+            gameObjects.removeGameObject(obj, TRUNK_LAYER);
+            gameObjects.removeGameObject(obj, TRUNK_LAYER + 1);
+        }
+        else if (obj.getTag().equals(LEAF_TAG))
+            gameObjects.removeGameObject(obj, LEAVES_LAYER);
+        // the render cache stays
+    }
+}
@@ -0,0 +1,144 @@
+package pepse.world.streaming;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+import pepse.rendering.TerrainRenderCache;
+import pepse.world.Terrain;
+import pepse.world.trees.Tree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures generating chunks ahead of the game on 1 thread and on every core, in chunks per second per core,
+ * writing them to region files, and reading them back through the mapped files. Then measures building chunks in
+ * the world, as the game does, from scratch and from the regions, read through the chunk cache.
+ */
+public class PregenerationBenchmark {
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1280, 720);
+    private static final int SEED = 123456;
+    private static final int FIRST_CHUNK = -1000;
+    private static final int CHUNKS = 2000;
+    private static final int BUILT_CHUNKS = 200;
+    private static final int CACHE_LAYER = Layer.STATIC_OBJECTS - 10;
+    private static final int GROUND_LAYER = Layer.STATIC_OBJECTS;
+    private static final int TRUNK_LAYER = Layer.DEFAULT - 9;
+    private static final int LEAVES_LAYER = Layer.DEFAULT - 7;
+    private static final String GROUND_TAG = "ground";
+    private static final String TRUNK_TAG = "trunk";
+    private static final String LEAF_TAG = "leaf";
+    private static final String GENERATE_MSG = "%2d threads  %5d chunks in %7.1f ms  %7.0f chunks/s  %7.0f chunks/s " +
+            "per core%n";
+    private static final String WRITE_MSG = "wrote %d regions (%d KB, %d bytes a chunk) in %.1f ms%n";
+    private static final String READ_MSG = "read %d chunks in %.1f ms (%.2f us each), %s%n";
+    private static final String BUILD_MSG = "%-16s %4d chunks built in %.1f ms (%.1f us each)  %s%n";
+
+    /**
+     * runs the benchmark
+     * @param args unused
+     * @throws IOException on write errors
+     */
+    public static void main(String[] args) throws IOException {
+        RegionPregenerator pregenerator = new RegionPregenerator(SEED, (int) WINDOW_DIMENSIONS.y());
+        int cores = Runtime.getRuntime().availableProcessors();
+        ChunkCache.Chunk[] generated = null;
+        // the first runs warm up the code, and aren't reported
+        for (int run = 0; run < 2; run++) {
+            for (int threads = 1; threads <= cores; threads = threads == cores ? cores + 1 : Math.min(cores,
+                    2 * threads)) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                long start = System.nanoTime();
+                generated = pregenerator.generate(pool, FIRST_CHUNK, CHUNKS);
+                long time = System.nanoTime() - start;
+                pool.shutdown();
+                double chunksPerSecond = CHUNKS / (time / 1e9);
+                if (run == 1)
+                    System.out.printf(GENERATE_MSG, threads, CHUNKS, time / 1e6, chunksPerSecond,
+                            chunksPerSecond / threads);
+            }
+        }
+        Path dir = Files.createTempDirectory("regions");
+        long start = System.nanoTime();
+        long[] written = pregenerator.write(dir, (int) WINDOW_DIMENSIONS.y(), FIRST_CHUNK, generated);
+        System.out.printf(WRITE_MSG, written[0], written[1] / 1024, written[1] / CHUNKS,
+                (System.nanoTime() - start) / 1e6);
+        for (int run = 0; run < 2; run++)
+            read(pregenerator, dir, run == 1);
+        for (int run = 0; run < 2; run++) {
+            build(null, run == 1);
+            build(dir, run == 1);
+        }
+        for (int region = RegionFile.regionOf(FIRST_CHUNK); region <= RegionFile.regionOf(FIRST_CHUNK + CHUNKS - 1);
+             region++)
+            Files.deleteIfExists(RegionFile.pathOf(dir, region));
+        Files.delete(dir);
+    }
+
+    // reads every chunk, and checks it's the chunk generated
+    private static void read(RegionPregenerator pregenerator, Path dir, boolean report) {
+        PregeneratedWorld regions = new PregeneratedWorld(dir, SEED, (int) WINDOW_DIMENSIONS.y(),
+                RegionPregenerator.CHUNK_WIDTH);
+        ChunkCache chunkCache = new ChunkCache(RegionPregenerator.CHUNK_WIDTH, 0);
+        ChunkCache.Chunk[] read = new ChunkCache.Chunk[CHUNKS];
+        long start = System.nanoTime();
+        for (int i = 0; i < CHUNKS; i++) {
+            read[i] = chunkCache.newChunk();
+            regions.read(FIRST_CHUNK + i, read[i]);
+        }
+        long time = System.nanoTime() - start;
+        boolean same = true;
+        for (int i = 0; i < CHUNKS; i += CHUNKS / 10) {
+            ByteBuffer expected = ByteBuffer.allocate(read[i].writtenBytes());
+            pregenerator.generate(FIRST_CHUNK + i).write(expected);
+            ByteBuffer actual = ByteBuffer.allocate(read[i].writtenBytes());
+            read[i].write(actual);
+            same &= expected.flip().equals(actual.flip());
+        }
+        if (report)
+            System.out.printf(READ_MSG, regions.chunksRead(), time / 1e6, time / 1e3 / CHUNKS,
+                    same ? "the same as generated" : "NOT the same as generated");
+    }
+
+    // builds chunks from the middle of the regions to the right, from them or from scratch
+    private static void build(Path dir, boolean report) {
+        // so the garbage of the run before isn't collected in this one
+        System.gc();
+        GameObjectCollection gameObjects = new GameObjectCollection();
+        Terrain terrain = new Terrain(gameObjects, GROUND_LAYER, WINDOW_DIMENSIONS, SEED);
+        GameObject followed = new GameObject(WINDOW_DIMENSIONS.mult(0.5f), Vector2.ONES, null);
+        Camera camera = new Camera(followed, Vector2.ZERO, WINDOW_DIMENSIONS, WINDOW_DIMENSIONS);
+        TerrainRenderCache.create(gameObjects, CACHE_LAYER, WINDOW_DIMENSIONS, camera, terrain);
+        Tree tree = new Tree(gameObjects, terrain, SEED, TRUNK_LAYER, LEAVES_LAYER, TRUNK_TAG, LEAF_TAG, GROUND_TAG);
+        ChunkCache chunkCache = new ChunkCache(RegionPregenerator.CHUNK_WIDTH, 0);
+        if (dir != null)
+            chunkCache.setPregenerated(new PregeneratedWorld(dir, SEED, (int) WINDOW_DIMENSIONS.y(),
+                    RegionPregenerator.CHUNK_WIDTH));
+        terrain.setChunkCache(chunkCache);
+        tree.setChunkCache(chunkCache);
+        long time = 0;
+        for (int i = 0; i < BUILT_CHUNKS; i++) {
+            int left = i * RegionPregenerator.CHUNK_WIDTH, right = left + RegionPregenerator.CHUNK_WIDTH;
+            long start = System.nanoTime();
+            chunkCache.load(left, right);
+            terrain.createInRange(left, right);
+            tree.createInRange(left, right - 1);
+            time += System.nanoTime() - start;
+            // only the chunk built is in the world
+            chunkCache.unload(right, right);
+            gameObjects.update(0);
+            for (GameObject obj : gameObjects)
+                gameObjects.removeGameObject(obj, obj.getTag().equals(GROUND_TAG) ? GROUND_LAYER : obj.getTag()
+                        .equals(LEAF_TAG) ? LEAVES_LAYER : TRUNK_LAYER);
+            terrain.retainRange(right, right);
+        }
+        if (report)
+            System.out.printf(BUILD_MSG, dir == null ? "from scratch" : "from regions", BUILT_CHUNKS, time / 1e6,
+                    time / 1e3 / BUILT_CHUNKS, chunkCache);
+    }
+}
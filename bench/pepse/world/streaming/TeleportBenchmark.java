@@ -0,0 +1,63 @@
+package pepse.world.streaming;
+
+import pepse.PepseGameManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures teleports to places of the world that were never built, anywhere in the whole of it, through the
+ * teleport of the game itself: the world left is removed at once, with the enemies, and the world around the place
+ * is built through the job queue, the chunks in view first, while the avatar waits over it. Until the ground in
+ * view is there, the jobs run with the budget of the teleport every frame, and then with the budget of the game.
+ * Every budget is a fresh JVM that starts the game with -Dpepse.teleports, and is ended once the game reports
+ * the time and frames until the ground in view was there, and until all of the world was.
+ */
+public class TeleportBenchmark {
+    private static final int DEFAULT_TELEPORTS = 40;
+    private static final float[] TELEPORT_BUDGETS_MS = {1, 4, 8, 16};
+    private static final Pattern LOADED = Pattern.compile("teleports loaded: (.*)");
+    private static final String RESULT_MSG = "teleport budget %4.1f ms  %s%n";
+
+    /**
+     * runs the benchmark
+     * @param args optional: number of teleports per budget.
+     * @throws IOException if a run can't be started
+     * @throws InterruptedException if interrupted while waiting for a run
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int teleports = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_TELEPORTS;
+        for (float budget : TELEPORT_BUDGETS_MS)
+            System.out.printf(RESULT_MSG, budget, measure(budget, teleports));
+    }
+
+    // starts the game, teleporting `teleports` times with a budget, and reads how long they took to load
+    private static String measure(float budgetMs, int teleports) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(
+                System.getProperty("java.home") + "/bin/java",
+                "-cp", System.getProperty("java.class.path"),
+                "-D" + PepseGameManager.TELEPORT_BUDGET_MS_PROPERTY + "=" + budgetMs,
+                "-D" + PepseGameManager.TELEPORTS_PROPERTY + "=" + teleports,
+                PepseGameManager.class.getName())
+                .redirectErrorStream(true)
+                .start();
+        String result = "no teleport was loaded";
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                Matcher matcher = LOADED.matcher(line);
+                if (matcher.find()) {
+                    result = matcher.group(1);
+                    break;
+                }
+            }
+        }
+        // the game runs until its window is closed, so the run ends here
+        process.destroy();
+        process.waitFor();
+        return result;
+    }
+}
@@ -9,27 +9,62 @@ import danogl.gui.rendering.Camera;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Counter;
 import danogl.util.Vector2;
+import pepse.assets.AssetBundle;
+import pepse.assets.AssetCache;
+import pepse.assets.AssetManifest;
+import pepse.audio.AudioMixer;
+import pepse.audio.PcmCache;
+import pepse.audio.SoundPriority;
 import pepse.hud.HPBar;
+import pepse.hud.Minimap;
 import pepse.hud.OnScreenCounter;
+import pepse.rendering.FrustumCuller;
+import pepse.rendering.ImpostorCache;
+import pepse.rendering.MotionInterpolator;
+import pepse.rendering.TerrainRenderCache;
+import pepse.util.FixedTimestep;
+import pepse.util.JobPriority;
+import pepse.util.JobQueue;
 import pepse.util.ReadScores;
+import pepse.util.TimerWheel;
 import pepse.world.Avatar;
 import pepse.world.Block;
+import pepse.world.HeightPyramid;
+import pepse.world.NPC.Enemy;
 import pepse.world.NPC.NPCFactory;
 import pepse.world.NPC.Skeleton;
 import pepse.world.Sky;
 import pepse.world.Terrain;
+import pepse.world.background.Background;
+import pepse.world.daynight.DayNightCycle;
 import pepse.world.daynight.Moon;
-import pepse.world.daynight.Night;
 import pepse.world.daynight.Sun;
 import pepse.world.daynight.SunHalo;
+import pepse.world.generation.GenerationPipeline;
+import pepse.world.hibernation.ActivityRegions;
+import pepse.world.lighting.LightMap;
+import pepse.world.physics.RestingBodies;
 import pepse.world.phenomenon.Explosion;
 import pepse.world.phenomenon.Rain;
+import pepse.world.streaming.ChunkCache;
+import pepse.world.streaming.FloatingOrigin;
+import pepse.world.streaming.LoadingMetrics;
+import pepse.world.streaming.PregeneratedWorld;
+import pepse.world.streaming.Prefetcher;
+import pepse.world.streaming.Rebasing;
 import pepse.world.trees.Tree;
+import pepse.world.weapons.Fireball;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 public class PepseGameManager extends GameManager {
@@ -45,15 +80,83 @@ public class PepseGameManager extends GameManager {
     private static final String ENTER_NAME_MSG = "Enter your name, in english letters only: ";
     private static final String SCORE_MSG = "PEPSE by Omri Wolf & Gabi Album\n         ====HIGHSCORES====\n";
     private static final String ERROR_MSG = "connection to server timed out.";
+    private static final String FIRST_FRAME_MSG = "time to first frame: %.1f ms (%s)%n";
+    private static final String BUNDLE_SOURCE = "asset bundle";
+    private static final String LOOSE_FILES_SOURCE = "loose files";
+    // system properties. -Dpepse.bundle=false reads the loose asset files even if a bundle was built.
+    public static final String USE_BUNDLE_PROPERTY = "pepse.bundle";
+    // -Dpepse.stats=true prints how long startup took, and the counters of every part of the game when it ends.
+    public static final String STATS_PROPERTY = "pepse.stats";
+    // -Dpepse.pcmCacheMB=N caps the memory of the decoded streamed sounds.
+    public static final String PCM_CACHE_MB_PROPERTY = "pepse.pcmCacheMB";
+    private static final long DEFAULT_PCM_CACHE_MB = 32;
+    private static final long BYTES_PER_MB = 1024 * 1024;
+    // -Dpepse.rainQuality=0..1 scales the most rain drops falling at once.
+    public static final String RAIN_QUALITY_PROPERTY = "pepse.rainQuality";
+    // -Dpepse.terrainCache=false draws the ground block by block.
+    public static final String TERRAIN_CACHE_PROPERTY = "pepse.terrainCache";
+    // -Dpepse.hibernation=false updates every object in the world every frame, however far it is.
+    public static final String HIBERNATION_PROPERTY = "pepse.hibernation";
+    // -Dpepse.restingBodies=false keeps the bodies that settled in collisions with the ground.
+    public static final String RESTING_BODIES_PROPERTY = "pepse.restingBodies";
+    // -Dpepse.jobBudgetMs=0 makes every change to the world in the frame it's asked for.
+    public static final String JOB_BUDGET_MS_PROPERTY = "pepse.jobBudgetMs";
+    private static final float DEFAULT_JOB_BUDGET_MS = 1;
+    private static final long NANOS_PER_MS = 1_000_000;
+    // how far ahead of the camera the world is built, in seconds of its speed. 0 builds only EXTEND_WORLD_BY ahead.
+    public static final String PREFETCH_LOOKAHEAD_PROPERTY = "pepse.prefetchLookahead";
+    private static final float DEFAULT_PREFETCH_LOOKAHEAD = 0.5f;
+    // -Dpepse.chunkCacheKB=0 generates the world the player walks back to from scratch.
+    public static final String CHUNK_CACHE_KB_PROPERTY = "pepse.chunkCacheKB";
+    private static final long DEFAULT_CHUNK_CACHE_KB = 1024;
+    private static final long BYTES_PER_KB = 1024;
+    // folder of the regions of the world generated ahead of the game, for the seed and height of the window of the
+    // game (see RegionPregenerator). They're read through the chunk cache.
+    public static final String REGIONS_DIR_PROPERTY = "pepse.regionsDir";
+    private static final String DEFAULT_REGIONS_DIR = "src/regions";
+    // how far the camera may get from the origin of the world, in pixels, before the world is moved back to it.
+    // Floats keep 1/512 of a pixel up to it. -Dpepse.rebaseDistance=0 never moves the world.
+    public static final String REBASE_DISTANCE_PROPERTY = "pepse.rebaseDistance";
+    private static final float DEFAULT_REBASE_DISTANCE = 1 << 14;
+    // time the jobs may take every frame after a teleport, until the ground in view is there
+    public static final String TELEPORT_BUDGET_MS_PROPERTY = "pepse.teleportBudgetMs";
+    private static final float DEFAULT_TELEPORT_BUDGET_MS = 8;
+    // -Dpepse.teleports=N teleports to N places anywhere in the whole world, each once the world at the last one is
+    // all there, and prints how long they took to load (see TeleportBenchmark).
+    public static final String TELEPORTS_PROPERTY = "pepse.teleports";
+    private static final String TELEPORTS_MSG = "teleports loaded: %s%n";
+    private static final int FAST_TRAVEL_DISTANCE = 100_000; // in pixels, T travels it where the avatar looks
+    // furthest x a teleport goes with no floating origin, the last x a float holds to the pixel
+    private static final long MAX_FIXED_ORIGIN_X = 1 << 24;
+    // -Dpepse.minimap=false shows no minimap, and keeps no heights for it.
+    public static final String MINIMAP_PROPERTY = "pepse.minimap";
+    private static final int MINIMAP_PYRAMID_LEVELS = 8;
+    // how many times wider the camera shows the world when Z zooms out. The world far from the avatar is drawn from
+    // impostors. -Dpepse.zoom=1 never zooms out.
+    public static final String ZOOM_PROPERTY = "pepse.zoom";
+    private static final float DEFAULT_ZOOM = 4;
+    // how many steps a second the world is simulated in, whatever the frame rate, with the objects drawn between
+    // the last two. -Dpepse.stepRate=0 updates the world once a frame, by the time of the frame.
+    public static final String STEP_RATE_PROPERTY = "pepse.stepRate";
+    private static final float DEFAULT_STEP_RATE = 60;
+    // -Dpepse.interpolation=false draws the objects where the last step left them.
+    public static final String INTERPOLATION_PROPERTY = "pepse.interpolation";
+    private static final int MAX_STEPS_PER_FRAME = 5;
+    private static final float MAX_INTERPOLATED_JUMP = 5 * Block.SIZE; // in pixels, further is drawn where it is
     // constants
     private static final int SEED = 123456;
     private static final int MAX_ENEMIES = 2;
     private static final int NIGHT_CYCLE = 30;
-    private static final int CHANCE_FOR_RAIN = 2000; // in once per update frames
+    private static final float MEAN_TIME_BETWEEN_RAINS = 2000 / 60f; // in seconds
     private static final int MIN_RAIN_DURATION = 10; // in seconds
     private static final int MAX_RAIN_DURATION = 60;
-    private static final float MIN_GAP = 50;
+    private static final float MIN_RAIN_INTENSITY = 0.2f;
     private static final int EXTEND_WORLD_BY = 10 * Block.SIZE;
+    private static final int WORLD_CHUNK_WIDTH = 10 * Block.SIZE;
+    private static final float CULLING_MARGIN = 2 * Block.SIZE;
+    private static final float WAKE_MARGIN = 2 * Block.SIZE;
+    private static final float SLEEP_MARGIN = 5 * Block.SIZE;
+    private static final float TIMER_TICK = 1 / 60f; // in seconds
     private static final Color SUN_HALO_COLOR = new Color(255, 0, 0, 20);
     private static final Color MOON_HALO_COLOR = new Color(255, 255, 255, 80);
     private static final Vector2 SCORE_HUD_DIM = new Vector2(20, 20);
@@ -70,39 +173,82 @@ public class PepseGameManager extends GameManager {
     private static final int SUN_HALO_LAYER = Layer.BACKGROUND + 2;
     private static final int MOON_LAYER = Layer.BACKGROUND + 3;
     private static final int MOON_HALO_LAYER = Layer.BACKGROUND + 4;
+    private static final int CLOUDS_LAYER = Layer.BACKGROUND + 5; // hills at the next two layers
     private static final int RAIN_LAYER = Layer.STATIC_OBJECTS - 11;
     private static final int LOWER_GROUND_LAYER = Layer.STATIC_OBJECTS - 10;
     private static final int GROUND_LAYER = Layer.STATIC_OBJECTS;
+    private static final int RESTING_BODIES_LAYER = Layer.STATIC_OBJECTS + 1; // bones and graves asleep
+    private static final int FALLING_BODIES_LAYER = Layer.STATIC_OBJECTS + 2; // bones and graves falling
     private static final int PROJECTILES_LAYER = Layer.DEFAULT - 10;
     private static final int TRUNK_LAYER = Layer.DEFAULT - 9;
     private static final int TOP_TRUNK_LAYER = Layer.DEFAULT - 8;
     private static final int LEAVES_LAYER = Layer.DEFAULT - 7;
+    private static final int RESTING_LEAVES_LAYER = Layer.DEFAULT - 6;
     private static final int AVATAR_LAYER = Layer.DEFAULT;
     private static final int NIGHT_LAYER = Layer.FOREGROUND;
+    // the layers drawn between steps, without the ground. The health bars move at the UI.
+    private static final int[] MOVING_LAYERS = {SUN_LAYER, SUN_HALO_LAYER, MOON_LAYER, MOON_HALO_LAYER, CLOUDS_LAYER,
+            CLOUDS_LAYER + 1, CLOUDS_LAYER + 2, RAIN_LAYER, FALLING_BODIES_LAYER, PROJECTILES_LAYER, LEAVES_LAYER,
+            AVATAR_LAYER, Layer.UI};
+    // the layers of the objects of the world, all left behind by a teleport. The enemies are with the avatar.
+    private static final int[] WORLD_LAYERS = {LOWER_GROUND_LAYER, GROUND_LAYER, RESTING_BODIES_LAYER,
+            FALLING_BODIES_LAYER, PROJECTILES_LAYER, TRUNK_LAYER, TOP_TRUNK_LAYER, LEAVES_LAYER, RESTING_LEAVES_LAYER};
     //tags
     private static final String TRUNK_TAG = "trunk";
     private static final String LEAF_TAG = "leaf";
     private static final String GROUND_TAG = "ground";
     private static final String LOWER_GROUND_TAG = "lower ground";
     private static final String ENEMY_TAG = "enemy";
+    // generators
+    private static final String TERRAIN_GENERATOR = "terrain";
+    private static final String TREES_GENERATOR = "trees";
     // game objects
     private Tree tree;
     private Avatar avatar;
     private Camera camera;
     private Terrain terrain;
-    private Sound soundtrack;
+    private DayNightCycle dayNightCycle;
+    private LightMap lightMap;
+    private FrustumCuller culler;
+    private ActivityRegions activityRegions;
+    private RestingBodies restingBodies;
+    private TimerWheel timers;
+    private JobQueue jobs;
+    private FixedTimestep timestep;
+    private MotionInterpolator interpolator;
     // infinite world
     private Random random;
     private int leftPointer;
     private int rightPointer;
+    private int topPointer;
+    private int bottomPointer;
+    private Prefetcher prefetcher;
+    private ChunkCache chunkCache;
+    private GenerationPipeline generation;
+    private FloatingOrigin origin;
+    private final LoadingMetrics loading = new LoadingMetrics();
+    private long teleportBudgetNanos;
+    private Vector2 teleportSpot;
+    private boolean fastTravelPressed = false;
+    private int benchmarkTeleports;
+    private GameObject projectilesAnchor;
+    private ImpostorCache impostors;
+    private float zoom;
+    private boolean zoomPressed = false;
     private NPCFactory npcFactory;
+    private Minimap minimap;
+    private HeightPyramid groundHeights;
     // fields
-    private ImageReader imageReader;
-    private SoundReader soundReader;
+    private AssetCache assets;
+    private AudioMixer audio;
     private WindowController windowController;
+    private UserInputListener inputListener;
     private Vector2 windowDimensions;
     private Counter energy;
+    private boolean firstFrameRendered = false;
+    private String assetSource;
     // static fields
+    private static long launchTime;
     public static Counter score;
     public static Counter numOfEnemiesAlive;
 
@@ -116,62 +262,166 @@ public class PepseGameManager extends GameManager {
     @Override
     public void initializeGame(ImageReader imageReader, SoundReader soundReader, UserInputListener inputListener, WindowController windowController) {
         super.initializeGame(imageReader, soundReader, inputListener, windowController);
+        this.inputListener = inputListener;
         // initialize static counters.
         score = new Counter();
         numOfEnemiesAlive = new Counter();
         // initialize seed
         this.random = new Random(SEED);
+        // every delayed callback of the world is fired from here
+        this.timers = new TimerWheel(TIMER_TICK);
+        // the world is simulated in steps of a fixed time, and drawn between them
+        float stepRate = Float.parseFloat(System.getProperty(STEP_RATE_PROPERTY, String.valueOf(DEFAULT_STEP_RATE)));
+        if (stepRate > 0) {
+            this.timestep = new FixedTimestep(1 / stepRate, MAX_STEPS_PER_FRAME);
+            if (Boolean.parseBoolean(System.getProperty(INTERPOLATION_PROPERTY, "true")))
+                this.interpolator = new MotionInterpolator(MAX_INTERPOLATED_JUMP, MOVING_LAYERS);
+        }
+        // changes to the world are spread over frames
+        float jobBudget = Float.parseFloat(System.getProperty(JOB_BUDGET_MS_PROPERTY,
+                String.valueOf(DEFAULT_JOB_BUDGET_MS)));
+        if (jobBudget > 0)
+            this.jobs = new JobQueue((long) (jobBudget * NANOS_PER_MS));
+        this.teleportBudgetNanos = (long) (NANOS_PER_MS * Float.parseFloat(System.getProperty(
+                TELEPORT_BUDGET_MS_PROPERTY, String.valueOf(DEFAULT_TELEPORT_BUDGET_MS))));
+        this.benchmarkTeleports = Integer.getInteger(TELEPORTS_PROPERTY, 0);
         this.windowController = windowController;
         this.windowDimensions = windowController.getWindowDimensions(); // gets window dimensions
-        this.imageReader = imageReader;
-        this.soundReader = soundReader;
+        // load every asset of the game once, before anything is created.
+        initializeAssets(imageReader, soundReader);
         // play soundtrack for the duration of the game.
-        soundtrack = soundReader.readSound(SOUNDTRACK_PATH);
-        soundtrack.playLooped();
+        audio.loop(SOUNDTRACK_PATH, SoundPriority.MUSIC);
         // create terrain
         this.terrain = new Terrain(this.gameObjects(), GROUND_LAYER, windowDimensions, SEED);
         // create trees
         this.tree = new Tree(this.gameObjects(), terrain, SEED, TRUNK_LAYER, LEAVES_LAYER, TRUNK_TAG, LEAF_TAG, GROUND_TAG);
+        tree.setTimers(timers);
+        tree.setJobs(jobs);
+        // the world the player walks back to is built as it was
+        long chunkCacheBytes = Long.getLong(CHUNK_CACHE_KB_PROPERTY, DEFAULT_CHUNK_CACHE_KB) * BYTES_PER_KB;
+        if (chunkCacheBytes > 0) {
+            this.chunkCache = new ChunkCache(WORLD_CHUNK_WIDTH, chunkCacheBytes);
+            Path regionsDir = Paths.get(System.getProperty(REGIONS_DIR_PROPERTY, DEFAULT_REGIONS_DIR));
+            chunkCache.setPregenerated(new PregeneratedWorld(regionsDir, SEED, (int) windowDimensions.y(),
+                    WORLD_CHUNK_WIDTH));
+            terrain.setChunkCache(chunkCache);
+            tree.setChunkCache(chunkCache);
+        }
+        // the world is generated by the ground, then the trees, a chunk at a time
+        this.generation = new GenerationPipeline(SEED).add(TERRAIN_GENERATOR, terrain).add(TREES_GENERATOR, tree);
+        generation.setChunkCache(chunkCache);
+        generation.setJobs(jobs);
+        // positions are measured from an origin that follows the camera, a chunk at a time
+        float rebaseDistance = Float.parseFloat(System.getProperty(REBASE_DISTANCE_PROPERTY,
+                String.valueOf(DEFAULT_REBASE_DISTANCE)));
+        if (rebaseDistance > 0) {
+            this.origin = new FloatingOrigin(rebaseDistance, WORLD_CHUNK_WIDTH);
+            terrain.setOrigin(origin);
+            if (chunkCache != null)
+                chunkCache.setOrigin(origin);
+            generation.setOrigin(origin);
+        }
         // create avatar
-        this.avatar = Avatar.create(gameObjects(), AVATAR_LAYER, windowDimensions.mult(0.5f), inputListener, imageReader);
-        this.avatar.setSounds(soundReader);
+        this.avatar = Avatar.create(gameObjects(), AVATAR_LAYER, windowDimensions.mult(0.5f), inputListener, assets);
+        this.avatar.setSounds(audio);
         this.avatar.setProjectileLayer(PROJECTILES_LAYER);
+        this.avatar.setGraveLayer(FALLING_BODIES_LAYER);
         this.avatar.setTerrain(terrain);
+        this.avatar.setTimers(timers);
+        this.avatar.setRemover(this::removeObjects);
         // create HUD elements
         createHUD();
-        // create celestial objects (moon, night, sun, halos, rain)
-        createCelestials();
-        // initialize static assets
-        initializeAssets();
         // create camera
         this.camera = new Camera(this.avatar, Vector2.ZERO, windowDimensions, windowDimensions);
         setCamera(camera);
+        // only the objects in view of the camera are rendered
+        this.culler = new FrustumCuller(camera, CULLING_MARGIN);
+        // only the objects around the camera are updated
+        if (Boolean.parseBoolean(System.getProperty(HIBERNATION_PROPERTY, "true")))
+            this.activityRegions = new ActivityRegions(camera, WAKE_MARGIN, SLEEP_MARGIN);
+        // draw the ground from an image per chunk
+        if (Boolean.parseBoolean(System.getProperty(TERRAIN_CACHE_PROPERTY, "true")))
+            TerrainRenderCache.create(gameObjects(), LOWER_GROUND_LAYER, windowDimensions, camera, terrain);
+        // zoomed out, the world far from the avatar is drawn from an image a tile
+        this.zoom = Float.parseFloat(System.getProperty(ZOOM_PROPERTY, String.valueOf(DEFAULT_ZOOM)));
+        if (zoom > 1) {
+            this.impostors = ImpostorCache.create(gameObjects(), LOWER_GROUND_LAYER, windowDimensions, camera,
+                    terrain, tree);
+            impostors.setOrigin(origin);
+        }
+        // create celestial objects (moon, night, sun, halos, clouds, hills, rain)
+        createCelestials();
         // create NPCFactory
-        this.npcFactory = new NPCFactory(SEED, avatar, gameObjects(), imageReader, AVATAR_LAYER, terrain, ENEMY_TAG);
-        // create world
+        this.npcFactory = new NPCFactory(SEED, avatar, gameObjects(), assets, AVATAR_LAYER, terrain, ENEMY_TAG);
+        npcFactory.setTimers(timers);
+        npcFactory.setRemainsLayer(FALLING_BODIES_LAYER);
+        if (minimap != null)
+            npcFactory.setMinimap(minimap);
+        // bodies that settled leave the collisions with the ground
+        if (Boolean.parseBoolean(System.getProperty(RESTING_BODIES_PROPERTY, "true")))
+            createRestingBodies();
+        // create world, and the world the camera is going to
+        float lookahead = Float.parseFloat(System.getProperty(PREFETCH_LOOKAHEAD_PROPERTY,
+                String.valueOf(DEFAULT_PREFETCH_LOOKAHEAD)));
+        this.prefetcher = new Prefetcher(camera, windowDimensions.x(), windowDimensions.y(), EXTEND_WORLD_BY,
+                lookahead, WORLD_CHUNK_WIDTH, Terrain.TILE_HEIGHT);
         initialWorld();
         // all collision rules. making a new Object on PROJECTILES to be able to include PROJECTILE_LAYER
-        gameObjects().addGameObject(new GameObject(Vector2.ZERO, Vector2.ZERO, null), PROJECTILES_LAYER);
+        this.projectilesAnchor = new GameObject(Vector2.ZERO, Vector2.ZERO, null);
+        gameObjects().addGameObject(projectilesAnchor, PROJECTILES_LAYER);
         gameObjects().layers().shouldLayersCollide(AVATAR_LAYER, TOP_TRUNK_LAYER, true);
         gameObjects().layers().shouldLayersCollide(LEAVES_LAYER, GROUND_LAYER, true);
-        gameObjects().layers().shouldLayersCollide(GROUND_LAYER, GROUND_LAYER, true);
+        gameObjects().layers().shouldLayersCollide(FALLING_BODIES_LAYER, GROUND_LAYER, true);
+        gameObjects().layers().shouldLayersCollide(FALLING_BODIES_LAYER, FALLING_BODIES_LAYER, true);
         gameObjects().layers().shouldLayersCollide(PROJECTILES_LAYER, TRUNK_LAYER, true);
         gameObjects().layers().shouldLayersCollide(PROJECTILES_LAYER, LEAVES_LAYER, true);
         gameObjects().layers().shouldLayersCollide(PROJECTILES_LAYER, GROUND_LAYER, true);
         gameObjects().layers().shouldLayersCollide(PROJECTILES_LAYER, AVATAR_LAYER, true);
+        gameObjects().layers().shouldLayersCollide(PROJECTILES_LAYER, RESTING_LEAVES_LAYER, true);
+        gameObjects().layers().shouldLayersCollide(PROJECTILES_LAYER, FALLING_BODIES_LAYER, true);
+        gameObjects().layers().shouldLayersCollide(PROJECTILES_LAYER, RESTING_BODIES_LAYER, true);
+        gameObjects().layers().shouldLayersCollide(AVATAR_LAYER, FALLING_BODIES_LAYER, true);
+        gameObjects().layers().shouldLayersCollide(AVATAR_LAYER, RESTING_BODIES_LAYER, true);
+        // from now on, every asset should come from the cache.
+        assets.endStartup();
     }// overrides initializeGame
 
     /**
-     * initialize assets that are used a lot as static assets, so loading them will only happen once.
+     * create the asset cache and load every asset declared by the game's classes, so loading them will only
+     * happen once, before the first frame. Also creates the audio mixer, which every sound is played through,
+     * off the game thread.
+     * @param imageReader ImageReader
+     * @param soundReader SoundReader
      */
-    private void initializeAssets() {
-        Explosion.initAssets(imageReader, soundReader);
-        Skeleton.initAssets(imageReader);
-        HPBar.initAssets(imageReader);
+    private void initializeAssets(ImageReader imageReader, SoundReader soundReader) {
+        // use the packed asset bundle if it was built, the loose files otherwise.
+        AssetBundle bundle = null;
+        if (Boolean.parseBoolean(System.getProperty(USE_BUNDLE_PROPERTY, "true"))) {
+            try {
+                bundle = AssetBundle.open(AssetBundle.DEFAULT_BUNDLE_PATH);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        this.assetSource = bundle != null ? BUNDLE_SOURCE : LOOSE_FILES_SOURCE;
+        this.assets = new AssetCache(imageReader, soundReader, bundle);
+        AssetManifest manifest = new AssetManifest();
+        manifest.addStreamedSound(SOUNDTRACK_PATH).addImage(KEYBOARD_PATH);
+        Avatar.declareAssets(manifest);
+        Fireball.declareAssets(manifest);
+        Explosion.declareAssets(manifest);
+        Skeleton.declareAssets(manifest);
+        HPBar.declareAssets(manifest);
+        Moon.declareAssets(manifest);
+        Rain.declareAssets(manifest);
+        assets.preload(manifest);
+        long pcmCacheBytes = Long.getLong(PCM_CACHE_MB_PROPERTY, DEFAULT_PCM_CACHE_MB) * BYTES_PER_MB;
+        this.audio = new AudioMixer(assets, new PcmCache(bundle, pcmCacheBytes));
+        audio.preloadStreamed(manifest);
     }
 
     /**
-     * create score & energy HUD elements, and keyboard layout element.
+     * create score & energy HUD elements, keyboard layout element, and the minimap.
      */
     private void createHUD() {
         // create Score HUD & energy HUD
@@ -185,27 +435,58 @@ public class PepseGameManager extends GameManager {
                 SCORE_HUD_DIM, gameObjects(), ENERGY_HUD_MSG);
         gameObjects().addGameObject(energyUI, Layer.UI);
         // create keyboard layout HUD
-        Renderable keyboard = imageReader.readImage(KEYBOARD_PATH, true);
+        Renderable keyboard = assets.readImage(KEYBOARD_PATH);
         GameObject keyboardLayout = new GameObject(windowDimensions.add(KEYBOARD_LOCATION_OFFSET), KEYBOARD_DIMS, keyboard);
         gameObjects().addGameObject(keyboardLayout, Layer.UI);
         keyboardLayout.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+        // create the minimap, drawn from the heights of the ground and trees kept as the world is built
+        if (Boolean.parseBoolean(System.getProperty(MINIMAP_PROPERTY, "true"))) {
+            this.groundHeights = new HeightPyramid(MINIMAP_PYRAMID_LEVELS);
+            HeightPyramid treeHeights = new HeightPyramid(MINIMAP_PYRAMID_LEVELS);
+            terrain.setHeightPyramid(groundHeights);
+            tree.setHeightPyramid(treeHeights);
+            this.minimap = Minimap.create(gameObjects(), Layer.UI, windowDimensions, avatar, groundHeights,
+                    treeHeights);
+            minimap.setOrigin(origin);
+        }
+    }
+
+    /**
+     * create the resting bodies, which the leaves, bones and grave sleep in once they settle. Asleep, they only
+     * collide with what could touch them, not with the ground.
+     */
+    private void createRestingBodies() {
+        this.restingBodies = new RestingBodies(gameObjects());
+        restingBodies.setRestingLayer(LEAVES_LAYER, RESTING_LEAVES_LAYER);
+        restingBodies.setRestingLayer(FALLING_BODIES_LAYER, RESTING_BODIES_LAYER);
+        tree.setRestingBodies(restingBodies);
+        avatar.setRestingBodies(restingBodies);
+        npcFactory.setRestingBodies(restingBodies);
     }
 
     private void createCelestials() {
-        //create sky
-        Sky.create( gameObjects(), windowDimensions , SKY_LAYER);
-        // create night
-        Night.create(gameObjects(), NIGHT_LAYER, windowDimensions, NIGHT_CYCLE);
+        // a single clock drives the whole day: sky colour, darkness, sun, moon and halos.
+        this.dayNightCycle = new DayNightCycle(NIGHT_CYCLE);
+        //create sky, which runs the clock
+        GameObject sky = Sky.create( gameObjects(), windowDimensions , SKY_LAYER, dayNightCycle);
+        sky.addComponent(dayNightCycle);
+        // create the night: darkness, lit up by fireballs and explosions
+        this.lightMap = LightMap.create(gameObjects(), NIGHT_LAYER, windowDimensions, camera, dayNightCycle);
+        avatar.setLights(lightMap);
         // create sun
-        GameObject sun = Sun.create(gameObjects(), SUN_LAYER, windowDimensions, NIGHT_CYCLE);
+        GameObject sun = Sun.create(gameObjects(), SUN_LAYER, windowDimensions, dayNightCycle);
         // create halo
-        SunHalo.create(gameObjects(), SUN_HALO_LAYER, sun, SUN_HALO_COLOR);
+        SunHalo.create(gameObjects(), SUN_HALO_LAYER, sun, SUN_HALO_COLOR, dayNightCycle);
         // create moon
-        GameObject moon = Moon.create(gameObjects(), MOON_LAYER, windowDimensions, NIGHT_CYCLE, imageReader);
+        GameObject moon = Moon.create(gameObjects(), MOON_LAYER, windowDimensions, dayNightCycle, assets);
         // create moon halo
-        SunHalo.create(gameObjects(), MOON_HALO_LAYER, moon, MOON_HALO_COLOR);
+        SunHalo.create(gameObjects(), MOON_HALO_LAYER, moon, MOON_HALO_COLOR, dayNightCycle);
+        // create the clouds and hills, in front of the sun and moon
+        Background.create(gameObjects(), CLOUDS_LAYER, windowDimensions, camera, SEED);
         // create Rain singleton object
-        Rain.create(gameObjects(), RAIN_LAYER, windowDimensions, imageReader, soundReader);
+        float rainQuality = Float.parseFloat(System.getProperty(RAIN_QUALITY_PROPERTY, "1"));
+        Rain.create(gameObjects(), RAIN_LAYER, windowDimensions, camera, terrain, audio, rainQuality, SEED);
+        Rain.setTimers(timers);
     }
 
     /**
@@ -214,104 +495,421 @@ public class PepseGameManager extends GameManager {
      */
     @Override
     public void update(float deltaTime) {
-        super.update(deltaTime);
+        // the world takes the steps the frame owes, and where it was before the last one is kept, to draw between
+        int steps = timestep == null ? 1 : timestep.advance(deltaTime);
+        float stepTime = timestep == null ? deltaTime : timestep.step();
+        for (int i = 0; i < steps; i++) {
+            if (interpolator != null && i == steps - 1)
+                interpolator.capture(gameObjects(), camera);
+            step(stepTime);
+        }
+        if (interpolator != null && steps > 0)
+            interpolator.moved();
         // check for end game condition
         if (avatar.isDead())
             endGame();
         // update energy UI
         energy.reset();
         energy.increaseBy((int) avatar.getEnergy());
-        //the most right x coordinate
-        float rightXCoordinate = camera.screenToWorldCoords(windowDimensions).x();
-        // the most left x coordinate
-        float leftXCoordinate = camera.screenToWorldCoords(windowDimensions).x() - windowDimensions.x();
-        // checks if to extend to right
-        if (rightXCoordinate >= this.rightPointer)
-            extendRight(this.rightPointer, rightXCoordinate + EXTEND_WORLD_BY);
-        // checks if to extend to left
-        if (leftXCoordinate <= this.leftPointer)
-            extendLeft(leftXCoordinate + MIN_GAP, this.leftPointer - EXTEND_WORLD_BY);
-        // check for rain, and start raining for a random amount of time
-        if (random.nextInt(CHANCE_FOR_RAIN) == 0) {
-            int duration = random.nextInt( MAX_RAIN_DURATION - MIN_RAIN_DURATION) + MIN_RAIN_DURATION;
-            Rain.startRain(duration);
+        // sounds are heard from the avatar
+        audio.setListener(avatar.getCenter());
+        // fast travel where the avatar looks, once a press, while it's alive
+        boolean fastTravel = inputListener.isKeyPressed(KeyEvent.VK_T);
+        if (fastTravel && !fastTravelPressed && avatar.getHP() > 0)
+            teleport(worldX(avatar.getCenter().x()) +
+                    (avatar.renderer().isFlippedHorizontally() ? -FAST_TRAVEL_DISTANCE : FAST_TRAVEL_DISTANCE));
+        fastTravelPressed = fastTravel;
+        // zoom out, or back in, once a press
+        boolean zoomKey = inputListener.isKeyPressed(KeyEvent.VK_Z);
+        if (zoomKey && !zoomPressed && impostors != null)
+            camera.setDimensions(impostors.isZoomedOut() ? windowDimensions : windowDimensions.mult(zoom));
+        zoomPressed = zoomKey;
+        // move the world back to the origin once the camera is far from it
+        if (origin != null)
+            rebaseWorld(origin.shiftFor(camera.getCenter().x()));
+        // build the world the camera will reach soon, and remove the world behind it
+        prefetcher.update(deltaTime);
+        extendRows(prefetcher.wantedTop(), prefetcher.wantedBottom());
+        if (prefetcher.keptTop() > topPointer || prefetcher.keptBottom() < bottomPointer)
+            retainRows(Math.max(topPointer, prefetcher.keptTop()), Math.min(bottomPointer, prefetcher.keptBottom()));
+        extendRight(prefetcher.wantedRight());
+        extendLeft(prefetcher.wantedLeft());
+        if (prefetcher.keptLeft() > leftPointer || prefetcher.keptRight() < rightPointer)
+            retainWorld(Math.max(leftPointer, prefetcher.keptLeft()), Math.min(rightPointer, prefetcher.keptRight()));
+        // the world of objects isn't drawn from impostors
+        if (impostors != null)
+            impostors.setDetail(leftPointer, rightPointer, topPointer, bottomPointer);
+        // what's left of the changes to the world, in the time left for them, or in the budget of a teleport
+        if (jobs != null) {
+            if (loading.isGroundLoading())
+                jobs.run(teleportBudgetNanos);
+            else
+                jobs.run();
         }
+        loading.frame(jobs == null || jobs.depth() == 0);
+        prefetcher.checkView();
+        if (benchmarkTeleports > 0 && !loading.isLoading())
+            nextTeleport();
     } //end of update
 
+    // teleports to a place anywhere in the whole world, short of where its x overflows, or prints how long the
+    // teleports took after the last one
+    private void nextTeleport(){
+        if (loading.loads() < benchmarkTeleports) {
+            teleport(random.nextLong() >> 2);
+            return;
+        }
+        System.out.printf(TELEPORTS_MSG, loading);
+        this.benchmarkTeleports = 0;
+    } // end of method nextTeleport
+
+    // a step of the simulation of the world, by a fixed time, or by the time of the frame
+    private void step(float deltaTime) {
+        // the timers due are fired at the start of the step
+        timers.advance(deltaTime);
+        if (restingBodies != null)
+            restingBodies.update();
+        if (activityRegions != null)
+            updateActive(deltaTime);
+        else
+            super.update(deltaTime);
+        // the avatar waits where it was teleported until there is ground under it
+        if (loading.isGroundLoading()) {
+            avatar.setTopLeftCorner(teleportSpot);
+            avatar.setVelocity(Vector2.ZERO);
+        }
+        // check for rain, as often on average whatever the time of the step, and start raining for a random
+        // amount of time
+        if (random.nextFloat() < deltaTime / MEAN_TIME_BETWEEN_RAINS) {
+            int duration = random.nextInt( MAX_RAIN_DURATION - MIN_RAIN_DURATION) + MIN_RAIN_DURATION;
+            float intensity = MIN_RAIN_INTENSITY + random.nextFloat() * (1 - MIN_RAIN_INTENSITY);
+            Rain.startRain(duration, intensity);
+        }
+    } // end of step
+
+    // what GameManager.update does, except that objects far from the camera are asleep.
+    private void updateActive(float deltaTime) {
+        activityRegions.update(gameObjects(), deltaTime);
+        camera.update(deltaTime);
+        gameObjects().update(deltaTime);
+        gameObjects().handleCollisions();
+    }
+
     private void initialWorld() {
-        float rightXCoordinate = camera.screenToWorldCoords(windowDimensions).x();
-        float leftXCoordinate = camera.screenToWorldCoords(windowDimensions).x() - windowDimensions.x();
-        this.leftPointer = (int) (Math.floor(leftXCoordinate / Block.SIZE) * Block.SIZE) - EXTEND_WORLD_BY;
-        this.rightPointer = (int) (Math.floor(rightXCoordinate / Block.SIZE) * Block.SIZE) + EXTEND_WORLD_BY;
-        this.terrain.createInRange(leftPointer, rightPointer);
-        this.tree.createInRange(leftPointer, rightPointer);
+        this.leftPointer = prefetcher.wantedLeft();
+        this.rightPointer = prefetcher.wantedRight();
+        this.topPointer = prefetcher.wantedTop();
+        this.bottomPointer = prefetcher.wantedBottom();
+        generation.setRows(topPointer, bottomPointer);
+        if (chunkCache != null)
+            chunkCache.load(leftPointer, rightPointer);
+        // right away, so the world is there in the first frame
+        for (int x = leftPointer; x < rightPointer; x += WORLD_CHUNK_WIDTH)
+            generation.buildNow(x, x + WORLD_CHUNK_WIDTH);
+        prefetcher.generated(leftPointer, rightPointer);
     } // end of initial world
 
+    // builds a chunk of the world, through the jobs if there are: the ground a column at a time, then the trees,
+    // and the enemy.
     private void buildWorld(int start, int end){
-        this.terrain.createInRange(start, end);
-        this.tree.createInRange(start, end);
-        // create random enemy
+        prefetcher.chunkQueued();
+        if (chunkCache != null)
+            chunkCache.load(start, end);
+        generation.build(start, end);
+        if (jobs != null) // after the ground of the chunk
+            jobs.submit(JobPriority.GROUND, null, () -> prefetcher.generated(start, end));
+        else
+            prefetcher.generated(start, end);
+        // create random enemy, counted right away, so the next chunks don't queue more enemies than may be alive
         if (numOfEnemiesAlive.value() < MAX_ENEMIES) {
-            npcFactory.createEnemy(Math.min(start, end) + random.nextInt(Math.abs(start-end)));
+            int x = start + random.nextInt(end - start);
+            if (jobs != null)
+                jobs.submit(JobPriority.WORLD, null, () -> npcFactory.createEnemy(x));
+            else
+                npcFactory.createEnemy(x);
             numOfEnemiesAlive.increment();
         }
     } // end of build world
 
-    private void extendRight(float start, float end){
-        int normalizeStart = (int) (Math.floor(start / Block.SIZE) * Block.SIZE); // normalize start position
-        int normalizeEnd = (int) (Math.floor(end / Block.SIZE) * Block.SIZE); // normalize end position
-        // extend right
-        buildWorld(normalizeStart, normalizeEnd);
-        // remove irrelevant objects from right
+    // extends the world to the right, a chunk at a time from the nearest
+    private void extendRight(int end){
+        for (; rightPointer < end; rightPointer += WORLD_CHUNK_WIDTH)
+            buildWorld(rightPointer, rightPointer + WORLD_CHUNK_WIDTH);
+    } // end of extendRight method
+
+    // extends the world to the left, a chunk at a time from the nearest
+    private void extendLeft(int end){
+        for (; leftPointer > end; leftPointer -= WORLD_CHUNK_WIDTH)
+            buildWorld(leftPointer - WORLD_CHUNK_WIDTH, leftPointer);
+    } // end of extend left method
+
+    // moves the origin of the world along x, and everything in the world back by as much, in one pass. Waits for
+    // the jobs to be done, as they hold places in the world.
+    private void rebaseWorld(int shiftX){
+        if (shiftX == 0 || (jobs != null && jobs.depth() > 0))
+            return;
+        long start = System.nanoTime();
+        moveWorld(shiftX);
+        this.leftPointer -= shiftX;
+        this.rightPointer -= shiftX;
+        prefetcher.rebase(shiftX);
+        terrain.rebase(shiftX);
+        origin.rebased(shiftX, System.nanoTime() - start);
+    } // end of method rebaseWorld
+
+    // moves everything living in the world, and the camera, back along x, when the origin moved
+    private void moveWorld(long shiftX){
         for (GameObject obj : gameObjects()){
-            if (obj.getCenter().x() < leftPointer) {
-                removeObjects(obj);
+            // what's drawn on screen stays
+            if (obj.getCoordinateSpace() != CoordinateSpace.CAMERA_COORDINATES)
+                obj.setTopLeftCorner(Rebasing.shifted(obj.getTopLeftCorner(), shiftX));
+            if (obj instanceof Rebasing)
+                ((Rebasing) obj).rebase(shiftX);
+        } //end of for loop
+        camera.setTopLeftCorner(Rebasing.shifted(camera.getTopLeftCorner(), shiftX));
+        if (restingBodies != null)
+            restingBodies.rebase(shiftX);
+        // nothing is drawn between where it was and where it's moved to
+        if (interpolator != null)
+            interpolator.clear();
+    } // end of method moveWorld
+
+    /**
+     * moves the avatar to any place in the world at once, for fast travel. The world it leaves is removed at once,
+     * with the jobs building it, and the world around the place is built through the jobs: the chunks in view
+     * first, with a budget of their own every frame until their ground is there, while the avatar waits over it,
+     * then the rest of the world as usual. The time it takes is kept in the loading metrics. With no floating
+     * origin, the place is kept within the x a float position holds to the pixel.
+     * @param worldX x of the place in the whole world
+     */
+    public void teleport(long worldX){
+        loading.started();
+        // the world left, and the jobs building it. The jobs removing the world go on.
+        if (jobs != null) {
+            for (JobPriority priority : JobPriority.values())
+                if (priority != JobPriority.CLEANUP)
+                    jobs.clear(priority);
+        }
+        // every object of the world but the avatar, wherever it is, with the timers and jobs of it
+        List<GameObject> enemies = new ArrayList<>();
+        for (GameObject obj : gameObjects().objectsInLayer(AVATAR_LAYER)){
+            if (obj.getTag().equals(ENEMY_TAG))
+                enemies.add(obj);
+        } //end of for loop
+        for (GameObject obj : enemies)
+            removeObjects(obj);
+        for (int layer : WORLD_LAYERS) {
+            List<GameObject> world = new ArrayList<>();
+            for (GameObject obj : gameObjects().objectsInLayer(layer)){
+                if (obj != projectilesAnchor)
+                    world.add(obj);
+            } //end of for loop
+            for (GameObject obj : world)
+                removeFromLayer(obj, layer);
+        }
+        terrain.clear();
+        tree.clear();
+        // the enemies queued were dropped with the jobs
+        numOfEnemiesAlive.reset();
+        // positions are measured from the chunk of the place, so they keep their precision there
+        if (origin == null)
+            worldX = Math.max(-MAX_FIXED_ORIGIN_X, Math.min(MAX_FIXED_ORIGIN_X, worldX));
+        int x = (int) worldX;
+        if (origin != null) {
+            long shiftX = Math.floorDiv(worldX, WORLD_CHUNK_WIDTH) * WORLD_CHUNK_WIDTH - origin.offsetX();
+            long start = System.nanoTime();
+            moveWorld(shiftX);
+            origin.rebased(shiftX, System.nanoTime() - start);
+            x = (int) (worldX - origin.offsetX());
+        }
+        this.teleportSpot = new Vector2(x, terrain.groundHeightAt(x) - avatar.getDimensions().y());
+        avatar.setTopLeftCorner(teleportSpot);
+        avatar.setVelocity(Vector2.ZERO);
+        camera.update(0);
+        // the avatar and camera are drawn at the place, not on their way to it
+        if (interpolator != null)
+            interpolator.clear();
+        // the chunks in view, then the ground is there, then the rest of the world
+        prefetcher.reset();
+        this.topPointer = prefetcher.wantedTop();
+        this.bottomPointer = prefetcher.wantedBottom();
+        generation.setRows(topPointer, bottomPointer);
+        if (chunkCache != null)
+            chunkCache.unload(prefetcher.wantedLeft(), prefetcher.wantedRight());
+        // the view is the size of the screen, even when the camera is zoomed out
+        float viewLeft = camera.getCenter().x() - windowDimensions.x() / 2;
+        this.leftPointer = Math.floorDiv((int) Math.floor(viewLeft), WORLD_CHUNK_WIDTH) * WORLD_CHUNK_WIDTH;
+        this.rightPointer = leftPointer;
+        extendRight((int) Math.ceil(viewLeft + windowDimensions.x()));
+        if (jobs != null)
+            jobs.submit(JobPriority.GROUND, null, loading::groundReady);
+        else
+            loading.groundReady();
+        extendRight(prefetcher.wantedRight());
+        extendLeft(prefetcher.wantedLeft());
+    } // end of method teleport
+
+    // x in the whole world of an x measured from the origin
+    private long worldX(float x){
+        return origin == null ? (long) x : origin.offsetX() + (long) Math.floor(x);
+    } // end of method worldX
+
+    // extends the world up and down to the rows of a range, in every chunk there is
+    private void extendRows(int top, int bottom){
+        if (top >= topPointer && bottom <= bottomPointer)
+            return;
+        for (int x = leftPointer; x < rightPointer; x += WORLD_CHUNK_WIDTH) {
+            if (top < topPointer)
+                generation.buildRows(x, x + WORLD_CHUNK_WIDTH, top, topPointer);
+            if (bottom > bottomPointer)
+                generation.buildRows(x, x + WORLD_CHUNK_WIDTH, bottomPointer, bottom);
+        }
+        this.topPointer = Math.min(top, topPointer);
+        this.bottomPointer = Math.max(bottom, bottomPointer);
+        generation.setRows(topPointer, bottomPointer);
+    } // end of method extendRows
+
+    // removes the ground outside of a range of rows
+    private void retainRows(int top, int bottom){
+        List<GameObject> far = new ArrayList<>();
+        for (GameObject obj : gameObjects()){
+            if ((obj.getTag().equals(GROUND_TAG) || obj.getTag().equals(LOWER_GROUND_TAG)) &&
+                    obj.getCoordinateSpace() != CoordinateSpace.CAMERA_COORDINATES &&
+                    (obj.getCenter().y() < top || obj.getCenter().y() > bottom)) {
+                far.add(obj);
             }
         } //end of for loop
-        this.rightPointer = normalizeEnd; //update right pointer
-        this.leftPointer += (normalizeEnd - normalizeStart); //update left pointer
-    } // end of extendRight method
+        removeObjects(far);
+        this.topPointer = top;
+        this.bottomPointer = bottom;
+        this.terrain.retainRows(topPointer, bottomPointer);
+        generation.setRows(topPointer, bottomPointer);
+    } // end of method retainRows
 
-    // extends the world to the left
-    private void extendLeft(float start, float end){
-        int normalizeStart = (int) (Math.floor(start / Block.SIZE) * Block.SIZE); // normalize start position
-        int normalizeEnd = (int) (Math.floor(end / Block.SIZE) * Block.SIZE); // normalize end position
-        // extend left
-        buildWorld(normalizeStart, normalizeEnd);
-        // remove irrelevant objects from right
+    // removes the world outside of a range. objects on the screen, like the rain, are never far.
+    private void retainWorld(int left, int right){
+        List<GameObject> far = new ArrayList<>();
         for (GameObject obj : gameObjects()){
-            if (obj.getCenter().x() > this.rightPointer) {
-                removeObjects(obj);
+            if (obj.getCoordinateSpace() != CoordinateSpace.CAMERA_COORDINATES &&
+                    (obj.getCenter().x() < left || obj.getCenter().x() > right)) {
+                far.add(obj);
             }
-        }// end of for loop
-        this.leftPointer = normalizeEnd; //update left pointer
-        this.rightPointer -= (normalizeStart - normalizeEnd); //update right pointer
-    } // end of extend left method
+        } //end of for loop
+        removeObjects(far);
+        this.leftPointer = left;
+        this.rightPointer = right;
+        this.terrain.retainRange(leftPointer, rightPointer);
+        this.tree.retainRange(worldX(leftPointer), worldX(rightPointer));
+        prefetcher.retained(leftPointer, rightPointer);
+        if (chunkCache != null)
+            chunkCache.unload(leftPointer, rightPointer);
+    } // end of method retainWorld
+
+    // removes objects, through the jobs if there are, one at a time
+    private void removeObjects(List<GameObject> objects) {
+        if (jobs == null) {
+            for (GameObject obj : objects)
+                removeObjects(obj);
+            return;
+        }
+        if (objects.isEmpty())
+            return;
+        int[] next = {0};
+        jobs.submitSteps(JobPriority.CLEANUP, null, () -> {
+            removeObjects(objects.get(next[0]++));
+            return next[0] == objects.size();
+        });
+    } // end of method remove objects
 
-    // removes the objects
-    private void removeObjects(GameObject obj){
+    // removes the objects, returns true if the object was removed
+    private boolean removeObjects(GameObject obj){
+        boolean removed = false;
         // remove ground
         if (obj.getTag() .equals(GROUND_TAG))
-            gameObjects().removeGameObject(obj, GROUND_LAYER);
-        // remove tree trunk
+            removed = gameObjects().removeGameObject(obj, GROUND_LAYER);
+        // remove tree trunk, and the top of the trunk from the layer the avatar stands on
         else if (obj.getTag().equals(TRUNK_TAG))
-             gameObjects().removeGameObject(obj, TRUNK_LAYER);
+            removed = gameObjects().removeGameObject(obj, TRUNK_LAYER) |
+                    gameObjects().removeGameObject(obj, TOP_TRUNK_LAYER);
         // remove leaves
-        else if (obj.getTag().equals(LEAF_TAG))
-             gameObjects().removeGameObject(obj, LEAVES_LAYER);
+        else if (obj.getTag().equals(LEAF_TAG)) {
+            removed = (restingBodies != null && restingBodies.remove(obj)) ||
+                    gameObjects().removeGameObject(obj, LEAVES_LAYER);
+        }
         // remove bottom bricks
         else if (obj.getTag().equals(LOWER_GROUND_TAG))
-            gameObjects().removeGameObject(obj, LOWER_GROUND_LAYER);
+            removed = gameObjects().removeGameObject(obj, LOWER_GROUND_LAYER);
         else if (obj.getTag().equals(ENEMY_TAG)) {
-            if (gameObjects().removeGameObject(obj, AVATAR_LAYER))
+            if (minimap != null)
+                minimap.removeEnemy(obj);
+            if (gameObjects().removeGameObject(obj, AVATAR_LAYER)) {
+                if (obj instanceof Enemy)
+                    ((Enemy) obj).removeHPBar();
                 numOfEnemiesAlive.decrement();
+                removed = true;
+            }
         // delete UI elements
         else
-            gameObjects().removeGameObject(obj, Layer.UI);
+            removed = gameObjects().removeGameObject(obj, Layer.UI);
         }
+        // the timers and jobs of an object removed from the world never run. an object that stays keeps them.
+        if (removed)
+            forget(obj);
+        return removed;
     } // end of method remove objects
 
+    // removes an object of the world from a layer, or from the layer it rests in
+    private void removeFromLayer(GameObject obj, int layer){
+        if ((restingBodies != null && restingBodies.remove(obj)) || gameObjects().removeGameObject(obj, layer))
+            forget(obj);
+    } // end of method removeFromLayer
+
+    // cancels the timers and jobs of an object removed from the world, and puts out its lights
+    private void forget(GameObject obj){
+        timers.cancelAll(obj);
+        if (jobs != null)
+            jobs.cancelAll(obj);
+        lightMap.removeLights(obj);
+        // a fireball that didn't explode lets the avatar fire again
+        if (obj instanceof Fireball)
+            ((Fireball) obj).removed();
+    } // end of method forget
+
+    // the counters of every part of the game
+    private void printStats() {
+        System.out.println(audio);
+        System.out.println(audio.pcmCache());
+        System.out.println(culler);
+        if (activityRegions != null)
+            System.out.println(activityRegions);
+        if (restingBodies != null)
+            System.out.println(restingBodies);
+        System.out.println(timers);
+        System.out.println(prefetcher);
+        if (chunkCache != null)
+            System.out.println(chunkCache);
+        System.out.println(generation);
+        if (origin != null)
+            System.out.println(origin);
+        System.out.println(loading);
+        if (minimap != null) {
+            System.out.println(minimap);
+            System.out.println(groundHeights);
+        }
+        if (impostors != null)
+            System.out.println(impostors);
+        if (jobs != null)
+            System.out.println(jobs);
+        if (timestep != null)
+            System.out.println(timestep);
+        if (interpolator != null)
+            System.out.println(interpolator);
+    } // end of method printStats
+
     public void endGame() {
+        // how every part of the game did, with stats on
+        if (Boolean.getBoolean(STATS_PROPERTY))
+            printStats();
         // ask the user for his name
         String playerName = JOptionPane.showInputDialog(null, ENTER_NAME_MSG);
         // if user agreed to give name (and did not press cancel), enter name to highscores server.
@@ -338,19 +936,41 @@ public class PepseGameManager extends GameManager {
             windowController.showMessageBox(ERROR_MSG);
         }
         if (windowController.openYesNoDialog(GAME_OVER_MSG)) {
-            // stop all looping sounds, as the reset game doesn't do it.
+            // stop all looping sounds and the audio thread, as the reset game doesn't do it.
             Rain.stopRain();
-            soundtrack.stopAllOccurences();
+            audio.shutdown();
             windowController.resetGame();
         }
         else
             windowController.closeWindow();
     }
 
+    /**
+     * Renders the objects in view, the moving ones between where the last two steps left them. With stats on,
+     * the first frame reports how long startup took.
+     * @param g graphics to render with
+     */
+    @Override
+    public void render(Graphics2D g) {
+        if (interpolator != null)
+            interpolator.apply(timestep.alpha());
+        culler.render(g, gameObjects());
+        if (interpolator != null)
+            interpolator.restore();
+        if (!firstFrameRendered) {
+            firstFrameRendered = true;
+            if (Boolean.getBoolean(STATS_PROPERTY))
+                System.out.printf(FIRST_FRAME_MSG, (System.nanoTime() - launchTime) / 1e6, assetSource);
+        }
+    }
+
     /**
      * Runs the entire simulation.
      * @param args This argument should not be used.
      */
-    public static void main(String[] args) { new PepseGameManager().run(); } // end of main
+    public static void main(String[] args) {
+        launchTime = System.nanoTime();
+        new PepseGameManager().run();
+    } // end of main
 
 } // end of PepseGameManager
@@ -0,0 +1,243 @@
+package pepse.assets;
+
+import danogl.gui.Sound;
+import danogl.gui.rendering.ImageRenderable;
+
+import javax.imageio.ImageIO;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A single packed file holding every asset of the game, read through a memory mapped FileChannel.
+ * Format: magic, version, number of entries, then an index of (path, offset, length) entries, then the raw bytes
+ * of all the files. The bundle is built once from the assets folder (see main), and decoded images and sounds are
+ * made from slices of the mapped file, so no file is opened one at a time at startup.
+ */
+public class AssetBundle {
+    // format
+    private static final int MAGIC = 0x50455042; // "PEPB"
+    private static final int VERSION = 1;
+    // the default bundle, built from the default assets folder.
+    public static final String DEFAULT_BUNDLE_PATH = "src/assets.bundle";
+    private static final String DEFAULT_ASSETS_DIR = "src/assets";
+    // danogl opens this many clips for every sound, so it can be played several times at once.
+    private static final int CLIPS_PER_SOUND = 5;
+    private static final int TRANSPARENT_MASK = 0xFFFFFF;
+    // fields
+    private final MappedByteBuffer data;
+    private final Map<String, int[]> index; // path -> {offset, length}
+
+    private AssetBundle(MappedByteBuffer data, Map<String, int[]> index) {
+        this.data = data;
+        this.index = index;
+    }
+
+    /**
+     * maps the bundle at the given path into memory and reads its index.
+     * @param bundlePath path of the bundle file
+     * @return the bundle, or null if there is no bundle at this path.
+     * @throws IOException if the file exists but is not a valid bundle
+     */
+    public static AssetBundle open(String bundlePath) throws IOException {
+        Path path = Paths.get(bundlePath);
+        if (!Files.isRegularFile(path))
+            return null;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed.
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (data.getInt() != MAGIC || data.getInt() != VERSION)
+                throw new IOException("not an asset bundle: " + bundlePath);
+            int count = data.getInt();
+            Map<String, int[]> index = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[data.getShort()];
+                data.get(name);
+                index.put(new String(name, StandardCharsets.UTF_8), new int[]{data.getInt(), data.getInt()});
+            }
+            return new AssetBundle(data, index);
+        }
+    }
+
+    /**
+     * packs every file of a folder into a single bundle. Entries are named like the paths the game uses to read
+     * them (folder + "/" + file name).
+     * @param assetsDir folder of the assets
+     * @param bundlePath path of the bundle to write
+     * @throws IOException on read or write errors
+     */
+    public static void pack(String assetsDir, String bundlePath) throws IOException {
+        File[] files = new File(assetsDir).listFiles(File::isFile);
+        if (files == null)
+            throw new IOException("no such folder: " + assetsDir);
+        Arrays.sort(files);
+        byte[][] names = new byte[files.length][];
+        int headerSize = 3 * Integer.BYTES;
+        for (int i = 0; i < files.length; i++) {
+            names[i] = (assetsDir + "/" + files[i].getName()).getBytes(StandardCharsets.UTF_8);
+            headerSize += Short.BYTES + names[i].length + 2 * Integer.BYTES;
+        }
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(bundlePath))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(files.length);
+            int offset = headerSize;
+            for (int i = 0; i < files.length; i++) {
+                out.writeShort(names[i].length);
+                out.write(names[i]);
+                out.writeInt(offset);
+                out.writeInt((int) files[i].length());
+                offset += (int) files[i].length();
+            }
+            for (File file : files)
+                Files.copy(file.toPath(), out);
+        }
+    }
+
+    /**
+     * @param path path of an asset
+     * @return true if the asset is in the bundle
+     */
+    public boolean contains(String path) { return index.containsKey(path); }
+
+    /**
+     * @param path path of an asset
+     * @return length in bytes of the asset, as stored in the bundle
+     */
+    public int length(String path) { return index.get(path)[1]; }
+
+    /**
+     * @return paths of all assets in the bundle
+     */
+    public Set<String> paths() { return index.keySet(); }
+
+    /**
+     * @return size of the mapped file in bytes
+     */
+    public int size() { return data.capacity(); }
+
+    /**
+     * decodes an image from the bundle, with the same transparency rule as danogl's ImageReader: every pixel with
+     * the exact color of the top left pixel keeps its color and gets an alpha of 0, and every other pixel is kept
+     * as it is, alpha included. ImageReader also has a branch that blends the edges around the background, but it
+     * only runs while no pixel with any alpha was read, and then no pixel can match the background, so it never
+     * changes a pixel: both give the same pixels for every asset of the game. Safe to call from several threads
+     * at once.
+     * @param path path of the image
+     * @return the image renderable
+     * @throws IOException if the image can't be decoded
+     */
+    public ImageRenderable decodeImage(String path) throws IOException {
+        BufferedImage source = ImageIO.read(stream(path));
+        if (source == null)
+            throw new IOException("not an image: " + path);
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int[] pixels = source.getRGB(0, 0, width, height, null, 0, width);
+        int background = pixels[0];
+        for (int i = 0; i < pixels.length; i++) {
+            if (pixels[i] == background)
+                pixels[i] &= TRANSPARENT_MASK;
+        }
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, width, height, pixels, 0, width);
+        return new ImageRenderable(image);
+    }
+
+    /**
+     * decodes a sound from the bundle into clips, the same way danogl's SoundReader does.
+     * Safe to call from several threads at once.
+     * @param path path of the sound
+     * @return the sound
+     * @throws IOException if the sound can't be decoded or no audio line is available
+     */
+    public Sound decodeSound(String path) throws IOException {
+        Clip[] clips = new Clip[CLIPS_PER_SOUND];
+        try {
+            for (int i = 0; i < clips.length; i++) {
+                try (AudioInputStream audio = AudioSystem.getAudioInputStream(stream(path))) {
+                    clips[i] = AudioSystem.getClip();
+                    clips[i].open(audio);
+                }
+            }
+        } catch (UnsupportedAudioFileException | LineUnavailableException e) {
+            throw new IOException("can't decode sound " + path + ": " + e.getMessage(), e);
+        }
+        return new Sound(clips);
+    }
+
+    /**
+     * a stream over the bytes of one entry, reading straight from the mapped file.
+     * Safe to call from several threads at once.
+     * @param path path of an asset
+     * @return the stream
+     * @throws IOException if the asset isn't in the bundle
+     */
+    public InputStream stream(String path) throws IOException {
+        int[] entry = index.get(path);
+        if (entry == null)
+            throw new IOException("not in bundle: " + path);
+        // every caller gets its own view of the mapped file, so threads don't share a position.
+        ByteBuffer slice = data.duplicate();
+        slice.position(entry[0]).limit(entry[0] + entry[1]);
+        return new BufferedInputStream(new ByteBufferInputStream(slice.slice()));
+    }
+
+    // InputStream adapter over a ByteBuffer
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) { this.buffer = buffer; }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining())
+                return -1;
+            length = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, length);
+            return length;
+        }
+
+        @Override
+        public int available() { return buffer.remaining(); }
+    }
+
+    /**
+     * packs the assets folder into a bundle.
+     * @param args optional: assets folder and bundle path. defaults to src/assets and src/assets.bundle.
+     * @throws IOException on read or write errors
+     */
+    public static void main(String[] args) throws IOException {
+        String assetsDir = args.length > 0 ? args[0] : DEFAULT_ASSETS_DIR;
+        String bundlePath = args.length > 1 ? args[1] : DEFAULT_BUNDLE_PATH;
+        pack(assetsDir, bundlePath);
+        AssetBundle bundle = open(bundlePath);
+        System.out.printf("packed %d assets (%d bytes) into %s%n", bundle.paths().size(), bundle.size(), bundlePath);
+    }
+}
@@ -0,0 +1,389 @@
+package pepse.assets;
+
+import danogl.gui.ImageReader;
+import danogl.gui.Sound;
+import danogl.gui.SoundReader;
+import danogl.gui.rendering.AnimationRenderable;
+import danogl.gui.rendering.ImageRenderable;
+import danogl.gui.rendering.Renderable;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One cache for every image, animation and sound in the game, keyed by kind and path.
+ * Each asset is read from disk and decoded only once, no matter how many objects use it.
+ * After startup (see endStartup) any read that misses the cache on the game thread is flagged,
+ * since it means an asset was left out of the manifest and the disk read happens mid-game.
+ * When an AssetBundle is given, assets are decoded from it (in parallel, during preload) instead of from the
+ * loose files. Images declared as sprites are packed into a SpriteAtlas during preload, and from then on the cache
+ * hands out their atlas regions instead of the full images.
+ */
+public class AssetCache {
+    /**
+     * the kinds of assets kept in the cache.
+     */
+    public enum Kind { IMAGE, ANIMATION, SOUND }
+
+    // constants
+    private static final int BYTES_PER_PIXEL = 4;
+    // danogl opens this many clips for every sound it reads.
+    private static final int CLIPS_PER_SOUND = 5;
+    private static final String KEY_SEPARATOR = ":";
+    private static final String FRAMES_SEPARATOR = ",";
+    private static final String TIME_SEPARATOR = "@";
+    private static final String LATE_LOAD_MSG = "AssetCache: disk read on the game thread after startup: ";
+    // fields
+    private final ImageReader imageReader;
+    private final SoundReader soundReader;
+    private final AssetBundle bundle;
+    private final Map<String, Object> entries = new HashMap<>();
+    private final Map<String, Double> soundLengths = new ConcurrentHashMap<>(); // in seconds
+    private Thread gameThread = null;
+    private SpriteAtlas atlas = null;
+    private boolean packSprites = true;
+    // statistics
+    private int hits = 0;
+    private int misses = 0;
+    private int lateLoads = 0;
+    private long imageBytes = 0;
+    private long soundBytes = 0;
+
+    /**
+     * default c'tor
+     * @param imageReader reads images from disk
+     * @param soundReader reads sounds from disk
+     */
+    public AssetCache(ImageReader imageReader, SoundReader soundReader) {
+        this(imageReader, soundReader, null);
+    }
+
+    /**
+     * c'tor for a cache that reads assets from a bundle, and only falls back to the readers for assets
+     * missing from it.
+     * @param imageReader reads images from disk
+     * @param soundReader reads sounds from disk
+     * @param bundle the asset bundle, may be null
+     */
+    public AssetCache(ImageReader imageReader, SoundReader soundReader, AssetBundle bundle) {
+        this.imageReader = imageReader;
+        this.soundReader = soundReader;
+        this.bundle = bundle;
+    }
+
+    /**
+     * loads every asset declared in the manifest. With a bundle, all images and sounds are first decoded in
+     * parallel on every core. Sprites are packed into the atlas before any animation is made, so animations are
+     * made of atlas regions.
+     * @param manifest the declared assets
+     */
+    public void preload(AssetManifest manifest) {
+        if (bundle != null)
+            decodeInParallel(manifest);
+        // read every image (including animation frames) and sound
+        for (AssetManifest.Entry entry : manifest.entries()) {
+            // streamed sounds are decoded by the AudioMixer's PcmCache, not opened as clips.
+            if (entry.isStreamed())
+                continue;
+            for (String path : entry.paths()) {
+                if (entry.kind() == Kind.SOUND)
+                    readSound(path);
+                else
+                    readImage(path);
+            }
+        }
+        packAtlas(manifest);
+        for (AssetManifest.Entry entry : manifest.entries()) {
+            if (entry.kind() == Kind.ANIMATION)
+                readAnimation(entry.paths(), entry.timeBetweenClips());
+        }
+    }
+
+    /**
+     * sets whether images declared as sprites are packed into the atlas on preload (they are by default).
+     * @param packSprites false to keep every image as its own full size image
+     */
+    public void setPackSprites(boolean packSprites) { this.packSprites = packSprites; }
+
+    // packs every image declared as a sprite into the atlas, and replaces the cached images with atlas regions.
+    private void packAtlas(AssetManifest manifest) {
+        if (!packSprites)
+            return;
+        // size of every sprite in the atlas: its source size, shrunk to the largest size it is drawn at.
+        Map<String, int[]> sizes = new LinkedHashMap<>();
+        for (AssetManifest.Entry entry : manifest.entries()) {
+            if (!entry.isSprite())
+                continue;
+            for (String path : entry.paths()) {
+                Object cached = entries.get(Kind.IMAGE + KEY_SEPARATOR + path);
+                if (!(cached instanceof ImageRenderable))
+                    continue;
+                ImageRenderable image = (ImageRenderable) cached;
+                int width = image.width();
+                int height = image.height();
+                if (entry.displaySize() != null) {
+                    width = Math.min(width, (int) Math.ceil(entry.displaySize().x()));
+                    height = Math.min(height, (int) Math.ceil(entry.displaySize().y()));
+                }
+                int[] size = sizes.get(path);
+                if (size != null) {
+                    // declared more than once, keep the biggest size
+                    size[0] = Math.max(size[0], width);
+                    size[1] = Math.max(size[1], height);
+                }
+                else
+                    sizes.put(path, new int[]{width, height});
+            }
+        }
+        if (sizes.isEmpty())
+            return;
+        List<SpriteAtlas.Sprite> sprites = new ArrayList<>();
+        for (Map.Entry<String, int[]> size : sizes.entrySet()) {
+            ImageRenderable image = (ImageRenderable) entries.get(Kind.IMAGE + KEY_SEPARATOR + size.getKey());
+            sprites.add(new SpriteAtlas.Sprite(size.getKey(), image.getImage(), size.getValue()[0],
+                    size.getValue()[1]));
+        }
+        atlas = SpriteAtlas.pack(sprites);
+        long replacedBytes = 0;
+        for (String path : sizes.keySet()) {
+            AtlasRenderable region = atlas.region(path);
+            if (region == null)
+                continue;
+            String key = Kind.IMAGE + KEY_SEPARATOR + path;
+            ImageRenderable image = (ImageRenderable) entries.get(key);
+            replacedBytes += (long) image.width() * image.height() * BYTES_PER_PIXEL;
+            entries.put(key, region);
+        }
+        imageBytes += atlas.bytes() - replacedBytes;
+    }
+
+    // decodes all images and sounds of the manifest that are in the bundle, on all cores.
+    private void decodeInParallel(AssetManifest manifest) {
+        Set<String> images = new LinkedHashSet<>();
+        Set<String> sounds = new LinkedHashSet<>();
+        for (AssetManifest.Entry entry : manifest.entries()) {
+            if (entry.isStreamed())
+                continue;
+            for (String path : entry.paths()) {
+                if (!bundle.contains(path))
+                    continue;
+                if (entry.kind() == Kind.SOUND)
+                    sounds.add(path);
+                else
+                    images.add(path);
+            }
+        }
+        Map<String, ImageRenderable> decodedImages = new ConcurrentHashMap<>();
+        Map<String, Sound> decodedSounds = new ConcurrentHashMap<>();
+        // assets that fail to decode are left out, and read from the loose files later on.
+        images.parallelStream().forEach(path -> {
+            try {
+                decodedImages.put(path, bundle.decodeImage(path));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        sounds.parallelStream().forEach(path -> {
+            try {
+                decodedSounds.put(path, bundle.decodeSound(path));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        // back on this thread, store the results. These were disk reads, so they count as misses.
+        for (Map.Entry<String, ImageRenderable> image : decodedImages.entrySet()) {
+            misses++;
+            storeImage(Kind.IMAGE + KEY_SEPARATOR + image.getKey(), image.getValue());
+        }
+        for (Map.Entry<String, Sound> sound : decodedSounds.entrySet()) {
+            misses++;
+            storeSound(sound.getKey(), sound.getValue(), bundle.length(sound.getKey()));
+        }
+    }
+
+    /**
+     * marks the end of startup. From now on, every cache miss on the calling thread (the game thread) is flagged.
+     */
+    public void endStartup() { this.gameThread = Thread.currentThread(); }
+
+    /**
+     * returns the image at the given path, reading it only if it is not cached yet.
+     * For sprites packed in the atlas, this is the sprite's atlas region.
+     * @param path path of the image
+     * @return the image renderable
+     */
+    public Renderable readImage(String path) {
+        String key = Kind.IMAGE + KEY_SEPARATOR + path;
+        Renderable image = (Renderable) lookup(key);
+        if (image == null) {
+            ImageRenderable decoded = decodeImage(path);
+            storeImage(key, decoded);
+            return decoded;
+        }
+        return image;
+    }
+
+    /**
+     * returns a new animation made of the given frames. Only the frames are cached, shared with every other
+     * animation and image using the same paths: an animation advances every time an object using it is updated,
+     * so every object gets one of its own.
+     * @param paths paths of the frames
+     * @param timeBetweenClips time between each frame
+     * @return the animation renderable
+     */
+    public AnimationRenderable readAnimation(String[] paths, double timeBetweenClips) {
+        String key = Kind.ANIMATION + KEY_SEPARATOR + String.join(FRAMES_SEPARATOR, paths) +
+                TIME_SEPARATOR + timeBetweenClips;
+        Renderable[] frames = (Renderable[]) lookup(key);
+        if (frames == null) {
+            frames = new Renderable[paths.length];
+            for (int i = 0; i < paths.length; i++)
+                frames[i] = readImage(paths[i]);
+            entries.put(key, frames);
+        }
+        return new AnimationRenderable(frames, timeBetweenClips);
+    }
+
+    /**
+     * returns the sound at the given path, reading it only if it is not cached yet.
+     * @param path path of the sound
+     * @return the sound
+     */
+    public Sound readSound(String path) {
+        String key = Kind.SOUND + KEY_SEPARATOR + path;
+        Sound sound = (Sound) lookup(key);
+        if (sound == null) {
+            sound = decodeSound(path);
+            storeSound(path, sound, bundle != null && bundle.contains(path) ? bundle.length(path) :
+                    new File(path).length());
+        }
+        return sound;
+    }
+
+    // reads an image from the bundle if it's there, from the loose file otherwise.
+    private ImageRenderable decodeImage(String path) {
+        if (bundle != null && bundle.contains(path)) {
+            try {
+                return bundle.decodeImage(path);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return imageReader.readImage(path, true);
+    }
+
+    // reads a sound from the bundle if it's there, from the loose file otherwise.
+    private Sound decodeSound(String path) {
+        if (bundle != null && bundle.contains(path)) {
+            try {
+                return bundle.decodeSound(path);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return soundReader.readSound(path);
+    }
+
+    private void storeImage(String key, ImageRenderable image) {
+        imageBytes += (long) image.width() * image.height() * BYTES_PER_PIXEL;
+        entries.put(key, image);
+    }
+
+    private void storeSound(String path, Sound sound, long fileBytes) {
+        // the decoded clips are about as big as the (uncompressed) wav file, once per clip.
+        soundBytes += fileBytes * CLIPS_PER_SOUND;
+        entries.put(Kind.SOUND + KEY_SEPARATOR + path, sound);
+        Double length = readLength(path);
+        if (length != null)
+            soundLengths.put(path, length);
+    }
+
+    // reads the length of a sound from the header of its file, in the bundle if it's there. Null if it's unknown.
+    private Double readLength(String path) {
+        try {
+            AudioFileFormat format = bundle != null && bundle.contains(path) ?
+                    AudioSystem.getAudioFileFormat(bundle.stream(path)) :
+                    AudioSystem.getAudioFileFormat(new File(path));
+            if (format.getFrameLength() > 0)
+                return format.getFrameLength() / (double) format.getFormat().getFrameRate();
+        } catch (UnsupportedAudioFileException | IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    // returns the cached entry or null, and keeps track of hits, misses and late loads.
+    private Object lookup(String key) {
+        Object entry = entries.get(key);
+        if (entry != null) {
+            hits++;
+            return entry;
+        }
+        misses++;
+        if (Thread.currentThread() == gameThread) {
+            lateLoads++;
+            System.err.println(LATE_LOAD_MSG + key);
+        }
+        return null;
+    }
+
+    /**
+     * returns the length of a sound, read from the same place as the sound when it was loaded. Safe to call from
+     * any thread.
+     * @param path path of a sound already read
+     * @return its length in seconds, or 0 if it isn't known
+     */
+    public double soundLength(String path) { return soundLengths.getOrDefault(path, 0.0); }
+
+    /**
+     * @return number of reads answered from the cache
+     */
+    public int hits() { return hits; }
+
+    /**
+     * @return number of reads that had to go to disk
+     */
+    public int misses() { return misses; }
+
+    /**
+     * @return number of disk reads that happened on the game thread after startup
+     */
+    public int lateLoads() { return lateLoads; }
+
+    /**
+     * @return estimated bytes held by decoded images
+     */
+    public long imageBytes() { return imageBytes; }
+
+    /**
+     * @return estimated bytes held by decoded sounds
+     */
+    public long soundBytes() { return soundBytes; }
+
+    /**
+     * @return the sprite atlas, or null if no sprite was declared
+     */
+    public SpriteAtlas atlas() { return atlas; }
+
+    /**
+     * @return number of cached entries
+     */
+    public int size() { return entries.size(); }
+
+    @Override
+    public String toString() {
+        return String.format("AssetCache[entries=%d, hits=%d, misses=%d, lateLoads=%d, images=%dKB, sounds=%dKB]",
+                size(), hits, misses, lateLoads, imageBytes / 1024, soundBytes / 1024);
+    }
+}
@@ -0,0 +1,139 @@
+package pepse.assets;
+
+import danogl.util.Vector2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A declared list of every asset the game needs, so the AssetCache can load all of them before the first
+ * frame. Classes add their own assets to the manifest (see the declareAssets methods).
+ * Images and animations declared as sprites are packed into a SpriteAtlas, scaled to the size they are drawn at.
+ * Sounds declared as streamed are not opened as clips by the AssetCache, the AudioMixer decodes them once into
+ * its PcmCache and streams them from there.
+ */
+public class AssetManifest {
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * a single declared asset.
+     */
+    public static class Entry {
+        private final AssetCache.Kind kind;
+        private final String[] paths;
+        private final double timeBetweenClips;
+        private final boolean sprite;
+        private final Vector2 displaySize;
+        private final boolean streamed;
+
+        private Entry(AssetCache.Kind kind, String[] paths, double timeBetweenClips, boolean sprite,
+                      Vector2 displaySize, boolean streamed) {
+            this.kind = kind;
+            this.paths = paths;
+            this.timeBetweenClips = timeBetweenClips;
+            this.sprite = sprite;
+            this.displaySize = displaySize;
+            this.streamed = streamed;
+        }
+
+        /**
+         * @return the kind of the asset
+         */
+        public AssetCache.Kind kind() { return kind; }
+
+        /**
+         * @return paths of the asset. a single path for images and sounds, all frames for animations.
+         */
+        public String[] paths() { return paths; }
+
+        /**
+         * @return time between clips, only meaningful for animations.
+         */
+        public double timeBetweenClips() { return timeBetweenClips; }
+
+        /**
+         * @return true if the asset should be packed into the sprite atlas
+         */
+        public boolean isSprite() { return sprite; }
+
+        /**
+         * @return the largest size the sprite is drawn at, or null if it should keep its source size.
+         */
+        public Vector2 displaySize() { return displaySize; }
+
+        /**
+         * @return true if the sound is streamed from the PcmCache instead of opened as clips
+         */
+        public boolean isStreamed() { return streamed; }
+    }
+
+    /**
+     * declare an image
+     * @param path path of the image
+     * @return this manifest, for chaining
+     */
+    public AssetManifest addImage(String path) {
+        entries.add(new Entry(AssetCache.Kind.IMAGE, new String[]{path}, 0, false, null, false));
+        return this;
+    }
+
+    /**
+     * declare an animation
+     * @param paths paths of the frames of the animation
+     * @param timeBetweenClips time between each frame
+     * @return this manifest, for chaining
+     */
+    public AssetManifest addAnimation(String[] paths, double timeBetweenClips) {
+        entries.add(new Entry(AssetCache.Kind.ANIMATION, paths, timeBetweenClips, false, null, false));
+        return this;
+    }
+
+    /**
+     * declare an image that is packed into the sprite atlas
+     * @param path path of the image
+     * @param displaySize the largest size it is drawn at, or null to keep the source size
+     * @return this manifest, for chaining
+     */
+    public AssetManifest addSprite(String path, Vector2 displaySize) {
+        entries.add(new Entry(AssetCache.Kind.IMAGE, new String[]{path}, 0, true, displaySize, false));
+        return this;
+    }
+
+    /**
+     * declare an animation whose frames are packed into the sprite atlas
+     * @param paths paths of the frames of the animation
+     * @param timeBetweenClips time between each frame
+     * @param displaySize the largest size it is drawn at, or null to keep the source size
+     * @return this manifest, for chaining
+     */
+    public AssetManifest addSpriteAnimation(String[] paths, double timeBetweenClips, Vector2 displaySize) {
+        entries.add(new Entry(AssetCache.Kind.ANIMATION, paths, timeBetweenClips, true, displaySize, false));
+        return this;
+    }
+
+    /**
+     * declare a sound
+     * @param path path of the sound
+     * @return this manifest, for chaining
+     */
+    public AssetManifest addSound(String path) {
+        entries.add(new Entry(AssetCache.Kind.SOUND, new String[]{path}, 0, false, null, false));
+        return this;
+    }
+
+    /**
+     * declare a looping or frequent sound, decoded once and streamed from memory
+     * @param path path of the sound
+     * @return this manifest, for chaining
+     */
+    public AssetManifest addStreamedSound(String path) {
+        entries.add(new Entry(AssetCache.Kind.SOUND, new String[]{path}, 0, false, null, true));
+        return this;
+    }
+
+    /**
+     * @return all declared entries, in declaration order.
+     */
+    public List<Entry> entries() { return Collections.unmodifiableList(entries); }
+}
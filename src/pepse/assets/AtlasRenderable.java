@@ -0,0 +1,98 @@
+package pepse.assets;
+
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+
+import java.awt.AlphaComposite;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.geom.AffineTransform;
+
+/**
+ * A sprite that lives inside a sheet of a SpriteAtlas. Renders exactly like danogl's ImageRenderable (flips,
+ * rotation around the center, opaqueness), but only the sprite's rectangle of the shared sheet is drawn.
+ * Can be used anywhere a Renderable is expected, including as a frame of an AnimationRenderable.
+ */
+public class AtlasRenderable implements Renderable {
+    private final Image sheet;
+    private final int sourceX;
+    private final int sourceY;
+    private final int width;
+    private final int height;
+
+    /**
+     * default c'tor
+     * @param sheet the atlas sheet holding the sprite
+     * @param sourceX x of the sprite's top left corner in the sheet
+     * @param sourceY y of the sprite's top left corner in the sheet
+     * @param width width of the sprite in the sheet
+     * @param height height of the sprite in the sheet
+     */
+    public AtlasRenderable(Image sheet, int sourceX, int sourceY, int width, int height) {
+        this.sheet = sheet;
+        this.sourceX = sourceX;
+        this.sourceY = sourceY;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * renders the sprite's rectangle of the sheet.
+     * @param g graphics
+     * @param topLeftCorner top left corner on screen
+     * @param dimensions dimensions on screen
+     * @param degreesCounterClockwise rotation around the center
+     * @param isFlippedHorizontally flip horizontally
+     * @param isFlippedVertically flip vertically
+     * @param opaqueness 0 is invisible, 1 is opaque
+     */
+    @Override
+    public void render(Graphics2D g, Vector2 topLeftCorner, Vector2 dimensions, double degreesCounterClockwise,
+                       boolean isFlippedHorizontally, boolean isFlippedVertically, double opaqueness) {
+        if (opaqueness <= 0)
+            return;
+        int x = (int) topLeftCorner.x();
+        int y = (int) topLeftCorner.y();
+        int drawWidth = (int) dimensions.x();
+        int drawHeight = (int) dimensions.y();
+        // a flip is a negative size, drawn from the opposite corner. it also mirrors the rotation.
+        if (isFlippedHorizontally) {
+            x += drawWidth;
+            drawWidth = -drawWidth;
+            degreesCounterClockwise = -degreesCounterClockwise;
+        }
+        if (isFlippedVertically) {
+            y += drawHeight;
+            drawHeight = -drawHeight;
+            degreesCounterClockwise = -degreesCounterClockwise;
+        }
+        AffineTransform originalTransform = null;
+        if (degreesCounterClockwise != 0) {
+            originalTransform = g.getTransform();
+            g.rotate(Math.toRadians(-degreesCounterClockwise),
+                    topLeftCorner.x() + dimensions.x() / 2, topLeftCorner.y() + dimensions.y() / 2);
+        }
+        Composite originalComposite = null;
+        if (opaqueness < 1) {
+            originalComposite = g.getComposite();
+            g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float) opaqueness));
+        }
+        g.drawImage(sheet, x, y, x + drawWidth, y + drawHeight,
+                sourceX, sourceY, sourceX + width, sourceY + height, null);
+        if (originalComposite != null)
+            g.setComposite(originalComposite);
+        if (originalTransform != null)
+            g.setTransform(originalTransform);
+    }
+
+    /**
+     * @return width of the sprite in the sheet
+     */
+    public int width() { return width; }
+
+    /**
+     * @return height of the sprite in the sheet
+     */
+    public int height() { return height; }
+}
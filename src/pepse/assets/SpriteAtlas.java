@@ -0,0 +1,176 @@
+package pepse.assets;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packs many small sprites into one or a few sheets. Each sprite is first scaled down to the size it is drawn at
+ * (never up), so a 361x306 heart drawn as 10x10 takes 10x10 pixels in the atlas. Sprites are placed with shelf
+ * packing: sorted by height, laid out in rows, and a new sheet is started when a sheet is full.
+ */
+public class SpriteAtlas {
+    // constants
+    private static final int MAX_SHEET_SIZE = 2048;
+    private static final int MIN_SHEET_WIDTH = 256;
+    private static final int SHEET_WIDTH_STEP = 64;
+    private static final int PADDING = 1;
+    private static final int BYTES_PER_PIXEL = 4;
+    // fields
+    private final List<BufferedImage> sheets;
+    private final Map<String, AtlasRenderable> regions;
+
+    private SpriteAtlas(List<BufferedImage> sheets, Map<String, AtlasRenderable> regions) {
+        this.sheets = sheets;
+        this.regions = regions;
+    }
+
+    /**
+     * a sprite to pack.
+     */
+    public static class Sprite {
+        private final String name;
+        private final Image image;
+        private final int width;
+        private final int height;
+
+        /**
+         * @param name name of the sprite, used to look it up in the atlas
+         * @param image the full size image
+         * @param width width of the sprite in the atlas
+         * @param height height of the sprite in the atlas
+         */
+        public Sprite(String name, Image image, int width, int height) {
+            this.name = name;
+            this.image = image;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    /**
+     * packs the sprites into as few sheets as possible, picking the sheet width that wastes the least area. Sheets
+     * are never narrower than the widest sprite, so no sprite is cropped. Sprites bigger than a sheet are not
+     * packed.
+     * @param sprites sprites to pack
+     * @return the atlas
+     */
+    public static SpriteAtlas pack(List<Sprite> sprites) {
+        List<Sprite> sorted = new ArrayList<>(sprites);
+        // sprites that can't fit in a sheet are left out of the atlas.
+        sorted.removeIf(sprite -> sprite.width + PADDING > MAX_SHEET_SIZE || sprite.height > MAX_SHEET_SIZE);
+        sorted.sort((a, b) -> b.height - a.height);
+        int widest = 0;
+        for (Sprite sprite : sorted)
+            widest = Math.max(widest, sprite.width + PADDING);
+        int bestWidth = MAX_SHEET_SIZE;
+        long bestArea = Long.MAX_VALUE;
+        for (int width = Math.max(MIN_SHEET_WIDTH, widest); width <= MAX_SHEET_SIZE; width += SHEET_WIDTH_STEP) {
+            long area = layout(sorted, width, null);
+            if (area >= 0 && area < bestArea) {
+                bestArea = area;
+                bestWidth = width;
+            }
+        }
+        int[][] places = new int[sorted.size()][];
+        layout(sorted, bestWidth, places);
+        // draw every sprite, scaled to its size, into its sheet
+        List<BufferedImage> sheets = new ArrayList<>();
+        List<Graphics2D> graphics = new ArrayList<>();
+        int[] sheetHeights = sheetHeights(sorted, places);
+        for (int height : sheetHeights) {
+            int width = Math.min(bestWidth, MAX_SHEET_SIZE);
+            BufferedImage sheet = new BufferedImage(width, Math.max(height, 1), BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = sheet.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            sheets.add(sheet);
+            graphics.add(g);
+        }
+        Map<String, AtlasRenderable> regions = new HashMap<>();
+        for (int i = 0; i < sorted.size(); i++) {
+            Sprite sprite = sorted.get(i);
+            int sheet = places[i][0], x = places[i][1], y = places[i][2];
+            graphics.get(sheet).drawImage(sprite.image, x, y, sprite.width, sprite.height, null);
+            regions.put(sprite.name, new AtlasRenderable(sheets.get(sheet), x, y, sprite.width, sprite.height));
+        }
+        for (Graphics2D g : graphics)
+            g.dispose();
+        return new SpriteAtlas(sheets, regions);
+    }
+
+    // shelf packing at the given sheet width. fills places with {sheet, x, y} if not null.
+    // returns the total area of the sheets needed, or -1 if a sprite is wider than the sheet.
+    private static long layout(List<Sprite> sorted, int sheetWidth, int[][] places) {
+        long area = 0;
+        int sheet = 0, x = 0, y = 0, rowHeight = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            Sprite sprite = sorted.get(i);
+            int width = sprite.width + PADDING;
+            int height = sprite.height + PADDING;
+            if (width > sheetWidth)
+                return -1;
+            // start a new row
+            if (x + width > sheetWidth) {
+                y += rowHeight;
+                x = 0;
+                rowHeight = 0;
+            }
+            // start a new sheet
+            if (y + height > MAX_SHEET_SIZE && y > 0) {
+                area += (long) sheetWidth * y;
+                sheet++;
+                x = 0;
+                y = 0;
+            }
+            if (places != null)
+                places[i] = new int[]{sheet, x, y};
+            x += width;
+            rowHeight = Math.max(rowHeight, height);
+        }
+        return area + (long) sheetWidth * (y + rowHeight);
+    }
+
+    // height actually used by every sheet
+    private static int[] sheetHeights(List<Sprite> sorted, int[][] places) {
+        int sheetCount = 0;
+        for (int[] place : places)
+            sheetCount = Math.max(sheetCount, place[0] + 1);
+        int[] heights = new int[sheetCount];
+        for (int i = 0; i < places.length; i++) {
+            int sheet = places[i][0];
+            heights[sheet] = Math.max(heights[sheet], places[i][2] + sorted.get(i).height);
+        }
+        return heights;
+    }
+
+    /**
+     * @param name name of the sprite
+     * @return the renderable of the sprite, or null if it's not in the atlas
+     */
+    public AtlasRenderable region(String name) { return regions.get(name); }
+
+    /**
+     * @return number of sprites in the atlas
+     */
+    public int spriteCount() { return regions.size(); }
+
+    /**
+     * @return number of sheets in the atlas
+     */
+    public int sheetCount() { return sheets.size(); }
+
+    /**
+     * @return bytes held by all sheets
+     */
+    public long bytes() {
+        long bytes = 0;
+        for (BufferedImage sheet : sheets)
+            bytes += (long) sheet.getWidth() * sheet.getHeight() * BYTES_PER_PIXEL;
+        return bytes;
+    }
+}
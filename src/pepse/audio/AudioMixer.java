@@ -0,0 +1,359 @@
+package pepse.audio;
+
+import danogl.gui.Sound;
+import danogl.util.Vector2;
+import pepse.assets.AssetCache;
+import pepse.assets.AssetManifest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Every sound of the game is played through the mixer. The game thread only decides whether a sound should be
+ * heard at all:
+ * - the same sound triggered again within a few milliseconds is coalesced into the voice already playing it.
+ * - a sound placed in the world further than the audible distance from the listener is culled.
+ * Everything that touches the audio lines (play, loop, stop) runs on a single audio thread, which owns a bounded
+ * pool of voices. When the pool is full, a new sound takes over the oldest voice of the lowest priority below its
+ * own, or is dropped if there is none. A loop dropped or taken over is handed back to the game thread, so looping
+ * it again starts it again.
+ * Sounds declared as streamed in the manifest are not opened as clips. They are decoded once into the PcmCache,
+ * and every playback streams them from there into an audio line, on a voice thread of its own.
+ */
+public class AudioMixer {
+    // constants
+    private static final int DEFAULT_MAX_VOICES = 8;
+    private static final float DEFAULT_AUDIBLE_DISTANCE = 1500;
+    private static final long COALESCE_WINDOW = 30_000_000L; // in nanoseconds
+    private static final double DEFAULT_VOICE_LENGTH = 1; // in seconds, when the length of a sound is unknown
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final String THREAD_NAME = "pepse-audio";
+    private static final String VOICE_THREAD_NAME = "pepse-voice";
+    private static final String STATS_MSG = "AudioMixer: %d requested, %d coalesced, %d culled by distance, " +
+            "%d started, %d voices taken over, %d dropped (pool of %d)";
+    // fields
+    private final AssetCache assets;
+    private final PcmCache pcmCache;
+    private final ExecutorService audioThread;
+    private final ExecutorService voiceThreads;
+    private final int maxVoices;
+    private final float audibleDistance;
+    // game thread state
+    private final Map<String, Long> lastTriggers = new HashMap<>();
+    private final Map<String, Voice> loops = new HashMap<>(); // the voice asked for every sound looping
+    private final Set<String> streamed = new HashSet<>();
+    private Vector2 listener = Vector2.ZERO;
+    private int requested = 0;
+    private int coalesced = 0;
+    private int culled = 0;
+    // loops the audio thread dropped or stopped for another sound, for the game thread to forget
+    private final ConcurrentLinkedQueue<Voice> lostLoops = new ConcurrentLinkedQueue<>();
+    // audio thread state
+    private final List<Voice> voices = new ArrayList<>();
+    private volatile int started = 0;
+    private volatile int takenOver = 0;
+    private volatile int dropped = 0;
+
+    // a sound playing on the audio thread, either a danogl sound or a playback streamed from the PcmCache.
+    private static class Voice {
+        private final String path;
+        private final Sound sound;
+        private final SoundPriority priority;
+        private final boolean looped;
+        private StreamedPlayback playback = null;
+        private long end;
+
+        Voice(String path, Sound sound, SoundPriority priority, boolean looped) {
+            this.path = path;
+            this.sound = sound;
+            this.priority = priority;
+            this.looped = looped;
+        }
+
+        boolean isFinished(long now) {
+            if (playback != null)
+                return playback.isFinished();
+            return !looped && now >= end;
+        }
+
+        void stop() {
+            if (playback != null)
+                playback.stop();
+            else
+                sound.stopAllOccurences();
+        }
+    }
+
+    /**
+     * default c'tor, with a pool of 8 voices.
+     * @param assets asset cache holding every sound, already loaded
+     * @param pcmCache cache of the streamed sounds
+     */
+    public AudioMixer(AssetCache assets, PcmCache pcmCache) {
+        this(assets, pcmCache, DEFAULT_MAX_VOICES, DEFAULT_AUDIBLE_DISTANCE);
+    }
+
+    /**
+     * @param assets asset cache holding every sound, already loaded
+     * @param pcmCache cache of the streamed sounds
+     * @param maxVoices most sounds playing at once
+     * @param audibleDistance sounds placed further than this from the listener are not played
+     */
+    public AudioMixer(AssetCache assets, PcmCache pcmCache, int maxVoices, float audibleDistance) {
+        this.assets = assets;
+        this.pcmCache = pcmCache;
+        this.maxVoices = maxVoices;
+        this.audibleDistance = audibleDistance;
+        this.audioThread = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.voiceThreads = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, VOICE_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * marks the sounds declared as streamed in the manifest, and decodes them into the PcmCache on the audio
+     * thread, so the first playback doesn't wait for it.
+     * @param manifest the declared assets
+     */
+    public void preloadStreamed(AssetManifest manifest) {
+        for (AssetManifest.Entry entry : manifest.entries()) {
+            if (entry.isStreamed())
+                streamed.add(entry.paths()[0]);
+        }
+        for (String path : streamed)
+            audioThread.execute(() -> pcmCache.get(path));
+    }
+
+    /**
+     * sets where the sounds are heard from, usually the avatar. Called once a frame.
+     * @param listener location of the listener in the world
+     */
+    public void setListener(Vector2 listener) { this.listener = listener; }
+
+    /**
+     * plays a sound once, wherever the listener is.
+     * @param path path of the sound
+     * @param priority priority of the sound
+     */
+    public void play(String path, SoundPriority priority) { play(path, priority, null); }
+
+    /**
+     * plays a sound once, at a location in the world.
+     * @param path path of the sound
+     * @param priority priority of the sound
+     * @param location where the sound comes from, or null to hear it anywhere
+     */
+    public void play(String path, SoundPriority priority, Vector2 location) {
+        requested++;
+        long now = System.nanoTime();
+        Long lastTrigger = lastTriggers.get(path);
+        if (lastTrigger != null && now - lastTrigger < COALESCE_WINDOW) {
+            coalesced++;
+            return;
+        }
+        if (location != null && location.subtract(listener).magnitude() > audibleDistance) {
+            culled++;
+            return;
+        }
+        lastTriggers.put(path, now);
+        submit(new Voice(path, soundOf(path), priority, false));
+    }
+
+    /**
+     * starts looping a sound, unless it's looping already.
+     * @param path path of the sound
+     * @param priority priority of the sound
+     */
+    public void loop(String path, SoundPriority priority) {
+        forgetLostLoops();
+        if (loops.containsKey(path))
+            return;
+        requested++;
+        Voice voice = new Voice(path, soundOf(path), priority, true);
+        loops.put(path, voice);
+        submit(voice);
+    }
+
+    /**
+     * stops a looping sound. Does nothing if it isn't looping, so it can be called every frame.
+     * @param path path of the sound
+     */
+    public void stop(String path) {
+        forgetLostLoops();
+        if (loops.remove(path) == null)
+            return;
+        audioThread.execute(() -> release(path));
+    }
+
+    /**
+     * stops every sound.
+     */
+    public void stopAll() {
+        loops.clear();
+        audioThread.execute(() -> {
+            for (Voice voice : voices)
+                voice.stop();
+            voices.clear();
+        });
+    }
+
+    /**
+     * stops every sound and the audio thread. The mixer can't be used afterwards.
+     */
+    public void shutdown() {
+        stopAll();
+        audioThread.shutdown();
+        voiceThreads.shutdown();
+    }
+
+    // game thread: forgets the loops that stopped without being asked to. A loop asked for again since then is
+    // another voice, and is kept.
+    private void forgetLostLoops() {
+        Voice lost;
+        while ((lost = lostLoops.poll()) != null)
+            loops.remove(lost.path, lost);
+    }
+
+    // streamed sounds have no danogl sound, they are read from the PcmCache when they start.
+    private Sound soundOf(String path) {
+        return streamed.contains(path) ? null : assets.readSound(path);
+    }
+
+    private void submit(Voice voice) {
+        if (voice.sound == null && !streamed.contains(voice.path))
+            return;
+        audioThread.execute(() -> {
+            try {
+                start(voice);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    // audio thread: finds a voice for the sound and starts it.
+    private void start(Voice voice) {
+        long now = System.nanoTime();
+        voices.removeIf(playing -> playing.isFinished(now));
+        if (voices.size() >= maxVoices) {
+            Voice victim = null;
+            for (Voice playing : voices) {
+                // voices are in starting order, so the first of the lowest priority is the oldest.
+                if (victim == null || playing.priority.compareTo(victim.priority) < 0)
+                    victim = playing;
+            }
+            if (victim == null || victim.priority.compareTo(voice.priority) >= 0) {
+                dropped++;
+                lose(voice);
+                return;
+            }
+            takeOver(victim);
+        }
+        if (voice.sound == null) {
+            PcmCache.Pcm pcm = pcmCache.get(voice.path);
+            if (pcm == null) {
+                lose(voice);
+                return;
+            }
+            voice.playback = new StreamedPlayback(pcm, voice.looped);
+            voiceThreads.execute(voice.playback);
+        }
+        else {
+            voice.end = voice.looped ? Long.MAX_VALUE : now + length(voice.path);
+            if (voice.looped)
+                voice.sound.playLooped();
+            else
+                voice.sound.play();
+        }
+        voices.add(voice);
+        started++;
+    }
+
+    // audio thread: stops a voice for a sound of a higher priority. A streamed voice stops alone, but danogl stops
+    // every occurrence of a sound at once, so every voice of the victim's sound is freed with it, and counted.
+    private void takeOver(Voice victim) {
+        voices.removeIf(voice -> {
+            if (voice != victim && (victim.playback != null || !voice.path.equals(victim.path)))
+                return false;
+            voice.stop();
+            lose(voice);
+            takenOver++;
+            return true;
+        });
+    }
+
+    // audio thread: hands a loop that stopped without the game asking back to the game thread
+    private void lose(Voice voice) {
+        if (voice.looped)
+            lostLoops.add(voice);
+    }
+
+    // audio thread: stops a sound. danogl stops every occurrence of a sound at once, so all its voices are freed.
+    private void release(String path) {
+        voices.removeIf(voice -> {
+            if (!voice.path.equals(path))
+                return false;
+            voice.stop();
+            return true;
+        });
+    }
+
+    // audio thread: length of a sound in nanoseconds, as the asset cache read it when the sound was loaded.
+    private long length(String path) {
+        double seconds = assets.soundLength(path);
+        return (long) ((seconds > 0 ? seconds : DEFAULT_VOICE_LENGTH) * NANOS_PER_SECOND);
+    }
+
+    /**
+     * @return number of sounds the game asked to play or loop
+     */
+    public int requested() { return requested; }
+
+    /**
+     * @return number of sounds merged into a voice already playing the same sound
+     */
+    public int coalesced() { return coalesced; }
+
+    /**
+     * @return number of sounds too far from the listener to be played
+     */
+    public int culled() { return culled; }
+
+    /**
+     * @return number of sounds started on a voice
+     */
+    public int started() { return started; }
+
+    /**
+     * @return number of voices stopped for a sound of a higher priority
+     */
+    public int takenOver() { return takenOver; }
+
+    /**
+     * @return number of sounds dropped because every voice was taken by a sound of the same or higher priority
+     */
+    public int dropped() { return dropped; }
+
+    /**
+     * @return the cache of the streamed sounds
+     */
+    public PcmCache pcmCache() { return pcmCache; }
+
+    @Override
+    public String toString() {
+        return String.format(STATS_MSG, requested, coalesced, culled, started, takenOver, dropped, maxVoices);
+    }
+}
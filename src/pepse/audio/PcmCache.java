@@ -0,0 +1,182 @@
+package pepse.audio;
+
+import pepse.assets.AssetBundle;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sounds decoded once into raw PCM samples, held in direct ByteBuffers outside the Java heap, so looping and
+ * frequent sounds are streamed from memory instead of being opened and decoded again.
+ * The cache holds at most `capacity` bytes. When a new sound doesn't fit, the least recently played sounds are
+ * evicted. A sound that is still playing when it's evicted keeps playing, its buffer is freed once it stops.
+ */
+public class PcmCache {
+    // constants
+    private static final int BITS_PER_SAMPLE = 16;
+    private static final int BITS_PER_BYTE = 8;
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final String STATS_MSG = "PcmCache: %d sounds, %d KB held of %d KB, %d hits, %d misses, " +
+            "%d evicted, %.1f ms of decoding saved";
+    // fields
+    private final AssetBundle bundle;
+    private final long capacity;
+    // access ordered, so the first entry is the least recently used.
+    private final LinkedHashMap<String, Pcm> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytesHeld = 0;
+    private int hits = 0;
+    private int misses = 0;
+    private int evictions = 0;
+    private long decodeTimeSaved = 0;
+
+    /**
+     * decoded samples of a sound.
+     */
+    public static class Pcm {
+        private final AudioFormat format;
+        private final ByteBuffer samples;
+        private final long decodeTime;
+
+        private Pcm(AudioFormat format, ByteBuffer samples, long decodeTime) {
+            this.format = format;
+            this.samples = samples;
+            this.decodeTime = decodeTime;
+        }
+
+        /**
+         * @return format of the samples, always signed PCM
+         */
+        public AudioFormat format() { return format; }
+
+        /**
+         * @return a read only view of the samples, with its own position, for one playback.
+         */
+        public ByteBuffer samples() { return samples.asReadOnlyBuffer(); }
+
+        /**
+         * @return size of the samples in bytes
+         */
+        public int bytes() { return samples.capacity(); }
+    }
+
+    /**
+     * @param bundle asset bundle to read sounds from, may be null to read the loose files.
+     * @param capacity most bytes of samples held at once
+     */
+    public PcmCache(AssetBundle bundle, long capacity) {
+        this.bundle = bundle;
+        this.capacity = capacity;
+    }
+
+    /**
+     * returns the decoded samples of a sound, decoding it if it isn't cached.
+     * @param path path of the sound
+     * @return the samples, or null if the sound can't be decoded
+     */
+    public synchronized Pcm get(String path) {
+        Pcm pcm = entries.get(path);
+        if (pcm != null) {
+            hits++;
+            decodeTimeSaved += pcm.decodeTime;
+            return pcm;
+        }
+        misses++;
+        try {
+            pcm = decode(path);
+        } catch (IOException | UnsupportedAudioFileException e) {
+            e.printStackTrace();
+            return null;
+        }
+        // a sound bigger than the whole cache is played, but not kept.
+        if (pcm.bytes() > capacity)
+            return pcm;
+        evictFor(pcm.bytes());
+        entries.put(path, pcm);
+        bytesHeld += pcm.bytes();
+        return pcm;
+    }
+
+    // evicts the least recently used sounds until `bytes` more fit in the cache.
+    private void evictFor(int bytes) {
+        Iterator<Map.Entry<String, Pcm>> iterator = entries.entrySet().iterator();
+        while (bytesHeld + bytes > capacity && iterator.hasNext()) {
+            bytesHeld -= iterator.next().getValue().bytes();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    // decodes a whole sound into signed PCM samples, in a direct buffer.
+    private Pcm decode(String path) throws IOException, UnsupportedAudioFileException {
+        long start = System.nanoTime();
+        AudioInputStream source = bundle != null && bundle.contains(path) ?
+                AudioSystem.getAudioInputStream(new BufferedInputStream(bundle.stream(path))) :
+                AudioSystem.getAudioInputStream(new File(path));
+        AudioFormat format = source.getFormat();
+        if (format.getEncoding() != AudioFormat.Encoding.PCM_SIGNED) {
+            // compressed or unsigned sounds are converted, so every playback line gets the same kind of samples.
+            format = new AudioFormat(format.getSampleRate(), BITS_PER_SAMPLE, format.getChannels(), true, false);
+            source = AudioSystem.getAudioInputStream(format, source);
+        }
+        byte[] bytes;
+        try (AudioInputStream pcm = source) {
+            bytes = pcm.readAllBytes();
+        }
+        // only whole frames are kept
+        int frameSize = Math.max(format.getFrameSize(), format.getChannels() * BITS_PER_SAMPLE / BITS_PER_BYTE);
+        int length = bytes.length - bytes.length % frameSize;
+        ByteBuffer samples = ByteBuffer.allocateDirect(length);
+        samples.put(bytes, 0, length).flip();
+        return new Pcm(format, samples, System.nanoTime() - start);
+    }
+
+    /**
+     * @return bytes of samples held by the cache
+     */
+    public synchronized long bytesHeld() { return bytesHeld; }
+
+    /**
+     * @return most bytes of samples the cache holds
+     */
+    public long capacity() { return capacity; }
+
+    /**
+     * @return number of sounds held by the cache
+     */
+    public synchronized int size() { return entries.size(); }
+
+    /**
+     * @return number of sounds found in the cache
+     */
+    public synchronized int hits() { return hits; }
+
+    /**
+     * @return number of sounds decoded
+     */
+    public synchronized int misses() { return misses; }
+
+    /**
+     * @return number of sounds evicted to make room for others
+     */
+    public synchronized int evictions() { return evictions; }
+
+    /**
+     * @return time in nanoseconds it would have taken to decode again every sound found in the cache
+     */
+    public synchronized long decodeTimeSaved() { return decodeTimeSaved; }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(STATS_MSG, entries.size(), bytesHeld / 1024, capacity / 1024, hits, misses,
+                evictions, decodeTimeSaved / NANOS_PER_MILLI);
+    }
+}
@@ -0,0 +1,16 @@
+package pepse.audio;
+
+/**
+ * Priority of a sound played through the AudioMixer. When every voice is taken, a new sound may only take over
+ * the voice of a sound with a lower priority.
+ */
+public enum SoundPriority {
+    /** small repeated effects, like jumps. first to be dropped. */
+    LOW,
+    /** ordinary effects and ambient loops. */
+    NORMAL,
+    /** effects the player must hear, like explosions. */
+    HIGH,
+    /** the soundtrack. never taken over. */
+    MUSIC
+}
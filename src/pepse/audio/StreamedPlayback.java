@@ -0,0 +1,70 @@
+package pepse.audio;
+
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.nio.ByteBuffer;
+
+/**
+ * One playback of a cached sound, streamed from its samples into an audio line in small chunks.
+ * Runs on its own voice thread until the sound ends (or forever if looped) or it's stopped.
+ */
+class StreamedPlayback implements Runnable {
+    private static final int CHUNK_BYTES = 4096;
+    private final PcmCache.Pcm pcm;
+    private final boolean looped;
+    private volatile boolean stopped = false;
+    private volatile boolean finished = false;
+
+    /**
+     * @param pcm samples to play
+     * @param looped true to play the samples again and again until stopped
+     */
+    StreamedPlayback(PcmCache.Pcm pcm, boolean looped) {
+        this.pcm = pcm;
+        this.looped = looped;
+    }
+
+    /**
+     * streams the samples into a new audio line.
+     */
+    @Override
+    public void run() {
+        try (SourceDataLine line = AudioSystem.getSourceDataLine(pcm.format())) {
+            line.open(pcm.format());
+            line.start();
+            ByteBuffer samples = pcm.samples();
+            int frameSize = Math.max(pcm.format().getFrameSize(), 1);
+            byte[] chunk = new byte[CHUNK_BYTES - CHUNK_BYTES % frameSize];
+            while (!stopped) {
+                if (!samples.hasRemaining()) {
+                    if (!looped || samples.capacity() == 0)
+                        break;
+                    samples.rewind();
+                }
+                int length = Math.min(chunk.length, samples.remaining());
+                samples.get(chunk, 0, length);
+                line.write(chunk, 0, length);
+            }
+            // let the end of the sound play, but cut it right away if it was stopped.
+            if (stopped)
+                line.flush();
+            else
+                line.drain();
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            e.printStackTrace();
+        } finally {
+            finished = true;
+        }
+    }
+
+    /**
+     * stops the playback, from any thread.
+     */
+    void stop() { stopped = true; }
+
+    /**
+     * @return true once the playback has ended and its line is closed
+     */
+    boolean isFinished() { return finished; }
+}
@@ -3,11 +3,17 @@ package pepse.hud;
 import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
 import danogl.collisions.Layer;
-import danogl.gui.ImageReader;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.assets.AssetCache;
+import pepse.assets.AssetManifest;
+import pepse.world.hibernation.Hibernating;
 
-public class HPBar extends GameObject{
+/**
+ * Hearts above a character, one per hit point it has left. The bar itself is an empty object kept on the center
+ * of its owner, so it falls asleep and is woken with it.
+ */
+public class HPBar extends GameObject implements Hibernating {
     // assets
     private static final String HEART_PATH = "src/assets/heart.png";
     // constants
@@ -15,30 +21,31 @@ public class HPBar extends GameObject{
     private static final int HEARTS_HEIGHT_FROM_CHARACTER = 20;
     private static final int HEARTS_SPACE = 3;
     private static final int HEARTS_LAYER = Layer.FOREGROUND - 1;
-    // static fields
-    private static Renderable heartRenderable;
     // fields
+    private final Renderable heartRenderable;
     private final GameObject owner;
     private final GameObject[] hearts;
     private final int maxHP;
     private final GameObjectCollection gameObjects;
     private int currHP = 0;
 
-    public HPBar(GameObject owner, int amount, GameObjectCollection gameObjects) {
+    public HPBar(GameObject owner, int amount, GameObjectCollection gameObjects, AssetCache assets) {
         super(Vector2.ZERO, Vector2.ZERO, null);
         this.owner = owner;
+        this.heartRenderable = assets.readImage(HEART_PATH);
         this.maxHP = amount;
         this.gameObjects = gameObjects;
         this.hearts = new GameObject[amount];
+        setCenter(owner.getCenter());
         initHP();
     }
 
     /**
-     * initialize static assets.
-     * @param imageReader Read images
+     * declare the assets of the HP bar, so they are loaded at startup.
+     * @param manifest the asset manifest
      */
-    public static void initAssets(ImageReader imageReader) {
-        heartRenderable = imageReader.readImage(HEART_PATH, true);
+    public static void declareAssets(AssetManifest manifest) {
+        manifest.addSprite(HEART_PATH, HEART_DIMENSIONS);
     }
 
     private void initHP () {
@@ -64,9 +71,18 @@ public class HPBar extends GameObject{
         currHP = Math.max(0, currHP - amount);
     }
 
+    /**
+     * removes the bar, and the hearts it has left, from the game.
+     */
+    public void remove() {
+        removeHearts(currHP);
+        gameObjects.removeGameObject(this, Layer.UI);
+    }
+
     @Override
     public void update(float deltaTime) {
         super.update(deltaTime);
+        setCenter(owner.getCenter());
         // update hearts location to be above enemy
         float topLeftHeartX = owner.getCenter().x() - ((maxHP * HEART_DIMENSIONS.x() + (maxHP - 1) * HEARTS_SPACE)) / 2;
         float topLeftHeartY = owner.getTopLeftCorner().y() - HEARTS_HEIGHT_FROM_CHARACTER;
@@ -76,4 +92,11 @@ public class HPBar extends GameObject{
             hearts[i].setTopLeftCorner(topLeft);
         }
     }
+
+    /**
+     * while asleep, the bar only follows its owner, and the hearts are moved above it once it's woken.
+     * @param deltaTime game time
+     */
+    @Override
+    public void coarseUpdate(float deltaTime) { setCenter(owner.getCenter()); }
 }
@@ -0,0 +1,202 @@
+package pepse.hud;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.components.CoordinateSpace;
+import danogl.util.Vector2;
+import pepse.world.Block;
+import pepse.world.HeightPyramid;
+import pepse.world.streaming.FloatingOrigin;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A map of the world around the player, far wider than the screen, in a corner of it: the ground and the trees
+ * the world was built with, the player and the enemies. A pixel of the map is 2^level columns of blocks, and its
+ * ground and trees are the highest over them, read from height pyramids in a lookup, instead of sampling the
+ * ground under every pixel. The ground and trees are drawn into an image, which is only drawn again when the map
+ * moved by a pixel, or when a column under it changed, and the player and enemies are drawn over it every frame.
+ * Columns the world wasn't built at yet are grey.
+ */
+public class Minimap extends GameObject {
+    /**
+     * number of columns of blocks a pixel of the map is, as a power of two.
+     */
+    public static final int LEVEL = 3;
+    // constants
+    private static final String MINIMAP_TAG = "minimap";
+    private static final Vector2 DIMENSIONS = new Vector2(256, 64);
+    private static final Vector2 OFFSET = new Vector2(-20, 20); // from the top right corner of the screen
+    private static final int ROW_HEIGHT = Block.SIZE; // pixels of the world in a row of the map
+    private static final int RETAIN_MARGIN = 1; // widths of the map kept on every side of it
+    private static final int SKY_COLOR = new Color(30, 40, 70).getRGB();
+    private static final int UNKNOWN_COLOR = new Color(70, 70, 70).getRGB();
+    private static final int GROUND_COLOR = new Color(212, 123, 74).getRGB();
+    private static final int TREES_COLOR = new Color(50, 200, 30).getRGB();
+    private static final Color PLAYER_COLOR = Color.WHITE;
+    private static final Color ENEMY_COLOR = Color.RED;
+    private static final int MARKER_SIZE = 3;
+    private static final String STATS_MSG = "Minimap: drawn again %d times in %d frames";
+    // fields
+    private final GameObject player;
+    private final HeightPyramid ground;
+    private final HeightPyramid trees;
+    private final int level;
+    private final int width;
+    private final int height;
+    private final BufferedImage image;
+    private final int[] pixels;
+    private final Set<GameObject> enemies = new HashSet<>();
+    private FloatingOrigin origin = null;
+    // the first pixel of the map, and the row of its top, in the image
+    private long drawnIndex = Long.MIN_VALUE;
+    private long drawnRow = Long.MIN_VALUE;
+    // counters
+    private long redraws = 0;
+    private long frames = 0;
+
+    /**
+     * default c'tor
+     * @param topLeftCorner top left corner of the map on the screen
+     * @param dimensions dimensions of the map, in pixels
+     * @param player the player, in the middle of the map
+     * @param ground pyramid of the heights of the ground
+     * @param trees pyramid of the heights of the trees
+     * @param level number of columns of blocks a pixel is, as a power of two, under the levels of the pyramids
+     */
+    public Minimap(Vector2 topLeftCorner, Vector2 dimensions, GameObject player, HeightPyramid ground,
+                   HeightPyramid trees, int level) {
+        super(topLeftCorner, dimensions, null);
+        this.player = player;
+        this.ground = ground;
+        this.trees = trees;
+        this.level = level;
+        this.width = (int) dimensions.x();
+        this.height = (int) dimensions.y();
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * creates the map in the top right corner of the screen, and adds it to the game.
+     * @param gameObjects collection
+     * @param layer layer of the map
+     * @param windowDimensions dimensions of the screen
+     * @param player the player, in the middle of the map
+     * @param ground pyramid of the heights of the ground
+     * @param trees pyramid of the heights of the trees
+     * @return the map
+     */
+    public static Minimap create(GameObjectCollection gameObjects, int layer, Vector2 windowDimensions,
+                                 GameObject player, HeightPyramid ground, HeightPyramid trees) {
+        Vector2 topLeftCorner = new Vector2(windowDimensions.x() - DIMENSIONS.x(), 0).add(OFFSET);
+        Minimap minimap = new Minimap(topLeftCorner, DIMENSIONS, player, ground, trees, LEVEL);
+        minimap.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+        minimap.setTag(MINIMAP_TAG);
+        gameObjects.addGameObject(minimap, layer);
+        return minimap;
+    }
+
+    /**
+     * measures the places of the player and enemies from a floating origin, as the pyramids keep the columns by
+     * their place in the whole world.
+     * @param origin the origin of the world
+     */
+    public void setOrigin(FloatingOrigin origin) { this.origin = origin; }
+
+    /**
+     * shows an enemy on the map.
+     * @param enemy the enemy
+     */
+    public void addEnemy(GameObject enemy) { enemies.add(enemy); }
+
+    /**
+     * stops showing an enemy, once it died or was removed.
+     * @param enemy the enemy
+     */
+    public void removeEnemy(GameObject enemy) { enemies.remove(enemy); }
+
+    /**
+     * draws the ground and trees into the image if the map moved by a pixel or a column under it changed, then
+     * draws the image, and the player and enemies over it.
+     * @param g graphics
+     */
+    @Override
+    public void render(Graphics2D g) {
+        frames++;
+        long index = (columnOf(player) >> level) - width / 2;
+        // up and down, the map follows the player only once it leaves the middle half of the map, so walking over
+        // the ground doesn't move the map at every step
+        long playerRow = Math.floorDiv((long) Math.floor(player.getCenter().y()), ROW_HEIGHT);
+        long row = drawnRow;
+        if (playerRow < drawnRow + height / 4 || playerRow >= drawnRow + height - height / 4)
+            row = playerRow - height / 2;
+        long minColumn = index << level, maxColumn = (index + width) << level;
+        if (index != drawnIndex || row != drawnRow || ground.changedIn(minColumn, maxColumn) ||
+                trees.changedIn(minColumn, maxColumn))
+            redraw(index, row);
+        ground.clearChanges();
+        trees.clearChanges();
+        int left = (int) getTopLeftCorner().x(), top = (int) getTopLeftCorner().y();
+        g.drawImage(image, left, top, null);
+        for (GameObject enemy : enemies)
+            drawMarker(g, enemy, ENEMY_COLOR, left, top);
+        drawMarker(g, player, PLAYER_COLOR, left, top);
+    }
+
+    // draws the ground and trees of the map into the image, and drops the heights far from it
+    private void redraw(long index, long row) {
+        for (int x = 0; x < width; x++) {
+            int groundTop = ground.top(level, index + x), treesTop = trees.top(level, index + x);
+            long groundRow = groundTop == HeightPyramid.NONE ? 0 : Math.floorDiv(groundTop, ROW_HEIGHT) - row;
+            long treesRow = treesTop == HeightPyramid.NONE ? height : Math.floorDiv(treesTop, ROW_HEIGHT) - row;
+            for (int y = 0; y < height; y++) {
+                int color = groundTop == HeightPyramid.NONE ? UNKNOWN_COLOR : y >= groundRow ? GROUND_COLOR :
+                        y >= treesRow ? TREES_COLOR : SKY_COLOR;
+                pixels[y * width + x] = color;
+            }
+        }
+        long margin = (long) RETAIN_MARGIN * width << level;
+        ground.retain((index << level) - margin, ((index + width) << level) + margin);
+        trees.retain((index << level) - margin, ((index + width) << level) + margin);
+        drawnIndex = index;
+        drawnRow = row;
+        redraws++;
+    }
+
+    // draws an object as a square at its place on the map, if it's on it
+    private void drawMarker(Graphics2D g, GameObject obj, Color color, int left, int top) {
+        long x = (columnOf(obj) >> level) - drawnIndex;
+        long y = Math.floorDiv((long) Math.floor(obj.getCenter().y()), ROW_HEIGHT) - drawnRow;
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            return;
+        g.setColor(color);
+        g.fillRect(left + (int) x - MARKER_SIZE / 2, top + (int) y - MARKER_SIZE / 2, MARKER_SIZE, MARKER_SIZE);
+    }
+
+    // index in the whole world of the column an object is in
+    private long columnOf(GameObject obj) {
+        int x = (int) Math.floor(obj.getCenter().x());
+        return Math.floorDiv(origin == null ? x : origin.worldX(x), Block.SIZE);
+    }
+
+    /**
+     * @return number of times the ground and trees were drawn into the image
+     */
+    public long redraws() { return redraws; }
+
+    /**
+     * @return number of frames the map was drawn in
+     */
+    public long frames() { return frames; }
+
+    @Override
+    public String toString() {
+        return String.format(STATS_MSG, redraws, frames);
+    }
+}
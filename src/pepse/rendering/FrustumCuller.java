@@ -0,0 +1,108 @@
+package pepse.rendering;
+
+import danogl.GameObject;
+import danogl.components.CoordinateSpace;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+
+import java.awt.Graphics2D;
+
+/**
+ * Skips the game objects that can't be seen. The game keeps the world alive a few blocks beyond each side of the
+ * screen, and the ground goes far below it, but danogl renders every object every frame.
+ * An object is culled when it's fully outside the view of the camera grown by a margin on every side. Its bounds
+ * are taken as the square around its center that holds it at any angle, so leaves turning in the wind are never
+ * cut. Objects in camera coordinates are always on screen.
+ */
+public class FrustumCuller {
+    // constants
+    private static final String STATS_MSG = "FrustumCuller: %d drawn, %d culled (last frame)";
+    // fields
+    private final Camera camera;
+    private final float margin;
+    // the view grown by the margin, in the world
+    private float left;
+    private float top;
+    private float right;
+    private float bottom;
+    // counters
+    private int drawnLastFrame = 0;
+    private int culledLastFrame = 0;
+    private long culledTotal = 0;
+
+    /**
+     * default c'tor
+     * @param camera the camera whose view is kept
+     * @param margin distance around the view in which objects are still kept, in pixels
+     */
+    public FrustumCuller(Camera camera, float margin) {
+        this.camera = camera;
+        this.margin = margin;
+    }
+
+    /**
+     * renders every object in view, in the order of the collection.
+     * @param g graphics
+     * @param gameObjects objects to render
+     */
+    public void render(Graphics2D g, Iterable<GameObject> gameObjects) {
+        updateView();
+        drawnLastFrame = 0;
+        culledLastFrame = 0;
+        for (GameObject gameObject : gameObjects) {
+            if (isInView(gameObject)) {
+                gameObject.render(g, camera);
+                drawnLastFrame++;
+            }
+            else
+                culledLastFrame++;
+        }
+        culledTotal += culledLastFrame;
+    }
+
+    /**
+     * @param gameObject an object
+     * @return true if the object is in camera coordinates, or its bounds at any angle touch the view grown by
+     * the margin
+     */
+    public boolean isInView(GameObject gameObject) {
+        if (gameObject.getCoordinateSpace() == CoordinateSpace.CAMERA_COORDINATES)
+            return true;
+        Vector2 center = gameObject.getCenter();
+        Vector2 dimensions = gameObject.getDimensions();
+        // half the diagonal holds the object at any angle
+        float reach = 0.5f * (float) Math.sqrt(dimensions.x() * dimensions.x() + dimensions.y() * dimensions.y());
+        return center.x() + reach >= left && center.x() - reach <= right &&
+                center.y() + reach >= top && center.y() - reach <= bottom;
+    }
+
+    // the view of the camera grown by the margin
+    private void updateView() {
+        Vector2 topLeft = camera.getTopLeftCorner();
+        Vector2 dimensions = camera.getDimensions();
+        left = topLeft.x() - margin;
+        top = topLeft.y() - margin;
+        right = topLeft.x() + dimensions.x() + margin;
+        bottom = topLeft.y() + dimensions.y() + margin;
+    }
+
+    /**
+     * @return number of objects rendered in the last frame
+     */
+    public int drawnLastFrame() { return drawnLastFrame; }
+
+    /**
+     * @return number of objects not rendered in the last frame
+     */
+    public int culledLastFrame() { return culledLastFrame; }
+
+    /**
+     * @return number of objects not rendered since the game started, counted once per frame
+     */
+    public long culledTotal() { return culledTotal; }
+
+    @Override
+    public String toString() {
+        return String.format(STATS_MSG, drawnLastFrame, culledLastFrame);
+    }
+}
@@ -0,0 +1,327 @@
+package pepse.rendering;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.components.CoordinateSpace;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+import pepse.world.Block;
+import pepse.world.Terrain;
+import pepse.world.streaming.FloatingOrigin;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Draws the world far from the avatar when the camera is zoomed out, from impostors instead of objects. The world
+ * of objects is only built around the avatar, the detail of the world. Every other tile of the world in view, a
+ * chunk wide and a row of tiles high, is drawn from its impostor: a pixel a block, painted by the terrain and the
+ * trees as they would create the tile, kept as an image at the size the tile is on the screen. A frame costs a
+ * copy per tile in view, however much is in it.
+ * Impostors are painted in the update, a few a frame, nearest to the center of the view first. The impostors of
+ * tiles that left the view, or are in the detail, are dropped, so a tile the avatar changed is painted again once
+ * it leaves. The impostors with anything painted in them are listed again only when the view or the detail
+ * changed, so a frame that changed neither only draws them. The cache draws and holds nothing while the camera
+ * isn't zoomed out.
+ */
+public class ImpostorCache extends GameObject {
+    /**
+     * width of a tile, in pixels.
+     */
+    public static final int CHUNK_WIDTH = TerrainRenderCache.CHUNK_WIDTH;
+    /**
+     * height of a tile, in pixels.
+     */
+    public static final int TILE_HEIGHT = Terrain.TILE_HEIGHT;
+    /**
+     * width of an impostor, in pixels, a pixel for every column of blocks of its tile.
+     */
+    public static final int COLUMNS = CHUNK_WIDTH / Block.SIZE;
+    /**
+     * height of an impostor, in pixels, a pixel for every row of blocks of its tile.
+     */
+    public static final int ROWS = TILE_HEIGHT / Block.SIZE;
+    // constants
+    private static final String IMPOSTOR_CACHE_TAG = "impostor cache";
+    private static final int PAINTS_PER_FRAME = 16;
+    private static final String STATS_MSG = "ImpostorCache: %d impostors, %d painted, %d drawn in the last frame";
+    // fields
+    private final Camera camera;
+    private final float screenWidth;
+    private final float screenHeight;
+    private final List<ImpostorPainter> painters = new ArrayList<>();
+    private final Map<Long, Impostor> impostors = new HashMap<>();
+    private final List<Impostor> drawn = new ArrayList<>(); // the impostors with anything painted in them
+    private FloatingOrigin origin = null;
+    // the world of objects, from the left of its leftmost chunk to the right of its rightmost, and its rows
+    private int detailLeft;
+    private int detailRight;
+    private int detailTop;
+    private int detailBottom;
+    // the tiles in view and the world of objects when the impostors were last all painted, as then only a change
+    // of either needs any
+    private long[] paintedFor = null;
+    private boolean allPainted = false;
+    // counters
+    private final int[] pixels = new int[COLUMNS * ROWS];
+    private long painted = 0;
+    private int drawnLastFrame = 0;
+
+    // the pixels of a tile, or null if nothing was painted into it, and its images at the size it's drawn in, made
+    // again when the zoom changes, as drawing an image scaled costs several times a copy. Blending costs several
+    // times a copy as well, so the rows painted all over, such as under the ground, are an image without
+    // transparency, and the rows above them that are partly painted are another. Rows with nothing painted in them
+    // above those are in neither.
+    private static class Impostor {
+        private final long index; // column of the tile in the whole world
+        private final int row; // row of tiles of the tile
+        private final int[] pixels;
+        private final int firstRow; // the first row with anything painted in it
+        private final int solidRow; // the first of the rows painted all over down to the bottom of the tile
+        private BufferedImage partial = null;
+        private BufferedImage solid = null;
+        private int width = 0;
+        private int height = 0;
+
+        Impostor(long index, int tileRow, int[] pixels) {
+            this.index = index;
+            this.row = tileRow;
+            int first = ROWS, solidFrom = ROWS;
+            for (int row = ROWS - 1; row >= 0; row--) {
+                int painted = 0;
+                for (int column = 0; column < COLUMNS; column++)
+                    if (pixels[row * COLUMNS + column] != 0)
+                        painted++;
+                if (painted > 0)
+                    first = row;
+                if (painted == COLUMNS && solidFrom == row + 1)
+                    solidFrom = row;
+            }
+            this.pixels = first == ROWS ? null : pixels.clone();
+            this.firstRow = first;
+            this.solidRow = solidFrom;
+        }
+
+        // draws the tile at a size, made from its pixels if it isn't at that size
+        void draw(Graphics2D g, int left, int top, int width, int height) {
+            // the screen rows that show the first row, and the first of the solid ones
+            int firstY = -Math.floorDiv(-firstRow * height, ROWS), solidY = -Math.floorDiv(-solidRow * height, ROWS);
+            if (width != this.width || height != this.height) {
+                this.partial = solidY > firstY ? scale(firstY, solidY, width, height, BufferedImage.TYPE_INT_ARGB) :
+                        null;
+                this.solid = height > solidY ? scale(solidY, height, width, height, BufferedImage.TYPE_INT_RGB) : null;
+                this.width = width;
+                this.height = height;
+            }
+            if (partial != null)
+                g.drawImage(partial, left, top + firstY, null);
+            if (solid != null)
+                g.drawImage(solid, left, top + solidY, null);
+        }
+
+        // the screen rows [fromY, toY) of the tile at a size
+        private BufferedImage scale(int fromY, int toY, int width, int height, int type) {
+            BufferedImage image = new BufferedImage(width, toY - fromY, type);
+            int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            for (int y = fromY; y < toY; y++) {
+                int row = y * ROWS / height * COLUMNS;
+                for (int x = 0; x < width; x++)
+                    data[(y - fromY) * width + x] = pixels[row + x * COLUMNS / width];
+            }
+            return image;
+        }
+    }
+
+    /**
+     * default c'tor
+     * @param windowDimensions dimensions of the screen
+     * @param camera camera, to find what of the world is in view
+     */
+    public ImpostorCache(Vector2 windowDimensions, Camera camera) {
+        super(Vector2.ZERO, windowDimensions, null);
+        this.camera = camera;
+        this.screenWidth = windowDimensions.x();
+        this.screenHeight = windowDimensions.y();
+    }
+
+    /**
+     * creates the cache and adds it to the game.
+     * @param gameObjects collection
+     * @param layer layer of the impostors, below every object standing on the ground
+     * @param windowDimensions dimensions of the screen
+     * @param camera camera, to find what of the world is in view
+     * @param painters what paints the impostors, in the order they're painted in
+     * @return the cache
+     */
+    public static ImpostorCache create(GameObjectCollection gameObjects, int layer, Vector2 windowDimensions,
+                                       Camera camera, ImpostorPainter... painters) {
+        ImpostorCache cache = new ImpostorCache(windowDimensions, camera);
+        for (ImpostorPainter painter : painters)
+            cache.addPainter(painter);
+        cache.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+        cache.setTag(IMPOSTOR_CACHE_TAG);
+        gameObjects.addGameObject(cache, layer);
+        return cache;
+    }
+
+    /**
+     * paints the impostors with a painter as well, after the ones added before.
+     * @param painter the painter
+     */
+    public void addPainter(ImpostorPainter painter) { painters.add(painter); }
+
+    /**
+     * keeps the impostors by their place in the whole world, measured from a floating origin, so they stay the
+     * same when the origin moves.
+     * @param origin the origin of the world
+     */
+    public void setOrigin(FloatingOrigin origin) { this.origin = origin; }
+
+    /**
+     * sets the world of objects, where no impostor is drawn.
+     * @param left left of the world of objects
+     * @param right right of the world of objects
+     * @param top top of its rows
+     * @param bottom bottom of its rows
+     */
+    public void setDetail(int left, int right, int top, int bottom) {
+        this.detailLeft = left;
+        this.detailRight = right;
+        this.detailTop = top;
+        this.detailBottom = bottom;
+    }
+
+    /**
+     * @return true if the camera shows more of the world than the screen
+     */
+    public boolean isZoomedOut() { return camera.getDimensions().x() > screenWidth; }
+
+    /**
+     * drops the impostors no longer needed, and paints a few of the ones missing, nearest to the center first.
+     * @param deltaTime time since the last frame
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        if (!isZoomedOut()) {
+            impostors.clear();
+            drawn.clear();
+            allPainted = false;
+            return;
+        }
+        long offsetX = origin == null ? 0 : origin.offsetX();
+        Vector2 topLeft = camera.getTopLeftCorner(), dimensions = camera.getDimensions();
+        long first = Math.floorDiv(offsetX + (long) Math.floor(topLeft.x()), CHUNK_WIDTH);
+        long last = Math.floorDiv(offsetX + (long) Math.floor(topLeft.x() + dimensions.x()), CHUNK_WIDTH);
+        int firstRow = Math.floorDiv((int) Math.floor(topLeft.y()), TILE_HEIGHT);
+        int lastRow = Math.floorDiv((int) Math.floor(topLeft.y() + dimensions.y()), TILE_HEIGHT);
+        long[] state = {first, last, firstRow, lastRow, detailLeft, detailRight, detailTop, detailBottom};
+        if (allPainted && Arrays.equals(state, paintedFor))
+            return;
+        Iterator<Map.Entry<Long, Impostor>> iterator = impostors.entrySet().iterator();
+        while (iterator.hasNext()) {
+            long key = iterator.next().getKey();
+            long index = key >> Integer.SIZE;
+            int row = (int) key;
+            if (index < first || index > last || row < firstRow || row > lastRow ||
+                    inDetail(leftOf(index, offsetX), row * TILE_HEIGHT))
+                iterator.remove();
+        }
+        // outwards from the column of tiles in the middle of the view
+        long middle = (first + last) / 2;
+        int paints = 0;
+        for (long step = 0; step <= 2 * (last - first) && paints < PAINTS_PER_FRAME; step++) {
+            // the middle, then one to its right and one to its left, and so on
+            long index = step % 2 == 0 ? middle + step / 2 : middle - (step + 1) / 2;
+            if (index < first || index > last)
+                continue;
+            for (int row = firstRow; row <= lastRow && paints < PAINTS_PER_FRAME; row++) {
+                long key = key(index, row);
+                int left = leftOf(index, offsetX), top = row * TILE_HEIGHT;
+                if (impostors.containsKey(key) || inDetail(left, top))
+                    continue;
+                impostors.put(key, paint(index, row, offsetX));
+                paints++;
+            }
+        }
+        allPainted = paints < PAINTS_PER_FRAME;
+        paintedFor = state;
+        drawn.clear();
+        for (Impostor impostor : impostors.values())
+            if (impostor.pixels != null)
+                drawn.add(impostor);
+    }
+
+    // paints the impostor of a tile
+    private Impostor paint(long index, int row, long offsetX) {
+        Arrays.fill(pixels, 0);
+        for (ImpostorPainter painter : painters)
+            painter.paintImpostor(leftOf(index, offsetX), row * TILE_HEIGHT, offsetX, pixels);
+        painted++;
+        return new Impostor(index, row, pixels);
+    }
+
+    /**
+     * draws the impostor of every tile in view outside of the world of objects, scaled to the screen.
+     * @param g graphics
+     */
+    @Override
+    public void render(Graphics2D g) {
+        drawnLastFrame = 0;
+        if (!isZoomedOut())
+            return;
+        long offsetX = origin == null ? 0 : origin.offsetX();
+        Vector2 topLeft = camera.getTopLeftCorner(), dimensions = camera.getDimensions();
+        float scaleX = screenWidth / dimensions.x(), scaleY = screenHeight / dimensions.y();
+        // a pixel wider and higher than a tile may be, so rounding leaves no gap between tiles
+        int width = (int) Math.ceil(CHUNK_WIDTH * scaleX), height = (int) Math.ceil(TILE_HEIGHT * scaleY);
+        for (Impostor impostor : drawn) {
+            int left = leftOf(impostor.index, offsetX), top = impostor.row * TILE_HEIGHT;
+            if (inDetail(left, top))
+                continue;
+            int screenLeft = Math.round((left - topLeft.x()) * scaleX);
+            int screenTop = Math.round((top - topLeft.y()) * scaleY);
+            impostor.draw(g, screenLeft, screenTop, width, height);
+            drawnLastFrame++;
+        }
+    }
+
+    // whether a tile is in the world of objects
+    private boolean inDetail(int left, int top) {
+        return left >= detailLeft && left + CHUNK_WIDTH <= detailRight && top >= detailTop &&
+                top + TILE_HEIGHT <= detailBottom;
+    }
+
+    // left of a tile, from the origin, by its index in the whole world
+    private static int leftOf(long index, long offsetX) { return (int) (index * CHUNK_WIDTH - offsetX); }
+
+    // key of the tile in a column of the whole world and a row of tiles
+    private static long key(long index, int row) { return index << Integer.SIZE | row & 0xFFFFFFFFL; }
+
+    /**
+     * @return number of impostors held
+     */
+    public int impostorCount() { return impostors.size(); }
+
+    /**
+     * @return number of impostors painted since the game started
+     */
+    public long painted() { return painted; }
+
+    /**
+     * @return number of impostors drawn in the last frame
+     */
+    public int drawnLastFrame() { return drawnLastFrame; }
+
+    @Override
+    public String toString() {
+        return String.format(STATS_MSG, impostors.size(), painted, drawnLastFrame);
+    }
+}
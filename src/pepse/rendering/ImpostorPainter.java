@@ -0,0 +1,18 @@
+package pepse.rendering;
+
+/**
+ * Something of the world that paints what it would create in a tile of the world into the impostor of the tile: a
+ * small image of a pixel a block, drawn instead of the objects of the tile when the camera is zoomed out and the
+ * tile is far from the avatar. What is painted is decided as it would be created, without creating it.
+ */
+public interface ImpostorPainter {
+    /**
+     * paints a tile of the world into its impostor, over what was painted into it before.
+     * @param minX left of the tile in the world, a multiple of ImpostorCache.CHUNK_WIDTH
+     * @param minY top of the tile in the world, a multiple of ImpostorCache.TILE_HEIGHT
+     * @param originX x of the origin of the world in the whole world, as the tile is measured from it
+     * @param pixels ImpostorCache.COLUMNS by ImpostorCache.ROWS pixels of the impostor, row by row, a pixel a
+     *               block, 0 where nothing was painted
+     */
+    void paintImpostor(int minX, int minY, long originX, int[] pixels);
+}
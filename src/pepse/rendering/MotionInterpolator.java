@@ -0,0 +1,152 @@
+package pepse.rendering;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.components.CoordinateSpace;
+import danogl.util.Vector2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Draws the objects that move between the last two steps of the simulation, at the fraction of the way between
+ * them the frame is at, so the world moves smoothly on a screen refreshed faster than the steps, or out of step
+ * with them. Danogl draws an object where it is, so an object is moved to where it's drawn for the frame, and back
+ * before the next step.
+ * Where every object is, is captured before the last step of a frame, and the objects that moved in it are found
+ * after it, so only those are moved for rendering. Positions are copied into arrays, as danogl hands out the
+ * vector an object keeps its position in, which the step changes, and are set back into it without a vector, so a
+ * frame allocates nothing. An object that moved further than a jump in a step, such as one put somewhere else, is
+ * drawn where it is. Objects in camera coordinates are never moved, and only the layers where objects move are
+ * captured, so the ground, most of the world, isn't gone through every frame. The layers given must not hold it.
+ */
+public class MotionInterpolator {
+    // constants
+    private static final String STATS_MSG = "MotionInterpolator: %d moving (last step), %d drawn between steps";
+    // fields
+    private final float maxJump;
+    private final int[] layers;
+    // the objects before the last step, and where they were
+    private final List<GameObject> captured = new ArrayList<>();
+    private float[] capturedX = new float[0];
+    private float[] capturedY = new float[0];
+    // the objects that moved in the last step, where they were before it, and where they are
+    private final List<GameObject> moving = new ArrayList<>();
+    private float[] fromX = new float[0];
+    private float[] fromY = new float[0];
+    private float[] toX = new float[0];
+    private float[] toY = new float[0];
+    private boolean applied = false;
+    // counters
+    private long drawnBetween = 0;
+
+    /**
+     * default c'tor
+     * @param maxJump the furthest an object is drawn between two steps it moved in, in pixels
+     * @param layers layers of the objects that move
+     */
+    public MotionInterpolator(float maxJump, int... layers) {
+        this.maxJump = maxJump;
+        this.layers = layers;
+    }
+
+    /**
+     * captures where every object is, before the last step of a frame.
+     * @param gameObjects the objects of the world
+     * @param camera the camera, which follows the avatar, and is interpolated with it
+     */
+    public void capture(GameObjectCollection gameObjects, GameObject camera) {
+        captured.clear();
+        for (int layer : layers)
+            for (GameObject gameObject : gameObjects.objectsInLayer(layer))
+                if (gameObject.getCoordinateSpace() != CoordinateSpace.CAMERA_COORDINATES)
+                    captured.add(gameObject);
+        captured.add(camera);
+        if (capturedX.length < captured.size()) {
+            capturedX = new float[captured.size() * 2];
+            capturedY = new float[captured.size() * 2];
+        }
+        for (int i = 0; i < captured.size(); i++) {
+            Vector2 position = captured.get(i).getTopLeftCorner();
+            capturedX[i] = position.x();
+            capturedY[i] = position.y();
+        }
+    }
+
+    /**
+     * finds the objects captured that moved in the last step of a frame. Objects added in it are drawn where they
+     * are.
+     */
+    public void moved() {
+        clear();
+        for (int i = 0; i < captured.size(); i++) {
+            Vector2 position = captured.get(i).getTopLeftCorner();
+            float dx = position.x() - capturedX[i], dy = position.y() - capturedY[i];
+            if ((dx == 0 && dy == 0) || dx * dx + dy * dy > maxJump * maxJump)
+                continue;
+            if (fromX.length == moving.size()) {
+                int length = Math.max(1, moving.size() * 2);
+                fromX = Arrays.copyOf(fromX, length);
+                fromY = Arrays.copyOf(fromY, length);
+                toX = Arrays.copyOf(toX, length);
+                toY = Arrays.copyOf(toY, length);
+            }
+            int index = moving.size();
+            fromX[index] = capturedX[i];
+            fromY[index] = capturedY[i];
+            toX[index] = position.x();
+            toY[index] = position.y();
+            moving.add(captured.get(i));
+        }
+        captured.clear();
+    }
+
+    /**
+     * moves the objects that moved in the last step to where they're drawn in the frame.
+     * @param alpha how far the frame is from the step before the last to the last, from 0 to 1
+     */
+    public void apply(float alpha) {
+        if (alpha >= 1)
+            return;
+        for (int i = 0; i < moving.size(); i++)
+            moving.get(i).transform().setTopLeftCorner(fromX[i] + (toX[i] - fromX[i]) * alpha,
+                    fromY[i] + (toY[i] - fromY[i]) * alpha);
+        drawnBetween += moving.size();
+        applied = true;
+    }
+
+    /**
+     * moves the objects back to where the last step left them, once the frame is drawn.
+     */
+    public void restore() {
+        if (!applied)
+            return;
+        for (int i = 0; i < moving.size(); i++)
+            moving.get(i).transform().setTopLeftCorner(toX[i], toY[i]);
+        applied = false;
+    }
+
+    /**
+     * forgets the objects that moved, such as when the whole world is moved, so nothing is drawn between the
+     * places it was in before and after.
+     */
+    public void clear() {
+        moving.clear();
+    }
+
+    /**
+     * @return number of objects that moved in the last step
+     */
+    public int movingCount() { return moving.size(); }
+
+    /**
+     * @return number of times an object was drawn between two steps
+     */
+    public long drawnBetween() { return drawnBetween; }
+
+    @Override
+    public String toString() {
+        return String.format(STATS_MSG, moving.size(), drawnBetween);
+    }
+}
@@ -0,0 +1,304 @@
+package pepse.rendering;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.components.CoordinateSpace;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+import pepse.world.Block;
+import pepse.world.Terrain;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Draws the ground from images instead of block by block. The world is cut into tiles of a few columns of blocks
+ * and a few rows of them, and each tile is an image holding the blocks in it. A block is painted into the image of
+ * its tile once, when the terrain creates it, so a frame costs one image per tile on screen instead of one
+ * rectangle per block. A tile is made when its first block is painted, so the air above the ground takes no
+ * images, and the tiles of the rows the world no longer reaches are dropped, however deep the ground goes.
+ * The air and the caves of a tile are transparent pixels, so a tile is drawn in one copy.
+ * With the camera zoomed out, a tile is drawn in two copies, from images of the tile at the size it is on the
+ * screen, made again when a block is painted into it, or the zoom changes: the rows full of blocks down to
+ * the bottom of the tile, opaque, and the rows above them, with their transparent pixels.
+ */
+public class TerrainRenderCache extends GameObject {
+    /**
+     * width of a chunk, in pixels.
+     */
+    public static final int CHUNK_WIDTH = 10 * Block.SIZE;
+    /**
+     * height of a tile, in pixels.
+     */
+    public static final int TILE_HEIGHT = Terrain.TILE_HEIGHT;
+    // constants
+    private static final String TERRAIN_CACHE_TAG = "terrain cache";
+    // fields
+    private final Camera camera;
+    private final int screenWidth;
+    private final int screenHeight;
+    private final Map<Long, Chunk> chunks = new HashMap<>();
+    // counters
+    private int chunksCreated = 0;
+    private int blocksPainted = 0;
+    private int chunksDrawnLastFrame = 0;
+    private int copiesLastFrame = 0;
+
+    // the image of a tile, and the world x and y of its top left pixel.
+    private static class Chunk {
+        private final BufferedImage image;
+        private final int[] pixels;
+        private int left;
+        private final int top;
+        // the tile at the size it's drawn in with the camera zoomed out: the rows above the ones full of blocks,
+        // and those, at their screen rows from the top of the tile. Not made until it's drawn so.
+        private BufferedImage scaledPartial = null;
+        private BufferedImage scaledSolid = null;
+        private int partialY;
+        private int solidY;
+        private int scaledWidth = 0;
+        private int scaledHeight = 0;
+
+        Chunk(int left, int top) {
+            this.image = new BufferedImage(CHUNK_WIDTH, TILE_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+            this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            this.left = left;
+            this.top = top;
+        }
+
+        // fills the pixels of a block of the tile with a colour
+        void fill(int x, int y, int argb) {
+            int fromX = x - left, fromY = y - top, toY = Math.min(TILE_HEIGHT, fromY + Block.SIZE);
+            for (int row = Math.max(0, fromY); row < toY; row++)
+                Arrays.fill(pixels, row * CHUNK_WIDTH + fromX, row * CHUNK_WIDTH + fromX + Block.SIZE, argb);
+            scaledWidth = 0;
+        }
+    }
+
+    /**
+     * default c'tor
+     * @param windowDimensions dimensions of the screen
+     * @param camera camera, to find where the screen is in the world
+     */
+    public TerrainRenderCache(Vector2 windowDimensions, Camera camera) {
+        super(Vector2.ZERO, windowDimensions, null);
+        this.camera = camera;
+        this.screenWidth = (int) windowDimensions.x();
+        this.screenHeight = (int) windowDimensions.y();
+    }
+
+    /**
+     * creates the cache, adds it to the game, and sets it as the renderer of the terrain. Blocks the terrain
+     * created before are not in the cache.
+     * @param gameObjects collection
+     * @param layer layer of the ground images, below every object standing on the ground
+     * @param windowDimensions dimensions of the screen
+     * @param camera camera, to find where the screen is in the world
+     * @param terrain the terrain to draw
+     * @return the cache
+     */
+    public static TerrainRenderCache create(GameObjectCollection gameObjects, int layer, Vector2 windowDimensions,
+                                            Camera camera, Terrain terrain) {
+        TerrainRenderCache cache = new TerrainRenderCache(windowDimensions, camera);
+        cache.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+        cache.setTag(TERRAIN_CACHE_TAG);
+        gameObjects.addGameObject(cache, layer);
+        terrain.setRenderCache(cache);
+        return cache;
+    }
+
+    /**
+     * paints a block into the image of its tile.
+     * @param topLeftCorner top left corner of the block in the world
+     * @param color colour of the block, opaque
+     */
+    public void paintBlock(Vector2 topLeftCorner, Color color) {
+        int x = (int) topLeftCorner.x(), y = (int) topLeftCorner.y();
+        chunkAt(x, y).fill(x, y, color.getRGB());
+        blocksPainted++;
+    }
+
+    /**
+     * drops the images of the tiles entirely outside of a range, once the world no longer reaches them.
+     * @param minX left of the range in the world
+     * @param maxX right of the range in the world
+     */
+    public void retain(int minX, int maxX) {
+        Iterator<Chunk> iterator = chunks.values().iterator();
+        while (iterator.hasNext()) {
+            int left = iterator.next().left;
+            if (left + CHUNK_WIDTH <= Math.min(minX, maxX) || left > Math.max(minX, maxX))
+                iterator.remove();
+        }
+    }
+
+    /**
+     * drops the images of every tile, when the whole world is removed at once.
+     */
+    public void clear() { chunks.clear(); }
+
+    /**
+     * moves the tiles with the world, when the origin of the world moved.
+     * @param shiftX how far along x the origin moved, a multiple of CHUNK_WIDTH
+     */
+    public void rebase(int shiftX) {
+        List<Chunk> moved = new ArrayList<>(chunks.values());
+        chunks.clear();
+        for (Chunk chunk : moved) {
+            chunk.left -= shiftX;
+            chunks.put(keyOf(chunk.left, chunk.top), chunk);
+        }
+    }
+
+    /**
+     * drops the images of the tiles entirely outside of a range of rows, once the world no longer reaches them.
+     * @param minY top of the range in the world
+     * @param maxY bottom of the range in the world
+     */
+    public void retainRows(int minY, int maxY) {
+        Iterator<Chunk> iterator = chunks.values().iterator();
+        while (iterator.hasNext()) {
+            int top = iterator.next().top;
+            if (top + TILE_HEIGHT <= minY || top >= maxY)
+                iterator.remove();
+        }
+    }
+
+    /**
+     * draws every tile on screen.
+     * @param g graphics
+     */
+    @Override
+    public void render(Graphics2D g) {
+        Vector2 screenTopLeft = camera.getTopLeftCorner();
+        int left = (int) Math.floor(screenTopLeft.x()), top = (int) Math.floor(screenTopLeft.y());
+        int viewWidth = (int) Math.ceil(camera.getDimensions().x());
+        int viewHeight = (int) Math.ceil(camera.getDimensions().y());
+        float scaleX = screenWidth / camera.getDimensions().x(), scaleY = screenHeight / camera.getDimensions().y();
+        // a pixel wider and higher than a tile may be, so rounding leaves no gap between tiles
+        int scaledWidth = (int) Math.ceil(CHUNK_WIDTH * scaleX), scaledHeight = (int) Math.ceil(TILE_HEIGHT * scaleY);
+        boolean zoomed = viewWidth > screenWidth;
+        int first = Math.floorDiv(left, CHUNK_WIDTH), last = Math.floorDiv(left + viewWidth, CHUNK_WIDTH);
+        int firstRow = Math.floorDiv(top, TILE_HEIGHT), lastRow = Math.floorDiv(top + viewHeight, TILE_HEIGHT);
+        chunksDrawnLastFrame = 0;
+        copiesLastFrame = 0;
+        for (int i = first; i <= last; i++) {
+            for (int row = firstRow; row <= lastRow; row++) {
+                Chunk chunk = chunks.get(key(i, row));
+                if (chunk == null)
+                    continue;
+                if (zoomed)
+                    drawScaled(g, chunk, Math.round((chunk.left - left) * scaleX),
+                            Math.round((chunk.top - top) * scaleY), scaledWidth, scaledHeight);
+                else {
+                    g.drawImage(chunk.image, chunk.left - left, chunk.top - top, null);
+                    copiesLastFrame++;
+                }
+                chunksDrawnLastFrame++;
+            }
+        }
+    }
+
+    // draws a tile at a size, from images made from the blocks that are there if they aren't at that size. Drawing
+    // an image scaled costs several times a copy, and a copy a column more still.
+    private void drawScaled(Graphics2D g, Chunk chunk, int screenX, int screenY, int width, int height) {
+        if (chunk.scaledWidth != width || chunk.scaledHeight != height) {
+            // the first row of the tile with a block in it, and the first of the rows full of blocks down to its
+            // bottom
+            int partialFrom = TILE_HEIGHT, solidFrom = TILE_HEIGHT;
+            for (int row = TILE_HEIGHT - 1; row >= 0; row--) {
+                int opaque = 0;
+                for (int x = 0; x < CHUNK_WIDTH; x++)
+                    if (chunk.pixels[row * CHUNK_WIDTH + x] != 0)
+                        opaque++;
+                if (opaque > 0)
+                    partialFrom = row;
+                if (opaque == CHUNK_WIDTH && solidFrom == row + 1)
+                    solidFrom = row;
+            }
+            partialFrom = Math.min(partialFrom, solidFrom);
+            // the first screen rows that show them
+            chunk.partialY = -Math.floorDiv(-partialFrom * height, TILE_HEIGHT);
+            chunk.solidY = -Math.floorDiv(-solidFrom * height, TILE_HEIGHT);
+            chunk.scaledPartial = chunk.solidY > chunk.partialY ? scaledImage(chunk, chunk.partialY, chunk.solidY,
+                    width, height, BufferedImage.TYPE_INT_ARGB) : null;
+            chunk.scaledSolid = height > chunk.solidY ? scaledImage(chunk, chunk.solidY, height, width, height,
+                    BufferedImage.TYPE_INT_RGB) : null;
+            chunk.scaledWidth = width;
+            chunk.scaledHeight = height;
+        }
+        if (chunk.scaledPartial != null) {
+            g.drawImage(chunk.scaledPartial, screenX, screenY + chunk.partialY, null);
+            copiesLastFrame++;
+        }
+        if (chunk.scaledSolid != null) {
+            g.drawImage(chunk.scaledSolid, screenX, screenY + chunk.solidY, null);
+            copiesLastFrame++;
+        }
+    }
+
+    // the screen rows [fromY, toY) of a tile at a size
+    private static BufferedImage scaledImage(Chunk chunk, int fromY, int toY, int width, int height, int type) {
+        BufferedImage image = new BufferedImage(width, toY - fromY, type);
+        int[] scaledPixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int y = fromY; y < toY; y++) {
+            int row = y * TILE_HEIGHT / height * CHUNK_WIDTH;
+            for (int x = 0; x < width; x++)
+                scaledPixels[(y - fromY) * width + x] = chunk.pixels[row + x * CHUNK_WIDTH / width];
+        }
+        return image;
+    }
+
+    // the tile holding a world x and y, created if it isn't there yet
+    private Chunk chunkAt(int x, int y) {
+        long key = keyOf(x, y);
+        Chunk chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = new Chunk(Math.floorDiv(x, CHUNK_WIDTH) * CHUNK_WIDTH, Math.floorDiv(y, TILE_HEIGHT) * TILE_HEIGHT);
+            chunks.put(key, chunk);
+            chunksCreated++;
+        }
+        return chunk;
+    }
+
+    // key of the tile holding a world x and y
+    private static long keyOf(int x, int y) {
+        return key(Math.floorDiv(x, CHUNK_WIDTH), Math.floorDiv(y, TILE_HEIGHT));
+    }
+
+    // key of the tile in a column and a row of tiles
+    private static long key(int column, int row) { return (long) column << Integer.SIZE | row & 0xFFFFFFFFL; }
+
+    /**
+     * @return number of tile images held
+     */
+    public int chunkCount() { return chunks.size(); }
+
+    /**
+     * @return number of tile images created since the game started
+     */
+    public int chunksCreated() { return chunksCreated; }
+
+    /**
+     * @return number of blocks painted into the chunk images
+     */
+    public int blocksPainted() { return blocksPainted; }
+
+    /**
+     * @return number of tile images drawn in the last frame
+     */
+    public int chunksDrawnLastFrame() { return chunksDrawnLastFrame; }
+
+    /**
+     * @return number of copies from the tile images to the screen in the last frame, one a tile, or two zoomed out
+     */
+    public int copiesLastFrame() { return copiesLastFrame; }
+}
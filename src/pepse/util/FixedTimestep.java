@@ -0,0 +1,99 @@
+package pepse.util;
+
+/**
+ * Runs the simulation of the world in steps of a fixed time, whatever the time of a frame, so it behaves the same
+ * on every machine. The time of every frame is added to an accumulator, and a step is taken for every step of time
+ * in it. A frame shorter than a step takes no step at all, and what's left in the accumulator, as a fraction of a
+ * step, is how far the frame is between the last two steps, for rendering.
+ * A frame takes at most a few steps. If it's owed more, such as after a hitch, or on a machine too slow to keep up,
+ * the time left over is dropped and the game slows down for the frame, instead of the steps of the next frame
+ * making it longer still, and the next one after it longer again.
+ */
+public class FixedTimestep {
+    // constants
+    private static final String STATS_MSG = "FixedTimestep: %d steps in %d frames (%d without a step, %d capped), " +
+            "%.1f s dropped";
+    // fields
+    private final float step;
+    private final int maxSteps;
+    private float accumulator = 0;
+    // counters
+    private long frames = 0;
+    private long steps = 0;
+    private long framesWithoutStep = 0;
+    private long cappedFrames = 0;
+    private double dropped = 0;
+
+    /**
+     * default c'tor
+     * @param step time of a step, in seconds
+     * @param maxSteps most steps a frame takes
+     */
+    public FixedTimestep(float step, int maxSteps) {
+        this.step = step;
+        this.maxSteps = maxSteps;
+    }
+
+    /**
+     * adds the time of a frame to the accumulator, and takes from it the steps the frame owes.
+     * @param deltaTime time of the frame, in seconds
+     * @return number of steps to take in the frame, at most maxSteps
+     */
+    public int advance(float deltaTime) {
+        frames++;
+        accumulator += deltaTime;
+        int count = (int) Math.min(maxSteps, Math.floor(accumulator / step));
+        accumulator -= count * step;
+        if (accumulator >= step) {
+            // whole steps the frame couldn't take are dropped, and the fraction of a step is kept
+            float left = accumulator % step;
+            dropped += accumulator - left;
+            accumulator = left;
+            cappedFrames++;
+        }
+        if (count == 0)
+            framesWithoutStep++;
+        steps += count;
+        return count;
+    }
+
+    /**
+     * @return how far the frame is from the last step to the next, from 0 to 1
+     */
+    public float alpha() { return Math.min(1, accumulator / step); }
+
+    /**
+     * @return time of a step, in seconds
+     */
+    public float step() { return step; }
+
+    /**
+     * @return number of steps taken since the start
+     */
+    public long steps() { return steps; }
+
+    /**
+     * @return number of frames since the start
+     */
+    public long frames() { return frames; }
+
+    /**
+     * @return number of frames that took no step
+     */
+    public long framesWithoutStep() { return framesWithoutStep; }
+
+    /**
+     * @return number of frames that owed more steps than they could take
+     */
+    public long cappedFrames() { return cappedFrames; }
+
+    /**
+     * @return time dropped by the frames that owed more steps than they could take, in seconds
+     */
+    public double dropped() { return dropped; }
+
+    @Override
+    public String toString() {
+        return String.format(STATS_MSG, steps, frames, framesWithoutStep, cappedFrames, dropped);
+    }
+}
@@ -0,0 +1,15 @@
+package pepse.util;
+
+/**
+ * Priority of a job in the JobQueue. Every job of a priority runs before any job of a lower one.
+ */
+public enum JobPriority {
+    /** the blocks things collide with and stand on. first to run. */
+    GROUND,
+    /** everything else the player meets, like trunks and enemies. */
+    WORLD,
+    /** what only has to be seen, like leaves. */
+    DECORATION,
+    /** removing what is no longer in the world. last to run. */
+    CLEANUP
+}
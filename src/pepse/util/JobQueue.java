@@ -0,0 +1,246 @@
+package pepse.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Changes to the world, such as adding the objects of a new part of it or removing the ones far behind, queued to
+ * be done on the game thread a little every frame instead of all in the frame they were asked for.
+ * Each frame the queue is given a budget of time, and runs jobs from the highest priority down until it's spent.
+ * What's left is carried over to the next frame, in the same order. A long job can be cut into steps, and is
+ * stopped between two of them.
+ * A job can belong to an owner, such as the object it acts on, and every job of an owner can be cancelled at once
+ * when the owner is removed from the world.
+ */
+public class JobQueue {
+    // constants
+    private static final String STATS_MSG = "JobQueue: %d queued (at most %d), %d ran, %d frames over a budget of " +
+            "%.1f ms (longest %.2f ms), %d frames carried work over";
+    private static final JobPriority[] PRIORITIES = JobPriority.values();
+    // fields
+    private final long budgetNanos;
+    private final List<ArrayDeque<Entry>> queues = new ArrayList<>();
+    private final Map<Object, List<Entry>> owners = new HashMap<>();
+    // counters
+    private int depth = 0;
+    private int maxDepth = 0;
+    private int ranLastFrame = 0;
+    private long ran = 0;
+    private long overruns = 0;
+    private long carriedOver = 0;
+    private long longestFrameNanos = 0;
+
+    /**
+     * A job that is done in steps, so it can be stopped between two of them when the budget of the frame is spent.
+     */
+    public interface Job {
+        /**
+         * does the next step of the job.
+         * @return true if the job is done, false if it has more steps
+         */
+        boolean step();
+    }
+
+    // a job in the queue
+    private static class Entry {
+        private final Object owner;
+        private final Job job;
+        private boolean cancelled = false;
+
+        Entry(Object owner, Job job) {
+            this.owner = owner;
+            this.job = job;
+        }
+    }
+
+    /**
+     * default c'tor
+     * @param budgetNanos time the jobs may take in a frame, in nanoseconds. At least one job runs every frame.
+     */
+    public JobQueue(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+        for (int i = 0; i < PRIORITIES.length; i++)
+            queues.add(new ArrayDeque<>());
+    }
+
+    /**
+     * queues a job done in one go.
+     * @param priority priority of the job
+     * @param owner what the job acts on, so it can be cancelled with every other job of the owner. May be null.
+     * @param job the job
+     */
+    public void submit(JobPriority priority, Object owner, Runnable job) {
+        submitSteps(priority, owner, () -> {
+            job.run();
+            return true;
+        });
+    }
+
+    /**
+     * queues a job done in steps.
+     * @param priority priority of the job
+     * @param owner what the job acts on, so it can be cancelled with every other job of the owner. May be null.
+     * @param job the job
+     */
+    public void submitSteps(JobPriority priority, Object owner, Job job) {
+        Entry entry = new Entry(owner, job);
+        queues.get(priority.ordinal()).addLast(entry);
+        if (owner != null)
+            owners.computeIfAbsent(owner, key -> new ArrayList<>(1)).add(entry);
+        depth++;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    /**
+     * cancels every job of an owner that didn't finish yet, such as of an object removed from the world.
+     * @param owner the owner
+     * @return number of jobs cancelled
+     */
+    public int cancelAll(Object owner) {
+        List<Entry> entries = owners.remove(owner);
+        if (entries == null)
+            return 0;
+        // cancelled jobs are left in their queue, and dropped when they reach its head.
+        for (Entry entry : entries)
+            entry.cancelled = true;
+        depth -= entries.size();
+        return entries.size();
+    }
+
+    /**
+     * drops every job, such as when the whole world they build is removed at once.
+     * @return number of jobs dropped
+     */
+    public int clear() {
+        int dropped = depth;
+        for (ArrayDeque<Entry> queue : queues)
+            queue.clear();
+        owners.clear();
+        depth = 0;
+        return dropped;
+    }
+
+    /**
+     * drops every job of a priority, such as the jobs building the world when it is removed at once, while the
+     * jobs removing it go on.
+     * @param priority the priority
+     * @return number of jobs dropped
+     */
+    public int clear(JobPriority priority) {
+        ArrayDeque<Entry> queue = queues.get(priority.ordinal());
+        int dropped = 0;
+        // cancelled jobs were already taken out of the depth and of their owners
+        for (Entry entry : queue) {
+            if (!entry.cancelled) {
+                dropped++;
+                finish(entry);
+            }
+        }
+        queue.clear();
+        return dropped;
+    }
+
+    /**
+     * runs the jobs of the frame, from the highest priority down, until the budget is spent or no job is left.
+     * Jobs queued by the jobs run in the same frame if there is time left.
+     */
+    public void run() { run(budgetNanos); }
+
+    /**
+     * runs the jobs of the frame with a budget of its own, such as a larger one while the world is loading.
+     * @param budgetNanos time the jobs may take in this frame, in nanoseconds
+     */
+    public void run(long budgetNanos) {
+        long start = System.nanoTime();
+        ranLastFrame = 0;
+        for (ArrayDeque<Entry> queue : queues) {
+            while (!queue.isEmpty()) {
+                // checked before a job, so a frame always gets to run one.
+                if (ranLastFrame > 0 && System.nanoTime() - start >= budgetNanos) {
+                    finishFrame(start, budgetNanos);
+                    return;
+                }
+                Entry entry = queue.peekFirst();
+                if (entry.cancelled) {
+                    queue.pollFirst();
+                    continue;
+                }
+                boolean done = entry.job.step();
+                ranLastFrame++;
+                // the job may have been cancelled by its own step. Jobs it queued went behind it.
+                if (done || entry.cancelled) {
+                    queue.pollFirst();
+                    if (!entry.cancelled)
+                        finish(entry);
+                }
+            }
+        }
+        finishFrame(start, budgetNanos);
+    }
+
+    // takes a finished job out of the jobs of its owner
+    private void finish(Entry entry) {
+        depth--;
+        if (entry.owner == null)
+            return;
+        List<Entry> entries = owners.get(entry.owner);
+        entries.remove(entry);
+        if (entries.isEmpty())
+            owners.remove(entry.owner);
+    }
+
+    private void finishFrame(long start, long budgetNanos) {
+        long elapsed = System.nanoTime() - start;
+        ran += ranLastFrame;
+        longestFrameNanos = Math.max(longestFrameNanos, elapsed);
+        if (elapsed > budgetNanos)
+            overruns++;
+        if (depth > 0)
+            carriedOver++;
+    }
+
+    /**
+     * @return number of jobs waiting to run
+     */
+    public int depth() { return depth; }
+
+    /**
+     * @return most jobs that waited at once
+     */
+    public int maxDepth() { return maxDepth; }
+
+    /**
+     * @return number of steps run in the last frame
+     */
+    public int ranLastFrame() { return ranLastFrame; }
+
+    /**
+     * @return number of steps run since the queue was created
+     */
+    public long ran() { return ran; }
+
+    /**
+     * @return number of frames in which the jobs took longer than the budget, since the last job started before it
+     * was spent
+     */
+    public long overruns() { return overruns; }
+
+    /**
+     * @return number of frames that left jobs for the next
+     */
+    public long carriedOver() { return carriedOver; }
+
+    /**
+     * @return longest time the jobs took in a frame, in nanoseconds
+     */
+    public long longestFrameNanos() { return longestFrameNanos; }
+
+    @Override
+    public String toString() {
+        return String.format(STATS_MSG, depth, maxDepth, ran, overruns, budgetNanos / 1e6, longestFrameNanos / 1e6,
+                carriedOver);
+    }
+}
@@ -0,0 +1,281 @@
+package pepse.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A central service for the delayed callbacks of the world, instead of a ScheduledTask component per callback,
+ * ticked every frame on its host whether it's due or not.
+ * Timers are kept in a hierarchical timing wheel: a few levels of slots, each level a slot per tick of the level
+ * below, so a timer is put in, and taken out, of the slot of when it's due in constant time. A frame only looks at
+ * the slots of the ticks it went through, and now and then spreads the timers of a slot of a higher level to the
+ * levels below as they get close.
+ * Timers due in a frame are fired together when the wheel is advanced, at the frame boundary, in the order they're
+ * due. A timer can belong to an owner, such as the object it acts on, and every timer of an owner can be cancelled
+ * at once when the owner is removed from the world.
+ */
+public class TimerWheel {
+    // constants
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_TICKS = 1L << (SLOT_BITS * LEVELS); // furthest a timer can be put in the wheel
+    private static final String STATS_MSG = "TimerWheel: %d pending, %d fired last frame, %d fired, %d cancelled";
+    // fields
+    private final float tickDuration;
+    private final Timer[][] slots = new Timer[LEVELS][SLOTS];
+    private final Map<Object, Timer> owners = new HashMap<>();
+    private final List<Timer> batch = new ArrayList<>();
+    private long currentTick = 0;
+    private float timeInTick = 0;
+    // counters
+    private int pending = 0;
+    private int firedLastFrame = 0;
+    private long fired = 0;
+    private long cancelled = 0;
+
+    /**
+     * A callback waiting in the wheel.
+     */
+    public static class Timer {
+        private final TimerWheel wheel;
+        private final Object owner;
+        private final Runnable callback;
+        private final long periodTicks; // 0 for a timer that fires once
+        private long dueTick;
+        private boolean pending = true;
+        // the slot the timer is in, and its neighbours in it
+        private int level;
+        private int slot;
+        private Timer previous;
+        private Timer next;
+        // the other timers of the owner
+        private Timer previousOfOwner;
+        private Timer nextOfOwner;
+
+        private Timer(TimerWheel wheel, Object owner, Runnable callback, long periodTicks, long dueTick) {
+            this.wheel = wheel;
+            this.owner = owner;
+            this.callback = callback;
+            this.periodTicks = periodTicks;
+            this.dueTick = dueTick;
+        }
+
+        /**
+         * cancels the timer. A repeating timer can cancel itself from its callback.
+         * @return true if the timer was pending, false if it already fired or was cancelled
+         */
+        public boolean cancel() { return wheel.cancel(this); }
+
+        /**
+         * @return true if the timer will still fire
+         */
+        public boolean isPending() { return pending; }
+    }
+
+    /**
+     * default c'tor
+     * @param tickDuration game time of a tick of the wheel, in seconds. Timers are rounded up to it.
+     */
+    public TimerWheel(float tickDuration) {
+        this.tickDuration = tickDuration;
+    }
+
+    /**
+     * schedules a callback, like a ScheduledTask.
+     * @param owner what the timer acts on, so it can be cancelled with every other timer of the owner. May be null.
+     * @param waitTime game time until the callback is called, in seconds. It's called at the earliest at the next
+     *                 frame.
+     * @param repeat true to call the callback every waitTime seconds, until the timer is cancelled
+     * @param callback the callback
+     * @return the timer, to cancel it
+     */
+    public Timer schedule(Object owner, float waitTime, boolean repeat, Runnable callback) {
+        long ticks = Math.max(1, (long) Math.ceil(waitTime / tickDuration));
+        Timer timer = new Timer(this, owner, callback, repeat ? ticks : 0, currentTick + ticks);
+        insert(timer);
+        if (owner != null) {
+            Timer first = owners.put(owner, timer);
+            timer.nextOfOwner = first;
+            if (first != null)
+                first.previousOfOwner = timer;
+        }
+        pending++;
+        return timer;
+    }
+
+    /**
+     * cancels a timer.
+     * @param timer a timer of this wheel
+     * @return true if the timer was pending, false if it already fired or was cancelled
+     */
+    public boolean cancel(Timer timer) {
+        if (!timer.pending)
+            return false;
+        timer.pending = false;
+        // a timer already taken out of its slot to be fired this frame is in no slot, and is skipped.
+        unlink(timer);
+        unlinkFromOwner(timer);
+        pending--;
+        cancelled++;
+        return true;
+    }
+
+    /**
+     * cancels every timer of an owner, such as an object removed from the world.
+     * @param owner the owner
+     * @return number of timers cancelled
+     */
+    public int cancelAll(Object owner) {
+        int count = 0;
+        Timer timer = owners.get(owner);
+        while (timer != null) {
+            Timer next = timer.nextOfOwner;
+            if (cancel(timer))
+                count++;
+            timer = next;
+        }
+        return count;
+    }
+
+    /**
+     * advances the wheel by the game time of a frame, and fires the timers that became due, in the order they're
+     * due. Timers scheduled by the callbacks fire in a later frame.
+     * @param deltaTime game time
+     */
+    public void advance(float deltaTime) {
+        timeInTick += deltaTime;
+        batch.clear();
+        while (timeInTick >= tickDuration) {
+            timeInTick -= tickDuration;
+            tick();
+        }
+        firedLastFrame = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Timer timer = batch.get(i);
+            if (!timer.pending)
+                continue;
+            if (timer.periodTicks == 0) {
+                timer.pending = false;
+                unlinkFromOwner(timer);
+                pending--;
+            }
+            timer.callback.run();
+            firedLastFrame++;
+            // a repeating timer goes back in the wheel, unless its callback cancelled it.
+            if (timer.periodTicks != 0 && timer.pending) {
+                timer.dueTick = Math.max(timer.dueTick + timer.periodTicks, currentTick + 1);
+                insert(timer);
+            }
+        }
+        fired += firedLastFrame;
+        batch.clear();
+    }
+
+    // moves to the next tick: spreads the slots of the higher levels that it reached, and takes the timers of its
+    // slot into the batch.
+    private void tick() {
+        currentTick++;
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0)
+                break;
+            int slot = (int) (currentTick >>> (SLOT_BITS * level)) & SLOT_MASK;
+            Timer timer = slots[level][slot];
+            slots[level][slot] = null;
+            while (timer != null) {
+                Timer next = timer.next;
+                insert(timer);
+                timer = next;
+            }
+        }
+        int slot = (int) currentTick & SLOT_MASK;
+        Timer timer = slots[0][slot];
+        slots[0][slot] = null;
+        while (timer != null) {
+            Timer next = timer.next;
+            timer.previous = null;
+            timer.next = null;
+            if (timer.dueTick <= currentTick)
+                batch.add(timer);
+            else
+                insert(timer);
+            timer = next;
+        }
+    }
+
+    // puts a timer in the slot of the level its due tick is in reach of.
+    private void insert(Timer timer) {
+        long ticks = timer.dueTick - currentTick;
+        // a timer further than the wheel reaches waits in the furthest slot, and is put back from there.
+        long dueTick = ticks < MAX_TICKS ? timer.dueTick : currentTick + MAX_TICKS - 1;
+        ticks = dueTick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && ticks >= 1L << (SLOT_BITS * (level + 1)))
+            level++;
+        int slot = (int) (dueTick >>> (SLOT_BITS * level)) & SLOT_MASK;
+        Timer first = slots[level][slot];
+        timer.level = level;
+        timer.slot = slot;
+        timer.previous = null;
+        timer.next = first;
+        if (first != null)
+            first.previous = timer;
+        slots[level][slot] = timer;
+    }
+
+    // takes a timer out of its slot
+    private void unlink(Timer timer) {
+        if (timer.previous != null)
+            timer.previous.next = timer.next;
+        else if (slots[timer.level][timer.slot] == timer)
+            slots[timer.level][timer.slot] = timer.next;
+        if (timer.next != null)
+            timer.next.previous = timer.previous;
+        timer.previous = null;
+        timer.next = null;
+    }
+
+    // takes a timer out of the timers of its owner
+    private void unlinkFromOwner(Timer timer) {
+        if (timer.owner == null)
+            return;
+        if (timer.previousOfOwner != null)
+            timer.previousOfOwner.nextOfOwner = timer.nextOfOwner;
+        else if (timer.nextOfOwner != null)
+            owners.put(timer.owner, timer.nextOfOwner);
+        else
+            owners.remove(timer.owner);
+        if (timer.nextOfOwner != null)
+            timer.nextOfOwner.previousOfOwner = timer.previousOfOwner;
+        timer.previousOfOwner = null;
+        timer.nextOfOwner = null;
+    }
+
+    /**
+     * @return number of timers that will still fire
+     */
+    public int pending() { return pending; }
+
+    /**
+     * @return number of timers fired in the last frame
+     */
+    public int firedLastFrame() { return firedLastFrame; }
+
+    /**
+     * @return number of timers fired since the wheel was created
+     */
+    public long fired() { return fired; }
+
+    /**
+     * @return number of timers cancelled since the wheel was created
+     */
+    public long cancelled() { return cancelled; }
+
+    @Override
+    public String toString() {
+        return String.format(STATS_MSG, pending, firedLastFrame, fired, cancelled);
+    }
+}
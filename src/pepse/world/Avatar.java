@@ -5,19 +5,23 @@ import danogl.collisions.Collision;
 import danogl.collisions.GameObjectCollection;
 import danogl.collisions.Layer;
 import danogl.components.ScheduledTask;
-import danogl.gui.ImageReader;
-import danogl.gui.Sound;
-import danogl.gui.SoundReader;
 import danogl.gui.UserInputListener;
-import danogl.gui.rendering.AnimationRenderable;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.assets.AssetCache;
+import pepse.assets.AssetManifest;
+import pepse.audio.AudioMixer;
+import pepse.audio.SoundPriority;
 import pepse.hud.HPBar;
+import pepse.world.lighting.LightMap;
+import pepse.util.TimerWheel;
+import pepse.world.physics.RestingBodies;
 import pepse.world.NPC.Enemy;
 import pepse.world.weapons.Fireball;
 import pepse.world.weapons.Projectile;
 
 import java.awt.event.KeyEvent;
+import java.util.function.Predicate;
 
 public class Avatar extends GameObject {
     // used for collide checks for other objects
@@ -30,7 +34,7 @@ public class Avatar extends GameObject {
     private static final float GRAVITY = 600;
     private static final float MAX_SPEED = 300;
     private static final int AVATAR_HP = 3;
-    private static final float ENERGY_INCREMENT = 0.5f;
+    private static final float ENERGY_PER_SECOND = 30; // spent flying, and regained standing
     private static final float MAX_ENERGY = 100;
     private static final float SPELL_ENERGY_COST = 10;
     private static final Vector2 GRAVE_DIMENSIONS = new Vector2(130, 120);
@@ -52,8 +56,9 @@ public class Avatar extends GameObject {
     private final Renderable flyAnimation;
     //fields
     private int projectileLayer;
+    private int graveLayer = Layer.STATIC_OBJECTS;
     private final int selfLayer;
-    private final ImageReader imageReader;
+    private final AssetCache assets;
     private final UserInputListener inputListener;
     private final GameObjectCollection gameObjects;
     private boolean isDead = false;
@@ -61,24 +66,26 @@ public class Avatar extends GameObject {
     private final HPBar hpBar;
     private float energy = 100;
     // sound
-    private SoundReader soundReader;
-    private Sound jumpSound = null;
-    private Sound flightSound = null;
+    private AudioMixer audio = null;
+    private LightMap lights = null;
     private Terrain terrain;
+    private RestingBodies restingBodies = null;
+    private TimerWheel timers = null;
+    private Predicate<GameObject> remover = null;
 
     public Avatar(Vector2 topLeftCorner, Vector2 dimensions, Renderable renderable,
-                  UserInputListener inputListener, ImageReader imageReader, GameObjectCollection gameObjects,
+                  UserInputListener inputListener, AssetCache assets, GameObjectCollection gameObjects,
                   int layer) {
         super(topLeftCorner, dimensions, renderable);
         this.inputListener = inputListener;
-        this.imageReader = imageReader;
+        this.assets = assets;
         this.gameObjects = gameObjects;
         this.modelAnimation = renderable;
-        this.jumpAnimation = imageReader.readImage(JUMP_PATH, true);
-        this.walkAnimation = new AnimationRenderable(WALK_PATH, imageReader, true, TIME_BETWEEN_WALK);
-        this.flyAnimation = imageReader.readImage(FLY_PATH, true);
+        this.jumpAnimation = assets.readImage(JUMP_PATH);
+        this.walkAnimation = assets.readAnimation(WALK_PATH, TIME_BETWEEN_WALK);
+        this.flyAnimation = assets.readImage(FLY_PATH);
         this.selfLayer = layer;
-        this.hpBar = new HPBar(this, AVATAR_HP, gameObjects);
+        this.hpBar = new HPBar(this, AVATAR_HP, gameObjects, assets);
         gameObjects.addGameObject(hpBar, Layer.UI);
     }
 
@@ -88,14 +95,14 @@ public class Avatar extends GameObject {
      * @param layer The number of the layer to which the created avatar should be added.
      * @param topLeftCorner The location of the top-left corner of the created avatar.
      * @param inputListener Used for reading input from the user.
-     * @param imageReader Used for reading images from disk or from within a jar.
+     * @param assets Used for getting images and sounds, read from disk only once.
      * @return A newly created representing the avatar.
      */
     public static Avatar create(GameObjectCollection gameObjects, int layer, Vector2 topLeftCorner,
-                                UserInputListener inputListener, ImageReader imageReader){
-        Renderable model = new AnimationRenderable(MODEL_PATH, imageReader, true, TIME_BETWEEN_MODEL);
+                                UserInputListener inputListener, AssetCache assets){
+        Renderable model = assets.readAnimation(MODEL_PATH, TIME_BETWEEN_MODEL);
         Avatar avatar = new Avatar(topLeftCorner, Vector2.ONES.mult(AVATAR_SIZE), model,
-                inputListener, imageReader, gameObjects, layer);
+                inputListener, assets, gameObjects, layer);
         avatar.transform().setAccelerationY(GRAVITY);
         avatar.setTag(AVATAR_TAG);
         avatar.physics().preventIntersectionsFromDirection(Vector2.ZERO);
@@ -104,23 +111,63 @@ public class Avatar extends GameObject {
     } // end of method create
 
     /**
-     * allows to set Sound Reader and sounds to the avatar and it's weapons.
-     * @param soundReader SoundReader type.
+     * declare the assets of the avatar, so they are loaded at startup.
+     * @param manifest the asset manifest
      */
-    public void setSounds(SoundReader soundReader) {
-        this.soundReader = soundReader;
-        this.jumpSound = soundReader.readSound(JUMP_SOUND_PATH);
-        this.flightSound = soundReader.readSound(FLIGHT_SOUND_PATH);
+    public static void declareAssets(AssetManifest manifest) {
+        Vector2 avatarSize = Vector2.ONES.mult(AVATAR_SIZE);
+        manifest.addSpriteAnimation(MODEL_PATH, TIME_BETWEEN_MODEL, avatarSize)
+                .addSpriteAnimation(WALK_PATH, TIME_BETWEEN_WALK, avatarSize)
+                .addSprite(JUMP_PATH, avatarSize).addSprite(FLY_PATH, avatarSize).addSprite(GRAVE_PATH, GRAVE_DIMENSIONS)
+                .addSound(JUMP_SOUND_PATH).addStreamedSound(FLIGHT_SOUND_PATH);
+    }
+
+    /**
+     * allows to set sounds to the avatar and it's weapons.
+     * @param audio the mixer every sound of the avatar and it's weapons is played through
+     */
+    public void setSounds(AudioMixer audio) {
+        this.audio = audio;
     } // end of class setSounds
 
+    /**
+     * allows the avatar's weapons to light up the night.
+     * @param lights the light map
+     */
+    public void setLights(LightMap lights) { this.lights = lights; }
+
     /**
      * sets the layer on which projectiles will be places
      * @param projectileLayer the layer
      */
     public void setProjectileLayer(int projectileLayer) { this.projectileLayer = projectileLayer; }
 
+    /**
+     * sets the layer the grave of the avatar falls in, which collides with the ground.
+     * @param graveLayer the layer
+     */
+    public void setGraveLayer(int graveLayer) { this.graveLayer = graveLayer; }
+
     public void setTerrain(Terrain terrain) { this.terrain = terrain; }
 
+    /**
+     * lets the grave of the avatar sleep once it lands.
+     * @param restingBodies the resting bodies
+     */
+    public void setRestingBodies(RestingBodies restingBodies) { this.restingBodies = restingBodies; }
+
+    /**
+     * times the death of the avatar with the timers of the world, instead of a task on its grave.
+     * @param timers the timers of the world
+     */
+    public void setTimers(TimerWheel timers) { this.timers = timers; }
+
+    /**
+     * removes the objects the avatar's explosions destroy the way the world removes its objects.
+     * @param remover removes an object from the world, returns true if it did
+     */
+    public void setRemover(Predicate<GameObject> remover) { this.remover = remover; }
+
     /**
      * Damages the avatar on certain collisions
      * @param other object hitting
@@ -146,6 +193,11 @@ public class Avatar extends GameObject {
      */
     public boolean isDead() { return isDead; }
 
+    /**
+     * @return number of hit points the avatar has left. At 0 it dies, before the game ends.
+     */
+    public int getHP() { return hpBar.getCurrHP(); }
+
     /**
      * movement left/right/jump/fly logic, and also fire weapons logic.
      * @param deltaTime game time
@@ -185,22 +237,22 @@ public class Avatar extends GameObject {
         // fly
         if (inputListener.isKeyPressed(KeyEvent.VK_SPACE) && inputListener.isKeyPressed(KeyEvent.VK_SHIFT)) {
             if (this.energy > 0) {
-                // play flightSound, only at the start of the flight.
-                if (flightSound != null && !inFlight)
-                    flightSound.playLooped();
+                // loop flight sound, only at the start of the flight.
+                if (audio != null && !inFlight)
+                    audio.loop(FLIGHT_SOUND_PATH, SoundPriority.NORMAL);
                 inFlight = true;
                 this.renderer().setRenderable(this.flyAnimation);
                 transform().setVelocityY(VELOCITY_Y);
                 // energy consumption
-                this.energy -= ENERGY_INCREMENT;
+                this.energy = Math.max(0, energy - ENERGY_PER_SECOND * deltaTime);
             }
         }
         // jump
         if(inputListener.isKeyPressed(KeyEvent.VK_SPACE) && getVelocity().y() == 0) {
             this.renderer().setRenderable(this.jumpAnimation);
             transform().setVelocityY(VELOCITY_Y);
-            if (jumpSound != null)
-                jumpSound.play();
+            if (audio != null)
+                audio.play(JUMP_SOUND_PATH, SoundPriority.LOW);
         }
         // fire a fireball from the character
         if (inputListener.isKeyPressed(KeyEvent.VK_G) && energy >= 10) {
@@ -209,17 +261,17 @@ public class Avatar extends GameObject {
             if (renderer().isFlippedHorizontally())
                 startingLocation = startingLocation.add(PROJECTILE_EXIT_LOCATION);
             Fireball.create(startingLocation, renderer().isFlippedHorizontally(),
-                                gameObjects, projectileLayer, imageReader, soundReader);
+                                gameObjects, projectileLayer, assets, audio, lights, remover);
         }
-        // if stops flying (by energy consumption on stop hitting shift), stop sound.
-        if ((!inputListener.isKeyPressed(KeyEvent.VK_SHIFT) || energy == 0) && flightSound != null) {
-            flightSound.stopAllOccurences();
+        // if stops flying (by energy consumption on stop hitting shift), stop sound. does nothing if not flying.
+        if ((!inputListener.isKeyPressed(KeyEvent.VK_SHIFT) || energy == 0) && audio != null) {
+            audio.stop(FLIGHT_SOUND_PATH);
             inFlight = false;
         }
         // regenerate energy while standing on something.
         if (getVelocity().y() == 0) {
             if (energy < MAX_ENERGY)
-                this.energy += ENERGY_INCREMENT;
+                this.energy = Math.min(MAX_ENERGY, energy + ENERGY_PER_SECOND * deltaTime);
             if (getVelocity().x() == 0)
                 this.renderer().setRenderable(modelAnimation);
         }
@@ -232,17 +284,22 @@ public class Avatar extends GameObject {
         // remove from game
         gameObjects.removeGameObject(this, selfLayer);
         // creates a grave
-        Renderable graveRender = imageReader.readImage(GRAVE_PATH, true);
+        Renderable graveRender = assets.readImage(GRAVE_PATH);
         GameObject grave = new GameObject(this.getTopLeftCorner(), GRAVE_DIMENSIONS, graveRender);
-        gameObjects.addGameObject(grave, Layer.STATIC_OBJECTS);
+        gameObjects.addGameObject(grave, graveLayer);
         grave.transform().setAccelerationY(GRAVITY);
         grave.physics().preventIntersectionsFromDirection(Vector2.ZERO);
+        if (restingBodies != null)
+            restingBodies.add(grave, graveLayer);
         // tell the game avatar is dead after a few seconds for DRAMATIC EFFECT.
-        new ScheduledTask(
-                grave,
-                DEATH_DURATION,
-                false,
-                () -> isDead = true
-        );
+        if (timers != null)
+            timers.schedule(grave, DEATH_DURATION, false, () -> isDead = true);
+        else
+            new ScheduledTask(
+                    grave,
+                    DEATH_DURATION,
+                    false,
+                    () -> isDead = true
+            );
     }
 } // end of class Avatar
@@ -0,0 +1,161 @@
+package pepse.world;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The highest point of the world over ranges of columns of blocks, at every power of two, such as for a minimap:
+ * level 0 holds the top of every column, and every level above holds the highest of two neighbours in the level
+ * under it, so the highest point over 2^level columns is a single lookup. Heights are y in the world, so the
+ * highest is the smallest.
+ * Setting a column updates the levels above it for as long as they change, one entry a level. Columns are kept by
+ * their place in the whole world, in pages of every level, and only around where they are needed: pages are
+ * dropped a span of the top level at a time, so every entry left is the highest of the columns under it.
+ */
+public class HeightPyramid {
+    /**
+     * height of a column that was never set, or was dropped, lower than any other.
+     */
+    public static final int NONE = Integer.MAX_VALUE;
+    // constants
+    private static final int PAGE_BITS = 6;
+    private static final int PAGE = 1 << PAGE_BITS;
+    private static final String STATS_MSG = "HeightPyramid: %d levels, %d pages (%d KB), %d columns set, %d changed";
+    // fields
+    private final List<Map<Long, int[]>> levels = new ArrayList<>();
+    private final int spanBits; // a page of the top level spans 2^spanBits columns
+    private long changedMin = Long.MAX_VALUE;
+    private long changedMax = Long.MIN_VALUE;
+    // counters
+    private long sets = 0;
+    private long changes = 0;
+
+    /**
+     * default c'tor
+     * @param levelCount number of levels, the top one holding the highest point over 2^(levelCount-1) columns
+     */
+    public HeightPyramid(int levelCount) {
+        for (int level = 0; level < levelCount; level++)
+            levels.add(new HashMap<>());
+        this.spanBits = PAGE_BITS + levelCount - 1;
+    }
+
+    /**
+     * sets the top of a column, and the highest points above it.
+     * @param column index of the column in the whole world, its x divided by Block.SIZE
+     * @param top y of the top of the column
+     */
+    public void set(long column, int top) {
+        sets++;
+        if (!put(0, column, top))
+            return;
+        changes++;
+        changedMin = Math.min(changedMin, column);
+        changedMax = Math.max(changedMax, column);
+        for (int level = 1; level < levels.size(); level++) {
+            long index = column >> level;
+            int highest = Math.min(top(level - 1, index << 1), top(level - 1, (index << 1) + 1));
+            if (!put(level, index, highest))
+                return;
+        }
+    }
+
+    /**
+     * sets the top of a column, if it's higher than the top it has, such as for several things over it.
+     * @param column index of the column in the whole world
+     * @param top y of the top of what is over the column
+     */
+    public void raise(long column, int top) {
+        if (top < top(0, column))
+            set(column, top);
+    }
+
+    /**
+     * @param level level of the range, 0 for a single column
+     * @param index index of the range in its level, the index of its first column divided by 2^level
+     * @return y of the highest point over the 2^level columns of the range, or NONE if none of them is set
+     */
+    public int top(int level, long index) {
+        int[] page = levels.get(level).get(index >> PAGE_BITS);
+        return page == null ? NONE : page[(int) (index & PAGE - 1)];
+    }
+
+    /**
+     * @return number of levels
+     */
+    public int levels() { return levels.size(); }
+
+    /**
+     * @param minColumn first column of a range
+     * @param maxColumn last column of the range, exclusive
+     * @return true if a column that may be in the range changed since the changes were last cleared
+     */
+    public boolean changedIn(long minColumn, long maxColumn) {
+        return changedMin < maxColumn && changedMax >= minColumn;
+    }
+
+    /**
+     * forgets the columns that changed, once what they changed was drawn.
+     */
+    public void clearChanges() {
+        changedMin = Long.MAX_VALUE;
+        changedMax = Long.MIN_VALUE;
+    }
+
+    /**
+     * drops the pages of every level outside of the spans of the top level a range touches.
+     * @param minColumn first column of the range
+     * @param maxColumn last column of the range, exclusive
+     */
+    public void retain(long minColumn, long maxColumn) {
+        long first = minColumn >> spanBits, last = (maxColumn - 1) >> spanBits;
+        for (int level = 0; level < levels.size(); level++) {
+            // a page of the level spans 2^(PAGE_BITS + level) columns
+            int shift = spanBits - PAGE_BITS - level;
+            Iterator<Long> pages = levels.get(level).keySet().iterator();
+            while (pages.hasNext()) {
+                long span = pages.next() >> shift;
+                if (span < first || span > last)
+                    pages.remove();
+            }
+        }
+    }
+
+    // sets an entry, with the page holding it, and tells whether it changed
+    private boolean put(int level, long index, int top) {
+        Map<Long, int[]> pages = levels.get(level);
+        int[] page = pages.get(index >> PAGE_BITS);
+        if (page == null) {
+            if (top == NONE)
+                return false;
+            page = new int[PAGE];
+            Arrays.fill(page, NONE);
+            pages.put(index >> PAGE_BITS, page);
+        }
+        int i = (int) (index & PAGE - 1);
+        if (page[i] == top)
+            return false;
+        page[i] = top;
+        return true;
+    }
+
+    /**
+     * @return number of pages held, in every level
+     */
+    public int pages() {
+        int pages = 0;
+        for (Map<Long, int[]> level : levels)
+            pages += level.size();
+        return pages;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(STATS_MSG, levels.size(), pages(), (long) pages() * PAGE * Integer.BYTES / 1024, sets,
+                changes);
+    }
+}
@@ -3,22 +3,27 @@ package pepse.world.NPC;
 import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
 import danogl.collisions.Layer;
-import danogl.gui.ImageReader;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
 import pepse.PepseGameManager;
+import pepse.assets.AssetCache;
 import pepse.hud.HPBar;
+import pepse.hud.Minimap;
 import pepse.world.Avatar;
+import pepse.world.hibernation.Hibernating;
 
 /**
  * Enemy is an AI played character that wants to kill the avatar.
  * An Enemy can be damaged and die (see methods).
+ * Far from the player, an enemy is asleep, and its coarse update is a cheap model of what it does, so it's still
+ * coming when the player meets it.
  */
-public abstract class Enemy extends GameObject{
+public abstract class Enemy extends GameObject implements Hibernating {
     private final Avatar avatar;
     // can be used by child classes.
     protected final GameObjectCollection gameObjects;
     protected final HPBar hpBar;
+    private Minimap minimap = null;
 
     /**
      * creates an Enemy in the game.
@@ -28,13 +33,14 @@ public abstract class Enemy extends GameObject{
      * @param avatar the player character, for AI uses
      * @param hp how much hp the enemy has
      * @param gameObjects game Object collection
+     * @param assets asset cache
      */
     public Enemy(Vector2 topLeftCorner, Vector2 dimensions, Renderable renderable, Avatar avatar, int hp,
-                 GameObjectCollection gameObjects) {
+                 GameObjectCollection gameObjects, AssetCache assets) {
         super(topLeftCorner, dimensions, renderable);
         this.avatar = avatar;
         this.gameObjects = gameObjects;
-        this.hpBar = new HPBar(this, hp, gameObjects);
+        this.hpBar = new HPBar(this, hp, gameObjects, assets);
         gameObjects.addGameObject(hpBar, Layer.UI);
     }
 
@@ -44,6 +50,15 @@ public abstract class Enemy extends GameObject{
      */
     protected Vector2 getAvatarLocation() { return avatar.getCenter(); }
 
+    /**
+     * shows the enemy on the minimap until it dies.
+     * @param minimap the minimap
+     */
+    public void setMinimap(Minimap minimap) {
+        this.minimap = minimap;
+        minimap.addEnemy(this);
+    }
+
     /**
      * method to be called when something damages the enemy. input is number of damage.
      * method reduces enemey's hp accordingly, returns true if damage kills the enemy, false otherwise.
@@ -53,11 +68,18 @@ public abstract class Enemy extends GameObject{
         hpBar.removeHearts(damage);
     }
 
+    /**
+     * removes the HP bar of the enemy, when the enemy is removed from the world without dying.
+     */
+    public void removeHPBar() { hpBar.remove(); }
+
     /**
      * kills the enemy. keeps track of score (number of enemies killed), and how many enemies are alive.
      */
     public void die() {
         gameObjects.removeGameObject(hpBar, Layer.UI);
+        if (minimap != null)
+            minimap.removeEnemy(this);
         PepseGameManager.score.increment();
         PepseGameManager.numOfEnemiesAlive.decrement();
     }
@@ -1,9 +1,13 @@
 package pepse.world.NPC;
 
 import danogl.collisions.GameObjectCollection;
-import danogl.gui.ImageReader;
+import danogl.collisions.Layer;
+import pepse.assets.AssetCache;
+import pepse.hud.Minimap;
 import pepse.world.Avatar;
+import pepse.util.TimerWheel;
 import pepse.world.Terrain;
+import pepse.world.physics.RestingBodies;
 
 import java.util.Random;
 
@@ -17,45 +21,79 @@ public class NPCFactory {
     private final Random rand;
     private final Avatar avatar;
     private final GameObjectCollection gameObjects;
-    private final ImageReader imageReader;
+    private final AssetCache assets;
     private final int enemiesLayer;
     private final Terrain terrain;
     private final String enemyTag;
+    private int remainsLayer = Layer.STATIC_OBJECTS;
+    private RestingBodies restingBodies = null;
+    private TimerWheel timers = null;
+    private Minimap minimap = null;
 
     /**
      * default c'tor
      * @param seed main random seed of the world
      * @param avatar the avatar, for enemy AI
      * @param gameObjects game object collection
-     * @param imageReader Image Reader
+     * @param assets asset cache
      * @param enemiesLayer layer to place enemies on
      * @param terrain terrain to calculate groundHeight
      * @param enemyTag Enemies tag
      */
-    public NPCFactory (int seed, Avatar avatar, GameObjectCollection gameObjects, ImageReader imageReader,
+    public NPCFactory (int seed, Avatar avatar, GameObjectCollection gameObjects, AssetCache assets,
                        int enemiesLayer, Terrain terrain, String enemyTag) {
         this.rand = new Random(seed);
         this.avatar = avatar;
         this.gameObjects = gameObjects;
-        this.imageReader = imageReader;
+        this.assets = assets;
         this.enemiesLayer = enemiesLayer;
         this.terrain = terrain;
         this.enemyTag = enemyTag;
     }
 
+    /**
+     * sets the layer the remains of the enemies fall in, which collides with the ground.
+     * @param remainsLayer the layer
+     */
+    public void setRemainsLayer(int remainsLayer) { this.remainsLayer = remainsLayer; }
+
+    /**
+     * lets the remains of the enemies sleep once they land.
+     * @param restingBodies the resting bodies
+     */
+    public void setRestingBodies(RestingBodies restingBodies) { this.restingBodies = restingBodies; }
+
+    /**
+     * times the remains of the enemies with the timers of the world.
+     * @param timers the timers of the world
+     */
+    public void setTimers(TimerWheel timers) { this.timers = timers; }
+
+    /**
+     * shows the enemies created from now on on the minimap.
+     * @param minimap the minimap
+     */
+    public void setMinimap(Minimap minimap) { this.minimap = minimap; }
+
     /**
      * method creates a random enemy and puts it in xLocation
      * @param xLocation location to place enemy
      * @return created Enemy
      */
     public Enemy createEnemy(float xLocation) {
+        Enemy enemy;
         // modular, to support adding more types of enemies later. currently, only 1.
         switch (rand.nextInt(NUM_OF_TYPES)) {
             // create skeleton
             case 0:
-                return Skeleton.create(xLocation, avatar, gameObjects, imageReader, terrain, enemiesLayer, enemyTag);
+                enemy = Skeleton.create(xLocation, avatar, gameObjects, assets, terrain, enemiesLayer, enemyTag,
+                        remainsLayer, restingBodies, timers);
+                break;
             default:
                 return null;
         }
+        if (minimap != null)
+            enemy.setMinimap(minimap);
+        return enemy;
     }
 }
@@ -4,12 +4,13 @@ import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
 import danogl.collisions.Layer;
 import danogl.components.ScheduledTask;
-import danogl.gui.ImageReader;
-import danogl.gui.rendering.AnimationRenderable;
-import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.assets.AssetCache;
+import pepse.assets.AssetManifest;
 import pepse.world.Avatar;
+import pepse.util.TimerWheel;
 import pepse.world.Terrain;
+import pepse.world.physics.RestingBodies;
 
 public class Skeleton extends Enemy {
     // constants
@@ -24,12 +25,13 @@ public class Skeleton extends Enemy {
     private static final String[] SKELETON_WALK = {"src/assets/skeletonWalk1.png", "src/assets/skeletonWalk2.png"};
     private static final double TIME_BETWEEN_WALK = 0.1;
     private static final String SKELETON_DEAD = "src/assets/skeletonDead.png";
-    // static fields
-    private static Renderable remainsAnimation;
-    private static Renderable walkAnimation;
     // fields
+    private final AssetCache assets;
     private final Terrain terrain;
     private final int layer;
+    private int remainsLayer = Layer.STATIC_OBJECTS;
+    private RestingBodies restingBodies = null;
+    private TimerWheel timers = null;
 
     /**
      * creates an Enemy in the game, of type Skeleton, melee damage enemy.
@@ -37,10 +39,13 @@ public class Skeleton extends Enemy {
      * @param avatar           the player character, for AI uses
      * @param gameObjects      game Object collection
      * @param terrain          terrain in the game, calculate if needs to jump
+     * @param assets           asset cache
      */
     public Skeleton(Vector2 topLeftCorner, Avatar avatar,
-                    GameObjectCollection gameObjects, Terrain terrain, int layer) {
-        super(topLeftCorner, Vector2.ONES.mult(SKELETON_SIZE), walkAnimation, avatar, SKELETON_HP, gameObjects);
+                    GameObjectCollection gameObjects, Terrain terrain, int layer, AssetCache assets) {
+        super(topLeftCorner, Vector2.ONES.mult(SKELETON_SIZE), assets.readAnimation(SKELETON_WALK, TIME_BETWEEN_WALK),
+                avatar, SKELETON_HP, gameObjects, assets);
+        this.assets = assets;
         this.terrain = terrain;
         this.layer = layer;
         // add gravity, collide with ground.
@@ -53,32 +58,38 @@ public class Skeleton extends Enemy {
      * @param xLocation location to place skeleton at
      * @param avatar avatar to follow
      * @param gameObjects Collection
-     * @param imageReader ImageReader
+     * @param assets asset cache
      * @param terrain terrain to calculate terrain height
      * @param layer layer to place skeleton at
      * @param tag enemy tag
+     * @param remainsLayer layer the bones fall in, colliding with the ground
+     * @param restingBodies lets the bones sleep once they land, may be null.
+     * @param timers times the removal of the bones, may be null for a task on the bones.
      * @return the skeleton
      */
     public static Enemy create(float xLocation, Avatar avatar, GameObjectCollection gameObjects,
-                              ImageReader imageReader, Terrain terrain, int layer, String tag) {
+                              AssetCache assets, Terrain terrain, int layer, String tag,
+                              int remainsLayer, RestingBodies restingBodies, TimerWheel timers) {
 
         // create skeleton
         Skeleton skeleton = new Skeleton(new Vector2(xLocation, avatar.getCenter().y() - 200), avatar, gameObjects,
-                terrain, layer);
+                terrain, layer, assets);
         gameObjects.addGameObject(skeleton, layer);
         skeleton.setTag(tag);
+        skeleton.remainsLayer = remainsLayer;
+        skeleton.restingBodies = restingBodies;
+        skeleton.timers = timers;
         // initialize health
         return skeleton;
     }
 
     /**
-     * initialize assets
-     * @param imageReader read images
+     * declare the assets of the skeleton, so they are loaded at startup.
+     * @param manifest the asset manifest
      */
-    public static void initAssets(ImageReader imageReader) {
-        // read images for the animations
-        walkAnimation = new AnimationRenderable(SKELETON_WALK, imageReader, true, TIME_BETWEEN_WALK);
-        remainsAnimation = imageReader.readImage(SKELETON_DEAD, true);
+    public static void declareAssets(AssetManifest manifest) {
+        manifest.addSpriteAnimation(SKELETON_WALK, TIME_BETWEEN_WALK, Vector2.ONES.mult(SKELETON_SIZE))
+                .addSprite(SKELETON_DEAD, BONES_DIMENSIONS);
     }
 
     /**
@@ -126,6 +137,34 @@ public class Skeleton extends Enemy {
         transform().setVelocityX(xVel);
     }
 
+    /**
+     * the skeleton falls asleep standing still, and wakes where its coarse update left it, on the ground.
+     */
+    @Override
+    public void hibernate() {
+        transform().setVelocity(Vector2.ZERO);
+    }
+
+    /**
+     * Skeleton coarse AI: walk toward the avatar along the top of the terrain, without jumping or falling.
+     * @param deltaTime game time
+     */
+    @Override
+    public void coarseUpdate(float deltaTime) {
+        // an explosion can still hit a skeleton asleep
+        if (hpBar.getCurrHP() == 0) {
+            die();
+            return;
+        }
+        float direction = getAvatarLocation().x() > this.getCenter().x() ? 1 : -1;
+        float left = getTopLeftCorner().x() + direction * VELOCITY_X * deltaTime;
+        // stand on the highest ground under the skeleton
+        float groundHeight = Math.min(terrain.groundHeightAt(left + getDimensions().x() / 2),
+                Math.min(terrain.groundHeightAt(left), terrain.groundHeightAt(left + getDimensions().x())));
+        setTopLeftCorner(new Vector2(left, (float) Math.floor(groundHeight) - getDimensions().y()));
+        renderer().setIsFlippedHorizontally(direction < 0);
+    }
+
     /**
      * Method deletes the skeleton from the game, and creates a "dead skeleton" object instead, which will
      * live for a certain number of time.
@@ -134,16 +173,20 @@ public class Skeleton extends Enemy {
         super.die();
         gameObjects.removeGameObject(this, layer);
         // create skeleton remains
-        GameObject bones = new GameObject(this.getCenter(), BONES_DIMENSIONS, remainsAnimation);
-        gameObjects.addGameObject(bones, Layer.STATIC_OBJECTS);
+        GameObject bones = new GameObject(this.getCenter(), BONES_DIMENSIONS, assets.readImage(SKELETON_DEAD));
+        gameObjects.addGameObject(bones, remainsLayer);
         bones.transform().setAccelerationY(GRAVITY);
         bones.physics().preventIntersectionsFromDirection(Vector2.ZERO);
-        // delete bones after BONES_DURATION seconds.
-        new ScheduledTask(
-                bones,
-                BONES_DURATION,
-                false,
-                () -> gameObjects.removeGameObject(bones, Layer.STATIC_OBJECTS)
-        );
+        if (restingBodies != null)
+            restingBodies.add(bones, remainsLayer);
+        // delete bones after BONES_DURATION seconds, from whichever layer they rest in.
+        Runnable removeBones = () -> {
+            if (restingBodies == null || !restingBodies.remove(bones))
+                gameObjects.removeGameObject(bones, remainsLayer);
+        };
+        if (timers != null)
+            timers.schedule(bones, BONES_DURATION, false, removeBones);
+        else
+            new ScheduledTask(bones, BONES_DURATION, false, removeBones);
     }
 }
@@ -4,13 +4,16 @@ import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
 import danogl.components.CoordinateSpace;
 import danogl.gui.rendering.RectangleRenderable;
+import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.world.daynight.DayNightCycle;
 
 import java.awt.*;
 
 public class Sky {
 
     private static final Color BASIC_SKY_COLOR = Color.decode("#80C6E5");
+    private static final Color MIDNIGHT_SKY_COLOR = Color.decode("#1B2A4A");
     private static String skyTag = "sky";
 
     /**
@@ -18,15 +21,31 @@ public class Sky {
      * @param gameObjects The collection of all participating game objects.
      * @param windowDimensions The number of the layer to which the created game object should be added.
      * @param skyLayer The number of the layer to which the created sky should be added.
+     * @param dayNightCycle The clock of the day, which changes the colour of the sky.
      * @return A new game object representing the sky.
      */
-    public static GameObject create(GameObjectCollection gameObjects, Vector2 windowDimensions, int skyLayer){
+    public static GameObject create(GameObjectCollection gameObjects, Vector2 windowDimensions, int skyLayer,
+                                    DayNightCycle dayNightCycle){
         GameObject sky = new GameObject(
                 Vector2.ZERO, windowDimensions,
                 new RectangleRenderable(BASIC_SKY_COLOR));
         sky.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
         gameObjects.addGameObject(sky, skyLayer);
         sky.setTag(skyTag);
+        // the colour of the sky at every sample of the day, from the basic colour at noon to dark blue at midnight
+        Renderable[] colors = new Renderable[DayNightCycle.SAMPLES];
+        float[] darkness = DayNightCycle.table(DayNightCycle::darknessAt);
+        for (int i = 0; i < colors.length; i++)
+            colors[i] = new RectangleRenderable(blend(BASIC_SKY_COLOR, MIDNIGHT_SKY_COLOR, darkness[i]));
+        dayNightCycle.paint(sky, colors);
         return sky;
     } // end of method create
+
+    // the color between from and to, at ratio between 0 (from) and 1 (to)
+    private static Color blend(Color from, Color to, float ratio) {
+        return new Color(
+                Math.round(from.getRed() + (to.getRed() - from.getRed()) * ratio),
+                Math.round(from.getGreen() + (to.getGreen() - from.getGreen()) * ratio),
+                Math.round(from.getBlue() + (to.getBlue() - from.getBlue()) * ratio));
+    }
 } // end of class Sky
@@ -2,24 +2,52 @@ package pepse.world;
 
 import danogl.collisions.GameObjectCollection;
 import danogl.gui.rendering.RectangleRenderable;
-import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.rendering.ImpostorCache;
+import pepse.rendering.ImpostorPainter;
+import pepse.rendering.TerrainRenderCache;
 import pepse.util.ColorSupplier;
+import pepse.util.JobPriority;
+import pepse.world.generation.ChunkDescriptor;
+import pepse.world.generation.ChunkGenerator;
+import pepse.world.generation.GenerationContext;
+import pepse.world.streaming.ChunkCache;
+import pepse.world.streaming.FloatingOrigin;
 
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.Random;
 
-public class Terrain {
+public class Terrain implements ChunkGenerator, ImpostorPainter {
     // colour
     private static final Color BASE_GROUND_COLOR = new Color(212, 123, 74);
     //constants
     private static final float TWO_THIRDS = 2/3f;
-    private static final int CREATE_IN_RANGE_SIZE = 2;
-    private static final int TERRAIN_DEPTH = 20;
+    /**
+     * number of blocks at the top of a column that things collide with. The blocks under them are only drawn.
+     */
+    public static final int COLLIDABLE_DEPTH = 2;
+    /**
+     * number of blocks at the top of a column whose colours are remembered. The ground goes down without end
+     * under them, and is created in the rows of tiles around the camera.
+     */
+    public static final int TERRAIN_DEPTH = 20;
+    /**
+     * height of a row of tiles the ground is created and removed in, in pixels.
+     */
+    public static final int TILE_HEIGHT = 10 * Block.SIZE;
     private static final int ANGLE = 5;
     private static final int PERLIN_NOISE = 3;
     private static final int PERLIN_NOISE_DEPTH = 2;
     // subtract from groundLayer
     private static final int LOWER_GROUND_LAYER = -10;
+    private static final int PALETTE_SIZE = 64; // ground colours to pick from
+    private static final int NO_ROWS = Integer.MAX_VALUE;
+    private static final int GROUND_COLOR_DELTA = 10;
+    // caves
+    private static final float CAVE_SCALE = Block.SIZE / 4f; // pixels to a unit of the noise
+    private static final double CAVE_THRESHOLD = 0.3; // about one block in seven is in a cave
+    private static final int CAVE_MIN_DEPTH = 4; // blocks under the surface without caves, under COLLIDABLE_DEPTH
     // tags
     private static final String groundTag =  "ground";
     private static final String lowerGroundTag = "lower ground";
@@ -29,6 +57,14 @@ public class Terrain {
     private int lowerGroundLayer;
     private static float groundHeightAtX0;
     private final PerlinNoise perlinNoise;
+    private TerrainRenderCache renderCache = null;
+    private ChunkCache chunkCache = null;
+    private FloatingOrigin origin = null;
+    private HeightPyramid heightPyramid = null;
+    private final Color[] palette = new Color[PALETTE_SIZE];
+    // the columns generated whose blocks are still being created, so rows removed meanwhile aren't created
+    private final ArrayList<Columns> unfinished = new ArrayList<>();
+    private final int seed;
     /**
      * Constructs a terrain
      * @param gameObjects The collection of all participating game objects.
@@ -42,10 +78,16 @@ public class Terrain {
         Terrain.groundHeightAtX0 = windowDimensions.y() * TWO_THIRDS;
         perlinNoise = new PerlinNoise();
         perlinNoise.setSeed(seed);
+        this.seed = seed;
+        // the colour of a block is one of a palette, so it's remembered in a byte
+        Random random = new Random(seed);
+        // and the palette is the same for the same seed, so the indices can be written ahead of the game
+        for (int i = 0; i < PALETTE_SIZE; i++)
+            palette[i] = ColorSupplier.approximateColor(BASE_GROUND_COLOR, GROUND_COLOR_DELTA, random);
     } // end of constructor
 
     /**
-     * creates terrain in given range
+     * creates terrain in given range, the top TERRAIN_DEPTH blocks of every column
      * @param minX The lower bound of the given range (will be rounded to a multiple of Block.SIZE).
      * @param maxX The upper bound of the given range (will be rounded to a multiple of Block.SIZE).
      */
@@ -55,21 +97,246 @@ public class Terrain {
             minX = maxX;
             maxX = temp;
         } // end of if
-        for (int i = ((minX / Block.SIZE) * Block.SIZE); i < maxX; i += Block.SIZE){
+        minX = (minX / Block.SIZE) * Block.SIZE;
+        generate(minX, maxX, new GenerationContext(seed, minX, maxX, chunkCache, null, null)).apply();
+    } // end of method createInRange
+
+    /**
+     * decides the height of the ground, and the colours of its blocks, in a range. A column created before is
+     * created again as it was.
+     * @param minX left of the range, a multiple of Block.SIZE
+     * @param maxX right of the range, exclusive
+     * @param context the seed of the world, and what generating the range may use. Only the blocks in its rows
+     *                are created, or the top TERRAIN_DEPTH blocks of every column if it has no rows.
+     * @return the columns of the range, created a column at a step
+     */
+    @Override
+    public ChunkDescriptor generate(int minX, int maxX, GenerationContext context) {
+        int count = Math.max(0, (maxX - minX + Block.SIZE - 1) / Block.SIZE);
+        Columns columns = new Columns(minX, count, context.minY(), context.hasRows() ? context.maxY() : NO_ROWS);
+        if (count > 0)
+            unfinished.add(columns);
+        for (int c = 0; c < count; c++) {
+            int i = minX + c * Block.SIZE;
+            ChunkCache.Chunk chunk = context.chunkAt(i);
+            boolean remembered = chunk != null && chunk.hasColumn(i);
+            columns.heights[c] = remembered ? chunk.height(i) : (int) groundHeightAt(i);
             for (int j = 0; j < TERRAIN_DEPTH; j++) {
-                Renderable ground = new RectangleRenderable(ColorSupplier.approximateColor(BASE_GROUND_COLOR));
-                Block block = new Block(new Vector2(i, groundHeightAt(i) + j*Block.SIZE), ground);
-                if (j < CREATE_IN_RANGE_SIZE) {
-                    gameObjects.addGameObject(block, groundLayer); // adds to gameObjects
-                    block.setTag(groundTag);  // sets tag
-                } // end of if
-                else {
-                    gameObjects.addGameObject(block, lowerGroundLayer); // adds to gameObjects
-                    block.setTag(lowerGroundTag); // adds to gameObjects
-                } // end of else
+                int colorIndex = remembered ? chunk.colorIndex(i, j) : context.random().nextInt(PALETTE_SIZE);
+                columns.colorIndices[c][j] = (byte) colorIndex;
             } // end of inner for loop
+            if (chunk != null && !remembered)
+                chunk.setColumn(i, columns.heights[c], columns.colorIndices[c]);
         } // end of outer for loop
-    } // end of method createInRange
+        return columns;
+    } // end of method generate
+
+    /**
+     * @return true, the ground is created in the rows it's given
+     */
+    @Override
+    public boolean fillsRows() { return true; }
+
+    // the columns of a range, and the rows they're created in. The rows shrink when rows of the world are removed
+    // before every column is created.
+    private class Columns implements ChunkDescriptor {
+        private final int minX;
+        private int minY;
+        private int maxY;
+        private final int[] heights;
+        private final byte[][] colorIndices;
+        private int next = 0;
+
+        Columns(int minX, int count, int minY, int maxY) {
+            this.minX = minX;
+            this.minY = minY;
+            this.maxY = maxY;
+            this.heights = new int[count];
+            this.colorIndices = new byte[count][TERRAIN_DEPTH];
+        }
+
+        @Override
+        public JobPriority priority() { return JobPriority.GROUND; }
+
+        @Override
+        public boolean step() {
+            if (next < heights.length) {
+                int x = minX + next * Block.SIZE;
+                createColumn(x, heights[next], colorIndices[next], minY,
+                        maxY == NO_ROWS ? heights[next] + TERRAIN_DEPTH * Block.SIZE : maxY);
+                if (heightPyramid != null)
+                    heightPyramid.set(columnOf(x), heights[next]);
+                next++;
+                if (next == heights.length)
+                    unfinished.remove(this);
+            }
+            return next >= heights.length;
+        }
+    } // end of class Columns
+
+    // creates the blocks of a column in a range of rows. Under the remembered blocks, the colour of a block is
+    // picked by its place, and the caves are left empty.
+    private void createColumn(int x, int height, byte[] colorIndices, int minY, int maxY) {
+        int first = minY <= height ? 0 : (minY - height + Block.SIZE - 1) / Block.SIZE;
+        for (int j = first; height + j*Block.SIZE < maxY; j++) {
+            int y = height + j*Block.SIZE;
+            if (j >= CAVE_MIN_DEPTH && isCave(x, y))
+                continue; // no block, and no pixel in the cache
+            Color color = palette[j < TERRAIN_DEPTH ? colorIndices[j] & 0xFF : deepColorIndex(x, y)];
+            Vector2 topLeftCorner = new Vector2(x, y);
+            if (renderCache != null) {
+                // the block is drawn by the cache. Only the blocks things collide with are game objects.
+                renderCache.paintBlock(topLeftCorner, color);
+                if (j < COLLIDABLE_DEPTH) {
+                    Block block = new Block(topLeftCorner, null);
+                    gameObjects.addGameObject(block, groundLayer);
+                    block.setTag(groundTag);
+                }
+                continue;
+            } // end of if
+            Block block = new Block(topLeftCorner, new RectangleRenderable(color));
+            if (j < COLLIDABLE_DEPTH) {
+                gameObjects.addGameObject(block, groundLayer); // adds to gameObjects
+                block.setTag(groundTag);  // sets tag
+            } // end of if
+            else {
+                gameObjects.addGameObject(block, lowerGroundLayer); // adds to gameObjects
+                block.setTag(lowerGroundTag); // adds to gameObjects
+            } // end of else
+        } // end of for loop
+    } // end of private method createColumn
+
+    /**
+     * tells whether a place deep under the ground is in a cave, from 2D noise. A cave has no block.
+     * @param x x of the block in the world
+     * @param y y of the block in the world
+     * @return true if the place is in a cave
+     */
+    public boolean isCave(int x, int y) {
+        return perlinNoise.noise(worldX(x) / CAVE_SCALE, y / CAVE_SCALE) > CAVE_THRESHOLD;
+    } // end of method isCave
+
+    /**
+     * paints the blocks of a tile into its impostor, as they would be created, in the colours they would have.
+     * @param minX left of the tile
+     * @param minY top of the tile
+     * @param originX x of the origin of the world, as the terrain samples it by its own origin
+     * @param pixels the pixels of the impostor
+     */
+    @Override
+    public void paintImpostor(int minX, int minY, long originX, int[] pixels) {
+        for (int c = 0; c < ImpostorCache.COLUMNS; c++) {
+            int x = minX + c * Block.SIZE;
+            ChunkCache.Chunk chunk = chunkCache == null ? null : chunkCache.chunkAt(x);
+            boolean remembered = chunk != null && chunk.hasColumn(x);
+            int height = remembered ? chunk.height(x) : (int) groundHeightAt(x);
+            for (int r = 0; r < ImpostorCache.ROWS; r++) {
+                int y = minY + r * Block.SIZE;
+                if (y < height)
+                    continue; // air
+                int j = (y - height) / Block.SIZE;
+                if (j >= CAVE_MIN_DEPTH && isCave(x, y))
+                    continue; // cave
+                Color color = palette[remembered && j < TERRAIN_DEPTH ? chunk.colorIndex(x, j) : deepColorIndex(x, y)];
+                pixels[r * ImpostorCache.COLUMNS + c] = color.getRGB();
+            } // end of inner for loop
+        } // end of outer for loop
+    } // end of method paintImpostor
+
+    // index of the colour of a block under the remembered ones, the same for the same place
+    private int deepColorIndex(int x, int y) {
+        int hash = Long.hashCode(origin == null ? x : origin.worldX(x)) * 73856093 ^ y * 19349663 ^ seed * 83492791;
+        return Math.floorMod(hash ^ hash >>> 16, PALETTE_SIZE);
+    } // end of private method deepColorIndex
+
+    /**
+     * generates the columns of a range into a chunk without creating them, such as for a chunk written ahead of
+     * the game. Safe to call from several threads at once, with a chunk and a random generator each.
+     * @param chunk the chunk holding the range
+     * @param minX The lower bound of the range, a multiple of Block.SIZE.
+     * @param maxX The upper bound of the range.
+     * @param random picks the colours of the blocks
+     */
+    public void generateInRange(ChunkCache.Chunk chunk, int minX, int maxX, Random random) {
+        for (int i = minX; i < maxX; i += Block.SIZE) {
+            byte[] colorIndices = new byte[TERRAIN_DEPTH];
+            for (int j = 0; j < TERRAIN_DEPTH; j++)
+                colorIndices[j] = (byte) random.nextInt(PALETTE_SIZE);
+            chunk.setColumn(i, (int) groundHeightAt(i), colorIndices);
+        } // end of for loop
+    } // end of method generateInRange
+
+    /**
+     * draws the terrain created from now on through a render cache, instead of block by block.
+     * @param renderCache the cache
+     */
+    public void setRenderCache(TerrainRenderCache renderCache) { this.renderCache = renderCache; }
+
+    /**
+     * remembers the columns created, so a column created again is as it was.
+     * @param chunkCache the chunks of the world
+     */
+    public void setChunkCache(ChunkCache chunkCache) { this.chunkCache = chunkCache; }
+
+    /**
+     * samples the ground by the place in the whole world, measured from a floating origin, so it stays the same
+     * when the origin moves.
+     * @param origin the origin of the world
+     */
+    public void setOrigin(FloatingOrigin origin) { this.origin = origin; }
+
+    /**
+     * keeps the top of every column created in a height pyramid, such as for the minimap.
+     * @param heightPyramid the pyramid of the heights of the ground
+     */
+    public void setHeightPyramid(HeightPyramid heightPyramid) { this.heightPyramid = heightPyramid; }
+
+    /**
+     * moves what the terrain holds with the world, when the origin of the world moved. The blocks themselves are
+     * moved by the game.
+     * @param shiftX how far along x the origin moved
+     */
+    public void rebase(int shiftX) {
+        if (renderCache != null)
+            renderCache.rebase(shiftX);
+    } // end of method rebase
+
+    /**
+     * frees what the terrain holds outside of the range the world reaches. The blocks themselves are removed by
+     * the game.
+     * @param minX left of the range
+     * @param maxX right of the range
+     */
+    public void retainRange(int minX, int maxX) {
+        if (renderCache != null)
+            renderCache.retain(minX, maxX);
+    } // end of method retainRange
+
+    /**
+     * frees all the terrain holds, when the whole world is removed at once. The blocks themselves are removed by
+     * the game.
+     */
+    public void clear() {
+        unfinished.clear();
+        if (renderCache != null)
+            renderCache.clear();
+    } // end of method clear
+
+    /**
+     * frees what the terrain holds outside of the rows the world reaches, and keeps the columns still being created
+     * from creating blocks outside of them. The blocks themselves are removed by the game.
+     * @param minY top of the rows
+     * @param maxY bottom of the rows
+     */
+    public void retainRows(int minY, int maxY) {
+        for (Columns columns : unfinished) {
+            columns.minY = Math.max(columns.minY, minY);
+            if (columns.maxY != NO_ROWS)
+                columns.maxY = Math.min(columns.maxY, maxY);
+        } // end of for loop
+        if (renderCache != null)
+            renderCache.retainRows(minY, maxY);
+    } // end of method retainRows
 
     /**
      * This method return the ground height at a given location.
@@ -77,9 +344,20 @@ public class Terrain {
      * @return The ground height at the given location
      */
     public float groundHeightAt(float x){
-        float perlin = PERLIN_NOISE_DEPTH * (int)(((float)(PERLIN_NOISE *  perlinNoise.noise(x) * Block.SIZE) )/Block.SIZE) * Block.SIZE;
-        float similarToSin = (float)((Math.sin(x/ANGLE) * Block.SIZE)/Block.SIZE) * Block.SIZE;
+        double worldX = worldX(x); // in double, as the whole world is too wide for a float
+        float perlin = PERLIN_NOISE_DEPTH * (int)(((float)(PERLIN_NOISE *  perlinNoise.noise(worldX) * Block.SIZE) )/Block.SIZE) * Block.SIZE;
+        float similarToSin = (float)((Math.sin(worldX/ANGLE) * Block.SIZE)/Block.SIZE) * Block.SIZE;
         return (int)((this.groundHeightAtX0 + perlin + similarToSin)/Block.SIZE) * Block.SIZE;
     } // end of method groundHeightAt
 
+    // x in the whole world of an x measured from the origin
+    private double worldX(float x) {
+        return origin == null ? x : origin.offsetX() + (double) x;
+    } // end of private method worldX
+
+    // index in the whole world of the column holding an x measured from the origin
+    private long columnOf(float x) {
+        return Math.floorDiv((long) Math.floor(worldX(x)), Block.SIZE);
+    } // end of private method columnOf
+
 } // end of class Terrain
@@ -0,0 +1,155 @@
+package pepse.world.background;
+
+import danogl.collisions.GameObjectCollection;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+import pepse.world.PerlinNoise;
+
+import java.awt.Color;
+
+/**
+ * The background between the sky and the world: a layer of clouds and two ranges of hills, painted from Perlin
+ * noise. The further a strip is, the slower it scrolls.
+ */
+public class Background {
+    // strips
+    private static final int TILE_WIDTH = 256;
+    private static final float CLOUDS_SCROLL = 0.05f;
+    private static final float FAR_HILLS_SCROLL = 0.15f;
+    private static final float NEAR_HILLS_SCROLL = 0.35f;
+    // clouds, as fractions of the window height
+    private static final float CLOUDS_TOP = 0;
+    private static final float CLOUDS_HEIGHT = 0.4f;
+    private static final int CLOUD_CELL = 4; // noise is sampled every few pixels and interpolated in between
+    private static final double CLOUD_SCALE = 2; // in cells per unit of noise
+    private static final double CLOUD_COVER = 0.15; // noise below this is clear sky
+    private static final double CLOUD_SOFTNESS = 0.35;
+    private static final int CLOUD_MAX_ALPHA = 220;
+    // hills, as fractions of the window height
+    private static final float FAR_HILLS_TOP = 0.3f;
+    private static final float NEAR_HILLS_TOP = 0.4f;
+    private static final float HILLS_HEIGHT = 0.6f;
+    private static final float FAR_HILLS_AMPLITUDE = 0.35f; // of the strip height
+    private static final float NEAR_HILLS_AMPLITUDE = 0.25f;
+    private static final double FAR_HILLS_WAVELENGTH = 16; // in pixels per unit of noise
+    private static final double NEAR_HILLS_WAVELENGTH = 10;
+    // colours
+    private static final Color FAR_HILLS_TOP_COLOR = new Color(120, 160, 185);
+    private static final Color FAR_HILLS_BOTTOM_COLOR = new Color(95, 135, 160);
+    private static final Color NEAR_HILLS_TOP_COLOR = new Color(96, 150, 100);
+    private static final Color NEAR_HILLS_BOTTOM_COLOR = new Color(62, 112, 70);
+    // seeds of the strips, added to the seed of the game
+    private static final int CLOUDS_SEED = 1;
+    private static final int FAR_HILLS_SEED = 2;
+    private static final int NEAR_HILLS_SEED = 3;
+    // tags
+    private static final String CLOUDS_TAG = "clouds";
+    private static final String HILLS_TAG = "hills";
+
+    /**
+     * creates the clouds and hills, and adds them to the game, from the furthest to the nearest.
+     * @param gameObjects collection
+     * @param layer layer of the clouds. The far hills are at layer + 1, and the near hills at layer + 2.
+     * @param windowDimensions dimensions of the screen
+     * @param camera camera, to find where the screen is in the world
+     * @param seed seed of the game
+     * @return the strips, from the furthest to the nearest
+     */
+    public static ParallaxStrip[] create(GameObjectCollection gameObjects, int layer, Vector2 windowDimensions,
+                                         Camera camera, int seed) {
+        float height = windowDimensions.y();
+        int cloudsHeight = (int) (height * CLOUDS_HEIGHT) / CLOUD_CELL * CLOUD_CELL;
+        int hillsHeight = (int) (height * HILLS_HEIGHT);
+        ParallaxStrip clouds = new ParallaxStrip(windowDimensions, camera, CLOUDS_SCROLL, TILE_WIDTH,
+                cloudsHeight, height * CLOUDS_TOP, null, clouds(new PerlinNoise(seed + CLOUDS_SEED)));
+        ParallaxStrip farHills = new ParallaxStrip(windowDimensions, camera, FAR_HILLS_SCROLL, TILE_WIDTH,
+                hillsHeight, height * FAR_HILLS_TOP, FAR_HILLS_BOTTOM_COLOR,
+                hills(new PerlinNoise(seed + FAR_HILLS_SEED), FAR_HILLS_WAVELENGTH, FAR_HILLS_AMPLITUDE,
+                        FAR_HILLS_TOP_COLOR, FAR_HILLS_BOTTOM_COLOR));
+        ParallaxStrip nearHills = new ParallaxStrip(windowDimensions, camera, NEAR_HILLS_SCROLL, TILE_WIDTH,
+                hillsHeight, height * NEAR_HILLS_TOP, NEAR_HILLS_BOTTOM_COLOR,
+                hills(new PerlinNoise(seed + NEAR_HILLS_SEED), NEAR_HILLS_WAVELENGTH, NEAR_HILLS_AMPLITUDE,
+                        NEAR_HILLS_TOP_COLOR, NEAR_HILLS_BOTTOM_COLOR));
+        clouds.setTag(CLOUDS_TAG);
+        farHills.setTag(HILLS_TAG);
+        nearHills.setTag(HILLS_TAG);
+        gameObjects.addGameObject(clouds, layer);
+        gameObjects.addGameObject(farHills, layer + 1);
+        gameObjects.addGameObject(nearHills, layer + 2);
+        return new ParallaxStrip[] {clouds, farHills, nearHills};
+    } // end of method create
+
+    /**
+     * hills, whose top follows the noise, shaded from one colour at the top of the strip to another at the bottom.
+     * @param noise noise of the height of the hills
+     * @param wavelength pixels per unit of noise, the larger the wider the hills
+     * @param amplitude how high the hills rise and fall, as a fraction of the strip height
+     * @param topColor colour at the top of the strip
+     * @param bottomColor colour at the bottom of the strip
+     * @return painter of the tiles
+     */
+    public static ParallaxStrip.TilePainter hills(PerlinNoise noise, double wavelength, float amplitude,
+                                                  Color topColor, Color bottomColor) {
+        return (pixels, width, height, stripX) -> {
+            int[] shade = new int[height];
+            for (int y = 0; y < height; y++)
+                shade[y] = blend(topColor, bottomColor, (float) y / height);
+            int middle = height / 3;
+            for (int x = 0; x < width; x++) {
+                int hillTop = (int) (middle + amplitude * height * noise.noise((stripX + x) / wavelength));
+                for (int y = Math.max(0, hillTop); y < height; y++)
+                    pixels[y * width + x] = shade[y];
+            }
+        };
+    }
+
+    /**
+     * white clouds where the noise is above the cloud cover, thinning out towards the top and bottom of the strip.
+     * The noise is sampled on a grid of cells and interpolated in between, since painting a tile pixel by pixel
+     * would take too long to do while playing.
+     * @param noise noise of the density of the clouds
+     * @return painter of the tiles
+     */
+    public static ParallaxStrip.TilePainter clouds(PerlinNoise noise) {
+        return (pixels, width, height, stripX) -> {
+            // one more cell on each axis, so the last pixels interpolate towards the next tile.
+            int columns = width / CLOUD_CELL + 1;
+            int rows = height / CLOUD_CELL + 1;
+            float[] density = new float[columns * rows];
+            int firstColumn = stripX / CLOUD_CELL;
+            for (int row = 0; row < rows; row++) {
+                float verticalPosition = (float) row / rows;
+                float thinning = 4 * verticalPosition * (1 - verticalPosition);
+                for (int column = 0; column < columns; column++) {
+                    double value = noise.noise((firstColumn + column) / CLOUD_SCALE, row / CLOUD_SCALE);
+                    double cover = Math.max(0, Math.min(1, (value - CLOUD_COVER) / CLOUD_SOFTNESS));
+                    density[row * columns + column] = (float) cover * thinning;
+                }
+            }
+            for (int y = 0; y < height; y++) {
+                int row = y / CLOUD_CELL;
+                float fy = (float) (y % CLOUD_CELL) / CLOUD_CELL;
+                for (int x = 0; x < width; x++) {
+                    int column = x / CLOUD_CELL;
+                    float fx = (float) (x % CLOUD_CELL) / CLOUD_CELL;
+                    int above = row * columns + column;
+                    int below = above + columns;
+                    float top = density[above] + (density[above + 1] - density[above]) * fx;
+                    float bottom = density[below] + (density[below + 1] - density[below]) * fx;
+                    int alpha = (int) (CLOUD_MAX_ALPHA * (top + (bottom - top) * fy));
+                    // white, premultiplied
+                    if (alpha > 0)
+                        pixels[y * width + x] = alpha << 24 | alpha << 16 | alpha << 8 | alpha;
+                }
+            }
+        };
+    }
+
+    // opaque colour between from and to, at ratio between 0 (from) and 1 (to)
+    private static int blend(Color from, Color to, float ratio) {
+        int red = Math.round(from.getRed() + (to.getRed() - from.getRed()) * ratio);
+        int green = Math.round(from.getGreen() + (to.getGreen() - from.getGreen()) * ratio);
+        int blue = Math.round(from.getBlue() + (to.getBlue() - from.getBlue()) * ratio);
+        return 0xFF << 24 | red << 16 | green << 8 | blue;
+    }
+}
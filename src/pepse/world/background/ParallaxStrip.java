@@ -0,0 +1,174 @@
+package pepse.world.background;
+
+import danogl.GameObject;
+import danogl.components.CoordinateSpace;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+import pepse.world.streaming.Rebasing;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A horizontal strip of the background, such as a range of hills, which scrolls at a fraction of the camera speed.
+ * The strip is cut into tiles of a fixed width. A tile is painted once, the first time the camera gets near it,
+ * into an image that is kept in a cache, so a frame costs one image drawn per tile on screen. The cache holds a few
+ * tiles more than fit on screen, and drops the least recently drawn tile when it's full.
+ * The strip is placed by where the camera is in the whole world, so it doesn't jump when the origin of the world
+ * moves.
+ */
+public class ParallaxStrip extends GameObject implements Rebasing {
+    // constants
+    private static final int SPARE_TILES = 4; // tiles cached beyond those on screen
+    // fields
+    private final Camera camera;
+    private final float scrollFactor;
+    private final int tileWidth;
+    private final int tileHeight;
+    private final float top;
+    private final Color fillBelow;
+    private final TilePainter painter;
+    private final int screenWidth;
+    private final int screenHeight;
+    private final int capacity;
+    private final Map<Integer, BufferedImage> tiles;
+    private double originX = 0; // x in the strip of the origin of the world
+    // counters
+    private int tilesPainted = 0;
+    private int tilesEvicted = 0;
+
+    /**
+     * Paints a tile of a strip.
+     */
+    @FunctionalInterface
+    public interface TilePainter {
+        /**
+         * paints a tile, as premultiplied ARGB pixels, row by row.
+         * @param pixels pixels of the tile, all transparent
+         * @param width width of the tile
+         * @param height height of the tile
+         * @param stripX x of the left column of the tile in the strip. Painting must only depend on it, so tiles
+         *               painted again after they were evicted look the same, and neighbouring tiles meet.
+         */
+        void paint(int[] pixels, int width, int height, int stripX);
+    }
+
+    /**
+     * default c'tor
+     * @param windowDimensions dimensions of the screen
+     * @param camera camera, to find where the screen is in the world
+     * @param scrollFactor part of the camera movement the strip follows, 0 for a strip that never moves
+     * @param tileWidth width of a tile
+     * @param tileHeight height of the strip
+     * @param top y of the top of the strip on screen, when the camera is at the origin
+     * @param fillBelow colour filling the screen below the strip, or null to leave it empty
+     * @param painter paints the tiles
+     */
+    public ParallaxStrip(Vector2 windowDimensions, Camera camera, float scrollFactor, int tileWidth,
+                         int tileHeight, float top, Color fillBelow, TilePainter painter) {
+        super(Vector2.ZERO, windowDimensions, null);
+        this.camera = camera;
+        this.scrollFactor = scrollFactor;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.top = top;
+        this.fillBelow = fillBelow;
+        this.painter = painter;
+        this.screenWidth = (int) windowDimensions.x();
+        this.screenHeight = (int) windowDimensions.y();
+        // tiles on screen, one more for a screen that isn't aligned to the tiles, and the spare ones.
+        this.capacity = (int) Math.ceil(windowDimensions.x() / tileWidth) + 1 + SPARE_TILES;
+        // access ordered, so the eldest entry is the tile drawn least recently.
+        this.tiles = new LinkedHashMap<Integer, BufferedImage>(capacity + 1, 1, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage> eldest) {
+                if (size() <= capacity)
+                    return false;
+                tilesEvicted++;
+                return true;
+            }
+        };
+        setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+    }
+
+    /**
+     * paints the next tile ahead of the screen on each side, if it isn't cached yet, so tiles are rarely painted
+     * while drawing a frame. At most one tile is painted on each side per frame.
+     * @param deltaTime game time
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        double stripLeft = stripLeft();
+        int firstTile = (int) Math.floor(stripLeft / tileWidth);
+        int lastTile = (int) Math.floor((stripLeft + screenWidth) / tileWidth);
+        tile(firstTile - 1);
+        tile(lastTile + 1);
+    }
+
+    /**
+     * draws the tiles on screen.
+     * @param g graphics
+     */
+    @Override
+    public void render(Graphics2D g) {
+        double stripLeft = stripLeft();
+        int screenTop = Math.round(top - camera.getTopLeftCorner().y() * scrollFactor);
+        if (screenTop >= screenHeight)
+            return;
+        int firstTile = (int) Math.floor(stripLeft / tileWidth);
+        int lastTile = (int) Math.floor((stripLeft + screenWidth) / tileWidth);
+        if (screenTop + tileHeight > 0) {
+            for (int i = firstTile; i <= lastTile; i++)
+                g.drawImage(tile(i), (int) Math.round(i * tileWidth - stripLeft), screenTop, null);
+        }
+        // the strip doesn't scroll as fast as the ground, so the camera going up can reveal what's below it.
+        int bottom = screenTop + tileHeight;
+        if (fillBelow != null && bottom < screenHeight) {
+            g.setColor(fillBelow);
+            g.fillRect(0, Math.max(0, bottom), screenWidth, screenHeight - Math.max(0, bottom));
+        }
+    }
+
+    /**
+     * keeps the strip where it was on screen, when the origin of the world moved.
+     * @param shiftX how far along x the origin moved
+     */
+    @Override
+    public void rebase(long shiftX) { originX += (double) shiftX * scrollFactor; }
+
+    // x in the strip of the left of the screen
+    private double stripLeft() { return originX + camera.getTopLeftCorner().x() * scrollFactor; }
+
+    // a tile from the cache, painted if it isn't there.
+    private BufferedImage tile(int index) {
+        BufferedImage tile = tiles.get(index);
+        if (tile == null) {
+            tile = new BufferedImage(tileWidth, tileHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+            painter.paint(((DataBufferInt) tile.getRaster().getDataBuffer()).getData(), tileWidth, tileHeight,
+                    index * tileWidth);
+            tilesPainted++;
+            tiles.put(index, tile);
+        }
+        return tile;
+    }
+
+    /**
+     * @return number of tiles painted since the strip was created
+     */
+    public int tilesPainted() { return tilesPainted; }
+
+    /**
+     * @return number of tiles dropped from the cache
+     */
+    public int tilesEvicted() { return tilesEvicted; }
+
+    /**
+     * @return number of tiles in the cache
+     */
+    public int tilesCached() { return tiles.size(); }
+}
@@ -0,0 +1,194 @@
+package pepse.world.daynight;
+
+import danogl.GameObject;
+import danogl.components.Component;
+import danogl.gui.rendering.Renderable;
+import danogl.util.MutableVector2;
+import danogl.util.Vector2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * The single clock of the day cycle. Once a frame it advances the time of day, and moves, fades and paints every
+ * celestial object registered with it from tables computed once, when the object is registered. Positions and
+ * opacities are interpolated between the two entries around the time of day, so they move smoothly however few
+ * entries there are. No trigonometry and no allocation happen per frame, and a renderable is only set when its
+ * table entry changes.
+ * Phase 0 is noon and phase 0.5 is midnight. Other systems (lighting, spawning, weather) read the time of day
+ * from here.
+ */
+public class DayNightCycle implements Component {
+    /**
+     * number of entries in every table, over one full cycle. The last entry is followed by the first.
+     */
+    public static final int SAMPLES = 720;
+    // constants
+    private static final float HOURS_PER_DAY = 24;
+    private static final float NOON = 12;
+    private static final float NIGHT_DARKNESS = 0.5f;
+    // fields
+    private final float cycleLength;
+    private final float[] darkness = table(DayNightCycle::darknessAt);
+    private float elapsed = 0;
+    private int sample = 0;
+    private float fraction = 0; // how far the time of day is from its sample to the next, between 0 and 1
+    private int lastSample = -1;
+    private final MutableVector2 center = new MutableVector2();
+    // registered objects and their tables
+    private final List<GameObject> movers = new ArrayList<>();
+    private final List<Vector2[]> paths = new ArrayList<>();
+    private final List<GameObject> faders = new ArrayList<>();
+    private final List<float[]> opacities = new ArrayList<>();
+    private final List<GameObject> painted = new ArrayList<>();
+    private final List<Renderable[]> renderables = new ArrayList<>();
+
+    /**
+     * default c'tor
+     * @param cycleLength length of a full day in seconds
+     */
+    public DayNightCycle(float cycleLength) {
+        this.cycleLength = cycleLength;
+    }
+
+    /**
+     * advances the time of day, moves and fades every registered object, and paints those whose table entry
+     * changed.
+     * @param deltaTime game time
+     */
+    @Override
+    public void update(float deltaTime) {
+        elapsed += deltaTime;
+        if (elapsed >= cycleLength)
+            elapsed %= cycleLength;
+        float position = elapsed / cycleLength * SAMPLES;
+        sample = Math.min(SAMPLES - 1, (int) position);
+        fraction = Math.min(1, position - sample);
+        for (int i = 0; i < movers.size(); i++)
+            moveAlong(movers.get(i), paths.get(i));
+        for (int i = 0; i < faders.size(); i++)
+            faders.get(i).renderer().setOpaqueness(valueOf(opacities.get(i)));
+        if (sample == lastSample)
+            return;
+        lastSample = sample;
+        for (int i = 0; i < painted.size(); i++)
+            painted.get(i).renderer().setRenderable(renderables.get(i)[sample]);
+    }
+
+    /**
+     * moves an object along a path over the day.
+     * @param object the object, its center is set
+     * @param path center of the object at every sample, see orbit
+     */
+    public void move(GameObject object, Vector2[] path) {
+        movers.add(object);
+        paths.add(path);
+        moveAlong(object, path);
+    }
+
+    /**
+     * moves an object along the same path as another object already registered, like a halo around the sun.
+     * @param follower the object to move
+     * @param leader the object it follows
+     */
+    public void follow(GameObject follower, GameObject leader) {
+        move(follower, paths.get(movers.indexOf(leader)));
+    }
+
+    /**
+     * fades an object over the day.
+     * @param object the object, its opaqueness is set
+     * @param opacity opaqueness at every sample, see table
+     */
+    public void fade(GameObject object, float[] opacity) {
+        faders.add(object);
+        opacities.add(opacity);
+        object.renderer().setOpaqueness(valueOf(opacity));
+    }
+
+    /**
+     * changes the renderable of an object over the day, like the colour of the sky.
+     * @param object the object, its renderable is set
+     * @param renderable renderable at every sample
+     */
+    public void paint(GameObject object, Renderable[] renderable) {
+        painted.add(object);
+        renderables.add(renderable);
+        object.renderer().setRenderable(renderable[sample]);
+    }
+
+    // sets the center of an object to its path at the time of day, between the sample and the next
+    private void moveAlong(GameObject object, Vector2[] path) {
+        Vector2 from = path[sample], to = path[(sample + 1) % SAMPLES];
+        center.setXY(from.x() + (to.x() - from.x()) * fraction, from.y() + (to.y() - from.y()) * fraction);
+        object.setCenter(center);
+    }
+
+    // a table at the time of day, between the sample and the next
+    private float valueOf(float[] table) {
+        float from = table[sample];
+        return from + (table[(sample + 1) % SAMPLES] - from) * fraction;
+    }
+
+    /**
+     * an oval path over the whole day, from startAngle at noon to endAngle at the end of the day.
+     * @param center center of the oval
+     * @param radiusX horizontal radius
+     * @param radiusY vertical radius
+     * @param startAngle angle at phase 0, in degrees
+     * @param endAngle angle at phase 1, in degrees
+     * @return the center of the object at every sample
+     */
+    public static Vector2[] orbit(Vector2 center, float radiusX, float radiusY, float startAngle, float endAngle) {
+        Vector2[] path = new Vector2[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            double angle = Math.toRadians(startAngle + (endAngle - startAngle) * i / SAMPLES);
+            path[i] = new Vector2((float) (radiusX * Math.cos(angle) + center.x()),
+                    (float) (radiusY * Math.sin(angle) + center.y()));
+        }
+        return path;
+    }
+
+    /**
+     * a table of a value over the day.
+     * @param ofPhase the value at a phase of the day, between 0 and 1
+     * @return the value at every sample
+     */
+    public static float[] table(DoubleUnaryOperator ofPhase) {
+        float[] table = new float[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++)
+            table[i] = (float) ofPhase.applyAsDouble((double) i / SAMPLES);
+        return table;
+    }
+
+    /**
+     * how dark it is at a phase of the day: 0 at noon, 1 at midnight, easing in and out in between.
+     * @param phase phase of the day, between 0 and 1
+     * @return darkness between 0 and 1
+     */
+    public static float darknessAt(double phase) {
+        double t = phase < 0.5 ? 2 * phase : 2 - 2 * phase;
+        return (float) (t * t * (3 - 2 * t));
+    }
+
+    /**
+     * @return phase of the day, between 0 (noon) and 1
+     */
+    public float phase() { return elapsed / cycleLength; }
+
+    /**
+     * @return hour of the day, between 0 and 24
+     */
+    public float hour() { return (NOON + phase() * HOURS_PER_DAY) % HOURS_PER_DAY; }
+
+    /**
+     * @return how dark it is now, 0 at noon and 1 at midnight
+     */
+    public float darkness() { return valueOf(darkness); }
+
+    /**
+     * @return true between dusk and dawn
+     */
+    public boolean isNight() { return darkness() > NIGHT_DARKNESS; }
+}
@@ -3,9 +3,9 @@ package pepse.world.daynight;
 import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
 import danogl.components.CoordinateSpace;
-import danogl.components.Transition;
-import danogl.gui.ImageReader;
 import danogl.util.Vector2;
+import pepse.assets.AssetCache;
+import pepse.assets.AssetManifest;
 
 public class Moon {
     // assets
@@ -23,32 +23,30 @@ public class Moon {
      * @param gameObjects  The collection of all participating game objects.
      * @param layer The number of the layer to which the created sun should be added.
      * @param windowDimensions The dimensions of the windows.
-     * @param cycleLength The amount of seconds it should take the created game object to complete a full cycle.
+     * @param dayNightCycle The clock of the day, which moves the moon.
+     * @param assets The asset cache, to get the moon image.
      * @return A new game object representing the sun.
      */
     public static GameObject create(GameObjectCollection gameObjects, int layer, Vector2 windowDimensions,
-                                    float cycleLength, ImageReader imageReader){
+                                    DayNightCycle dayNightCycle, AssetCache assets){
         // creates moon object and adds its to the game
-        GameObject moon = new GameObject(Vector2.ZERO, DIMENSIONS, imageReader.readImage(MOON_IMAGE_PATH, true));
+        GameObject moon = new GameObject(Vector2.ZERO, DIMENSIONS, assets.readImage(MOON_IMAGE_PATH));
         moon.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
         gameObjects.addGameObject(moon, layer);
         moon.setTag(MOON_TAG);
         Vector2 central = windowDimensions.mult(0.5f).add(CENTER_OFFSET);
         // oval trajectory of the moon around the central point, adjusted to revolve counter to the sun.
-        new Transition<>(
-                moon,
-                angle -> {
-                    float cos = (float) Math.cos(Math.toRadians(angle));
-                    float sin = (float) Math.sin(Math.toRadians(angle));
-                    moon.setCenter(new Vector2((central.x() + OVAL_A_OFFSET) * cos + central.x(),central.y() * sin + central.y()));
-                },
-                80f, // cycle of 360, adjusted to start in a position according to night cycle
-                470f,
-                Transition.LINEAR_INTERPOLATOR_FLOAT,
-                cycleLength,
-                Transition.TransitionType.TRANSITION_LOOP,
-                null);
+        // cycle of 360, adjusted to start in a position according to night cycle
+        dayNightCycle.move(moon, DayNightCycle.orbit(central, central.x() + OVAL_A_OFFSET, central.y(), 80f, 470f));
         return moon;
     } // end of method create
 
+    /**
+     * declare the assets of the moon, so they are loaded at startup.
+     * @param manifest the asset manifest
+     */
+    public static void declareAssets(AssetManifest manifest) {
+        manifest.addSprite(MOON_IMAGE_PATH, DIMENSIONS);
+    }
+
 } // end of class Moon
@@ -1,42 +0,0 @@
-package pepse.world.daynight;
-
-import danogl.GameObject;
-import danogl.collisions.GameObjectCollection;
-import danogl.components.CoordinateSpace;
-import danogl.components.Transition;
-import danogl.gui.rendering.RectangleRenderable;
-import danogl.util.Vector2;
-
-import java.awt.*;
-
-public class Night {
-    // constants
-    private static final String NIGHT_TAG = "night";
-    private static final float MIDNIGHT_OPACITY = 0.2f;
-    /**
-     * A method that creats the night GameObject
-     * @param gameObjects The collection of all participating game objects.
-     * @param layer The number of the layer to which the created game object should be added.
-     * @param windowDimensions The dimensions of the windows.
-     * @param cycleLength The amount of seconds it should take the created game object to complete a full cycle.
-     * @return A new game object representing day-to-night transitions
-     */
-    public static GameObject create(GameObjectCollection gameObjects, int layer, Vector2 windowDimensions, float cycleLength){
-        // create a black rectangle covering the screen
-        GameObject night = new GameObject(Vector2.ZERO, windowDimensions, new RectangleRenderable(Color.BLACK));
-        night.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
-        gameObjects.addGameObject(night, layer);
-        night.setTag(NIGHT_TAG);
-        new Transition<>(
-                night, // the game object being changed
-                night.renderer()::setOpaqueness, // the method to call
-                0f, // initial transition value
-                MIDNIGHT_OPACITY, // final transition value
-                Transition.CUBIC_INTERPOLATOR_FLOAT, // use a cubic interpolator
-                cycleLength / 2, // transition fully over half a day
-                Transition.TransitionType.TRANSITION_BACK_AND_FORTH,
-                null); // nothing further to execute upon reaching final value
-        return night;
-    } // end of method create
-
-} // end of class Night
@@ -3,7 +3,6 @@ package pepse.world.daynight;
 import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
 import danogl.components.CoordinateSpace;
-import danogl.components.Transition;
 import danogl.gui.rendering.OvalRenderable;
 import danogl.util.Vector2;
 
@@ -22,10 +21,10 @@ public class Sun {
      * @param gameObjects  The collection of all participating game objects.
      * @param layer The number of the layer to which the created sun should be added.
      * @param windowDimensions The dimensions of the windows.
-     * @param cycleLength The amount of seconds it should take the created game object to complete a full cycle.
+     * @param dayNightCycle The clock of the day, which moves the sun.
      * @return A new game object representing the sun.
      */
-    public static GameObject create(GameObjectCollection gameObjects, int layer, Vector2 windowDimensions, float cycleLength){
+    public static GameObject create(GameObjectCollection gameObjects, int layer, Vector2 windowDimensions, DayNightCycle dayNightCycle){
         // create yellow round game object
         GameObject sun = new GameObject(Vector2.ZERO, DIMENSIONS, new OvalRenderable(Color.YELLOW));
         sun.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
@@ -33,20 +32,8 @@ public class Sun {
         sun.setTag(SUN_TAG);
         // center of the oval trajectory of the sun
         Vector2 central = windowDimensions.mult(0.5f).add(CENTER_OFFSET);
-        // create the transition the revolves the sun in oval shape
-        new Transition<>(
-                sun,
-                angle -> {
-                    float cos = (float) Math.cos(Math.toRadians(angle));
-                    float sin = (float) Math.sin(Math.toRadians(angle));
-                    sun.setCenter(new Vector2((central.x() + OVAL_A_OFFSET) * cos + central.x(),central.y() * sin + central.y()));
-                },
-                270f, // cycle of 360, adjusted to start in a position according to night cycle
-                630f,
-                Transition.LINEAR_INTERPOLATOR_FLOAT,
-                cycleLength,
-                Transition.TransitionType.TRANSITION_LOOP,
-                null);
+        // revolve the sun in oval shape. cycle of 360, adjusted to start in a position according to night cycle
+        dayNightCycle.move(sun, DayNightCycle.orbit(central, central.x() + OVAL_A_OFFSET, central.y(), 270f, 630f));
         return sun;
     } // end of method create
 
@@ -21,17 +21,19 @@ public class SunHalo {
      * @param layer  The number of the layer to which the created halo should be added.
      * @param sun A game object representing the sun (it will be followed by the created game object).
      * @param color The color of the halo.
+     * @param dayNightCycle The clock of the day, which already moves the sun.
      * @return A new game object representing the sun's halo.
      */
-    public static GameObject create(GameObjectCollection gameObjects, int layer, GameObject sun, Color color){
+    public static GameObject create(GameObjectCollection gameObjects, int layer, GameObject sun, Color color,
+                                    DayNightCycle dayNightCycle){
         OvalRenderable renderable = new OvalRenderable(color);
         GameObject halo = new GameObject(Vector2.ZERO, HALO_DIMENSIONS, renderable);
         gameObjects.addGameObject(halo, layer);
         halo.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
         halo.setTag(HALO_TAG + haloCount);
         haloCount ++;
-        // move the halo according to the given object's location
-        halo.addComponent(deltaTime -> halo.setCenter(sun.getCenter()));
+        // move the halo along the same path as the given object
+        dayNightCycle.follow(halo, sun);
         return halo;
     } // end of method create
 
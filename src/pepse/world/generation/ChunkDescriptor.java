@@ -0,0 +1,23 @@
+package pepse.world.generation;
+
+import pepse.util.JobPriority;
+import pepse.util.JobQueue;
+
+/**
+ * What a generator decided is in a range of the world, which creates it when it's applied. It's applied a step at
+ * a time, each a small part, such as a column of the ground or a tree, so it can be spread over frames by the jobs
+ * of the world.
+ */
+public interface ChunkDescriptor extends JobQueue.Job {
+    /**
+     * @return priority of applying the descriptor, among the other changes to the world
+     */
+    JobPriority priority();
+
+    /**
+     * applies every step that's left.
+     */
+    default void apply() {
+        while (!step());
+    }
+}
@@ -0,0 +1,26 @@
+package pepse.world.generation;
+
+/**
+ * Generates a part of the world, such as the ground, trees, ore or grass, for a range of it at once. Generating
+ * only decides what's there, and doesn't change the world: the descriptor it returns creates it when it's applied,
+ * maybe later, a part at a time (see GenerationPipeline).
+ * The range is of columns, and of the rows of the world around the camera. A generator that fills the rows, like
+ * the ground, only creates what's in them, and is run again for the rows the world is extended to. Any other is
+ * only run for new columns, and creates what it decides in them whatever the rows.
+ */
+public interface ChunkGenerator {
+    /**
+     * decides what's in a range of the world.
+     * @param minX left of the range, a multiple of Block.SIZE
+     * @param maxX right of the range, exclusive
+     * @param context the seed of the world, and what generating the range may use
+     * @return what creates the range in the world
+     */
+    ChunkDescriptor generate(int minX, int maxX, GenerationContext context);
+
+    /**
+     * @return true if the generator only creates what's in the rows of its context, so it's run again for the rows
+     * the world is extended to
+     */
+    default boolean fillsRows() { return false; }
+}
@@ -0,0 +1,157 @@
+package pepse.world.generation;
+
+import pepse.util.JobPriority;
+import pepse.util.JobQueue;
+import pepse.world.streaming.ChunkCache;
+
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * What a generator is given to generate a range of the world: the seed of the world, the rows of the world around
+ * the camera, if there are, where the origin of the world is, a random generator seeded by the seed and the place
+ * of the range in the whole world, the chunks the world remembers, and the jobs its descriptor and what follows it
+ * are run through. The time of every job is added to the metrics
+ * of the generator.
+ */
+public class GenerationContext {
+    // fields
+    private final int seed;
+    private final int minX;
+    private final int maxX;
+    private final int minY;
+    private final int maxY;
+    private final long originX;
+    private final ChunkCache chunkCache;
+    private final JobQueue jobs;
+    private final GeneratorMetrics metrics;
+    private Random random = null;
+
+    /**
+     * a context without rows
+     * @param seed seed of the world
+     * @param minX left of the range generated
+     * @param maxX right of the range generated, exclusive
+     * @param chunkCache the chunks of the world, or null if they aren't remembered
+     * @param jobs the jobs of the world, or null to run the jobs right away
+     * @param metrics the metrics of the generator, or null
+     */
+    public GenerationContext(int seed, int minX, int maxX, ChunkCache chunkCache, JobQueue jobs,
+                             GeneratorMetrics metrics) {
+        this(seed, minX, maxX, Integer.MIN_VALUE, Integer.MAX_VALUE, 0, chunkCache, jobs, metrics);
+    }
+
+    /**
+     * default c'tor
+     * @param seed seed of the world
+     * @param minX left of the range generated
+     * @param maxX right of the range generated, exclusive
+     * @param minY top of the rows generated
+     * @param maxY bottom of the rows generated, exclusive
+     * @param originX x of the origin of the world in the whole world
+     * @param chunkCache the chunks of the world, or null if they aren't remembered
+     * @param jobs the jobs of the world, or null to run the jobs right away
+     * @param metrics the metrics of the generator, or null
+     */
+    public GenerationContext(int seed, int minX, int maxX, int minY, int maxY, long originX, ChunkCache chunkCache,
+                             JobQueue jobs, GeneratorMetrics metrics) {
+        this.seed = seed;
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.originX = originX;
+        this.chunkCache = chunkCache;
+        this.jobs = jobs;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return seed of the world
+     */
+    public int seed() { return seed; }
+
+    /**
+     * @return left of the range generated
+     */
+    public int minX() { return minX; }
+
+    /**
+     * @return right of the range generated, exclusive
+     */
+    public int maxX() { return maxX; }
+
+    /**
+     * @return top of the rows generated, Integer.MIN_VALUE if there are no rows
+     */
+    public int minY() { return minY; }
+
+    /**
+     * @return bottom of the rows generated, exclusive, Integer.MAX_VALUE if there are no rows
+     */
+    public int maxY() { return maxY; }
+
+    /**
+     * @return true if only the rows of the world around the camera are generated, false if the generator decides
+     * how deep to go
+     */
+    public boolean hasRows() { return minY != Integer.MIN_VALUE || maxY != Integer.MAX_VALUE; }
+
+    /**
+     * @param x x measured from the origin of the world
+     * @return x in the whole world, to decide what's at a place by it. In a long, as the whole world is wider than
+     * an int.
+     */
+    public long worldX(int x) { return originX + x; }
+
+    /**
+     * @param worldX x in the whole world
+     * @return x measured from the origin of the world, to create what's at a place
+     */
+    public int localX(long worldX) { return (int) (worldX - originX); }
+
+    /**
+     * @return a random generator, the same for the same seed and range, whichever order the ranges are generated
+     * in, and wherever the origin of the world is
+     */
+    public Random random() {
+        if (random == null)
+            random = randomOf(seed, worldX(minX), worldX(maxX));
+        return random;
+    }
+
+    /**
+     * @param seed seed of the world
+     * @param worldMinX left of a range in the whole world
+     * @param worldMaxX right of the range in the whole world, exclusive
+     * @return the random generator a context of the range has, such as to generate the range ahead of the game
+     */
+    public static Random randomOf(int seed, long worldMinX, long worldMaxX) {
+        return new Random(Objects.hash(seed, worldMinX, worldMaxX));
+    }
+
+    /**
+     * @param x x in the world
+     * @return the chunk the world remembers at x, or null if there is none
+     */
+    public ChunkCache.Chunk chunkAt(int x) { return chunkCache != null ? chunkCache.chunkAt(x) : null; }
+
+    /**
+     * runs a job through the jobs of the world, or right away if there are none, and adds its time to the metrics
+     * of the generator.
+     * @param priority priority of the job
+     * @param job the job, run a step at a time until it's done
+     */
+    public void run(JobPriority priority, JobQueue.Job job) {
+        JobQueue.Job timed = metrics == null ? job : () -> {
+            long start = System.nanoTime();
+            boolean done = job.step();
+            metrics.applied(System.nanoTime() - start, done);
+            return done;
+        };
+        if (jobs != null)
+            jobs.submitSteps(priority, null, timed);
+        else
+            while (!timed.step());
+    }
+}
@@ -0,0 +1,131 @@
+package pepse.world.generation;
+
+import pepse.util.JobQueue;
+import pepse.world.streaming.ChunkCache;
+import pepse.world.streaming.FloatingOrigin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates the world a range at a time with any number of generators, such as the ground, then trees, ore, grass
+ * or structures, in the order they were added. Every generator decides its part of the range before any is
+ * applied, and the descriptors are applied in the same order, through the jobs of the world if there are.
+ * The columns are generated in the rows of the world around the camera, if they were set, and the rows the world
+ * is extended to are generated by the generators that fill rows.
+ * Keeps the time of every generator.
+ */
+public class GenerationPipeline {
+    // constants
+    private static final String STATS_MSG = "GenerationPipeline:";
+    // fields
+    private final int seed;
+    private final List<ChunkGenerator> generators = new ArrayList<>();
+    private final List<GeneratorMetrics> metrics = new ArrayList<>();
+    private ChunkCache chunkCache = null;
+    private JobQueue jobs = null;
+    private int minY = Integer.MIN_VALUE;
+    private int maxY = Integer.MAX_VALUE;
+    private FloatingOrigin origin = null;
+
+    /**
+     * default c'tor
+     * @param seed seed of the world
+     */
+    public GenerationPipeline(int seed) { this.seed = seed; }
+
+    /**
+     * adds a generator, after the ones added before.
+     * @param name name of the generator, for its metrics
+     * @param generator the generator
+     * @return this pipeline
+     */
+    public GenerationPipeline add(String name, ChunkGenerator generator) {
+        generators.add(generator);
+        metrics.add(new GeneratorMetrics(name));
+        return this;
+    }
+
+    /**
+     * gives the generators the chunks the world remembers, so a range generated before is generated as it was.
+     * @param chunkCache the chunks of the world
+     */
+    public void setChunkCache(ChunkCache chunkCache) { this.chunkCache = chunkCache; }
+
+    /**
+     * applies the descriptors through the jobs of the world, at their priority, instead of right away.
+     * @param jobs the jobs of the world
+     */
+    public void setJobs(JobQueue jobs) { this.jobs = jobs; }
+
+    /**
+     * generates the world by the place of its ranges in the whole world, measured from a floating origin.
+     * @param origin the origin of the world
+     */
+    public void setOrigin(FloatingOrigin origin) { this.origin = origin; }
+
+    /**
+     * sets the rows of the world around the camera the columns are generated in from now on.
+     * @param minY top of the rows
+     * @param maxY bottom of the rows, exclusive
+     */
+    public void setRows(int minY, int maxY) {
+        this.minY = minY;
+        this.maxY = maxY;
+    }
+
+    /**
+     * generates a range of columns, and applies it through the jobs of the world if there are.
+     * @param minX left of the range, a multiple of Block.SIZE
+     * @param maxX right of the range, exclusive
+     */
+    public void build(int minX, int maxX) { build(minX, maxX, minY, maxY, jobs, false); }
+
+    /**
+     * generates a range of columns, and applies it, and whatever follows it, right away.
+     * @param minX left of the range, a multiple of Block.SIZE
+     * @param maxX right of the range, exclusive
+     */
+    public void buildNow(int minX, int maxX) { build(minX, maxX, minY, maxY, null, false); }
+
+    /**
+     * generates rows of a range of columns already generated, with the generators that fill rows, and applies
+     * them through the jobs of the world if there are.
+     * @param minX left of the range, a multiple of Block.SIZE
+     * @param maxX right of the range, exclusive
+     * @param minY top of the rows
+     * @param maxY bottom of the rows, exclusive
+     */
+    public void buildRows(int minX, int maxX, int minY, int maxY) { build(minX, maxX, minY, maxY, jobs, true); }
+
+    private void build(int minX, int maxX, int minY, int maxY, JobQueue jobs, boolean rowsOnly) {
+        GenerationContext[] contexts = new GenerationContext[generators.size()];
+        ChunkDescriptor[] descriptors = new ChunkDescriptor[generators.size()];
+        for (int i = 0; i < generators.size(); i++) {
+            if (rowsOnly && !generators.get(i).fillsRows())
+                continue;
+            contexts[i] = new GenerationContext(seed, minX, maxX, minY, maxY, origin == null ? 0 : origin.offsetX(),
+                    chunkCache, jobs, metrics.get(i));
+            long start = System.nanoTime();
+            descriptors[i] = generators.get(i).generate(minX, maxX, contexts[i]);
+            metrics.get(i).generated(System.nanoTime() - start);
+        }
+        for (int i = 0; i < generators.size(); i++) {
+            if (descriptors[i] != null)
+                contexts[i].run(descriptors[i].priority(), descriptors[i]);
+        }
+    }
+
+    /**
+     * @return the metrics of every generator, in the order they were added
+     */
+    public List<GeneratorMetrics> metrics() { return metrics; }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(STATS_MSG);
+        for (GeneratorMetrics generator : metrics)
+            builder.append(System.lineSeparator()).append("  ").append(generator);
+        return builder.toString();
+    }
+}
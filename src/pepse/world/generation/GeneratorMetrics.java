@@ -0,0 +1,76 @@
+package pepse.world.generation;
+
+/**
+ * The time a generator of the pipeline took to generate its ranges, and to apply them and the jobs that followed.
+ */
+public class GeneratorMetrics {
+    // constants
+    private static final String STATS_MSG = "%s: %d ranges, %.1f ms generating (%.1f us each), %.1f ms applying in " +
+            "%d steps of %d jobs (%.1f us a step)";
+    // fields
+    private final String name;
+    private long ranges = 0;
+    private long generateNanos = 0;
+    private long applyNanos = 0;
+    private long steps = 0;
+    private long jobs = 0;
+
+    /**
+     * default c'tor
+     * @param name name of the generator
+     */
+    public GeneratorMetrics(String name) { this.name = name; }
+
+    /**
+     * adds a range generated.
+     * @param nanos time it took
+     */
+    public void generated(long nanos) {
+        ranges++;
+        generateNanos += nanos;
+    }
+
+    /**
+     * adds a step applied.
+     * @param nanos time it took
+     * @param done true if it was the last step of its job
+     */
+    public void applied(long nanos, boolean done) {
+        steps++;
+        applyNanos += nanos;
+        if (done)
+            jobs++;
+    }
+
+    /**
+     * @return name of the generator
+     */
+    public String name() { return name; }
+
+    /**
+     * @return number of ranges generated
+     */
+    public long ranges() { return ranges; }
+
+    /**
+     * @return time spent generating, in nanoseconds
+     */
+    public long generateNanos() { return generateNanos; }
+
+    /**
+     * @return time spent applying, in nanoseconds
+     */
+    public long applyNanos() { return applyNanos; }
+
+    /**
+     * @return number of steps applied
+     */
+    public long steps() { return steps; }
+
+    @Override
+    public String toString() {
+        return String.format(STATS_MSG, name, ranges, generateNanos / 1e6, ranges == 0 ? 0 :
+                generateNanos / 1e3 / ranges, applyNanos / 1e6, steps, jobs, steps == 0 ? 0 :
+                applyNanos / 1e3 / steps);
+    }
+}
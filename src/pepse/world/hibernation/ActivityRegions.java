@@ -0,0 +1,155 @@
+package pepse.world.hibernation;
+
+import danogl.GameObject;
+import danogl.components.CoordinateSpace;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Puts to sleep the objects far from the player, so a frame only updates what's around the camera. Danogl updates
+ * every object every frame, with its components, so leaves keep their transitions going, bones count down to
+ * their removal, and enemies walk and jump, all the way to the ends of the world.
+ * An object falls asleep when it's fully outside the view of the camera grown by the sleep margin, and is woken
+ * when it touches the view grown by the smaller wake margin, so an object on the edge doesn't flicker between
+ * the two. An asleep object isn't updated, so its transform and components are paused and it's woken in the state
+ * it fell asleep in, unless it's {@link Hibernating}, in which case it gets a coarse update instead.
+ * Objects in camera coordinates are always awake.
+ */
+public class ActivityRegions {
+    // constants
+    private static final int FORGET_EVERY = 64; // frames between dropping the objects no longer in the game
+    private static final String STATS_MSG = "ActivityRegions: %d awake, %d asleep (%d coarse) last frame, " +
+            "%d fell asleep, %d woken";
+    // fields
+    private final Camera camera;
+    private final float wakeMargin;
+    private final float sleepMargin;
+    // the objects asleep. Every few frames, the set is built again from the objects found asleep, so the objects
+    // removed from the game, which are never found, are dropped from it.
+    private Set<GameObject> asleep = Collections.newSetFromMap(new IdentityHashMap<>());
+    private Set<GameObject> stillAsleep = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int frame = 0;
+    // counters
+    private int awakeLastFrame = 0;
+    private int asleepLastFrame = 0;
+    private int coarseLastFrame = 0;
+    private long fellAsleep = 0;
+    private long woken = 0;
+
+    /**
+     * default c'tor
+     * @param camera the camera the regions are around
+     * @param wakeMargin distance around the view in which objects are woken, in pixels
+     * @param sleepMargin distance around the view beyond which objects fall asleep, in pixels. Should be larger
+     *                    than the wake margin.
+     */
+    public ActivityRegions(Camera camera, float wakeMargin, float sleepMargin) {
+        this.camera = camera;
+        this.wakeMargin = wakeMargin;
+        this.sleepMargin = Math.max(wakeMargin, sleepMargin);
+    }
+
+    /**
+     * updates the objects awake, and the coarse update of the hibernating objects asleep. Objects entering or
+     * leaving the regions are woken or put to sleep first.
+     * @param gameObjects objects to update
+     * @param deltaTime game time
+     */
+    public void update(Iterable<GameObject> gameObjects, float deltaTime) {
+        Vector2 topLeft = camera.getTopLeftCorner();
+        Vector2 dimensions = camera.getDimensions();
+        awakeLastFrame = 0;
+        asleepLastFrame = 0;
+        coarseLastFrame = 0;
+        boolean forget = ++frame % FORGET_EVERY == 0;
+        for (GameObject gameObject : gameObjects) {
+            boolean isAsleep = asleep.contains(gameObject);
+            if (gameObject.getCoordinateSpace() == CoordinateSpace.CAMERA_COORDINATES)
+                isAsleep = false;
+            else if (isAsleep && isWithin(gameObject, topLeft, dimensions, wakeMargin)) {
+                isAsleep = false;
+                asleep.remove(gameObject);
+                if (gameObject instanceof Hibernating)
+                    ((Hibernating) gameObject).wake();
+                woken++;
+            }
+            else if (!isAsleep && !isWithin(gameObject, topLeft, dimensions, sleepMargin)) {
+                isAsleep = true;
+                asleep.add(gameObject);
+                if (gameObject instanceof Hibernating)
+                    ((Hibernating) gameObject).hibernate();
+                fellAsleep++;
+            }
+            if (!isAsleep) {
+                gameObject.update(deltaTime);
+                awakeLastFrame++;
+                continue;
+            }
+            if (forget)
+                stillAsleep.add(gameObject);
+            asleepLastFrame++;
+            if (gameObject instanceof Hibernating) {
+                ((Hibernating) gameObject).coarseUpdate(deltaTime);
+                coarseLastFrame++;
+            }
+        }
+        if (forget) {
+            Set<GameObject> swap = asleep;
+            asleep = stillAsleep;
+            stillAsleep = swap;
+            stillAsleep.clear();
+        }
+    }
+
+    // true if the bounds of the object at any angle touch the view grown by the margin
+    private static boolean isWithin(GameObject gameObject, Vector2 topLeft, Vector2 dimensions, float margin) {
+        Vector2 objectTopLeft = gameObject.getTopLeftCorner();
+        Vector2 objectDimensions = gameObject.getDimensions();
+        float centerX = objectTopLeft.x() + objectDimensions.x() / 2;
+        float centerY = objectTopLeft.y() + objectDimensions.y() / 2;
+        float reach = 0.5f * (float) Math.sqrt(objectDimensions.x() * objectDimensions.x() +
+                objectDimensions.y() * objectDimensions.y()) + margin;
+        return centerX + reach >= topLeft.x() && centerX - reach <= topLeft.x() + dimensions.x() &&
+                centerY + reach >= topLeft.y() && centerY - reach <= topLeft.y() + dimensions.y();
+    }
+
+    /**
+     * @param gameObject an object
+     * @return true if the object was asleep in the last frame
+     */
+    public boolean isAsleep(GameObject gameObject) { return asleep.contains(gameObject); }
+
+    /**
+     * @return number of objects updated in the last frame
+     */
+    public int awakeLastFrame() { return awakeLastFrame; }
+
+    /**
+     * @return number of objects asleep in the last frame
+     */
+    public int asleepLastFrame() { return asleepLastFrame; }
+
+    /**
+     * @return number of hibernating objects that got a coarse update in the last frame
+     */
+    public int coarseLastFrame() { return coarseLastFrame; }
+
+    /**
+     * @return number of times an object fell asleep since the game started
+     */
+    public long fellAsleep() { return fellAsleep; }
+
+    /**
+     * @return number of times an object was woken since the game started
+     */
+    public long woken() { return woken; }
+
+    @Override
+    public String toString() {
+        return String.format(STATS_MSG, awakeLastFrame, asleepLastFrame, coarseLastFrame, fellAsleep, woken);
+    }
+}
@@ -0,0 +1,24 @@
+package pepse.world.hibernation;
+
+/**
+ * An object that keeps doing something while it's asleep, out of the activity region of the player.
+ * Objects that aren't Hibernating just stop where they are until they're woken, components and all.
+ */
+public interface Hibernating {
+    /**
+     * called once when the object falls asleep, before its first coarse update.
+     */
+    default void hibernate() { }
+
+    /**
+     * called every frame while the object is asleep, instead of its update. Should only do the little that
+     * can't wait until the object is woken.
+     * @param deltaTime game time
+     */
+    void coarseUpdate(float deltaTime);
+
+    /**
+     * called once when the object is woken, before its first update, so it can pick up from its coarse state.
+     */
+    default void wake() { }
+}
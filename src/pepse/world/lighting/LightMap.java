@@ -0,0 +1,356 @@
+package pepse.world.lighting;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.components.CoordinateSpace;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+import pepse.world.Block;
+import pepse.world.daynight.DayNightCycle;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The darkness of the night, lit up by lights such as fireballs and explosions.
+ * The screen is covered by a grid of tiles the size of a block. Every tile holds how much light reaches it, and is
+ * one pixel of a small overlay image, black with the alpha of the darkness left. The overlay is scaled over the
+ * screen and drawn at the opacity of the night, so the day/night cycle costs nothing per tile.
+ * Tiles are only recomputed where something changed: around a light that was added, removed, moved to another
+ * tile or changed, and on the edge of the screen when the camera scrolls into new tiles. The grid is a ring in
+ * both axes (a tile is stored at its world tile coordinates modulo the grid size), so scrolling moves no tiles.
+ * With the camera zoomed out, the grid would only cover a part of the screen, so the night is drawn evenly over
+ * all of it, without the lights.
+ */
+public class LightMap extends GameObject {
+    // constants
+    private static final String LIGHT_MAP_TAG = "night";
+    private static final float MIDNIGHT_OPACITY = 0.2f;
+    private static final int OPAQUE = 0xFF;
+    private static final int ALPHA_SHIFT = 24;
+    // fields
+    private final Camera camera;
+    private final DayNightCycle dayNightCycle;
+    private final int columns;
+    private final int rows;
+    private final float[] light;
+    private final BufferedImage overlay;
+    private final int[] pixels;
+    private final List<Light> lights = new ArrayList<>();
+    // dirty tiles, by index in the grid
+    private final boolean[] dirty;
+    private final int[] dirtyTiles;
+    private int dirtyCount = 0;
+    // world tile coordinates of the top left tile on screen
+    private int originX;
+    private int originY;
+    private boolean placed = false;
+    // counters
+    private int tilesLastFrame = 0;
+    private long tilesTotal = 0;
+
+    /**
+     * A light attached to a game object. It follows the center of the object, asleep or not, and goes out once
+     * it's removed from the map, by its owner or with its owner when the owner is removed from the world.
+     */
+    public class Light {
+        private final GameObject owner;
+        private float radius;
+        private float intensity;
+        private boolean changed = true;
+        private boolean lit = false;
+        private boolean removed = false;
+        // the tiles it lights, as last applied to the grid
+        private int tileX;
+        private int tileY;
+        private int reach;
+        private float appliedRadius;
+        private float appliedIntensity;
+
+        private Light(GameObject owner, float radius, float intensity) {
+            this.owner = owner;
+            this.radius = radius;
+            this.intensity = intensity;
+        }
+
+        /**
+         * @param radius distance in pixels at which the light fades out
+         */
+        public void setRadius(float radius) {
+            changed |= radius != this.radius;
+            this.radius = radius;
+        }
+
+        /**
+         * @param intensity light at the center, between 0 and 1
+         */
+        public void setIntensity(float intensity) {
+            changed |= intensity != this.intensity;
+            this.intensity = intensity;
+        }
+    }
+
+    /**
+     * default c'tor
+     * @param windowDimensions the overlay covers the whole screen
+     * @param camera camera, to find where the screen is in the world
+     * @param dayNightCycle the clock of the day, for the darkness of the night
+     */
+    public LightMap(Vector2 windowDimensions, Camera camera, DayNightCycle dayNightCycle) {
+        super(Vector2.ZERO, windowDimensions, null);
+        this.camera = camera;
+        this.dayNightCycle = dayNightCycle;
+        // one extra tile on each axis, for a screen that isn't aligned to the tiles
+        this.columns = (int) Math.ceil(windowDimensions.x() / Block.SIZE) + 1;
+        this.rows = (int) Math.ceil(windowDimensions.y() / Block.SIZE) + 1;
+        this.light = new float[columns * rows];
+        this.dirty = new boolean[columns * rows];
+        this.dirtyTiles = new int[columns * rows];
+        this.overlay = new BufferedImage(columns, rows, BufferedImage.TYPE_INT_ARGB_PRE);
+        this.pixels = ((DataBufferInt) overlay.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * creates the light map and adds it to the game
+     * @param gameObjects collection
+     * @param layer layer of the overlay, above everything lit by it
+     * @param windowDimensions the overlay covers the whole screen
+     * @param camera camera, to find where the screen is in the world
+     * @param dayNightCycle the clock of the day, for the darkness of the night
+     * @return the light map
+     */
+    public static LightMap create(GameObjectCollection gameObjects, int layer, Vector2 windowDimensions,
+                                  Camera camera, DayNightCycle dayNightCycle) {
+        LightMap lightMap = new LightMap(windowDimensions, camera, dayNightCycle);
+        lightMap.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+        lightMap.setTag(LIGHT_MAP_TAG);
+        gameObjects.addGameObject(lightMap, layer);
+        return lightMap;
+    }
+
+    /**
+     * adds a light that follows a game object.
+     * @param owner the object carrying the light
+     * @param radius distance in pixels at which the light fades out
+     * @param intensity light at the center, between 0 and 1
+     * @return the light, to change or remove it later
+     */
+    public Light addLight(GameObject owner, float radius, float intensity) {
+        Light newLight = new Light(owner, radius, intensity);
+        lights.add(newLight);
+        return newLight;
+    }
+
+    /**
+     * removes a light.
+     * @param removed the light
+     */
+    public void removeLight(Light removed) { removed.removed = true; }
+
+    /**
+     * removes every light of an object, when the object is removed from the world.
+     * @param owner the object
+     */
+    public void removeLights(GameObject owner) {
+        for (Light current : lights) {
+            if (current.owner == owner)
+                current.removed = true;
+        }
+    }
+
+    /**
+     * recomputes the tiles around every light that changed, and the tiles scrolled into the screen.
+     * @param deltaTime game time
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        scroll();
+        for (int i = lights.size() - 1; i >= 0; i--) {
+            Light current = lights.get(i);
+            if (current.removed) {
+                if (current.lit)
+                    markDirty(current.tileX, current.tileY, current.reach);
+                lights.remove(i);
+                continue;
+            }
+            int tileX = (int) Math.floor(current.owner.getCenter().x() / Block.SIZE);
+            int tileY = (int) Math.floor(current.owner.getCenter().y() / Block.SIZE);
+            if (current.lit && !current.changed && tileX == current.tileX && tileY == current.tileY)
+                continue;
+            // the light moved or changed: both the tiles it lit and the tiles it lights now are recomputed.
+            if (current.lit)
+                markDirty(current.tileX, current.tileY, current.reach);
+            current.tileX = tileX;
+            current.tileY = tileY;
+            current.reach = (int) Math.ceil(current.radius / Block.SIZE);
+            current.appliedRadius = current.radius;
+            current.appliedIntensity = current.intensity;
+            current.changed = false;
+            current.lit = true;
+            markDirty(tileX, tileY, current.reach);
+        }
+        recomputeDirty();
+    }
+
+    // follows the camera. tiles scrolled into the screen are recomputed, the others stay where they are.
+    private void scroll() {
+        Vector2 screenTopLeft = camera.getTopLeftCorner();
+        int newOriginX = (int) Math.floor(screenTopLeft.x() / Block.SIZE);
+        int newOriginY = (int) Math.floor(screenTopLeft.y() / Block.SIZE);
+        if (placed && newOriginX == originX && newOriginY == originY)
+            return;
+        int scrolledX = newOriginX - originX, scrolledY = newOriginY - originY;
+        boolean jumped = !placed || Math.abs(scrolledX) >= columns || Math.abs(scrolledY) >= rows;
+        originX = newOriginX;
+        originY = newOriginY;
+        placed = true;
+        if (jumped) {
+            markArea(originX, originX + columns, originY, originY + rows);
+            return;
+        }
+        // the columns and rows that came into the screen
+        if (scrolledX > 0)
+            markArea(originX + columns - scrolledX, originX + columns, originY, originY + rows);
+        else if (scrolledX < 0)
+            markArea(originX, originX - scrolledX, originY, originY + rows);
+        if (scrolledY > 0)
+            markArea(originX, originX + columns, originY + rows - scrolledY, originY + rows);
+        else if (scrolledY < 0)
+            markArea(originX, originX + columns, originY, originY - scrolledY);
+    }
+
+    // marks the tiles with x in [fromX, toX) and y in [fromY, toY)
+    private void markArea(int fromX, int toX, int fromY, int toY) {
+        for (int y = fromY; y < toY; y++) {
+            for (int x = fromX; x < toX; x++)
+                markTile(x, y);
+        }
+    }
+
+    // marks every tile on screen within reach of a tile.
+    private void markDirty(int centerX, int centerY, int reach) {
+        markArea(Math.max(centerX - reach, originX), Math.min(centerX + reach + 1, originX + columns),
+                Math.max(centerY - reach, originY), Math.min(centerY + reach + 1, originY + rows));
+    }
+
+    private void markTile(int x, int y) {
+        int index = index(x, y);
+        if (!dirty[index]) {
+            dirty[index] = true;
+            dirtyTiles[dirtyCount++] = index;
+        }
+    }
+
+    // recomputes the light of every dirty tile, from the lights that reach it.
+    private void recomputeDirty() {
+        tilesLastFrame = dirtyCount;
+        tilesTotal += dirtyCount;
+        for (int i = 0; i < dirtyCount; i++) {
+            int index = dirtyTiles[i];
+            dirty[index] = false;
+            int x = worldTile(index % columns, originX, columns);
+            int y = worldTile(index / columns, originY, rows);
+            float value = 0;
+            for (int j = 0; j < lights.size(); j++)
+                value += lightAt(lights.get(j), x, y);
+            value = Math.min(1, value);
+            light[index] = value;
+            pixels[index] = (int) (OPAQUE * (1 - value)) << ALPHA_SHIFT;
+        }
+        dirtyCount = 0;
+    }
+
+    // light reaching a tile from a light, fading linearly from its center to its radius.
+    private static float lightAt(Light source, int x, int y) {
+        if (!source.lit || Math.abs(x - source.tileX) > source.reach || Math.abs(y - source.tileY) > source.reach)
+            return 0;
+        float dx = (x - source.tileX) * Block.SIZE;
+        float dy = (y - source.tileY) * Block.SIZE;
+        float distance = (float) Math.sqrt(dx * dx + dy * dy);
+        return source.appliedIntensity * Math.max(0, 1 - distance / source.appliedRadius);
+    }
+
+    // index in the ring of a tile on screen
+    private int index(int x, int y) {
+        return Math.floorMod(y, rows) * columns + Math.floorMod(x, columns);
+    }
+
+    // world tile coordinate on screen stored at a ring coordinate
+    private static int worldTile(int ring, int origin, int size) {
+        return origin + Math.floorMod(ring - origin, size);
+    }
+
+    /**
+     * draws the darkness over the screen, at the opacity of the night.
+     * @param g graphics
+     */
+    @Override
+    public void render(Graphics2D g) {
+        float opacity = MIDNIGHT_OPACITY * dayNightCycle.darkness();
+        if (opacity <= 0 || !placed)
+            return;
+        Composite originalComposite = g.getComposite();
+        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, opacity));
+        if (camera.getDimensions().x() > getDimensions().x()) {
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, (int) getDimensions().x(), (int) getDimensions().y());
+            g.setComposite(originalComposite);
+            return;
+        }
+        // the ring is cut at the tile of the screen's top left corner, so it's drawn in up to four pieces.
+        Vector2 screenTopLeft = camera.getTopLeftCorner();
+        int offsetX = (int) (originX * Block.SIZE - screenTopLeft.x());
+        int offsetY = (int) (originY * Block.SIZE - screenTopLeft.y());
+        int cutX = Math.floorMod(originX, columns);
+        int cutY = Math.floorMod(originY, rows);
+        drawPiece(g, cutX, columns, cutY, rows, offsetX, offsetY);
+        drawPiece(g, 0, cutX, cutY, rows, offsetX + (columns - cutX) * Block.SIZE, offsetY);
+        drawPiece(g, cutX, columns, 0, cutY, offsetX, offsetY + (rows - cutY) * Block.SIZE);
+        drawPiece(g, 0, cutX, 0, cutY, offsetX + (columns - cutX) * Block.SIZE,
+                offsetY + (rows - cutY) * Block.SIZE);
+        g.setComposite(originalComposite);
+    }
+
+    // draws the ring columns [fromX, toX) and rows [fromY, toY), scaled to tiles, at a screen location.
+    private void drawPiece(Graphics2D g, int fromX, int toX, int fromY, int toY, int screenX, int screenY) {
+        if (fromX >= toX || fromY >= toY)
+            return;
+        g.drawImage(overlay, screenX, screenY,
+                screenX + (toX - fromX) * Block.SIZE, screenY + (toY - fromY) * Block.SIZE,
+                fromX, fromY, toX, toY, null);
+    }
+
+    /**
+     * @return number of lights on the map
+     */
+    public int lightCount() { return lights.size(); }
+
+    /**
+     * @return number of tiles recomputed in the last frame
+     */
+    public int tilesLastFrame() { return tilesLastFrame; }
+
+    /**
+     * @return number of tiles recomputed since the game started
+     */
+    public long tilesTotal() { return tilesTotal; }
+
+    /**
+     * @param x x of a world location
+     * @param y y of a world location
+     * @return light reaching the location, between 0 and 1, or 0 if it's not on screen
+     */
+    public float lightAt(float x, float y) {
+        int tileX = (int) Math.floor(x / Block.SIZE), tileY = (int) Math.floor(y / Block.SIZE);
+        if (tileX < originX || tileX >= originX + columns || tileY < originY || tileY >= originY + rows)
+            return 0;
+        return light[index(tileX, tileY)];
+    }
+}
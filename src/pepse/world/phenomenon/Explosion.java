@@ -3,52 +3,57 @@ package pepse.world.phenomenon;
 import danogl.GameObject;
 import danogl.collisions.Collision;
 import danogl.collisions.GameObjectCollection;
-import danogl.gui.ImageReader;
-import danogl.gui.Sound;
-import danogl.gui.SoundReader;
-import danogl.gui.rendering.AnimationRenderable;
-import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.assets.AssetCache;
+import pepse.assets.AssetManifest;
+import pepse.audio.AudioMixer;
+import pepse.audio.SoundPriority;
 import pepse.world.Avatar;
+import pepse.world.Block;
 import pepse.world.NPC.Enemy;
+import pepse.world.hibernation.Hibernating;
+import pepse.world.lighting.LightMap;
+
+import java.util.function.Predicate;
 
 /**
  * Explosion is a phenomenon in the world which destroys everything it touches. Disappears after the explosion
- * is done.
+ * is done. An explosion only lasts a moment, and destroys what it touches even out of view, so it goes on
+ * while asleep.
  */
-public class Explosion extends GameObject{
+public class Explosion extends GameObject implements Hibernating {
     // constants
-    private static final int EXPLOSION_TIME = 20; // in update frames
+    private static final float EXPLOSION_TIME = 1 / 3f; // in seconds
     public static final String EXPLOSION_TAG = "explosion";
     private static final int EXPLOSIONS_DAMAGE = 3;
+    // the flash of the explosion fades out with the explosion
+    private static final float LIGHT_RADIUS = 300;
     // assets
     private static final String[] ANIMATION_PATH = {"src/assets/explosion1.png", "src/assets/explosion2.png",
             "src/assets/explosion3.png", "src/assets/explosion4.png", "src/assets/explosion5.png",
             "src/assets/explosion6.png", "src/assets/explosion7.png"};
     private static final double TIME_BETWEEN_CLIPS = 0.1;
     private static final String SOUND_PATH = "src/assets/explosion.wav";
-    // static fields
-    private static Renderable explosionAnimation;
-    private static Sound explosionSound;
     // fields
     private final GameObjectCollection gameObjects;
     private final int layer;
-    private int count = 0;
+    private Predicate<GameObject> remover = null;
+    private float elapsed = 0;
+    private LightMap lights = null;
+    private LightMap.Light light = null;
 
     /**
      * default c'tor
      * @param dimensions dimensions of the explosion, Vector 2.
      * @param gameObjects collection of game objects
      * @param layer the layer the explosion is at
-     * @param soundReader read sounds.
+     * @param assets asset cache, to get the explosion animation.
      */
-    public Explosion(Vector2 dimensions, GameObjectCollection gameObjects, int layer, SoundReader soundReader) {
-        super(Vector2.ZERO, dimensions, explosionAnimation);
+    public Explosion(Vector2 dimensions, GameObjectCollection gameObjects, int layer, AssetCache assets) {
+        super(Vector2.ZERO, dimensions, assets.readAnimation(ANIMATION_PATH, TIME_BETWEEN_CLIPS));
         this.gameObjects = gameObjects;
         this.layer = layer;
         this.setTag(EXPLOSION_TAG);
-        // play explosion sound once
-        explosionSound.play();
     }
 
     /**
@@ -56,28 +61,38 @@ public class Explosion extends GameObject{
      * @param gameObjects gameObject Collection - to add the explosion.
      * @param location location to place the explosion at.
      * @param explosionRadius radius (dimensions) of the explosion - in Int.
-     * @param imageReader - Image Reader to create explosion animation.
+     * @param assets - asset cache to get the explosion animation.
+     * @param audio - audio mixer to play the explosion sound at the location, may be null for silence.
+     * @param lights - light map lit by the explosion, may be null.
+     * @param remover - removes the objects destroyed from the world, with their timers, jobs and resting bodies,
+     *                and returns true if it did. may be null, then they are removed from their layer.
      * @param layer - the layer to place the explosion at.
-     * @param soundReader - Sound Reader to create explosion sound.
      * @return GameoOject explosion
      */
     public static GameObject create(GameObjectCollection gameObjects, Vector2 location, int explosionRadius,
-                                    ImageReader imageReader, int layer, SoundReader soundReader) {
+                                    AssetCache assets, AudioMixer audio, LightMap lights,
+                                    Predicate<GameObject> remover, int layer) {
         // create the renderable animation of the explosion
-        Explosion explosion = new Explosion(new Vector2(explosionRadius, explosionRadius), gameObjects, layer, soundReader);
+        Explosion explosion = new Explosion(new Vector2(explosionRadius, explosionRadius), gameObjects, layer, assets);
         gameObjects.addGameObject(explosion, layer);
         explosion.setCenter(location);
+        explosion.remover = remover;
+        // play explosion sound once
+        if (audio != null)
+            audio.play(SOUND_PATH, SoundPriority.HIGH, location);
+        if (lights != null) {
+            explosion.lights = lights;
+            explosion.light = lights.addLight(explosion, LIGHT_RADIUS, 1);
+        }
         return explosion;
     }
 
     /**
-     * initialize static assets.
-     * @param imageReader Read images.
-     * @param soundReader Read sounds.
+     * declare the assets of the explosion, so they are loaded at startup.
+     * @param manifest the asset manifest
      */
-    public static void initAssets(ImageReader imageReader, SoundReader soundReader) {
-        explosionAnimation = new AnimationRenderable(ANIMATION_PATH, imageReader, true, TIME_BETWEEN_CLIPS);
-        explosionSound = soundReader.readSound(SOUND_PATH);
+    public static void declareAssets(AssetManifest manifest) {
+        manifest.addSpriteAnimation(ANIMATION_PATH, TIME_BETWEEN_CLIPS, null).addStreamedSound(SOUND_PATH);
     }
     /**
      * explosion will not destroy the avatar or another explosion.
@@ -90,19 +105,20 @@ public class Explosion extends GameObject{
     }
 
     /**
-     * explosion removes every object it touches from the game.
+     * explosion removes every object it touches from the game, but the ground.
      * @param other game object to remove
      * @param collision collision information
      */
     @Override
     public void onCollisionEnter(GameObject other, Collision collision) {
         super.onCollisionEnter(other, collision);
-        // if object is an enemy, hit it with damage. else, remove object from game.
+        // if object is an enemy, hit it with damage. the ground stays. else, the world removes it the way it
+        // removes everything, and if it doesn't know it, remove object from game.
         if (other instanceof Enemy) {
             Enemy enemy;
             enemy = (Enemy) other;
             enemy.damageEnemy(EXPLOSIONS_DAMAGE);
-        } else {
+        } else if (!(other instanceof Block) && (remover == null || !remover.test(other))) {
             for (int i = 0; i <= 10; i++) {
                 if (gameObjects.removeGameObject(other, layer + i)) {
                     break;
@@ -118,9 +134,18 @@ public class Explosion extends GameObject{
     @Override
     public void update(float deltaTime) {
         super.update(deltaTime);
-        count++;
+        elapsed += deltaTime;
+        if (light != null)
+            light.setIntensity(Math.max(0, 1 - elapsed / EXPLOSION_TIME));
         // remove explosion from the game after animation has finished.
-        if (count > EXPLOSION_TIME)
-            gameObjects.removeGameObject(this, layer);
+        if (elapsed > EXPLOSION_TIME && gameObjects.removeGameObject(this, layer) && light != null)
+            lights.removeLight(light);
     }
+
+    /**
+     * an explosion asleep is updated as usual, so it's still removed once it's done.
+     * @param deltaTime game time
+     */
+    @Override
+    public void coarseUpdate(float deltaTime) { update(deltaTime); }
 }
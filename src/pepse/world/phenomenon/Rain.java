@@ -4,50 +4,100 @@ import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
 import danogl.components.CoordinateSpace;
 import danogl.components.ScheduledTask;
-import danogl.gui.ImageReader;
-import danogl.gui.Sound;
-import danogl.gui.SoundReader;
-import danogl.gui.rendering.AnimationRenderable;
-import danogl.gui.rendering.Renderable;
+import danogl.gui.rendering.Camera;
 import danogl.util.Vector2;
+import pepse.assets.AssetManifest;
+import pepse.audio.AudioMixer;
+import pepse.audio.SoundPriority;
+import pepse.util.TimerWheel;
+import pepse.world.Block;
+import pepse.world.Terrain;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Random;
 
 /**
- * singleton class Rain representing rain in the game
+ * singleton class Rain representing rain in the game.
+ * Rain is a particle system: the position and velocity of every drop are kept in primitive arrays, and all drops
+ * are moved in one loop. A drop falls until it reaches the ground under it, and then starts again above the screen.
+ * The number of falling drops is the capacity (set by the quality) times the intensity of the current rain.
+ * Drops are drawn straight onto the screen, each from a small image of its streak, so the cost of a frame follows
+ * the number of drops. Thousands of translucent lines through Graphics2D would cost several microseconds each.
  */
 public class Rain extends GameObject {
     // constants
     private static final String RAIN_TAG = "rain";
-    private static final float RAIN_OPAQ = 0.2f;
+    private static final int MAX_DROPS = 4000; // at full quality and intensity
+    // premultiplied, to match the images of the streaks
+    private static final int DROP_PIXEL = premultiplied(new Color(174, 194, 224, 150));
+    private static final float MIN_SPEED = 700;
+    private static final float MAX_SPEED = 1000;
+    private static final float WIND = -0.15f; // horizontal speed of a drop, relative to its falling speed
+    private static final float STREAK_TIME = 0.02f; // a drop is drawn as the path it made in this time
+    private static final float SPAWN_BAND = 100; // drops start again up to this high above the screen
     // assets
-    private static final String[] RAIN_ANIMATION = {"src/assets/rain1.png", "src/assets/rain2.png"};
-    // add this to add more frames to animation "src/assets/rain3.png", "src/assets/rain4.png", "src/assets/rain5.png".
-    private static final double TIME_BETWEEN_CLIPS = 0.1;
     private static final String RAIN_SOUND = "src/assets/rain.wav";
     // singleton object
     private static Rain rain;
     private static boolean isRaining = false;
     // fields
-    private final Sound rainSound;
+    private final AudioMixer audio;
     private final GameObjectCollection gameObjects;
     private final int layer;
+    private final Camera camera;
+    private final Terrain terrain;
+    private final Random random;
+    private final float width;
+    private final float height;
+    // drops
+    private final float[] x;
+    private final float[] y;
+    private final float[] velocityX;
+    private final float[] velocityY;
+    private int activeDrops = 0;
+    // stops the rain when its duration is over
+    private TimerWheel timers = null;
+    private TimerWheel.Timer stopTimer = null;
+    // height of the ground on screen, for every column of the screen a block wide, and the left of the screen in
+    // the world, scaled to the screen when the camera is zoomed out
+    private final float[] groundY;
+    private int firstColumn;
+    private float screenLeft;
+    // drops are drawn from the image of their streak, by the number of rows it falls through
+    private final BufferedImage[] streaks;
 
     /**
      * default c'tor
      *
-     * @param topLeftCorner location
-     * @param dimensions    dimensions vector
-     * @param renderable    animation
+     * @param windowDimensions rain fits the whole screen
      * @param gameObjects   collection to stop the rain
      * @param layer         layer to remove rain from
-     * @param soundReader   SoundReader
+     * @param camera        camera, to find where the screen is in the world
+     * @param terrain       terrain, to find where drops hit the ground
+     * @param audio         audio mixer to loop the rain sound, may be null for silence
+     * @param capacity      most drops falling at once
+     * @param seed          seed of the game, for where the drops fall
      */
-    private Rain(Vector2 topLeftCorner, Vector2 dimensions, Renderable renderable, GameObjectCollection gameObjects,
-                 int layer, SoundReader soundReader) {
-        super(topLeftCorner, dimensions, renderable);
-        // read sound
-        rainSound = soundReader.readSound(RAIN_SOUND);
+    Rain(Vector2 windowDimensions, GameObjectCollection gameObjects, int layer, Camera camera, Terrain terrain,
+         AudioMixer audio, int capacity, int seed) {
+        super(Vector2.ZERO, windowDimensions, null);
         this.gameObjects = gameObjects;
         this.layer = layer;
+        this.camera = camera;
+        this.terrain = terrain;
+        this.audio = audio;
+        this.random = new Random(seed);
+        this.width = windowDimensions.x();
+        this.height = windowDimensions.y();
+        this.x = new float[capacity];
+        this.y = new float[capacity];
+        this.velocityX = new float[capacity];
+        this.velocityY = new float[capacity];
+        this.groundY = new float[(int) (width / Block.SIZE) + 2];
+        this.streaks = new BufferedImage[(int) (MAX_SPEED * STREAK_TIME) + 1];
     }
 
     /**
@@ -56,43 +106,166 @@ public class Rain extends GameObject {
      * @param gameObjects      collection
      * @param layer            layer to place rain at
      * @param windowDimensions rain fits the whole screen
-     * @param imageReader      to read animations
-     * @param soundReader      to read sounds
+     * @param camera           camera, to find where the screen is in the world
+     * @param terrain          terrain, to find where drops hit the ground
+     * @param audio            audio mixer to loop the rain sound
+     * @param quality          between 0 and 1, scales the most drops falling at once
+     * @param seed             seed of the game
      */
     public static void create(GameObjectCollection gameObjects, int layer, Vector2 windowDimensions,
-                                    ImageReader imageReader, SoundReader soundReader) {
-        // read image
-        Renderable renderable = new AnimationRenderable(RAIN_ANIMATION, imageReader, true, TIME_BETWEEN_CLIPS);
+                              Camera camera, Terrain terrain, AudioMixer audio, float quality, int seed) {
+        int capacity = (int) (MAX_DROPS * Math.max(0, Math.min(1, quality)));
         // create rain, set it in CAMERA coordinate space.
-        rain = new Rain(Vector2.ZERO, windowDimensions, renderable, gameObjects, layer, soundReader);
+        rain = new Rain(windowDimensions, gameObjects, layer, camera, terrain, audio, capacity, seed);
         rain.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
-        rain.renderer().setOpaqueness(RAIN_OPAQ);
         rain.setTag(RAIN_TAG);
     } // end of method create
 
+    /**
+     * times the rain with the timers of the world, instead of a task on the rain.
+     * @param timers the timers of the world
+     */
+    public static void setTimers(TimerWheel timers) { rain.timers = timers; }
+
+    /**
+     * declare the assets of the rain, so they are loaded at startup.
+     * @param manifest the asset manifest
+     */
+    public static void declareAssets(AssetManifest manifest) {
+        manifest.addStreamedSound(RAIN_SOUND);
+    }
+
     /**
      * starts raining for X seconds
      * @param duration duration in seconds
+     * @param intensity between 0 and 1, the part of the drops that fall
      */
-    public static void startRain(int duration) {
+    public static void startRain(int duration, float intensity) {
         if (!isRaining) {
+            rain.setIntensity(intensity);
+            // start with drops all over the screen, not only above it.
+            for (int i = 0; i < rain.activeDrops; i++)
+                rain.y[i] = rain.random.nextFloat() * rain.height;
             rain.gameObjects.addGameObject(rain, rain.layer);
-            rain.rainSound.playLooped();
+            if (rain.audio != null)
+                rain.audio.loop(RAIN_SOUND, SoundPriority.NORMAL);
             isRaining = true;
             // remove Rain after duration, stop sound and set Instantiated to false.
-            new ScheduledTask(rain, duration, false, () -> {
-                isRaining = false;
-                rain.rainSound.stopAllOccurences();
-                rain.gameObjects.removeGameObject(rain, rain.layer);
-            });
+            if (rain.timers != null)
+                rain.stopTimer = rain.timers.schedule(rain, duration, false, Rain::stopRain);
+            else
+                new ScheduledTask(rain, duration, false, Rain::stopRain);
         }
     }
+
     /**
      * stops raining prematurely, for any reason.
      */
     public static void stopRain() {
         isRaining = false;
-        rain.rainSound.stopAllOccurences();
+        // stopped before its duration was over
+        if (rain.stopTimer != null)
+            rain.stopTimer.cancel();
+        if (rain.audio != null)
+            rain.audio.stop(RAIN_SOUND);
         rain.gameObjects.removeGameObject(rain, rain.layer);
     }
+
+    /**
+     * sets how hard it rains. Drops are added or removed, the drops already falling keep falling.
+     * @param intensity between 0 and 1, the part of the drops that fall
+     */
+    public void setIntensity(float intensity) {
+        int drops = (int) (x.length * Math.max(0, Math.min(1, intensity)));
+        for (int i = activeDrops; i < drops; i++)
+            respawn(i);
+        activeDrops = drops;
+    }
+
+    /**
+     * @return number of drops falling
+     */
+    public int activeDrops() { return activeDrops; }
+
+    /**
+     * moves every drop, and starts again every drop that hit the ground.
+     * @param deltaTime game time
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        updateGround();
+        for (int i = 0; i < activeDrops; i++) {
+            x[i] += velocityX[i] * deltaTime;
+            y[i] += velocityY[i] * deltaTime;
+            // drops blown off the side of the screen come back on the other side
+            if (x[i] < 0)
+                x[i] += width;
+            else if (x[i] >= width)
+                x[i] -= width;
+            if (y[i] >= groundY[column(x[i])])
+                respawn(i);
+        }
+    }
+
+    /**
+     * draws every drop as a short streak, from the image of it, straight onto the screen.
+     * @param g graphics
+     */
+    @Override
+    public void render(Graphics2D g) {
+        for (int i = 0; i < activeDrops; i++) {
+            int rows = (int) (velocityY[i] * STREAK_TIME);
+            int left = (int) Math.floor(x[i]);
+            g.drawImage(streak(rows), left, (int) (y[i] - rows), null);
+        }
+    }
+
+    // the image of the streak of a drop falling through the given number of rows, made the first time it's asked
+    // for. The drop is at its bottom right, and it slants left with the wind.
+    private BufferedImage streak(int rows) {
+        if (streaks[rows] == null) {
+            float streakX = rows * WIND;
+            int width = (int) Math.ceil(-streakX) + 1;
+            BufferedImage image = new BufferedImage(width, Math.max(rows, 1), BufferedImage.TYPE_INT_ARGB_PRE);
+            // written straight into the pixels, as the color is premultiplied already
+            int[] streakPixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            float stepX = streakX / rows, pixelX = -streakX;
+            for (int row = 0; row < rows; row++, pixelX += stepX)
+                streakPixels[row * width + Math.max(0, Math.min(width - 1, (int) pixelX))] = DROP_PIXEL;
+            streaks[rows] = image;
+        }
+        return streaks[rows];
+    }
+
+    // the height of the ground on screen, once for every column of the screen a block wide.
+    private void updateGround() {
+        Vector2 screenTopLeft = camera.getTopLeftCorner();
+        float scale = width / camera.getDimensions().x();
+        screenLeft = screenTopLeft.x() * scale;
+        firstColumn = (int) Math.floor(screenLeft / Block.SIZE);
+        for (int column = 0; column < groundY.length; column++)
+            groundY[column] = (terrain.groundHeightAt((firstColumn + column) * Block.SIZE / scale) -
+                    screenTopLeft.y()) * scale;
+    }
+
+    // the column on screen of a drop
+    private int column(float dropX) {
+        int column = (int) Math.floor((screenLeft + dropX) / Block.SIZE) - firstColumn;
+        return Math.max(0, Math.min(groundY.length - 1, column));
+    }
+
+    private static int premultiplied(Color color) {
+        int alpha = color.getAlpha();
+        return alpha << 24 | color.getRed() * alpha / 255 << 16 | color.getGreen() * alpha / 255 << 8 |
+                color.getBlue() * alpha / 255;
+    }
+
+    // starts a drop again, just above the screen
+    private void respawn(int i) {
+        x[i] = random.nextFloat() * width;
+        y[i] = -random.nextFloat() * SPAWN_BAND;
+        velocityY[i] = MIN_SPEED + random.nextFloat() * (MAX_SPEED - MIN_SPEED);
+        velocityX[i] = velocityY[i] * WIND;
+    }
 }
@@ -0,0 +1,184 @@
+package pepse.world.physics;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.util.Vector2;
+import pepse.world.streaming.Rebasing;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Puts to sleep the bodies that have settled, such as bones, the grave and landed leaves. A body lying on the
+ * ground keeps falling into it every frame and being pushed back out, and danogl tests it against every block of
+ * the ground it may collide with, for as long as it lies there.
+ * A body that hasn't moved for a number of frames falls asleep: its acceleration is put aside, and it's moved to
+ * the resting layer of its layer, which draws with it but doesn't collide with the ground. It's still updated, so
+ * its components go on. It's woken, back to its layer with its acceleration, as soon as it moves, whether it
+ * moved itself or something touching it pushed it. Explosions leave the ground, so the ground under a body is only
+ * removed far from the camera, where a body asleep stays where it lay until the ground is built again.
+ */
+public class RestingBodies {
+    // constants
+    private static final float STILL_SPEED = 0.5f; // in pixels per second
+    private static final int FRAMES_TO_SLEEP = 30;
+    private static final String STATS_MSG = "RestingBodies: %d active, %d sleeping, %d fell asleep, %d woken";
+    // fields
+    private final GameObjectCollection gameObjects;
+    private final Map<Integer, Integer> restingLayers = new HashMap<>();
+    private final Map<GameObject, Body> bodies = new IdentityHashMap<>();
+    // counters
+    private int sleeping = 0;
+    private long fellAsleep = 0;
+    private long woken = 0;
+
+    // a body, its layers, and how long it's been still.
+    private static class Body {
+        private final int layer;
+        private final int restingLayer;
+        private Vector2 lastTopLeftCorner;
+        private int stillFrames = 0;
+        private boolean asleep = false;
+        private Vector2 acceleration = Vector2.ZERO;
+
+        Body(GameObject gameObject, int layer, int restingLayer) {
+            this.layer = layer;
+            this.restingLayer = restingLayer;
+            // a copy, as danogl moves the object by changing its position in place
+            this.lastTopLeftCorner = new Vector2(gameObject.getTopLeftCorner());
+        }
+    }
+
+    /**
+     * default c'tor
+     * @param gameObjects collection the bodies are in
+     */
+    public RestingBodies(GameObjectCollection gameObjects) {
+        this.gameObjects = gameObjects;
+    }
+
+    /**
+     * sets the layer a body of a layer sleeps in. The resting layer should collide with what the layer collides
+     * with, except the ground, so a body asleep is still woken by what touches it.
+     * @param layer layer of the bodies awake
+     * @param restingLayer layer of the bodies asleep
+     */
+    public void setRestingLayer(int layer, int restingLayer) { restingLayers.put(layer, restingLayer); }
+
+    /**
+     * lets a body sleep once it settles. Bodies of a layer with no resting layer are left alone.
+     * @param body a body already added to the game
+     * @param layer the layer it was added to
+     */
+    public void add(GameObject body, int layer) {
+        Integer restingLayer = restingLayers.get(layer);
+        if (restingLayer != null)
+            bodies.put(body, new Body(body, layer, restingLayer));
+    }
+
+    /**
+     * removes a body from the game, from whichever of its layers it's in.
+     * @param body a body added to the resting bodies
+     * @return true if the body was removed, false if it isn't a resting body or wasn't in the game
+     */
+    public boolean remove(GameObject body) {
+        Body state = bodies.remove(body);
+        if (state == null)
+            return false;
+        if (state.asleep)
+            sleeping--;
+        return gameObjects.removeGameObject(body, state.asleep ? state.restingLayer : state.layer);
+    }
+
+    /**
+     * puts to sleep the bodies that have been still long enough, and wakes the bodies asleep that moved. Called
+     * once a frame, before the objects are updated.
+     */
+    public void update() {
+        Iterator<Map.Entry<GameObject, Body>> iterator = bodies.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<GameObject, Body> entry = iterator.next();
+            GameObject body = entry.getKey();
+            Body state = entry.getValue();
+            Vector2 topLeftCorner = body.getTopLeftCorner();
+            Vector2 velocity = body.getVelocity();
+            boolean still = topLeftCorner.equals(state.lastTopLeftCorner) &&
+                    Math.abs(velocity.x()) < STILL_SPEED && Math.abs(velocity.y()) < STILL_SPEED;
+            if (!still)
+                state.lastTopLeftCorner = new Vector2(topLeftCorner);
+            if (state.asleep) {
+                if (!still && !wake(body, state))
+                    iterator.remove();
+            }
+            else if (!still)
+                state.stillFrames = 0;
+            else if (++state.stillFrames >= FRAMES_TO_SLEEP && !sleep(body, state))
+                iterator.remove();
+        }
+    }
+
+    /**
+     * moves the last place of every body with the world, when the origin of the world moved, so a body that is
+     * still stays asleep.
+     * @param shiftX how far along x the origin moved
+     */
+    public void rebase(long shiftX) {
+        for (Body state : bodies.values())
+            state.lastTopLeftCorner = Rebasing.shifted(state.lastTopLeftCorner, shiftX);
+    }
+
+    // moves a body to its resting layer. Returns false if the body is no longer in the game.
+    private boolean sleep(GameObject body, Body state) {
+        if (!gameObjects.removeGameObject(body, state.layer))
+            return false;
+        // a copy, as setting the acceleration changes the vector it returned in place
+        state.acceleration = new Vector2(body.transform().getAcceleration());
+        body.transform().setAcceleration(Vector2.ZERO);
+        body.setVelocity(Vector2.ZERO);
+        gameObjects.addGameObject(body, state.restingLayer);
+        state.asleep = true;
+        sleeping++;
+        fellAsleep++;
+        return true;
+    }
+
+    // moves a body back to its layer. Returns false if the body is no longer in the game.
+    private boolean wake(GameObject body, Body state) {
+        state.asleep = false;
+        state.stillFrames = 0;
+        sleeping--;
+        if (!gameObjects.removeGameObject(body, state.restingLayer))
+            return false;
+        body.transform().setAcceleration(state.acceleration);
+        gameObjects.addGameObject(body, state.layer);
+        woken++;
+        return true;
+    }
+
+    /**
+     * @return number of bodies awake, taking part in collisions with the ground
+     */
+    public int activeCount() { return bodies.size() - sleeping; }
+
+    /**
+     * @return number of bodies asleep
+     */
+    public int sleepingCount() { return sleeping; }
+
+    /**
+     * @return number of times a body fell asleep since the game started
+     */
+    public long fellAsleep() { return fellAsleep; }
+
+    /**
+     * @return number of times a body was woken since the game started
+     */
+    public long woken() { return woken; }
+
+    @Override
+    public String toString() {
+        return String.format(STATS_MSG, activeCount(), sleepingCount(), fellAsleep, woken);
+    }
+}
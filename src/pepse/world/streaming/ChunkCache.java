@@ -0,0 +1,328 @@
+package pepse.world.streaming;
+
+import pepse.world.Block;
+import pepse.world.Terrain;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the chunks of the world in a compact form, so a chunk the player walks back to is built again as it
+ * was, instead of generated from scratch: the height of every column, the colour of every block as an index into
+ * the palette of the terrain, and the trees, with the colours of their trunks and leaves.
+ * The chunks in the world are kept while they're there, as the terrain and trees fill them in. Once removed, they
+ * are kept in a cache of bounded size, and the chunks used least recently are forgotten first. A chunk that isn't
+ * in the cache is read from the pregenerated world, if there is one and it reaches the chunk.
+ * Chunks are kept by their place in the whole world, so they stay the same when the origin of the world moves.
+ */
+public class ChunkCache {
+    // constants
+    private static final short NO_COLUMN = Short.MIN_VALUE;
+    private static final int CHUNK_BYTES = 64; // an estimate of the objects and array headers of a chunk
+    private static final int TREE_BYTES = 48;
+    private static final String STATS_MSG = "ChunkCache: %d chunks in the world, %d cached (%d KB of %d KB), " +
+            "%d hits, %d misses (%.0f%% hit rate), %d read from the pregenerated world, %d forgotten";
+    // fields
+    private final int chunkWidth;
+    private final int columns;
+    private final long maxBytes;
+    private final Map<Long, Chunk> loaded = new HashMap<>();
+    private final LinkedHashMap<Long, Chunk> cached = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes = 0;
+    private PregeneratedWorld pregenerated = null;
+    private FloatingOrigin origin = null;
+    // counters
+    private long hits = 0;
+    private long misses = 0;
+    private long pregeneratedChunks = 0;
+    private long forgotten = 0;
+
+    /**
+     * A chunk of the world in a compact form.
+     */
+    public class Chunk {
+        private final short[] heights = new short[columns];
+        private final byte[] colors = new byte[columns * Terrain.TERRAIN_DEPTH];
+        private final List<TreeRecord> trees = new ArrayList<>(1);
+
+        private Chunk() {
+            Arrays.fill(heights, NO_COLUMN);
+        }
+
+        /**
+         * @param x x of a column in the world
+         * @return true if the column was created in the chunk before
+         */
+        public boolean hasColumn(int x) { return heights[columnOf(x)] != NO_COLUMN; }
+
+        /**
+         * @param x x of a column in the world
+         * @return y of the top of the column
+         */
+        public int height(int x) { return heights[columnOf(x)]; }
+
+        /**
+         * @param x x of a column in the world
+         * @param block number of the block from the top of the column
+         * @return index of the colour of the block in the palette of the terrain
+         */
+        public int colorIndex(int x, int block) {
+            return colors[columnOf(x) * Terrain.TERRAIN_DEPTH + block] & 0xFF;
+        }
+
+        /**
+         * remembers a column created in the chunk.
+         * @param x x of the column in the world
+         * @param height y of the top of the column
+         * @param colorIndices index of the colour of every block from the top, in the palette of the terrain
+         */
+        public void setColumn(int x, int height, byte[] colorIndices) {
+            int column = columnOf(x);
+            heights[column] = (short) height;
+            System.arraycopy(colorIndices, 0, colors, column * Terrain.TERRAIN_DEPTH, Terrain.TERRAIN_DEPTH);
+        }
+
+        /**
+         * @param location x of a place for a tree in the world
+         * @return the tree at the place, with a root height of 0 if it was decided there is none, or null if it
+         * wasn't decided yet
+         */
+        public TreeRecord tree(long location) {
+            for (TreeRecord tree : trees) {
+                if (tree.location == location)
+                    return tree;
+            }
+            return null;
+        }
+
+        /**
+         * remembers a tree, or that there is none at a place.
+         * @param tree the tree
+         */
+        public void addTree(TreeRecord tree) { trees.add(tree); }
+
+        /**
+         * @return number of bytes the chunk is written in
+         */
+        public int writtenBytes() {
+            int bytes = Short.BYTES * heights.length + colors.length + Short.BYTES;
+            for (TreeRecord tree : trees)
+                bytes += Long.BYTES + 2 * Byte.BYTES + tree.trunkColors.length + tree.leafColors.length;
+            return bytes;
+        }
+
+        /**
+         * writes the chunk as it was generated.
+         * Format: the height of every column, the colour of every block, the number of trees, then every tree:
+         * its location, root height, number of leaves, and the colours of its trunk and leaves.
+         * @param out where to write, at its position
+         */
+        public void write(ByteBuffer out) {
+            for (short height : heights)
+                out.putShort(height);
+            out.put(colors);
+            out.putShort((short) trees.size());
+            for (TreeRecord tree : trees) {
+                out.putLong(tree.location);
+                out.put((byte) tree.rootHeight);
+                out.put((byte) tree.leafColors.length);
+                out.put(tree.trunkColors);
+                out.put(tree.leafColors);
+            }
+        }
+
+        /**
+         * reads a chunk written by write into this empty chunk.
+         * @param in where to read from, at its position
+         */
+        public void read(ByteBuffer in) {
+            for (int i = 0; i < heights.length; i++)
+                heights[i] = in.getShort();
+            in.get(colors);
+            int count = in.getShort();
+            for (int i = 0; i < count; i++) {
+                long location = in.getLong();
+                byte[] trunkColors = new byte[in.get()];
+                byte[] leafColors = new byte[in.get()];
+                in.get(trunkColors);
+                in.get(leafColors);
+                trees.add(new TreeRecord(location, trunkColors.length, trunkColors, leafColors));
+            }
+        }
+
+        // an estimate of the memory the chunk takes
+        private long bytes() {
+            long bytes = CHUNK_BYTES + 2L * heights.length + colors.length;
+            for (TreeRecord tree : trees)
+                bytes += TREE_BYTES + tree.trunkColors.length + tree.leafColors.length;
+            return bytes;
+        }
+    }
+
+    /**
+     * A tree in a compact form.
+     */
+    public static class TreeRecord {
+        /** x of the trunk in the world */
+        public final long location;
+        /** number of blocks of the trunk, 0 if there is no tree */
+        public final int rootHeight;
+        /** index of the colour of every block of the trunk, from the bottom, in the palette of the trunks */
+        public final byte[] trunkColors;
+        /** index of the colour of every leaf, column by column, in the palette of the leaves */
+        public final byte[] leafColors;
+
+        /**
+         * default c'tor
+         * @param location x of the trunk in the world
+         * @param rootHeight number of blocks of the trunk, 0 if there is no tree
+         * @param trunkColors index of the colour of every block of the trunk
+         * @param leafColors index of the colour of every leaf
+         */
+        public TreeRecord(long location, int rootHeight, byte[] trunkColors, byte[] leafColors) {
+            this.location = location;
+            this.rootHeight = rootHeight;
+            this.trunkColors = trunkColors;
+            this.leafColors = leafColors;
+        }
+    }
+
+    /**
+     * default c'tor
+     * @param chunkWidth width of a chunk, in pixels, a multiple of Block.SIZE
+     * @param maxBytes most memory the chunks removed from the world may take, estimated
+     */
+    public ChunkCache(int chunkWidth, long maxBytes) {
+        this.chunkWidth = chunkWidth;
+        this.columns = chunkWidth / Block.SIZE;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * reads the chunks that aren't in the cache from a pregenerated world, where it reaches, instead of starting
+     * them empty.
+     * @param pregenerated the pregenerated world
+     */
+    public void setPregenerated(PregeneratedWorld pregenerated) { this.pregenerated = pregenerated; }
+
+    /**
+     * measures x from a floating origin, so the chunks are kept by their place in the whole world.
+     * @param origin the origin of the world
+     */
+    public void setOrigin(FloatingOrigin origin) { this.origin = origin; }
+
+    /**
+     * @return a new empty chunk, outside of the cache, such as to generate ahead of the game
+     */
+    public Chunk newChunk() { return new Chunk(); }
+
+    /**
+     * brings back the chunks of a range the world is extended to from the cache, or reads them from the
+     * pregenerated world, or starts them empty.
+     * @param minX left of the range
+     * @param maxX right of the range
+     */
+    public void load(int minX, int maxX) {
+        long last = indexOf(maxX - 1);
+        for (long index = indexOf(minX); index <= last; index++) {
+            if (loaded.containsKey(index))
+                continue;
+            Chunk chunk = cached.remove(index);
+            if (chunk != null) {
+                cachedBytes -= chunk.bytes();
+                hits++;
+            }
+            else {
+                chunk = new Chunk();
+                if (pregenerated != null && pregenerated.read(index, chunk))
+                    pregeneratedChunks++;
+                else
+                    misses++;
+            }
+            loaded.put(index, chunk);
+        }
+    }
+
+    /**
+     * moves the chunks entirely outside of the range the world reaches to the cache, and forgets the chunks used
+     * least recently while it's too big.
+     * @param minX left of the range
+     * @param maxX right of the range
+     */
+    public void unload(int minX, int maxX) {
+        Iterator<Map.Entry<Long, Chunk>> iterator = loaded.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Chunk> entry = iterator.next();
+            long left = entry.getKey() * chunkWidth - (origin == null ? 0 : origin.offsetX());
+            if (left + chunkWidth > minX && left < maxX)
+                continue;
+            iterator.remove();
+            cached.put(entry.getKey(), entry.getValue());
+            cachedBytes += entry.getValue().bytes();
+        }
+        Iterator<Chunk> eldest = cached.values().iterator();
+        while (cachedBytes > maxBytes && eldest.hasNext()) {
+            cachedBytes -= eldest.next().bytes();
+            eldest.remove();
+            forgotten++;
+        }
+    }
+
+    /**
+     * @param x x in the world
+     * @return the chunk in the world holding x, or null if the world doesn't reach it, such as a chunk removed
+     * before the jobs building it were done
+     */
+    public Chunk chunkAt(int x) { return loaded.get(indexOf(x)); }
+
+    // index in the whole world of the chunk holding x
+    private long indexOf(int x) {
+        return Math.floorDiv(origin == null ? x : origin.worldX(x), (long) chunkWidth);
+    }
+
+    // column in its chunk of a world x
+    private int columnOf(int x) { return Math.floorMod(x, chunkWidth) / Block.SIZE; }
+
+    /**
+     * @return number of chunks brought back from the cache
+     */
+    public long hits() { return hits; }
+
+    /**
+     * @return number of chunks the world was extended to that weren't in the cache, nor pregenerated
+     */
+    public long misses() { return misses; }
+
+    /**
+     * @return number of chunks read from the pregenerated world
+     */
+    public long pregeneratedChunks() { return pregeneratedChunks; }
+
+    /**
+     * @return number of chunks forgotten to keep the cache in its size
+     */
+    public long forgotten() { return forgotten; }
+
+    /**
+     * @return number of chunks in the cache
+     */
+    public int cachedChunks() { return cached.size(); }
+
+    /**
+     * @return estimated memory the chunks in the cache take
+     */
+    public long cachedBytes() { return cachedBytes; }
+
+    @Override
+    public String toString() {
+        long total = hits + misses;
+        return String.format(STATS_MSG, loaded.size(), cached.size(), cachedBytes / 1024, maxBytes / 1024, hits,
+                misses, total == 0 ? 0 : 100.0 * hits / total, pregeneratedChunks, forgotten);
+    }
+}
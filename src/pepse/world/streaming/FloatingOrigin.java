@@ -0,0 +1,81 @@
+package pepse.world.streaming;
+
+/**
+ * Keeps the positions in the world near zero however far the player travels, where floats still have sub-pixel
+ * precision. Positions are measured from an origin that is moved along x, a whole number of steps at a time, once
+ * the camera gets far from it, and everything living in the world is moved back by as much in the same frame.
+ * The offset of the origin in the whole world is kept here in 64 bits, so what is decided by a place, such as the
+ * ground, the trees and the chunks remembered, is decided by its place in the whole world, and comes out the same
+ * wherever the origin is.
+ */
+public class FloatingOrigin {
+    // constants
+    private static final String STATS_MSG = "FloatingOrigin: at %d px in the world, moved %d times, %.3f ms the " +
+            "slowest";
+    // fields
+    private final float distance;
+    private final int step;
+    private long offsetX = 0;
+    // counters
+    private long rebases = 0;
+    private long slowestNanos = 0;
+
+    /**
+     * default c'tor
+     * @param distance how far from the origin the camera may get before the origin is moved, in pixels
+     * @param step the origin is moved by a multiple of it, in pixels, so chunks, tiles and places for trees stay
+     *             aligned to it
+     */
+    public FloatingOrigin(float distance, int step) {
+        this.distance = distance;
+        this.step = step;
+    }
+
+    /**
+     * @return x of the origin in the whole world
+     */
+    public long offsetX() { return offsetX; }
+
+    /**
+     * @param x x measured from the origin
+     * @return x in the whole world
+     */
+    public long worldX(int x) { return offsetX + x; }
+
+    /**
+     * @param cameraX x of the center of the camera, measured from the origin
+     * @return how far along x the origin should be moved, to the step the camera is in, or 0 if the camera is
+     * near enough to it
+     */
+    public int shiftFor(float cameraX) {
+        if (Math.abs(cameraX) < distance)
+            return 0;
+        return Math.floorDiv((int) Math.floor(cameraX), step) * step;
+    }
+
+    /**
+     * tells the origin was moved, and everything in the world was moved back by as much.
+     * @param shiftX how far along x the origin was moved
+     * @param nanos how long it took to move the world
+     */
+    public void rebased(long shiftX, long nanos) {
+        offsetX += shiftX;
+        rebases++;
+        slowestNanos = Math.max(slowestNanos, nanos);
+    }
+
+    /**
+     * @return number of times the origin was moved
+     */
+    public long rebases() { return rebases; }
+
+    /**
+     * @return the longest it took to move the world, in nanoseconds
+     */
+    public long slowestNanos() { return slowestNanos; }
+
+    @Override
+    public String toString() {
+        return String.format(STATS_MSG, offsetX, rebases, slowestNanos / 1e6);
+    }
+}
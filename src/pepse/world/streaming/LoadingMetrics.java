@@ -0,0 +1,102 @@
+package pepse.world.streaming;
+
+/**
+ * Times how long the world takes to be there after the player is moved to a place it wasn't built at, such as
+ * by a teleport: until the ground in view is there, which is when the player may move, and until every job
+ * building the world around it is done. Both are measured in time from the teleport, and in frames.
+ */
+public class LoadingMetrics {
+    // constants
+    private static final String STATS_MSG = "LoadingMetrics: %d loads, the ground in view in %.1f ms (%d frames) " +
+            "on average and %.1f ms at most, all of the world in %.1f ms (%d frames) on average";
+    private static final long NOT_YET = -1;
+    // fields
+    private long start;
+    private int frames = 0;
+    private long groundNanos = NOT_YET;
+    private int groundFrames = 0;
+    private boolean loading = false;
+    // counters
+    private long loads = 0;
+    private long totalGroundNanos = 0;
+    private long totalGroundFrames = 0;
+    private long slowestGroundNanos = 0;
+    private long totalDoneNanos = 0;
+    private long totalDoneFrames = 0;
+
+    /**
+     * starts timing a load, when the player is moved. A load that wasn't done is dropped.
+     */
+    public void started() {
+        start = System.nanoTime();
+        frames = 0;
+        groundNanos = NOT_YET;
+        loading = true;
+    }
+
+    /**
+     * tells the ground in view is there.
+     */
+    public void groundReady() {
+        if (!loading || groundNanos != NOT_YET)
+            return;
+        groundNanos = System.nanoTime() - start;
+        groundFrames = frames + 1;
+    }
+
+    /**
+     * counts a frame of the load, once a frame at its end, and ends the load when all of the world is there.
+     * @param done true if every job building the world is done
+     */
+    public void frame(boolean done) {
+        if (!loading)
+            return;
+        frames++;
+        if (!done || groundNanos == NOT_YET)
+            return;
+        loading = false;
+        loads++;
+        totalGroundNanos += groundNanos;
+        totalGroundFrames += groundFrames;
+        slowestGroundNanos = Math.max(slowestGroundNanos, groundNanos);
+        totalDoneNanos += System.nanoTime() - start;
+        totalDoneFrames += frames;
+    }
+
+    /**
+     * @return true from the start of a load until all of the world is there
+     */
+    public boolean isLoading() { return loading; }
+
+    /**
+     * @return true from the start of a load until the ground in view is there
+     */
+    public boolean isGroundLoading() { return loading && groundNanos == NOT_YET; }
+
+    /**
+     * @return time the ground in view took to be there in the last load, in nanoseconds, or -1 if it isn't yet
+     */
+    public long groundNanos() { return groundNanos; }
+
+    /**
+     * @return number of frames the ground in view took to be there in the last load
+     */
+    public int groundFrames() { return groundFrames; }
+
+    /**
+     * @return number of frames of the last load so far
+     */
+    public int frames() { return frames; }
+
+    /**
+     * @return number of loads done
+     */
+    public long loads() { return loads; }
+
+    @Override
+    public String toString() {
+        long count = Math.max(1, loads);
+        return String.format(STATS_MSG, loads, totalGroundNanos / 1e6 / count, totalGroundFrames / count,
+                slowestGroundNanos / 1e6, totalDoneNanos / 1e6 / count, totalDoneFrames / count);
+    }
+}
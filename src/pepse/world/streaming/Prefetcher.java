@@ -0,0 +1,251 @@
+package pepse.world.streaming;
+
+import danogl.gui.rendering.Camera;
+
+/**
+ * Decides which part of the world should be there, from where the camera is and where it's going. The world is
+ * built and removed in chunks of a fixed width.
+ * The speed of the camera is estimated every frame, smoothed over a fraction of a second, and the world is wanted
+ * a margin beyond each side of the view, and, on the side the camera moves to, as far as it will get in the
+ * lookahead time on top. The world behind the camera only keeps the margin, and a chunk of slack so standing at
+ * the border of a chunk doesn't build and remove it over and over. The lookahead kept follows the fastest speed of
+ * the last seconds rather than the speed now, fading out slowly, so the world built ahead isn't removed as soon as
+ * the camera slows down, only to be built again when it speeds up.
+ * The rows of the world wanted are the view and the margin above and below it, in tiles of a fixed height, and the
+ * rows kept have a tile of slack on each side, as the ground goes down without end.
+ * The view is of a fixed size around the center of the camera, whatever the camera shows.
+ * It also keeps the part of the world that was actually generated, as the jobs building it finish, and counts the
+ * frames in which the view went past it.
+ */
+public class Prefetcher {
+    // constants
+    private static final float SMOOTHING_TIME = 0.25f; // in seconds
+    private static final float KEEP_TIME = 2f; // in seconds, how slowly the lookahead kept fades out
+    private static final String STATS_MSG = "Prefetcher: %.0f px/s, %d chunks built, %d chunks removed, view past " +
+            "the generated world in %d frames (%d times)";
+    // fields
+    private final Camera camera;
+    private final float viewWidth;
+    private final float viewHeight;
+    private final float margin;
+    private final float lookahead;
+    private final int chunkWidth;
+    private final int tileHeight;
+    private float lastLeft;
+    private float velocity = 0;
+    // speeds the lookahead is kept for on each side, positive
+    private float keptSpeedLeft = 0;
+    private float keptSpeedRight = 0;
+    // what was generated, from the left end of its leftmost chunk to the right end of its rightmost
+    private int generatedLeft;
+    private int generatedRight;
+    private boolean missing = false;
+    // counters
+    private long chunksBuilt = 0;
+    private long chunksRemoved = 0;
+    private long missFrames = 0;
+    private long misses = 0;
+
+    /**
+     * default c'tor
+     * @param camera the camera whose view is kept in the world
+     * @param viewWidth width of the view, in pixels
+     * @param viewHeight height of the view, in pixels
+     * @param margin distance beyond each side of the view the world is kept, in pixels
+     * @param lookahead time ahead of the camera the world is built for, in seconds
+     * @param chunkWidth width of a chunk, in pixels
+     * @param tileHeight height of the rows the world is built and removed in, in pixels
+     */
+    public Prefetcher(Camera camera, float viewWidth, float viewHeight, float margin, float lookahead,
+                      int chunkWidth, int tileHeight) {
+        this.camera = camera;
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        this.margin = margin;
+        this.lookahead = lookahead;
+        this.chunkWidth = chunkWidth;
+        this.tileHeight = tileHeight;
+        this.lastLeft = viewLeft();
+        this.generatedLeft = wantedLeft();
+        this.generatedRight = generatedLeft;
+    }
+
+    /**
+     * estimates the speed of the camera, once a frame, after it moved.
+     * @param deltaTime game time
+     */
+    public void update(float deltaTime) {
+        float left = viewLeft();
+        if (deltaTime > 0) {
+            float ratio = Math.min(1, deltaTime / SMOOTHING_TIME);
+            velocity += ((left - lastLeft) / deltaTime - velocity) * ratio;
+            float fade = 1 - Math.min(1, deltaTime / KEEP_TIME);
+            keptSpeedLeft = Math.max(Math.max(0, -velocity), keptSpeedLeft * fade);
+            keptSpeedRight = Math.max(Math.max(0, velocity), keptSpeedRight * fade);
+        }
+        lastLeft = left;
+    }
+
+    /**
+     * @return left end of the world there should be, at the left end of a chunk
+     */
+    public int wantedLeft() { return leftOf(Math.max(0, -velocity)); }
+
+    /**
+     * @return right end of the world there should be, at the right end of a chunk
+     */
+    public int wantedRight() { return rightOf(Math.max(0, velocity)); }
+
+    /**
+     * @return left end of the world that may stay. The world left of it should be removed.
+     */
+    public int keptLeft() { return leftOf(keptSpeedLeft) - chunkWidth; }
+
+    /**
+     * @return right end of the world that may stay. The world right of it should be removed.
+     */
+    public int keptRight() { return rightOf(keptSpeedRight) + chunkWidth; }
+
+    // left end of the world for a speed to the left, at the left end of a chunk
+    private int leftOf(float speed) {
+        return Math.floorDiv((int) Math.floor(viewLeft() - margin - speed * lookahead), chunkWidth) * chunkWidth;
+    }
+
+    // right end of the world for a speed to the right, at the right end of a chunk
+    private int rightOf(float speed) {
+        float right = viewLeft() + viewWidth + margin + speed * lookahead;
+        return -Math.floorDiv(-(int) Math.ceil(right), chunkWidth) * chunkWidth;
+    }
+
+    /**
+     * @return top of the rows of the world there should be, at the top of a tile
+     */
+    public int wantedTop() {
+        return Math.floorDiv((int) Math.floor(viewTop() - margin), tileHeight) * tileHeight;
+    }
+
+    /**
+     * @return bottom of the rows of the world there should be, at the bottom of a tile
+     */
+    public int wantedBottom() {
+        return -Math.floorDiv(-(int) Math.ceil(viewTop() + viewHeight + margin), tileHeight) * tileHeight;
+    }
+
+    /**
+     * @return top of the rows of the world that may stay. The world above it should be removed.
+     */
+    public int keptTop() { return wantedTop() - tileHeight; }
+
+    /**
+     * @return bottom of the rows of the world that may stay. The world below it should be removed.
+     */
+    public int keptBottom() { return wantedBottom() + tileHeight; }
+
+    /**
+     * tells a chunk was asked to be built.
+     */
+    public void chunkQueued() { chunksBuilt++; }
+
+    /**
+     * tells a range of the world was generated. It joins the world generated if it touches it.
+     * @param minX left end of the range
+     * @param maxX right end of the range
+     */
+    public void generated(int minX, int maxX) {
+        if (generatedLeft == generatedRight) {
+            generatedLeft = minX;
+            generatedRight = maxX;
+        }
+        else if (minX <= generatedRight && maxX >= generatedLeft) {
+            generatedLeft = Math.min(generatedLeft, minX);
+            generatedRight = Math.max(generatedRight, maxX);
+        }
+    }
+
+    /**
+     * tells the world outside of a range was removed.
+     * @param minX left end of the range
+     * @param maxX right end of the range
+     */
+    public void retained(int minX, int maxX) {
+        chunksRemoved += Math.max(0, minX - generatedLeft) / chunkWidth + Math.max(0, generatedRight - maxX) / chunkWidth;
+        generatedLeft = Math.max(generatedLeft, minX);
+        generatedRight = Math.max(generatedLeft, Math.min(generatedRight, maxX));
+    }
+
+    /**
+     * forgets the world generated and the speed of the camera, when the camera was moved to a place the world
+     * wasn't built at, such as by a teleport.
+     */
+    public void reset() {
+        lastLeft = viewLeft();
+        velocity = 0;
+        keptSpeedLeft = 0;
+        keptSpeedRight = 0;
+        generatedLeft = wantedLeft();
+        generatedRight = generatedLeft;
+        missing = false;
+    }
+
+    /**
+     * moves what the prefetcher remembers of the world with it, when the origin of the world moved. The speed of
+     * the camera stays.
+     * @param shiftX how far along x the origin moved
+     */
+    public void rebase(int shiftX) {
+        lastLeft -= shiftX;
+        generatedLeft -= shiftX;
+        generatedRight -= shiftX;
+    }
+
+    /**
+     * checks whether the view went past the world generated, once a frame, before it's rendered.
+     */
+    public void checkView() {
+        float left = viewLeft();
+        boolean missingNow = left < generatedLeft || left + viewWidth > generatedRight;
+        if (missingNow) {
+            missFrames++;
+            if (!missing)
+                misses++;
+        }
+        missing = missingNow;
+    }
+
+    // left of the view in the world, around the center of the camera, so a camera zoomed out still keeps only the
+    // world of the view around it
+    private float viewLeft() { return camera.getCenter().x() - viewWidth / 2; }
+
+    // top of the view in the world
+    private float viewTop() { return camera.getCenter().y() - viewHeight / 2; }
+
+    /**
+     * @return estimated speed of the camera, in pixels per second, positive to the right
+     */
+    public float velocity() { return velocity; }
+
+    /**
+     * @return number of frames the view went past the world generated
+     */
+    public long missFrames() { return missFrames; }
+
+    /**
+     * @return number of times the view went past the world generated, however many frames it stayed past it
+     */
+    public long misses() { return misses; }
+
+    /**
+     * @return number of chunks asked to be built
+     */
+    public long chunksBuilt() { return chunksBuilt; }
+
+    /**
+     * @return number of generated chunks removed
+     */
+    public long chunksRemoved() { return chunksRemoved; }
+
+    @Override
+    public String toString() {
+        return String.format(STATS_MSG, velocity, chunksBuilt, chunksRemoved, missFrames, misses);
+    }
+}
@@ -0,0 +1,76 @@
+package pepse.world.streaming;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The regions of the world generated ahead of the game, in a folder (see RegionPregenerator). A region is mapped
+ * into memory the first time one of its chunks is read, and stays mapped. The world outside of the regions is
+ * generated as the game goes.
+ */
+public class PregeneratedWorld {
+    // fields
+    private final Path dir;
+    private final int seed;
+    private final int windowHeight;
+    private final int chunkWidth;
+    private final Map<Integer, RegionFile> regions = new HashMap<>(); // null for a region that wasn't generated
+    // counters
+    private long chunksRead = 0;
+    private long mappedBytes = 0;
+
+    /**
+     * default c'tor
+     * @param dir folder of the regions
+     * @param seed seed of the world. Regions generated for another world are ignored.
+     * @param windowHeight height of the window, which the height of the ground depends on
+     * @param chunkWidth width of a chunk, in pixels
+     */
+    public PregeneratedWorld(Path dir, int seed, int windowHeight, int chunkWidth) {
+        this.dir = dir;
+        this.seed = seed;
+        this.windowHeight = windowHeight;
+        this.chunkWidth = chunkWidth;
+    }
+
+    /**
+     * reads a chunk, if it was generated.
+     * @param chunk index of the chunk, its left end divided by the width of a chunk
+     * @param into the empty chunk to read into
+     * @return true if the chunk was generated, and was read
+     */
+    public boolean read(long chunk, ChunkCache.Chunk into) {
+        // regions are numbered in ints, far wider than any world generated ahead
+        if (chunk != (int) chunk)
+            return false;
+        int index = RegionFile.regionOf((int) chunk);
+        if (!regions.containsKey(index)) {
+            RegionFile region = null;
+            try {
+                region = RegionFile.open(dir, index, seed, windowHeight, chunkWidth);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            regions.put(index, region);
+            if (region != null)
+                mappedBytes += region.size();
+        }
+        RegionFile region = regions.get(index);
+        if (region == null || !region.read((int) chunk, into))
+            return false;
+        chunksRead++;
+        return true;
+    }
+
+    /**
+     * @return number of chunks read
+     */
+    public long chunksRead() { return chunksRead; }
+
+    /**
+     * @return size of the regions mapped, in bytes
+     */
+    public long mappedBytes() { return mappedBytes; }
+}
@@ -0,0 +1,27 @@
+package pepse.world.streaming;
+
+import danogl.util.Vector2;
+
+/**
+ * An object that remembers places in the world besides its own position, such as where it started. When the
+ * origin of the world is moved, the game moves the object back, and the object moves the places it remembers.
+ * Objects that aren't Rebasing only have their position moved.
+ */
+public interface Rebasing {
+    /**
+     * called once the origin of the world was moved, after the object itself was moved.
+     * @param shiftX how far along x the origin was moved. Everything in the world was moved by minus it.
+     */
+    void rebase(long shiftX);
+
+    /**
+     * moves a place back by a move of the origin. The shift is subtracted in double, so a long shift, such as of a
+     * teleport, doesn't lose its precision before it meets the place.
+     * @param position the place
+     * @param shiftX how far along x the origin was moved
+     * @return the place moved
+     */
+    static Vector2 shifted(Vector2 position, long shiftX) {
+        return new Vector2((float) (position.x() - (double) shiftX), position.y());
+    }
+}
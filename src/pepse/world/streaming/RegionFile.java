@@ -0,0 +1,140 @@
+package pepse.world.streaming;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A region of the world generated ahead of the game: a fixed number of chunks in a row, in one file, read through
+ * a memory mapped FileChannel.
+ * Format: magic, version, the seed, height of the window and width of a chunk the world was generated for, the
+ * index of the region, then an index of (offset, length) entries, one for every chunk of the region, with a length
+ * of 0 for a chunk that wasn't generated, then the chunks, as ChunkCache.Chunk writes them.
+ */
+public class RegionFile {
+    // format
+    private static final int MAGIC = 0x50455052; // "PEPR"
+    private static final int VERSION = 2; // trees at long locations
+    private static final int HEADER_BYTES = 6 * Integer.BYTES;
+    private static final int INDEX_ENTRY_BYTES = 2 * Integer.BYTES;
+    /**
+     * number of chunks in a region.
+     */
+    public static final int REGION_CHUNKS = 64;
+    private static final String FILE_NAME = "r.%d.region";
+    // fields
+    private final MappedByteBuffer data;
+    private final int firstChunk;
+
+    private RegionFile(MappedByteBuffer data, int firstChunk) {
+        this.data = data;
+        this.firstChunk = firstChunk;
+    }
+
+    /**
+     * @param chunk index of a chunk, its left end divided by the width of a chunk
+     * @return index of the region holding the chunk
+     */
+    public static int regionOf(int chunk) { return Math.floorDiv(chunk, REGION_CHUNKS); }
+
+    /**
+     * @param dir folder of the regions
+     * @param region index of a region
+     * @return path of the file of the region
+     */
+    public static Path pathOf(Path dir, int region) { return dir.resolve(String.format(FILE_NAME, region)); }
+
+    /**
+     * maps the file of a region into memory and checks it was generated for this world.
+     * @param dir folder of the regions
+     * @param region index of the region
+     * @param seed seed of the world
+     * @param windowHeight height of the window, which the height of the ground depends on
+     * @param chunkWidth width of a chunk, in pixels
+     * @return the region, or null if it wasn't generated
+     * @throws IOException if the file exists but isn't a region of this world
+     */
+    public static RegionFile open(Path dir, int region, int seed, int windowHeight, int chunkWidth)
+            throws IOException {
+        Path path = pathOf(dir, region);
+        if (!Files.isRegularFile(path))
+            return null;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed.
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (data.getInt() != MAGIC || data.getInt() != VERSION)
+                throw new IOException("not a region: " + path);
+            if (data.getInt() != seed || data.getInt() != windowHeight || data.getInt() != chunkWidth ||
+                    data.getInt() != region)
+                throw new IOException("region of another world: " + path);
+            return new RegionFile(data, region * REGION_CHUNKS);
+        }
+    }
+
+    /**
+     * writes the chunks of a region to its file.
+     * @param dir folder of the regions
+     * @param region index of the region
+     * @param seed seed of the world
+     * @param windowHeight height of the window the world was generated for
+     * @param chunkWidth width of a chunk, in pixels
+     * @param chunks the chunks of the region, from its left end, null for a chunk that wasn't generated
+     * @return number of bytes written
+     * @throws IOException on write errors
+     */
+    public static int write(Path dir, int region, int seed, int windowHeight, int chunkWidth,
+                            ChunkCache.Chunk[] chunks) throws IOException {
+        int size = HEADER_BYTES + REGION_CHUNKS * INDEX_ENTRY_BYTES;
+        for (ChunkCache.Chunk chunk : chunks) {
+            if (chunk != null)
+                size += chunk.writtenBytes();
+        }
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(MAGIC).putInt(VERSION).putInt(seed).putInt(windowHeight).putInt(chunkWidth).putInt(region);
+        int offset = HEADER_BYTES + REGION_CHUNKS * INDEX_ENTRY_BYTES;
+        for (int i = 0; i < REGION_CHUNKS; i++) {
+            int length = i < chunks.length && chunks[i] != null ? chunks[i].writtenBytes() : 0;
+            out.putInt(offset).putInt(length);
+            offset += length;
+        }
+        for (ChunkCache.Chunk chunk : chunks) {
+            if (chunk != null)
+                chunk.write(out);
+        }
+        out.flip();
+        Files.createDirectories(dir);
+        try (FileChannel channel = FileChannel.open(pathOf(dir, region), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining())
+                channel.write(out);
+        }
+        return size;
+    }
+
+    /**
+     * reads a chunk of the region, straight from the mapped file.
+     * @param chunk index of the chunk
+     * @param into the empty chunk to read into
+     * @return true if the chunk was generated, and was read
+     */
+    public boolean read(int chunk, ChunkCache.Chunk into) {
+        int entry = HEADER_BYTES + (chunk - firstChunk) * INDEX_ENTRY_BYTES;
+        int offset = data.getInt(entry), length = data.getInt(entry + Integer.BYTES);
+        if (length == 0)
+            return false;
+        // a view of its own, so reading doesn't move the position of the mapped file
+        ByteBuffer in = data.duplicate();
+        in.position(offset).limit(offset + length);
+        into.read(in);
+        return true;
+    }
+
+    /**
+     * @return size of the mapped file in bytes
+     */
+    public int size() { return data.capacity(); }
+}
@@ -0,0 +1,176 @@
+package pepse.world.streaming;
+
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import danogl.util.Vector2;
+import pepse.world.Block;
+import pepse.world.Terrain;
+import pepse.world.generation.GenerationContext;
+import pepse.world.trees.Tree;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates a range of the world ahead of the game, on every core, into region files the game reads instead of
+ * generating the world there (see PregeneratedWorld): the height of the ground and the colours of its blocks, and
+ * the trees, with the colours of their trunks and leaves.
+ * The chunks are split between the threads of a fork/join pool. Every chunk is generated on its own, with the
+ * random generator the game has for it, so the same seed gives the same regions, however many threads generate
+ * them, and the same world as the game generates where there are none.
+ */
+public class RegionPregenerator {
+    // constants
+    /**
+     * width of a chunk, in pixels, as in the game.
+     */
+    public static final int CHUNK_WIDTH = 10 * Block.SIZE;
+    private static final int DEFAULT_WINDOW_HEIGHT = 720;
+    private static final int CHUNKS_PER_TASK = 16; // fewer than that are generated without splitting
+    private static final String GROUND_TAG = "ground";
+    private static final String TRUNK_TAG = "trunk";
+    private static final String LEAF_TAG = "leaf";
+    private static final String USAGE_MSG = "usage: RegionPregenerator <regions folder> <seed> <min x> <max x> " +
+            "[window height, default 720] [threads, default every core]";
+    private static final String RESULT_MSG = "generated %d chunks in %.1f ms on %d threads: %.0f chunks/s, %.0f " +
+            "chunks/s per core%nwrote %d regions (%d KB) to %s in %.1f ms%n";
+    // fields
+    private final int seed;
+    private final ChunkCache chunks;
+    private final Terrain terrain;
+    private final Tree tree;
+
+    /**
+     * default c'tor
+     * @param seed seed of the world
+     * @param windowHeight height of the window, which the height of the ground depends on
+     */
+    public RegionPregenerator(int seed, int windowHeight) {
+        this.seed = seed;
+        this.chunks = new ChunkCache(CHUNK_WIDTH, 0);
+        // the terrain and trees only generate the world here, they don't create it
+        GameObjectCollection gameObjects = new GameObjectCollection();
+        Vector2 windowDimensions = new Vector2(0, windowHeight);
+        this.terrain = new Terrain(gameObjects, Layer.STATIC_OBJECTS, windowDimensions, seed);
+        this.tree = new Tree(gameObjects, terrain, seed, Layer.DEFAULT, Layer.DEFAULT, TRUNK_TAG, LEAF_TAG,
+                GROUND_TAG);
+    }
+
+    /**
+     * generates a chunk.
+     * @param index index of the chunk, its left end divided by the width of a chunk
+     * @return the chunk
+     */
+    public ChunkCache.Chunk generate(int index) {
+        ChunkCache.Chunk chunk = chunks.newChunk();
+        int left = index * CHUNK_WIDTH;
+        Random random = GenerationContext.randomOf(seed, left, (long) left + CHUNK_WIDTH);
+        terrain.generateInRange(chunk, left, left + CHUNK_WIDTH, random);
+        tree.generateInRange(chunk, left, left + CHUNK_WIDTH);
+        return chunk;
+    }
+
+    /**
+     * generates a row of chunks on the threads of a pool.
+     * @param pool the pool
+     * @param firstChunk index of the leftmost chunk
+     * @param count number of chunks
+     * @return the chunks, from the left
+     */
+    public ChunkCache.Chunk[] generate(ForkJoinPool pool, int firstChunk, int count) {
+        ChunkCache.Chunk[] generated = new ChunkCache.Chunk[count];
+        pool.invoke(new GenerateTask(generated, firstChunk, 0, count));
+        return generated;
+    }
+
+    // generates the chunks of a part of a row, or splits it in two
+    private class GenerateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final ChunkCache.Chunk[] generated;
+        private final int firstChunk;
+        private final int from;
+        private final int to;
+
+        GenerateTask(ChunkCache.Chunk[] generated, int firstChunk, int from, int to) {
+            this.generated = generated;
+            this.firstChunk = firstChunk;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNKS_PER_TASK) {
+                for (int i = from; i < to; i++)
+                    generated[i] = generate(firstChunk + i);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new GenerateTask(generated, firstChunk, from, middle),
+                    new GenerateTask(generated, firstChunk, middle, to));
+        }
+    }
+
+    /**
+     * writes a row of chunks into the regions holding them. The chunks of a region out of the row aren't
+     * generated.
+     * @param dir folder of the regions
+     * @param windowHeight height of the window the world was generated for
+     * @param firstChunk index of the leftmost chunk
+     * @param generated the chunks, from the left
+     * @return number of regions written, and their size in bytes
+     * @throws IOException on write errors
+     */
+    public long[] write(Path dir, int windowHeight, int firstChunk, ChunkCache.Chunk[] generated)
+            throws IOException {
+        long regions = 0, bytes = 0;
+        int lastChunk = firstChunk + generated.length - 1;
+        for (int region = RegionFile.regionOf(firstChunk); region <= RegionFile.regionOf(lastChunk); region++) {
+            ChunkCache.Chunk[] regionChunks = new ChunkCache.Chunk[RegionFile.REGION_CHUNKS];
+            for (int i = 0; i < RegionFile.REGION_CHUNKS; i++) {
+                int index = region * RegionFile.REGION_CHUNKS + i - firstChunk;
+                if (index >= 0 && index < generated.length)
+                    regionChunks[i] = generated[index];
+            }
+            bytes += RegionFile.write(dir, region, seed, windowHeight, CHUNK_WIDTH, regionChunks);
+            regions++;
+        }
+        return new long[]{regions, bytes};
+    }
+
+    /**
+     * generates a range of the world into region files.
+     * @param args the folder of the regions, the seed, the range of x to generate, and optional: the height of
+     *             the window, and the number of threads.
+     * @throws IOException on write errors
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.out.println(USAGE_MSG);
+            return;
+        }
+        Path dir = Paths.get(args[0]);
+        int seed = Integer.parseInt(args[1]);
+        int firstChunk = Math.floorDiv(Integer.parseInt(args[2]), CHUNK_WIDTH);
+        int lastChunk = Math.floorDiv(Integer.parseInt(args[3]) - 1, CHUNK_WIDTH);
+        int windowHeight = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_WINDOW_HEIGHT;
+        int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+        RegionPregenerator pregenerator = new RegionPregenerator(seed, windowHeight);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        ChunkCache.Chunk[] generated = pregenerator.generate(pool, firstChunk, lastChunk - firstChunk + 1);
+        long generateTime = System.nanoTime() - start;
+        pool.shutdown();
+        start = System.nanoTime();
+        long[] written = pregenerator.write(dir, windowHeight, firstChunk, generated);
+        long writeTime = System.nanoTime() - start;
+        double chunksPerSecond = generated.length / (generateTime / 1e9);
+        int cores = Math.min(threads, Runtime.getRuntime().availableProcessors());
+        System.out.printf(RESULT_MSG, generated.length, generateTime / 1e6, threads, chunksPerSecond,
+                chunksPerSecond / cores, written[0], written[1] / 1024, dir, writeTime / 1e6);
+    }
+}
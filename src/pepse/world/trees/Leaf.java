@@ -5,10 +5,12 @@ import danogl.collisions.Collision;
 import danogl.components.Transition;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.world.streaming.Rebasing;
 
-public class Leaf extends GameObject {
+public class Leaf extends GameObject implements Rebasing {
     //fields
     private final String groundTag;
+    private Vector2 originalLocation; // where the leaf grows back after it fell
     // constants
     private boolean transitionExist = false;
     private final int xNewVelocity = 0;
@@ -32,9 +34,26 @@ public class Leaf extends GameObject {
     public Leaf(Vector2 topLeftCorner, Vector2 dimensions, Renderable renderable, String leafTag, String groundTag) {
         super(topLeftCorner, dimensions, renderable);
         this.groundTag = groundTag;
+        this.originalLocation = topLeftCorner;
         this.setTag(leafTag);
     } // end of constructor
 
+    /**
+     * @return the place on the tree the leaf grows back to after it fell
+     */
+    public Vector2 getOriginalLocation() {
+        return originalLocation;
+    } // end of getOriginalLocation
+
+    /**
+     * Moves the place the leaf grows back to with the world
+     * @param shiftX how far the origin of the world moved
+     */
+    @Override
+    public void rebase(long shiftX) {
+        originalLocation = Rebasing.shifted(originalLocation, shiftX);
+    } // end of rebase override method
+
     /**
      * Overrides on collision
      * @param other The other object for the collision
@@ -7,15 +7,33 @@ import danogl.components.GameObjectPhysics;
 import danogl.components.ScheduledTask;
 import danogl.components.Transition;
 import danogl.gui.rendering.RectangleRenderable;
+import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.rendering.ImpostorCache;
+import pepse.rendering.ImpostorPainter;
 import pepse.world.Block;
+import pepse.world.HeightPyramid;
+import pepse.util.JobPriority;
+import pepse.util.JobQueue;
+import pepse.util.TimerWheel;
+import pepse.util.ColorSupplier;
 import pepse.world.Terrain;
+import pepse.world.physics.RestingBodies;
+import pepse.world.generation.ChunkDescriptor;
+import pepse.world.generation.ChunkGenerator;
+import pepse.world.generation.GenerationContext;
+import pepse.world.streaming.ChunkCache;
 
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
 
-public class Tree {
+public class Tree implements ChunkGenerator, ImpostorPainter {
     //constants
     private static final Color LEAF_COLOUR = new Color(50,200,30);
     private static final Color TRUNK_COLOUR =new Color(100,50,20);
@@ -36,6 +54,7 @@ public class Tree {
     private static final int FALL_DELAY = 2;
     private static final int TRANSITION_DELAY = 3;
     private static final int LEAF_FALL_RANDOM = 5;
+    private static final int PALETTE_SIZE = 64; // colours of trunks, and of leaves, to pick from
     // fields
     private final GameObjectCollection gameObjects;
     private final Terrain terrain;
@@ -46,6 +65,17 @@ public class Tree {
     private final String trunkTag;
     private final String leafTag;
     private final String groundTag;
+    private RestingBodies restingBodies = null;
+    private TimerWheel timers = null;
+    private JobQueue jobs = null;
+    private ChunkCache chunkCache = null;
+    private HeightPyramid heightPyramid = null;
+    // the trees standing over the columns of the height pyramid, by their place in the whole world
+    private final Map<Long, ChunkCache.TreeRecord> standing = new HashMap<>();
+    private final Renderable[] trunkPalette = new Renderable[PALETTE_SIZE];
+    private final Renderable[] leafPalette = new Renderable[PALETTE_SIZE];
+    private final int[] trunkRGB = new int[PALETTE_SIZE]; // the palettes as pixels, for the impostors
+    private final int[] leafRGB = new int[PALETTE_SIZE];
     /**
      * Responsible for the creation and management of trees.
      * @param gameObjects The current game object in use
@@ -69,8 +99,62 @@ public class Tree {
         this.trunkTag = trunkTag;
         this.leafTag = leafTag;
         this.groundTag = groundTag;
+        // the colour of a block of a tree is one of a palette, so it's remembered in a byte, and the palette is the
+        // same for the same seed
+        for (int i = 0; i < PALETTE_SIZE; i++) {
+            Color trunkColour = ColorSupplier.approximateColor(TRUNK_COLOUR, COLOUR_DELTA, rand);
+            Color leafColour = ColorSupplier.approximateColor(LEAF_COLOUR, LEAF_COLOUR_DELTA, rand);
+            trunkPalette[i] = new RectangleRenderable(trunkColour);
+            leafPalette[i] = new RectangleRenderable(leafColour);
+            trunkRGB[i] = trunkColour.getRGB();
+            leafRGB[i] = leafColour.getRGB();
+        }
     } // end of constructor tree
 
+    /**
+     * lets the leaves sleep while they hang still on the tree or lie on the ground.
+     * @param restingBodies the resting bodies
+     */
+    public void setRestingBodies(RestingBodies restingBodies) {
+        this.restingBodies = restingBodies;
+    } // end of method setRestingBodies
+
+    /**
+     * times the animation, fall and regrowth of the leaves with the timers of the world, instead of tasks on
+     * every leaf.
+     * @param timers the timers of the world
+     */
+    public void setTimers(TimerWheel timers) {
+        this.timers = timers;
+    } // end of method setTimers
+
+    /**
+     * creates new trees, and resets the leaves that fell, through the jobs of the world: the trunks after the
+     * ground, and the leaves after everything else.
+     * @param jobs the jobs of the world
+     */
+    public void setJobs(JobQueue jobs) {
+        this.jobs = jobs;
+    } // end of method setJobs
+
+    /**
+     * remembers the trees created, and the colours of their trunks and leaves, so a tree created again is as it
+     * was.
+     * @param chunkCache the chunks of the world
+     */
+    public void setChunkCache(ChunkCache chunkCache) {
+        this.chunkCache = chunkCache;
+    } // end of method setChunkCache
+
+    /**
+     * keeps the top of the leaves of every tree standing over the columns under them in a height pyramid, such
+     * as for the minimap. The columns of a tree removed go back to having no tree.
+     * @param heightPyramid the pyramid of the heights of the trees
+     */
+    public void setHeightPyramid(HeightPyramid heightPyramid) {
+        this.heightPyramid = heightPyramid;
+    } // end of method setHeightPyramid
+
     /**
      * This method creates trees in a given range of x-values.
      * @param minX The lower bound of the given range (will be rounded to a multiple of Block.SIZE).
@@ -84,38 +168,223 @@ public class Tree {
         }
         int distance = minX % MINIMAL_DISTANCE_BETWEEN_TREES;
         minX = minX - distance;
-        for (int i = minX; i <= maxX; i += MINIMAL_DISTANCE_BETWEEN_TREES){ // loop from minimal value for x until maximum value for x
-            Random random = new Random(Objects.hash(i, seed)); // adds tree to hash table
-            if (random.nextFloat() < ODDS)
-                create(i, random.nextInt(MAX_HEIGHT - MIN_HEIGHT) + MIN_HEIGHT);
-        } // end of for loop
+        // the trees are created through the jobs of the world, if there are
+        GenerationContext context = new GenerationContext(seed, minX, maxX + 1, chunkCache, jobs, null);
+        ChunkDescriptor trees = generate(minX, maxX + 1, context);
+        context.run(trees.priority(), trees);
     } // end of createInRange method
 
+    /**
+     * decides the trees in a range, at the places for trees in it. A tree created before is created again as it
+     * was.
+     * @param minX left of the range
+     * @param maxX right of the range, exclusive
+     * @param context the seed of the world, and what generating the range may use
+     * @return the trees of the range, created a trunk at a step. The leaves of a trunk follow it, a column at a
+     * time.
+     */
+    @Override
+    public ChunkDescriptor generate(int minX, int maxX, GenerationContext context) {
+        int first = -Math.floorDiv(-minX, MINIMAL_DISTANCE_BETWEEN_TREES) * MINIMAL_DISTANCE_BETWEEN_TREES;
+        List<ChunkCache.TreeRecord> trees = new ArrayList<>(1);
+        for (int i = first; i < maxX; i += MINIMAL_DISTANCE_BETWEEN_TREES){ // loop from minimal value for x until maximum value for x
+            ChunkCache.TreeRecord tree = treeAt(i, context);
+            if (tree.rootHeight > 0)
+                trees.add(tree);
+        } // end of for loop
+        return new Trees(trees, context);
+    } // end of method generate
+
+    // the trees of a range
+    private class Trees implements ChunkDescriptor {
+        private final List<ChunkCache.TreeRecord> trees;
+        private final GenerationContext context;
+        private int next = 0;
+
+        Trees(List<ChunkCache.TreeRecord> trees, GenerationContext context) {
+            this.trees = trees;
+            this.context = context;
+        }
+
+        @Override
+        public JobPriority priority() { return JobPriority.WORLD; }
+
+        @Override
+        public boolean step() {
+            if (next < trees.size())
+                create(trees.get(next++), context);
+            return next >= trees.size();
+        }
+    } // end of class Trees
+
+    /**
+     * generates the trees of a range into a chunk without creating them, such as for a chunk written ahead of the
+     * game. Safe to call from several threads at once, with a chunk and a random generator each.
+     * @param chunk the chunk holding the range
+     * @param minX The lower bound of the range.
+     * @param maxX The upper bound of the range, exclusive.
+     */
+    public void generateInRange(ChunkCache.Chunk chunk, int minX, int maxX) {
+        int first = -Math.floorDiv(-minX, MINIMAL_DISTANCE_BETWEEN_TREES) * MINIMAL_DISTANCE_BETWEEN_TREES;
+        for (int i = first; i < maxX; i += MINIMAL_DISTANCE_BETWEEN_TREES)
+            chunk.addTree(newTree(i));
+    } // end of method generateInRange
+
+    /**
+     * paints the trunks and leaves of the trees that reach into a tile into its impostor, over the ground, in the
+     * colours their blocks are created in. Trees that were never created are decided without being kept.
+     * @param minX left of the tile
+     * @param minY top of the tile
+     * @param originX x of the origin of the world, as trees are decided by their place in the whole world
+     * @param pixels the pixels of the impostor
+     */
+    @Override
+    public void paintImpostor(int minX, int minY, long originX, int[] pixels) {
+        int reach = Block.SIZE * (MAX_HEIGHT*2/3); // the widest top of a tree, on both sides of its trunk
+        int maxX = minX + ImpostorCache.CHUNK_WIDTH;
+        int first = -Math.floorDiv(-(minX - reach), MINIMAL_DISTANCE_BETWEEN_TREES) * MINIMAL_DISTANCE_BETWEEN_TREES;
+        for (int i = first; i < maxX + reach; i += MINIMAL_DISTANCE_BETWEEN_TREES) {
+            long worldLocation = originX + i;
+            ChunkCache.Chunk chunk = chunkCache == null ? null : chunkCache.chunkAt(i);
+            ChunkCache.TreeRecord tree = chunk != null ? chunk.tree(worldLocation) : null;
+            if (tree == null)
+                tree = newTree(worldLocation);
+            if (tree.rootHeight == 0)
+                continue;
+            int groundHeight = heightAt(i);
+            for (int j = 0; j < tree.rootHeight; j++)
+                paintBlock(minX, minY, i, groundHeight - j*Block.SIZE, trunkRGB[tree.trunkColors[j]], pixels);
+            int sizeTopTree = Block.SIZE*(tree.rootHeight*2/3);
+            int leaves = sizeTopTree/Block.SIZE + 1;
+            int col = i-sizeTopTree/HALF;
+            int row = tree.rootHeight*Block.SIZE-sizeTopTree/HALF;
+            for (int x = col; x <= col + sizeTopTree; x += Block.SIZE)
+                for (int j = row; j <= row + sizeTopTree; j += Block.SIZE)
+                    paintBlock(minX, minY, x, groundHeight - j,
+                            leafRGB[tree.leafColors[(x - col)/Block.SIZE * leaves + (j - row)/Block.SIZE]], pixels);
+        } // end of for loop
+    } // end of method paintImpostor
+
+    // paints a block of a tree into an impostor, if it's in its tile
+    private static void paintBlock(int minX, int minY, int x, int y, int colour, int[] pixels) {
+        int c = Math.floorDiv(x - minX, Block.SIZE), r = Math.floorDiv(y - minY, Block.SIZE);
+        if (c >= 0 && c < ImpostorCache.COLUMNS && r >= 0 && r < ImpostorCache.ROWS)
+            pixels[r * ImpostorCache.COLUMNS + c] = colour;
+    } // end of private method paintBlock
+
+    // the tree at a place, as it was created before, or a new one. Trees are kept and decided by their place in the
+    // whole world.
+    private ChunkCache.TreeRecord treeAt(int location, GenerationContext context) {
+        ChunkCache.Chunk chunk = context.chunkAt(location);
+        long worldLocation = context.worldX(location);
+        ChunkCache.TreeRecord tree = chunk != null ? chunk.tree(worldLocation) : null;
+        if (tree != null)
+            return tree;
+        tree = newTree(worldLocation);
+        if (chunk != null)
+            chunk.addTree(tree);
+        return tree;
+    } // end of private method treeAt
+
+    // decides whether there is a tree at a place, how high, and the colours of its blocks, the same for the same
+    // seed, so a tree is painted into an impostor in the colours it's created in
+    private ChunkCache.TreeRecord newTree(long location) {
+        Random random = new Random(Objects.hash(location, seed)); // adds tree to hash table
+        int rootHeight = random.nextFloat() < ODDS ? random.nextInt(MAX_HEIGHT - MIN_HEIGHT) + MIN_HEIGHT : 0;
+        int leaves = rootHeight*2/3 + 1;
+        byte[] trunkColors = new byte[rootHeight];
+        byte[] leafColors = new byte[leaves * leaves];
+        for (int i = 0; i < trunkColors.length; i++)
+            trunkColors[i] = (byte) random.nextInt(PALETTE_SIZE);
+        for (int i = 0; i < leafColors.length; i++)
+            leafColors[i] = (byte) random.nextInt(PALETTE_SIZE);
+        return new ChunkCache.TreeRecord(location, rootHeight, trunkColors, leafColors);
+    } // end of private method newTree
+
     // creates a tree object
-    private void create(int location, int rootHeight) {
+    private void create(ChunkCache.TreeRecord tree, GenerationContext context) {
+        int location = context.localX(tree.location), rootHeight = tree.rootHeight;
         int groundHeight = heightAt(location); // the ground height at a certain location
-        createTrunk(groundHeight, location, rootHeight); // creates the trunk
+        createTrunk(location, groundHeight, tree); // creates the trunk
         int sizeTopTree = Block.SIZE*(rootHeight*2/3);
         int col = location-sizeTopTree/HALF;
         int row = rootHeight*Block.SIZE-sizeTopTree/HALF;
-        for (int i = col; i <= (col + sizeTopTree); i+=Block.SIZE) {
-            for (int j = row; j <= row + sizeTopTree; j+=Block.SIZE) {
-                Vector2 locationOrigLeaf = new Vector2(i, groundHeight - j);
-                Leaf leaf = createLeaf(locationOrigLeaf); // creates leaf with the original location of the leaf
-                leafAnimation(leaf); //uses animation for leaf
-                createLeafFall(leaf, locationOrigLeaf); // makes the leaf to fall
-                gameObjects.addGameObject(leaf, leavesLayer); // Add leaves to the game
-            } // end of inner for loop
-        } // end of outer fol loop
+        if (heightPyramid != null) {
+            // the columns are kept by their place in the whole world, as the tree is
+            for (int i = 0; i <= sizeTopTree; i += Block.SIZE)
+                heightPyramid.raise(Math.floorDiv(tree.location - sizeTopTree/HALF + i, Block.SIZE),
+                        groundHeight - row - sizeTopTree);
+            standing.put(tree.location, tree);
+        }
+        // a column of leaves at a time, as a whole tree of them can take a few milliseconds
+        int[] next = {col};
+        context.run(JobPriority.DECORATION, () -> {
+            createLeafColumn(next[0], col, row, sizeTopTree, groundHeight, tree);
+            next[0] += Block.SIZE;
+            return next[0] > col + sizeTopTree;
+        });
     } // end of method create
 
+    /**
+     * forgets the trees outside of the range the world reaches in the height pyramid. The trees themselves are
+     * removed by the game.
+     * @param minX left of the range in the whole world
+     * @param maxX right of the range in the whole world
+     */
+    public void retainRange(long minX, long maxX) {
+        Iterator<ChunkCache.TreeRecord> iterator = standing.values().iterator();
+        while (iterator.hasNext()) {
+            ChunkCache.TreeRecord tree = iterator.next();
+            long trunkCenter = tree.location + Block.SIZE / HALF;
+            if (trunkCenter < minX || trunkCenter > maxX) {
+                lowerCrown(tree);
+                iterator.remove();
+            }
+        } // end of while loop
+    } // end of method retainRange
+
+    /**
+     * forgets every tree in the height pyramid, when the whole world is removed at once. The trees themselves are
+     * removed by the game.
+     */
+    public void clear() {
+        for (ChunkCache.TreeRecord tree : standing.values())
+            lowerCrown(tree);
+        standing.clear();
+    } // end of method clear
+
+    // takes the leaves of a tree off the columns under them. The tops of two trees never share a column, as they
+    // are narrower than the distance between trees, so the columns have no tree left.
+    private void lowerCrown(ChunkCache.TreeRecord tree) {
+        int sizeTopTree = Block.SIZE*(tree.rootHeight*2/3);
+        for (int i = 0; i <= sizeTopTree; i += Block.SIZE)
+            heightPyramid.set(Math.floorDiv(tree.location - sizeTopTree/HALF + i, Block.SIZE), HeightPyramid.NONE);
+    } // end of private method lowerCrown
+
+    // creates a column of leaves on top of a trunk
+    private void createLeafColumn(int i, int col, int row, int sizeTopTree, int groundHeight,
+                                  ChunkCache.TreeRecord tree) {
+        int leaves = sizeTopTree/Block.SIZE + 1;
+        for (int j = row; j <= row + sizeTopTree; j+=Block.SIZE) {
+            Vector2 locationOrigLeaf = new Vector2(i, groundHeight - j);
+            int colour = tree.leafColors[(i - col)/Block.SIZE * leaves + (j - row)/Block.SIZE];
+            Leaf leaf = createLeaf(locationOrigLeaf, leafPalette[colour]); // creates leaf with the original location of the leaf
+            leafAnimation(leaf); //uses animation for leaf
+            createLeafFall(leaf); // makes the leaf to fall
+            gameObjects.addGameObject(leaf, leavesLayer); // Add leaves to the game
+            if (restingBodies != null)
+                restingBodies.add(leaf, leavesLayer);
+        } // end of for loop
+    } // end of method createLeafColumn
+
     // creates a tree trunk
-    private void createTrunk(int groundHeight, int location, int rootHeight) {
+    private void createTrunk(int location, int groundHeight, ChunkCache.TreeRecord tree) {
+        int rootHeight = tree.rootHeight;
         Vector2 blockSize = new Vector2(Block.SIZE, Block.SIZE);
         for (int i = 0; i < rootHeight; i++) {
             GameObject trunk = new GameObject(
                     new Vector2(location, groundHeight - (i*Block.SIZE)), blockSize,
-                    new RectangleRenderable(pepse.util.ColorSupplier.approximateColor( TRUNK_COLOUR, COLOUR_DELTA) ));
+                    trunkPalette[tree.trunkColors[i]]);
             trunk.setTag(this.trunkTag);
             // so character can stand on the top of the tree
             if (i == rootHeight - 1) {
@@ -128,19 +397,17 @@ public class Tree {
     } // end of createTrunk method
 
     // Creates a leaf
-    private Leaf createLeaf(Vector2 location) {
-        return new Leaf(location, new Vector2(Block.SIZE, Block.SIZE),
-                new RectangleRenderable(pepse.util.ColorSupplier.approximateColor(LEAF_COLOUR, LEAF_COLOUR_DELTA))
-                ,this.leafTag, this.groundTag);
+    private Leaf createLeaf(Vector2 location, Renderable renderable) {
+        return new Leaf(location, new Vector2(Block.SIZE, Block.SIZE), renderable, this.leafTag, this.groundTag);
     } // end of private method create leaf
 
     // Animation of the leaf
     private void leafAnimation(Leaf leaf) {
         // schedule a delay for leaf angle
-        new ScheduledTask(leaf, rand.nextInt(LEAF_ANIMATION_WAIT_TIME) + DELAY, true,
+        schedule(leaf, rand.nextInt(LEAF_ANIMATION_WAIT_TIME) + DELAY, true,
                 () -> changeAngleTransition(leaf));
         // schedule a delay for leaf width
-        new ScheduledTask(leaf, rand.nextInt(LEAF_ANIMATION_WAIT_TIME) + DELAY, true,
+        schedule(leaf, rand.nextInt(LEAF_ANIMATION_WAIT_TIME) + DELAY, true,
                 () -> changeDimensionsTransition(leaf));
     } // end of private method
 
@@ -163,24 +430,37 @@ public class Tree {
     } //end of private method
 
     // In charge of the falling of the leaf
-    private void createLeafFall(Leaf leaf, Vector2 location) {
+    private void createLeafFall(Leaf leaf) {
         leaf.renderer().setOpaqueness(OPAQUENESS);
-        leaf.setTopLeftCorner(location);
-        new ScheduledTask(
+        leaf.setTopLeftCorner(leaf.getOriginalLocation());
+        schedule(
                 leaf, rand.nextInt(LEAF_FALL_WAIT_TIME) + LEAF_FALL_DELAY, false,
                 () -> {
                     leaf.leafFallTransition(leaf, rand.nextInt(LEAF_FALL_RANDOM) + FALL_DELAY);   //  transition of vertical movement
                     leaf.renderer().fadeOut(FADEOUT_TIME, () -> { // add fadeout time
-                        leafAfterFalling(leaf, location, rand.nextInt(LEAF_FALL_RANDOM));}); // end of fadeout
+                        leafAfterFalling(leaf, rand.nextInt(LEAF_FALL_RANDOM));}); // end of fadeout
                 }); // end of lambda
     } // end of private method
 
     // Initializes the leaf after task is done
-    private void leafAfterFalling(Leaf leaf, Vector2 location, int afterlifeTime) {
-        new ScheduledTask(leaf, afterlifeTime, false,
-                () -> createLeafFall(leaf, location));
+    private void leafAfterFalling(Leaf leaf, int afterlifeTime) {
+        schedule(leaf, afterlifeTime, false,
+                () -> createLeafFall(leaf));
     } // end of private method
 
+    // Calls back after a delay, through the timers of the world if there are, or a task on the leaf. With the jobs
+    // of the world, the callback is queued when it's due, so many leaves due at once are spread over frames.
+    private void schedule(Leaf leaf, float waitTime, boolean repeat, Runnable callback) {
+        if (jobs != null) {
+            Runnable job = callback;
+            callback = () -> jobs.submit(JobPriority.DECORATION, leaf, job);
+        }
+        if (timers != null)
+            timers.schedule(leaf, waitTime, repeat, callback);
+        else
+            new ScheduledTask(leaf, waitTime, repeat, callback);
+    } // end of private method schedule
+
     // The height of terrain at a certain point
     private int heightAt(int location){
         int height = (int) terrain.groundHeightAt(location);
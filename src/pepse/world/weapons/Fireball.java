@@ -2,20 +2,24 @@ package pepse.world.weapons;
 
 import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
-import danogl.gui.ImageReader;
-import danogl.gui.SoundReader;
-import danogl.gui.rendering.AnimationRenderable;
 import danogl.util.Vector2;
+import pepse.assets.AssetCache;
+import pepse.assets.AssetManifest;
+import pepse.audio.AudioMixer;
+import pepse.audio.SoundPriority;
 import pepse.world.Avatar;
+import pepse.world.lighting.LightMap;
 import pepse.world.phenomenon.Explosion;
+import pepse.world.streaming.Rebasing;
 
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Fireball is a type of weapon which fires a blast of fire from the hands of the character.
  * when the fireball hits something, it creates an explosion (see Phenomenon explosion).
  */
-public class Fireball extends Projectile{
+public class Fireball extends Projectile implements Rebasing {
     // animation and sound related
     private static final String[] FIREBALL_IMAGE_PATH = {"src/assets/fireball1.png", "src/assets/fireball2.png"};
     private static final String FIREBALL_SOUND_PATH = "src/assets/fireball.wav";
@@ -25,11 +29,15 @@ public class Fireball extends Projectile{
     private static final float ACCELERATION_X = 300;
     private static final int MAX_TRAVEL_DISTANCE = 1000;
     private static final int EXPLOSION_RADIUS = 150;
+    // the light carried by the fireball
+    private static final float LIGHT_RADIUS = 150;
+    private static final float LIGHT_INTENSITY = 0.9f;
 
     // only 1 fireball can be present at each moment.
     private static boolean isInstantiated = false;
 
-    private final float startLocation;
+    private float startLocation;
+    private LightMap.Light light = null;
 
     /**
      * default c'tor of fireball
@@ -38,21 +46,29 @@ public class Fireball extends Projectile{
      *                  true is left, false is right. (according to renderer().isFlippedHorizontally of avatar).
      * @param gameObjects gameobjects collection in order to create explosion
      * @param layer the layer on which to create the explosion
-     * @param imageReader ImageReader.
-     * @param soundReader SoundReader.
+     * @param assets asset cache.
+     * @param audio audio mixer to play the fireball and explosion sounds, may be null for silence.
+     * @param lights light map lit by the fireball and explosion, may be null.
+     * @param remover removes the objects destroyed by the explosion from the world, may be null.
      */
     public Fireball(Vector2 topLeftCorner, boolean direction, GameObjectCollection gameObjects, int layer,
-                    ImageReader imageReader, SoundReader soundReader) {
-        super(topLeftCorner, DIMENSIONS, new AnimationRenderable(FIREBALL_IMAGE_PATH, imageReader, true, TIME_BETWEEN_CLIPS),
+                    AssetCache assets, AudioMixer audio, LightMap lights, Predicate<GameObject> remover) {
+        super(topLeftCorner, DIMENSIONS, assets.readAnimation(FIREBALL_IMAGE_PATH, TIME_BETWEEN_CLIPS),
                 gameObjects, ACCELERATION_X, direction);
         Fireball.isInstantiated = true;
         // get starting location of the fireball to calculate maximum travel distance
         this.startLocation = topLeftCorner.x();
-        soundReader.readSound(FIREBALL_SOUND_PATH).play();
+        if (audio != null)
+            audio.play(FIREBALL_SOUND_PATH, SoundPriority.NORMAL, topLeftCorner);
+        if (lights != null)
+            this.light = lights.addLight(this, LIGHT_RADIUS, LIGHT_INTENSITY);
         // hit effect callback, which creates an explosion & remove the fireball from the game.
         Consumer<Vector2> hitEffect = hitLocation -> {
             gameObjects.removeGameObject(this, layer);
-            Explosion.create(gameObjects, hitLocation, EXPLOSION_RADIUS, imageReader, layer, soundReader);
+            if (light != null)
+                lights.removeLight(light);
+            Explosion.create(gameObjects, hitLocation, EXPLOSION_RADIUS, assets, audio, lights, remover,
+                    layer);
             Fireball.isInstantiated = false;
         };
         this.setHitEffect(hitEffect);
@@ -66,15 +82,19 @@ public class Fireball extends Projectile{
      *                 true is left, false is right. (according to renderer().isFlippedHorizontally of avatar).
      * @param gameObjects gameobjects collection in order to create explosion
      * @param layer the layer on which to create the explosion
-     * @param imageReader ImageReader.
-     * @param soundReader SoundReader.
+     * @param assets asset cache.
+     * @param audio audio mixer to play the fireball and explosion sounds, may be null for silence.
+     * @param lights light map lit by the fireball and explosion, may be null.
+     * @param remover removes the objects destroyed by the explosion from the world, may be null.
      * @return
      */
     public static Fireball create(Vector2 topLeftCorner, boolean direction, GameObjectCollection gameObjects,
-                                  int layer, ImageReader imageReader, SoundReader soundReader) {
+                                  int layer, AssetCache assets, AudioMixer audio, LightMap lights,
+                                  Predicate<GameObject> remover) {
         // create only if there are no fireballs in-game.
         if (!Fireball.isInstantiated) {
-            Fireball fireball = new Fireball(topLeftCorner, direction, gameObjects, layer, imageReader, soundReader);
+            Fireball fireball = new Fireball(topLeftCorner, direction, gameObjects, layer, assets, audio, lights,
+                    remover);
             gameObjects.addGameObject(fireball, layer);
             return fireball;
         }
@@ -82,6 +102,20 @@ public class Fireball extends Projectile{
             return null;
     }
 
+    /**
+     * lets another fireball be fired, once this one was removed from the world without hitting anything, such as
+     * by a teleport.
+     */
+    public void removed() { isInstantiated = false; }
+
+    /**
+     * declare the assets of the fireball, so they are loaded at startup.
+     * @param manifest the asset manifest
+     */
+    public static void declareAssets(AssetManifest manifest) {
+        manifest.addSpriteAnimation(FIREBALL_IMAGE_PATH, TIME_BETWEEN_CLIPS, DIMENSIONS).addStreamedSound(FIREBALL_SOUND_PATH);
+    }
+
     /**
      * the fireball doesn't collide with the avatar or explosions.
      * @param other the object colliding with the fireball
@@ -92,6 +126,13 @@ public class Fireball extends Projectile{
         return (!other.getTag().equals(Avatar.AVATAR_TAG) && !other.getTag().equals(Explosion.EXPLOSION_TAG));
     }
 
+    /**
+     * moves the starting location of the fireball with the world.
+     * @param shiftX how far the origin of the world moved
+     */
+    @Override
+    public void rebase(long shiftX) { startLocation = (float) (startLocation - (double) shiftX); }
+
     /**
      * checks if the fireball has traveled more than the maximum travel distance, and if so calls hitEffect.
      * @param deltaTime game time
@@ -5,6 +5,7 @@ import danogl.collisions.Collision;
 import danogl.collisions.GameObjectCollection;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.world.hibernation.Hibernating;
 
 import java.util.function.Consumer;
 
@@ -12,8 +13,10 @@ import java.util.function.Consumer;
  * abstract class of a Projectile in the game.
  * A projectile gets an acceleration in a given direction, and can set a callback Consumer to be called
  * when the projectile hits something.
+ * A projectile is never paused far from the player: it lives until it hits something, so it keeps flying at full
+ * detail while asleep.
  */
-public abstract class Projectile extends GameObject {
+public abstract class Projectile extends GameObject implements Hibernating {
     protected final GameObjectCollection gameObjects;
     // the hit effect that happens when the projectile hits something.
     private Consumer<Vector2> hitEffect = null;
@@ -65,4 +68,11 @@ public abstract class Projectile extends GameObject {
         super.onCollisionEnter(other, collision);
         runHitEffect(this.getCenter());
     }
+
+    /**
+     * a projectile asleep is updated as usual.
+     * @param deltaTime game time
+     */
+    @Override
+    public void coarseUpdate(float deltaTime) { update(deltaTime); }
 }